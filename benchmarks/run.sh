@@ -0,0 +1,18 @@
+#!/usr/bin/env sh
+# Buduje aplikacje i uruchamia benchmarki JMH.
+# Wynik (z profilerem gc - alokacja na operacje) trafia do benchmarks/results/<commit>.json,
+# np. do porownania dwoch commitow:
+#   ./benchmarks/run.sh                 - wszystkie benchmarki
+#   ./benchmarks/run.sh BookFactory     - tylko pasujace do wyrazenia
+set -e
+
+ROOT_DIR=$(cd "$(dirname "$0")/.." && pwd)
+INCLUDE=${1:-.*}
+COMMIT=$(git -C "$ROOT_DIR" rev-parse --short HEAD 2>/dev/null || echo local)
+
+mkdir -p "$ROOT_DIR/benchmarks/results"
+
+mvn -q -f "$ROOT_DIR/pom.xml" install -DskipTests -Djacoco.skip=true
+mvn -q -f "$ROOT_DIR/benchmarks/pom.xml" compile exec:exec \
+    -Djmh.include="$INCLUDE" \
+    -Djmh.resultFile="$ROOT_DIR/benchmarks/results/$COMMIT.json"
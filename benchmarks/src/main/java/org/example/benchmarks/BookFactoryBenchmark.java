@@ -0,0 +1,60 @@
+package org.example.benchmarks;
+
+import org.example.factory.BookFactory;
+import org.example.model.AbstractBook;
+import org.example.model.BookType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+// tworzenie ksiazek przez BookFactory i formatowanie getDisplayInfo
+// "unknown" idzie sciezka wyjatku z BookType.valueOf (fallback na ksiazke fizyczna)
+// createBookFromEnum tworzy ten sam typ co createBookFromString, tylko bez parsowania nazwy
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BookFactoryBenchmark {
+
+    @Param({"PHYSICAL", "EBOOK", "AUDIOBOOK", "unknown"})
+    private String bookType;
+
+    private BookFactory bookFactory;
+    private BookType resolvedType;
+    private AbstractBook book;
+
+    @Setup
+    public void setUp() {
+        bookFactory = new BookFactory();
+        book = bookFactory.createBook(bookType, "The Pragmatic Programmer", "Andrew Hunt", 3, 5);
+        // dla "unknown" fabryka tworzy ksiazke fizyczna
+        resolvedType = "unknown".equals(bookType) ? BookType.PHYSICAL : BookType.valueOf(bookType);
+    }
+
+    @Benchmark
+    public AbstractBook createBookFromString() {
+        return bookFactory.createBook(bookType, "The Pragmatic Programmer", "Andrew Hunt", 3, 5);
+    }
+
+    @Benchmark
+    public AbstractBook createBookFromEnum() {
+        return bookFactory.createBook(resolvedType, "The Pragmatic Programmer", "Andrew Hunt", 3, 5);
+    }
+
+    @Benchmark
+    public String displayInfo() {
+        return book.getDisplayInfo();
+    }
+}
@@ -0,0 +1,80 @@
+package org.example.benchmarks;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.example.factory.BookFactory;
+import org.example.model.AbstractBook;
+import org.example.model.BookType;
+import org.example.model.Borrowing;
+import org.example.model.BorrowingStatus;
+import org.example.model.Role;
+import org.example.model.User;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// serializacja list ksiazek i wypozyczen do JSON - ObjectMapper skonfigurowany jak w Spring MVC
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JsonSerializationBenchmark {
+
+    @Param({"10", "100", "1000"})
+    private int size;
+
+    private ObjectMapper objectMapper;
+    private List<AbstractBook> books;
+    private List<Borrowing> borrowings;
+
+    @Setup
+    public void setUp() {
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+
+        BookFactory bookFactory = new BookFactory();
+        BookType[] types = BookType.values();
+        User user = new User("benchmark", "password", "benchmark@bookstore.com", Role.USER);
+        user.setId(1L);
+
+        books = new ArrayList<>(size);
+        borrowings = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            AbstractBook book = bookFactory.createBook(types[i % types.length], "Title " + i, "Author " + i, 3, 5);
+            book.setId((long) i);
+            book.setGenre("Genre " + (i % 10));
+            book.setPublicationYear(1950 + i % 70);
+            books.add(book);
+
+            Borrowing borrowing = new Borrowing(user, book, BorrowingStatus.BORROWED,
+                    LocalDate.of(2024, 1, 1), LocalDate.of(2024, 1, 15));
+            borrowing.setId((long) i);
+            borrowings.add(borrowing);
+        }
+    }
+
+    @Benchmark
+    public byte[] serializeBooks() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(books);
+    }
+
+    @Benchmark
+    public byte[] serializeBorrowings() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(borrowings);
+    }
+}
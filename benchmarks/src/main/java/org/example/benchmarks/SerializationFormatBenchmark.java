@@ -0,0 +1,94 @@
+package org.example.benchmarks;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.example.factory.BookFactory;
+import org.example.model.AbstractBook;
+import org.example.model.BookType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+// koszt CPU i rozmiar odpowiedzi listy ksiazek w formatach JSON, CBOR i Smile, bez i z gzip
+// rozmiary (bajty surowe i po gzip) sa wypisywane w setupie kazdej kombinacji parametrow
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SerializationFormatBenchmark {
+
+    @Param({"json", "cbor", "smile"})
+    private String format;
+
+    @Param({"100", "1000"})
+    private int size;
+
+    private ObjectMapper objectMapper;
+    private List<AbstractBook> books;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        objectMapper = mapperFor(format);
+
+        BookFactory bookFactory = new BookFactory();
+        BookType[] types = BookType.values();
+        books = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            AbstractBook book = bookFactory.createBook(types[i % types.length], "Title " + i, "Author " + i, 3, 5);
+            book.setId((long) i);
+            book.setGenre("Genre " + (i % 10));
+            book.setPublicationYear(1950 + i % 70);
+            books.add(book);
+        }
+
+        System.out.printf("%nformat=%s size=%d bytes=%d gzipBytes=%d%n",
+                format, size, serialize().length, serializeGzip().length);
+    }
+
+    @Benchmark
+    public byte[] serialize() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(books);
+    }
+
+    // serializacja + kompresja jak w server.compression (domyslny poziom Deflatera)
+    @Benchmark
+    public byte[] serializeGzip() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(bytes)) {
+            objectMapper.writeValue(gzip, books);
+        }
+        return bytes.toByteArray();
+    }
+
+    // ObjectMapper skonfigurowany jak konwertery HTTP w SerializationConfig
+    private static ObjectMapper mapperFor(String format) {
+        Jackson2ObjectMapperBuilder builder = Jackson2ObjectMapperBuilder.json();
+        switch (format) {
+            case "cbor" -> builder.factory(new CBORFactory());
+            case "smile" -> builder.factory(new SmileFactory());
+            default -> { }
+        }
+        return builder.build();
+    }
+}
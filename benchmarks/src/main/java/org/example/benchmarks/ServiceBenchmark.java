@@ -0,0 +1,137 @@
+package org.example.benchmarks;
+
+import org.example.BookstoreApplication;
+import org.example.model.AbstractBook;
+import org.example.model.BookType;
+import org.example.model.Borrowing;
+import org.example.repository.BookRepository;
+import org.example.service.BookService;
+import org.example.service.BorrowingService;
+import org.example.service.UserService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// sciezki serwisow na pelnym kontekscie Springa z baza H2 w pamieci
+// (JPA, transakcje, routing DataSource, metryki - wszystko jak w aplikacji, bez sieci i Postgresa)
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ServiceBenchmark {
+
+    private static final String USERNAME = "benchmark";
+    private static final int BOOK_COUNT = 1000;
+
+    private ConfigurableApplicationContext context;
+    private BookService bookService;
+    private BorrowingService borrowingService;
+    private BookRepository bookRepository;
+    private TransactionTemplate readOnlyTransaction;
+    private TransactionTemplate readWriteTransaction;
+    private Long bookId;
+
+    // kazdy watek benchmarku musi miec wlasny SecurityContext (getCurrentUser)
+    @State(Scope.Thread)
+    public static class AuthenticatedUser {
+
+        @Setup(Level.Trial)
+        public void authenticate() {
+            SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken(
+                    USERNAME, null, Collections.singletonList(new SimpleGrantedAuthority("ROLE_USER"))));
+        }
+
+        @TearDown(Level.Trial)
+        public void clear() {
+            SecurityContextHolder.clearContext();
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void startApplication() {
+        // argumenty maja pierwszenstwo przed application.properties z jara aplikacji
+        context = new SpringApplicationBuilder(BookstoreApplication.class).run(
+                "--server.port=0",
+                "--spring.datasource.url=jdbc:h2:mem:benchmark;DB_CLOSE_DELAY=-1",
+                "--spring.datasource.driver-class-name=org.h2.Driver",
+                "--spring.datasource.username=sa",
+                "--spring.datasource.password=",
+                "--spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+                "--spring.jpa.hibernate.ddl-auto=create-drop",
+                "--spring.flyway.enabled=false",
+                "--bookstore.slow-query.threshold-ms=60000",
+                "--logging.level.root=WARN");
+
+        bookService = context.getBean(BookService.class);
+        borrowingService = context.getBean(BorrowingService.class);
+        bookRepository = context.getBean(BookRepository.class);
+
+        PlatformTransactionManager transactionManager = context.getBean("transactionManager", PlatformTransactionManager.class);
+        readOnlyTransaction = new TransactionTemplate(transactionManager);
+        readOnlyTransaction.setReadOnly(true);
+        readWriteTransaction = new TransactionTemplate(transactionManager);
+
+        context.getBean(UserService.class).registerUser(USERNAME, "password", "benchmark@bookstore.com",
+                "Bench", "Mark");
+
+        BookType[] types = BookType.values();
+        for (int i = 0; i < BOOK_COUNT; i++) {
+            // duzo kopii - kazde wypozyczenie w benchmarku jest od razu zwracane
+            AbstractBook book = bookService.createBook("Title " + i, "Author " + (i % 100), 1950 + i % 70,
+                    "Genre " + (i % 10), 1_000_000, types[i % types.length].name());
+            if (bookId == null) {
+                bookId = book.getId();
+            }
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void stopApplication() {
+        context.close();
+    }
+
+    @Benchmark
+    public Borrowing borrowAndReturnBook(AuthenticatedUser user) {
+        Borrowing borrowing = borrowingService.borrowBook(bookId);
+        return borrowingService.returnBook(borrowing.getId());
+    }
+
+    @Benchmark
+    public List<AbstractBook> searchBooks() {
+        return bookService.searchBooks("Title 42");
+    }
+
+    // porownanie kosztu tej samej listy w transakcji tylko do odczytu i zwyklej
+    // (readOnly: FlushMode.MANUAL i brak snapshotow encji do dirty checkingu)
+    @Benchmark
+    public List<AbstractBook> listBooksReadOnlyTransaction() {
+        return readOnlyTransaction.execute(status -> bookRepository.findAll());
+    }
+
+    @Benchmark
+    public List<AbstractBook> listBooksReadWriteTransaction() {
+        return readWriteTransaction.execute(status -> bookRepository.findAll());
+    }
+}
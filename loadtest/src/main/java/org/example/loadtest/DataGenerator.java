@@ -0,0 +1,320 @@
+package org.example.loadtest;
+
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Properties;
+import java.util.Random;
+import java.util.Set;
+
+// generuje syntetyczne dane (ksiazki, uzytkownicy, historia wypozyczen) w istniejacym schemacie
+// aplikacji - schemat tworzy Flyway/Hibernate przy pierwszym starcie aplikacji na tej bazie
+//
+// mvn -f loadtest/pom.xml compile exec:java -Dloadtest.main=org.example.loadtest.DataGenerator \
+//     -Dexec.args="--url=jdbc:postgresql://localhost:5432/bookstore?reWriteBatchedInserts=true --books=1000000"
+public class DataGenerator {
+
+    private static final String[] GENRES = {"Fiction", "Fantasy", "Science Fiction", "Romance", "Thriller",
+            "History", "Biography", "Science", "Poetry", "Children"};
+    static final int AUTHOR_COUNT = 5000;
+    private static final int HISTORY_DAYS = 3 * 365;
+
+    private final Options options;
+    private final Random random;
+    private final int batchSize;
+
+    DataGenerator(Options options) {
+        this.options = options;
+        this.random = new Random(options.getLong("seed", 42));
+        this.batchSize = options.getInt("batch-size", 1000);
+    }
+
+    public static void main(String[] args) throws Exception {
+        new DataGenerator(Options.parse(args)).run();
+    }
+
+    void run() throws SQLException, IOException {
+        int bookCount = options.getInt("books", 1_000_000);
+        int userCount = options.getInt("users", 100_000);
+        long borrowingCount = options.getLong("borrowings", 5_000_000);
+        String usernamePrefix = options.get("user-prefix", "loaduser");
+        String password = options.get("user-password", "loadtest");
+
+        try (Connection connection = DriverManager.getConnection(
+                options.get("url", "jdbc:postgresql://localhost:5432/bookstore?reWriteBatchedInserts=true"),
+                options.get("username", "myuser"),
+                options.get("password", "mypassword"))) {
+            connection.setAutoCommit(false);
+
+            long start = System.nanoTime();
+            long[] bookIds = insertBooks(connection, bookCount);
+            log("books", bookCount, start);
+
+            start = System.nanoTime();
+            long[] userIds = insertUsers(connection, userCount, usernamePrefix, password);
+            log("users", userCount, start);
+
+            start = System.nanoTime();
+            insertBorrowings(connection, bookIds, userIds, borrowingCount);
+            log("borrowings", borrowingCount, start);
+
+            start = System.nanoTime();
+            insertBorrowingSummaries(connection, userIds);
+            log("borrowing summaries", userIds.length, start);
+
+            writeDataset(bookIds, userCount, usernamePrefix, password);
+        }
+    }
+
+    private long[] insertBooks(Connection connection, int count) throws SQLException {
+        long previousMaxId = maxId(connection, "books");
+        // version podany jawnie - schemat z Hibernate (ddl-auto) nie ma wartosci domyslnej z V2
+        String sql = "INSERT INTO books (title, author, publication_year, genre, available_copies, total_copies, book_type, version) "
+                + "VALUES (?, ?, ?, ?, ?, ?, ?, 0)";
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            for (int i = 0; i < count; i++) {
+                int copies = 1 + random.nextInt(10);
+                statement.setString(1, bookTitle(i));
+                statement.setString(2, authorName(random.nextInt(AUTHOR_COUNT)));
+                statement.setInt(3, 1900 + random.nextInt(125));
+                statement.setString(4, GENRES[random.nextInt(GENRES.length)]);
+                statement.setInt(5, copies);
+                statement.setInt(6, copies);
+                statement.setString(7, bookType());
+                statement.addBatch();
+                flushBatch(connection, statement, i + 1);
+            }
+            statement.executeBatch();
+            connection.commit();
+        }
+        return idsAbove(connection, "books", previousMaxId);
+    }
+
+    // tytuly i autorzy ze stala szerokoscia numeru - WorkloadDriver wyszukuje po nich konkretne ksiazki
+    static String bookTitle(int index) {
+        return String.format("Load Book %07d", index);
+    }
+
+    static String authorName(int index) {
+        return String.format("Author %04d", index);
+    }
+
+    // 60% fizyczne, 25% ebooki, 15% audiobooki
+    private String bookType() {
+        int roll = random.nextInt(100);
+        if (roll < 60) {
+            return "PHYSICAL";
+        }
+        return roll < 85 ? "EBOOK" : "AUDIOBOOK";
+    }
+
+    private long[] insertUsers(Connection connection, int count, String prefix, String password) throws SQLException {
+        long previousMaxId = maxId(connection, "users");
+        // BCrypt liczony raz - przy milionach uzytkownikow hashowanie trwaloby godzinami
+        String passwordHash = new BCryptPasswordEncoder().encode(password);
+        String sql = "INSERT INTO users (username, password, email, first_name, last_name, role) VALUES (?, ?, ?, ?, ?, 'USER')";
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            for (int i = 0; i < count; i++) {
+                statement.setString(1, prefix + i);
+                statement.setString(2, passwordHash);
+                statement.setString(3, prefix + i + "@loadtest.local");
+                statement.setString(4, "Load");
+                statement.setString(5, "User " + i);
+                statement.addBatch();
+                flushBatch(connection, statement, i + 1);
+            }
+            statement.executeBatch();
+            connection.commit();
+        }
+        return idsAbove(connection, "users", previousMaxId);
+    }
+
+    // historia wypozyczen: ksiazka z rozkladu Zipfa, uzytkownik jednostajnie
+    // czesc wypozyczen zostaje aktywna (BORROWED/OVERDUE), ale nigdy wiecej niz liczba kopii ksiazki
+    // i nigdy dwa aktywne wypozyczenia tej samej ksiazki przez jednego uzytkownika
+    private void insertBorrowings(Connection connection, long[] bookIds, long[] userIds, long count) throws SQLException {
+        ZipfSampler bookSampler = new ZipfSampler(bookIds.length, options.getDouble("zipf", 1.0), options.getLong("seed", 42));
+        double activeRatio = options.getDouble("active-ratio", 0.05);
+        int[] activePerBook = new int[bookIds.length];
+        int[] totalCopies = loadTotalCopies(connection, bookIds);
+        Set<Long> activePairs = new HashSet<>();
+        LocalDate today = LocalDate.now();
+
+        String sql = "INSERT INTO borrowings (user_id, book_id, status, borrow_date, due_date, return_date, created_at, updated_at) "
+                + "VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            for (long i = 0; i < count; i++) {
+                int bookIndex = bookSampler.sample(random);
+                int userIndex = random.nextInt(userIds.length);
+                long pair = (long) userIndex * bookIds.length + bookIndex;
+
+                boolean active = random.nextDouble() < activeRatio
+                        && activePerBook[bookIndex] < totalCopies[bookIndex]
+                        && activePairs.add(pair);
+
+                LocalDate borrowDate = active
+                        ? today.minusDays(random.nextInt(30))
+                        : today.minusDays(30 + random.nextInt(HISTORY_DAYS));
+                LocalDate dueDate = borrowDate.plusDays(14);
+                String status;
+                LocalDate returnDate = null;
+                if (active) {
+                    activePerBook[bookIndex]++;
+                    status = dueDate.isBefore(today) ? "OVERDUE" : "BORROWED";
+                } else {
+                    status = "RETURNED";
+                    returnDate = borrowDate.plusDays(1 + random.nextInt(21));
+                }
+                Timestamp createdAt = Timestamp.valueOf(borrowDate.atStartOfDay());
+                Timestamp updatedAt = Timestamp.valueOf(returnDate != null ? returnDate.atStartOfDay() : LocalDateTime.now());
+
+                statement.setLong(1, userIds[userIndex]);
+                statement.setLong(2, bookIds[bookIndex]);
+                statement.setString(3, status);
+                statement.setDate(4, Date.valueOf(borrowDate));
+                statement.setDate(5, Date.valueOf(dueDate));
+                statement.setDate(6, returnDate != null ? Date.valueOf(returnDate) : null);
+                statement.setTimestamp(7, createdAt);
+                statement.setTimestamp(8, updatedAt);
+                statement.addBatch();
+                flushBatch(connection, statement, i + 1);
+            }
+            statement.executeBatch();
+            connection.commit();
+        }
+
+        // dostepne kopie zgodne z aktywnymi wypozyczeniami
+        try (PreparedStatement statement = connection.prepareStatement(
+                "UPDATE books SET available_copies = total_copies - ? WHERE id = ?")) {
+            long updated = 0;
+            for (int i = 0; i < bookIds.length; i++) {
+                if (activePerBook[i] == 0) {
+                    continue;
+                }
+                statement.setInt(1, activePerBook[i]);
+                statement.setLong(2, bookIds[i]);
+                statement.addBatch();
+                flushBatch(connection, statement, ++updated);
+            }
+            statement.executeBatch();
+            connection.commit();
+        }
+    }
+
+    // aplikacja utrzymuje user_borrowing_summary przyrostowo, a wypozyczenia wpisane z pominieciem
+    // aplikacji nie zmieniaja licznikow - podsumowania nowych uzytkownikow liczone jak w V6
+    private void insertBorrowingSummaries(Connection connection, long[] userIds) throws SQLException {
+        if (userIds.length == 0) {
+            return;
+        }
+        String sql = "INSERT INTO user_borrowing_summary (user_id, reserved_count, borrowed_count, overdue_count, "
+                + "returned_count, next_due_date, last_activity_at) "
+                + "SELECT user_id, "
+                + "SUM(CASE WHEN status = 'RESERVED' THEN 1 ELSE 0 END), "
+                + "SUM(CASE WHEN status = 'BORROWED' THEN 1 ELSE 0 END), "
+                + "SUM(CASE WHEN status = 'OVERDUE' THEN 1 ELSE 0 END), "
+                + "SUM(CASE WHEN status = 'RETURNED' THEN 1 ELSE 0 END), "
+                + "MIN(CASE WHEN status IN ('BORROWED', 'OVERDUE') THEN due_date END), "
+                + "MAX(updated_at) "
+                + "FROM borrowings WHERE user_id >= ? AND user_id <= ? GROUP BY user_id";
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            statement.setLong(1, userIds[0]);
+            statement.setLong(2, userIds[userIds.length - 1]);
+            statement.executeUpdate();
+            connection.commit();
+        }
+    }
+
+    private int[] loadTotalCopies(Connection connection, long[] bookIds) throws SQLException {
+        int[] totalCopies = new int[bookIds.length];
+        try (PreparedStatement statement = connection.prepareStatement(
+                "SELECT total_copies FROM books WHERE id >= ? AND id <= ? ORDER BY id")) {
+            statement.setFetchSize(10_000);
+            statement.setLong(1, bookIds[0]);
+            statement.setLong(2, bookIds[bookIds.length - 1]);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                int i = 0;
+                while (resultSet.next() && i < totalCopies.length) {
+                    totalCopies[i++] = resultSet.getInt(1);
+                }
+            }
+        }
+        return totalCopies;
+    }
+
+    private void flushBatch(Connection connection, PreparedStatement statement, long rows) throws SQLException {
+        if (rows % batchSize == 0) {
+            statement.executeBatch();
+        }
+        // commit co 50 paczek, zeby nie trzymac jednej ogromnej transakcji
+        if (rows % (batchSize * 50L) == 0) {
+            connection.commit();
+        }
+    }
+
+    private long maxId(Connection connection, String table) throws SQLException {
+        try (Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery("SELECT COALESCE(MAX(id), 0) FROM " + table)) {
+            resultSet.next();
+            return resultSet.getLong(1);
+        }
+    }
+
+    private long[] idsAbove(Connection connection, String table, long previousMaxId) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(
+                "SELECT id FROM " + table + " WHERE id > ? ORDER BY id")) {
+            statement.setFetchSize(10_000);
+            statement.setLong(1, previousMaxId);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                long[] ids = new long[1024];
+                int size = 0;
+                while (resultSet.next()) {
+                    if (size == ids.length) {
+                        ids = Arrays.copyOf(ids, size * 2);
+                    }
+                    ids[size++] = resultSet.getLong(1);
+                }
+                return Arrays.copyOf(ids, size);
+            }
+        }
+    }
+
+    // parametry zbioru danych dla WorkloadDriver (czyta je jako wartosci domyslne)
+    private void writeDataset(long[] bookIds, int userCount, String prefix, String password) throws IOException {
+        Path file = Path.of(options.get("dataset-file", "target/dataset.properties"));
+        if (file.getParent() != null) {
+            Files.createDirectories(file.getParent());
+        }
+        Properties dataset = new Properties();
+        dataset.setProperty("book-min-id", Long.toString(bookIds[0]));
+        dataset.setProperty("book-max-id", Long.toString(bookIds[bookIds.length - 1]));
+        dataset.setProperty("users", Integer.toString(userCount));
+        dataset.setProperty("user-prefix", prefix);
+        dataset.setProperty("user-password", password);
+        dataset.setProperty("zipf", options.get("zipf", "1.0"));
+        try (OutputStream output = Files.newOutputStream(file)) {
+            dataset.store(output, "Generated by DataGenerator");
+        }
+        System.out.println("Dataset description written to " + file.toAbsolutePath());
+    }
+
+    private static void log(String what, long rows, long startNanos) {
+        double seconds = (System.nanoTime() - startNanos) / 1e9;
+        System.out.printf("Inserted %,d %s in %.1f s (%,.0f rows/s)%n", rows, what, seconds, rows / seconds);
+    }
+}
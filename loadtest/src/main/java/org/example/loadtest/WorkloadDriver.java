@@ -0,0 +1,310 @@
+package org.example.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayDeque;
+import java.util.Base64;
+import java.util.Deque;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+// mieszany ruch na REST API (wyszukiwanie, wypozyczenie, zwrot, historia) dla danych z DataGenerator
+// raportuje przepustowosc i percentyle opoznien (HdrHistogram) dla kazdej operacji
+//
+// --rate=0 (domyslnie) - petla zamknieta, kazdy watek wysyla kolejne zadanie po odpowiedzi
+// --rate=N            - stale tempo N zadan/s; opoznienie liczone od planowanego startu,
+//                       wiec przestoje serwera nie znikaja z wynikow (coordinated omission)
+//
+// mvn -f loadtest/pom.xml compile exec:java -Dexec.args="--threads=32 --duration-s=120 --rate=500"
+public class WorkloadDriver {
+
+    enum Operation { SEARCH, BORROW, RETURN, HISTORY }
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    private final HttpClient httpClient;
+    private final String baseUrl;
+    private final int threads;
+    private final long durationNanos;
+    private final long warmupNanos;
+    private final double rate;
+    private final int[] cumulativeWeights = new int[Operation.values().length];
+
+    private final int userCount;
+    private final String userPrefix;
+    private final String userPassword;
+    private final long bookMinId;
+    private final ZipfSampler bookSampler;
+
+    private final Map<Operation, Recorder> latencies = new EnumMap<>(Operation.class);
+    private final Map<Operation, LongAdder> successes = new EnumMap<>(Operation.class);
+    private final Map<Operation, LongAdder> rejections = new EnumMap<>(Operation.class);
+    private final Map<Operation, LongAdder> errors = new EnumMap<>(Operation.class);
+
+    WorkloadDriver(Options options) {
+        this.baseUrl = options.get("base-url", "http://localhost:8080");
+        this.threads = options.getInt("threads", 32);
+        this.durationNanos = TimeUnit.SECONDS.toNanos(options.getLong("duration-s", 60));
+        this.warmupNanos = TimeUnit.SECONDS.toNanos(options.getLong("warmup-s", 10));
+        this.rate = options.getDouble("rate", 0);
+
+        int total = 0;
+        for (Operation operation : Operation.values()) {
+            total += options.getInt("mix-" + operation.name().toLowerCase(), defaultWeight(operation));
+            cumulativeWeights[operation.ordinal()] = total;
+        }
+
+        this.userCount = options.getInt("users", 100_000);
+        this.userPrefix = options.get("user-prefix", "loaduser");
+        this.userPassword = options.get("user-password", "loadtest");
+        this.bookMinId = options.getLong("book-min-id", 1);
+        long bookMaxId = options.getLong("book-max-id", 1_000_000);
+        this.bookSampler = new ZipfSampler((int) (bookMaxId - bookMinId + 1), options.getDouble("zipf", 1.0),
+                options.getLong("seed", 42));
+
+        this.httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+
+        for (Operation operation : Operation.values()) {
+            latencies.put(operation, new Recorder(3));
+            successes.put(operation, new LongAdder());
+            rejections.put(operation, new LongAdder());
+            errors.put(operation, new LongAdder());
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        Options options = Options.parse(args);
+        options.withDefaultsFrom(Path.of(options.get("dataset-file", "target/dataset.properties")));
+        new WorkloadDriver(options).run(Path.of(options.get("report-dir", "target/loadtest-"
+                + LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss")))));
+    }
+
+    // 60% wyszukiwanie, 15% wypozyczenie, 10% zwrot, 15% historia
+    private static int defaultWeight(Operation operation) {
+        switch (operation) {
+            case SEARCH:
+                return 60;
+            case BORROW:
+                return 15;
+            case RETURN:
+                return 10;
+            default:
+                return 15;
+        }
+    }
+
+    void run(Path reportDir) throws InterruptedException, IOException {
+        long start = System.nanoTime();
+        long measurementStart = start + warmupNanos;
+        long end = measurementStart + durationNanos;
+        CountDownLatch finished = new CountDownLatch(threads);
+
+        for (int i = 0; i < threads; i++) {
+            Thread worker = new Thread(() -> {
+                try {
+                    work(end);
+                } finally {
+                    finished.countDown();
+                }
+            }, "loadtest-" + i);
+            worker.setDaemon(true);
+            worker.start();
+        }
+
+        System.out.printf("Warming up for %d s against %s...%n", TimeUnit.NANOSECONDS.toSeconds(warmupNanos), baseUrl);
+        TimeUnit.NANOSECONDS.sleep(warmupNanos);
+        // odrzuc wszystko z rozgrzewki
+        for (Operation operation : Operation.values()) {
+            latencies.get(operation).getIntervalHistogram();
+            successes.get(operation).reset();
+            rejections.get(operation).reset();
+            errors.get(operation).reset();
+        }
+        System.out.printf("Measuring for %d s...%n", TimeUnit.NANOSECONDS.toSeconds(durationNanos));
+        finished.await();
+        double seconds = (System.nanoTime() - measurementStart) / 1e9;
+
+        report(reportDir, seconds);
+    }
+
+    private void work(long endNanos) {
+        Random random = ThreadLocalRandom.current();
+        // wypozyczenia tego watku czekajace na zwrot: [numer uzytkownika, id wypozyczenia]
+        Deque<long[]> openBorrowings = new ArrayDeque<>();
+        long intervalNanos = rate > 0 ? (long) (threads * 1e9 / rate) : 0;
+        long intendedStart = System.nanoTime();
+
+        while (true) {
+            if (intervalNanos > 0) {
+                intendedStart += intervalNanos;
+                long sleepNanos = intendedStart - System.nanoTime();
+                if (sleepNanos > 0) {
+                    sleepQuietly(sleepNanos);
+                }
+            } else {
+                intendedStart = System.nanoTime();
+            }
+            if (intendedStart >= endNanos) {
+                return;
+            }
+
+            Operation operation = pickOperation(random);
+            if (operation == Operation.RETURN && openBorrowings.isEmpty()) {
+                operation = Operation.BORROW;
+            }
+            int status = execute(operation, random, openBorrowings);
+
+            latencies.get(operation).recordValue(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - intendedStart));
+            if (status >= 200 && status < 300) {
+                successes.get(operation).increment();
+            } else if (status >= 400 && status < 500) {
+                rejections.get(operation).increment();
+            } else {
+                errors.get(operation).increment();
+            }
+        }
+    }
+
+    private Operation pickOperation(Random random) {
+        int roll = random.nextInt(cumulativeWeights[cumulativeWeights.length - 1]);
+        for (Operation operation : Operation.values()) {
+            if (roll < cumulativeWeights[operation.ordinal()]) {
+                return operation;
+            }
+        }
+        return Operation.SEARCH;
+    }
+
+    // zwraca status HTTP albo -1 przy bledzie sieci
+    private int execute(Operation operation, Random random, Deque<long[]> openBorrowings) {
+        try {
+            switch (operation) {
+                case SEARCH: {
+                    // 80% konkretny tytul (popularnosc wg Zipfa), 20% wszystkie ksiazki autora
+                    String term = random.nextInt(100) < 80
+                            ? DataGenerator.bookTitle(bookSampler.sample(random))
+                            : DataGenerator.authorName(random.nextInt(DataGenerator.AUTHOR_COUNT));
+                    return send(get("/api/books/search?q=" + URLEncoder.encode(term, StandardCharsets.UTF_8),
+                            random.nextInt(userCount))).statusCode();
+                }
+                case BORROW: {
+                    int user = random.nextInt(userCount);
+                    long bookId = bookMinId + bookSampler.sample(random);
+                    HttpResponse<String> response = send(post("/api/borrowings/borrow/" + bookId, user));
+                    if (response.statusCode() == 200) {
+                        JsonNode borrowing = OBJECT_MAPPER.readTree(response.body());
+                        openBorrowings.addLast(new long[]{user, borrowing.get("id").asLong()});
+                    }
+                    return response.statusCode();
+                }
+                case RETURN: {
+                    long[] borrowing = openBorrowings.removeFirst();
+                    return send(post("/api/borrowings/return/" + borrowing[1], (int) borrowing[0])).statusCode();
+                }
+                default:
+                    return send(get("/api/borrowings/my-history", random.nextInt(userCount))).statusCode();
+            }
+        } catch (IOException e) {
+            return -1;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return -1;
+        }
+    }
+
+    private HttpRequest.Builder get(String path, int user) {
+        return request(path, user).GET();
+    }
+
+    private HttpRequest.Builder post(String path, int user) {
+        return request(path, user).POST(HttpRequest.BodyPublishers.noBody());
+    }
+
+    private HttpRequest.Builder request(String path, int user) {
+        String credentials = userPrefix + user + ":" + userPassword;
+        return HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .timeout(Duration.ofSeconds(30))
+                .header("Accept", "application/json")
+                .header("Authorization", "Basic "
+                        + Base64.getEncoder().encodeToString(credentials.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private HttpResponse<String> send(HttpRequest.Builder request) throws IOException, InterruptedException {
+        return httpClient.send(request.build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    private static void sleepQuietly(long nanos) {
+        try {
+            TimeUnit.NANOSECONDS.sleep(nanos);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // tabela na konsole, summary.csv oraz pelne rozklady percentyli (.hgrm) dla kazdej operacji
+    private void report(Path reportDir, double seconds) throws IOException {
+        Files.createDirectories(reportDir);
+        StringBuilder csv = new StringBuilder("operation,ok,rejected,errors,throughput_per_s,p50_ms,p95_ms,p99_ms,p999_ms,max_ms\n");
+
+        System.out.printf("%n%-8s %9s %9s %7s %10s %9s %9s %9s %9s %9s%n",
+                "op", "ok", "rejected", "errors", "req/s", "p50 ms", "p95 ms", "p99 ms", "p99.9 ms", "max ms");
+        Histogram total = new Histogram(3);
+        for (Operation operation : Operation.values()) {
+            Histogram histogram = latencies.get(operation).getIntervalHistogram();
+            total.add(histogram);
+            String row = row(operation.name().toLowerCase(), histogram, seconds,
+                    successes.get(operation).sum(), rejections.get(operation).sum(), errors.get(operation).sum());
+            csv.append(row).append('\n');
+
+            try (PrintStream hgrm = new PrintStream(
+                    Files.newOutputStream(reportDir.resolve(operation.name().toLowerCase() + ".hgrm")))) {
+                histogram.outputPercentileDistribution(hgrm, 1000.0);
+            }
+        }
+        long ok = successes.values().stream().mapToLong(LongAdder::sum).sum();
+        long rejected = rejections.values().stream().mapToLong(LongAdder::sum).sum();
+        long failed = errors.values().stream().mapToLong(LongAdder::sum).sum();
+        csv.append(row("total", total, seconds, ok, rejected, failed)).append('\n');
+
+        Files.writeString(reportDir.resolve("summary.csv"), csv.toString());
+        System.out.println("\nReport written to " + reportDir.toAbsolutePath());
+    }
+
+    private static String row(String name, Histogram histogram, double seconds, long ok, long rejected, long failed) {
+        double throughput = histogram.getTotalCount() / seconds;
+        double p50 = histogram.getValueAtPercentile(50) / 1000.0;
+        double p95 = histogram.getValueAtPercentile(95) / 1000.0;
+        double p99 = histogram.getValueAtPercentile(99) / 1000.0;
+        double p999 = histogram.getValueAtPercentile(99.9) / 1000.0;
+        double max = histogram.getMaxValue() / 1000.0;
+        System.out.printf("%-8s %9d %9d %7d %10.1f %9.2f %9.2f %9.2f %9.2f %9.2f%n",
+                name, ok, rejected, failed, throughput, p50, p95, p99, p999, max);
+        return String.format(Locale.ROOT, "%s,%d,%d,%d,%.1f,%.3f,%.3f,%.3f,%.3f,%.3f",
+                name, ok, rejected, failed, throughput, p50, p95, p99, p999, max);
+    }
+}
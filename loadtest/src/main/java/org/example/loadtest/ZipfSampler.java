@@ -0,0 +1,47 @@
+package org.example.loadtest;
+
+import java.util.Arrays;
+import java.util.Random;
+
+// losuje indeksy 0..n-1 z rozkladem Zipfa - kilka procent ksiazek dostaje wiekszosc wypozyczen
+// ranking popularnosci jest losowa permutacja, zeby popularne ksiazki nie mialy najnizszych ID
+final class ZipfSampler {
+
+    private final double[] cumulative;
+    private final int[] rankToIndex;
+
+    ZipfSampler(int n, double exponent, long seed) {
+        if (n <= 0) {
+            throw new IllegalArgumentException("Zipf sampler needs at least one element");
+        }
+        cumulative = new double[n];
+        double sum = 0;
+        for (int rank = 0; rank < n; rank++) {
+            sum += 1.0 / Math.pow(rank + 1, exponent);
+            cumulative[rank] = sum;
+        }
+        for (int rank = 0; rank < n; rank++) {
+            cumulative[rank] /= sum;
+        }
+
+        rankToIndex = new int[n];
+        for (int i = 0; i < n; i++) {
+            rankToIndex[i] = i;
+        }
+        Random random = new Random(seed);
+        for (int i = n - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int tmp = rankToIndex[i];
+            rankToIndex[i] = rankToIndex[j];
+            rankToIndex[j] = tmp;
+        }
+    }
+
+    int sample(Random random) {
+        int rank = Arrays.binarySearch(cumulative, random.nextDouble());
+        if (rank < 0) {
+            rank = -rank - 1;
+        }
+        return rankToIndex[Math.min(rank, rankToIndex.length - 1)];
+    }
+}
@@ -0,0 +1,48 @@
+package org.example.archive;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+// ustawienia archiwizacji zamknietych wypozyczen (bookstore.archive.*)
+@ConfigurationProperties("bookstore.archive")
+public class ArchiveProperties {
+
+    private boolean enabled = true;
+    // wypozyczenia zwrocone (lub wygasle) dawniej niz tyle dni temu trafiaja do archiwum
+    private int retentionDays = 365;
+    // wiersze przenoszone jedna transakcja
+    private int batchSize = 1000;
+    // ograniczenie pracy jednego przebiegu; reszta zostaje na kolejna noc
+    private int maxBatchesPerRun = 500;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public int getRetentionDays() {
+        return retentionDays;
+    }
+
+    public void setRetentionDays(int retentionDays) {
+        this.retentionDays = retentionDays;
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public void setBatchSize(int batchSize) {
+        this.batchSize = batchSize;
+    }
+
+    public int getMaxBatchesPerRun() {
+        return maxBatchesPerRun;
+    }
+
+    public void setMaxBatchesPerRun(int maxBatchesPerRun) {
+        this.maxBatchesPerRun = maxBatchesPerRun;
+    }
+}
@@ -0,0 +1,61 @@
+package org.example.archive;
+
+import org.example.repository.BorrowingArchiveBatchRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+
+// nocne przenoszenie dawno zamknietych wypozyczen z borrowings do partycjonowanego archiwum
+// tabela biezaca zostaje mala (aktywne wypozyczenia i ostatni rok historii), wiec indeksy po statusie
+// i terminie pozostaja selektywne; kazda partia to osobna krotka transakcja na puli "batch"
+public class BorrowingArchiveJob {
+
+    private static final Logger log = LoggerFactory.getLogger(BorrowingArchiveJob.class);
+
+    private final BorrowingArchiveBatchRepository archiveBatchRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final ArchiveProperties properties;
+
+    public BorrowingArchiveJob(BorrowingArchiveBatchRepository archiveBatchRepository,
+                               PlatformTransactionManager batchTransactionManager, ArchiveProperties properties) {
+        this.archiveBatchRepository = archiveBatchRepository;
+        this.transactionTemplate = new TransactionTemplate(batchTransactionManager);
+        this.properties = properties;
+    }
+
+    // dziala tylko przy wlaczonym harmonogramie (SchedulingConfig)
+    @Scheduled(cron = "${bookstore.archive.cron:0 30 3 * * *}")
+    public void runScheduled() {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        int archived = archive(LocalDate.now());
+        if (archived > 0) {
+            log.info("Archived {} closed borrowings", archived);
+        }
+    }
+
+    // przenosi wypozyczenia zamkniete przed today - retentionDays, zwraca liczbe przeniesionych
+    public int archive(LocalDate today) {
+        LocalDate returnedBefore = today.minusDays(properties.getRetentionDays());
+        for (Integer year : archiveBatchRepository.findArchivableYears(returnedBefore)) {
+            archiveBatchRepository.ensureYearPartition(year);
+        }
+
+        int total = 0;
+        for (int i = 0; i < properties.getMaxBatchesPerRun(); i++) {
+            Integer moved = transactionTemplate.execute(
+                    status -> archiveBatchRepository.moveBatch(returnedBefore, properties.getBatchSize()));
+            int count = moved == null ? 0 : moved;
+            total += count;
+            if (count < properties.getBatchSize()) {
+                break;
+            }
+        }
+        return total;
+    }
+}
@@ -0,0 +1,275 @@
+package org.example.availability;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.MediaType;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+// rozsyla zmiany dostepnosci ksiazek do klientow SSE
+// - subskrypcja na wybrane ksiazki (indeks bookId -> subskrybenci) albo na wszystkie
+// - kazdy subskrybent ma bufor "ostatni stan na ksiazke", wiec szybkie zmiany tej samej ksiazki
+//   w oknie coalesce-ms zlewaja sie w jedno zdarzenie
+// - bufor jest ograniczony (max-buffered-events); klient, ktory nie nadaza, jest rozlaczany
+//   i po ponownym polaczeniu dostaje aktualny stan zamiast zaleglej historii
+// - wysylka odbywa sie na wlasnej ograniczonej puli nadawcow (nigdy na watku zatwierdzajacym transakcje
+//   ani na watku timera); zapis dluzszy niz send-timeout-ms rozlacza klienta, a pelna kolejka odklada
+//   flush o kolejne okno coalesce-ms, wiec jeden zablokowany klient nie wstrzymuje pozostalych
+public class AvailabilityStream {
+
+    private static final Logger log = LoggerFactory.getLogger(AvailabilityStream.class);
+
+    static final String EVENT_NAME = "availability";
+
+    private final AvailabilityStreamProperties properties;
+    // tylko odliczanie (okno zlewania, heartbeat, limit czasu zapisu) - bez operacji wejscia/wyjscia
+    private final ScheduledExecutorService scheduler;
+    private final ThreadPoolExecutor sender;
+    private final Map<Long, Set<Subscriber>> subscribersByBook = new ConcurrentHashMap<>();
+    private final Set<Subscriber> allBooksSubscribers = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger subscriberCount = new AtomicInteger();
+
+    public AvailabilityStream(AvailabilityStreamProperties properties) {
+        this.properties = properties;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(daemonThreads("availability-stream-timer-"));
+        this.sender = new ThreadPoolExecutor(properties.getSenderThreads(), properties.getSenderThreads(),
+                0L, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(properties.getSendQueueCapacity()),
+                daemonThreads("availability-stream-sender-"), new ThreadPoolExecutor.AbortPolicy());
+        scheduler.scheduleWithFixedDelay(this::sendHeartbeats,
+                properties.getHeartbeatMs(), properties.getHeartbeatMs(), TimeUnit.MILLISECONDS);
+    }
+
+    // nowa subskrypcja; pusty zbior bookIds oznacza wszystkie ksiazki
+    // initialState (aktualny stan subskrybowanych ksiazek) jest pobierany dopiero po sprawdzeniu limitow
+    // i wysylany jako pierwszy
+    public SseEmitter subscribe(Set<Long> bookIds, Supplier<Collection<BookAvailabilityEvent>> initialState) {
+        if (bookIds.size() > properties.getMaxBooksPerSubscription()) {
+            throw new IllegalArgumentException("Too many books in subscription, max "
+                    + properties.getMaxBooksPerSubscription());
+        }
+        if (subscriberCount.incrementAndGet() > properties.getMaxSubscribers()) {
+            subscriberCount.decrementAndGet();
+            throw new IllegalStateException("Too many availability subscribers");
+        }
+
+        SseEmitter emitter = createEmitter(properties.getTimeoutMs());
+        Subscriber subscriber = new Subscriber(Set.copyOf(bookIds), emitter);
+        emitter.onCompletion(() -> unsubscribe(subscriber));
+        emitter.onTimeout(() -> unsubscribe(subscriber));
+        emitter.onError(error -> unsubscribe(subscriber));
+
+        if (subscriber.bookIds.isEmpty()) {
+            allBooksSubscribers.add(subscriber);
+        } else {
+            for (Long bookId : subscriber.bookIds) {
+                subscribersByBook.computeIfAbsent(bookId, key -> ConcurrentHashMap.newKeySet()).add(subscriber);
+            }
+        }
+        initialState.get().forEach(subscriber::offer);
+        return emitter;
+    }
+
+    // po zatwierdzeniu transakcji (wycofane wypozyczenie nie wysyla zdarzenia); poza transakcja od razu
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onAvailabilityChanged(BookAvailabilityEvent event) {
+        Set<Subscriber> bookSubscribers = subscribersByBook.get(event.bookId());
+        if (bookSubscribers != null) {
+            bookSubscribers.forEach(subscriber -> subscriber.offer(event));
+        }
+        allBooksSubscribers.forEach(subscriber -> subscriber.offer(event));
+    }
+
+    public int getSubscriberCount() {
+        return subscriberCount.get();
+    }
+
+    // zamykane przez Spring razem z kontekstem (metoda shutdown jest wykrywana dla @Bean)
+    public void shutdown() {
+        scheduler.shutdownNow();
+        sender.shutdownNow();
+        allSubscribers().forEach(subscriber -> subscriber.emitter.complete());
+    }
+
+    protected SseEmitter createEmitter(long timeoutMs) {
+        return new SseEmitter(timeoutMs);
+    }
+
+    private void unsubscribe(Subscriber subscriber) {
+        if (!subscriber.markClosed()) {
+            return;
+        }
+        subscriberCount.decrementAndGet();
+        allBooksSubscribers.remove(subscriber);
+        for (Long bookId : subscriber.bookIds) {
+            subscribersByBook.computeIfPresent(bookId, (key, subscribers) -> {
+                subscribers.remove(subscriber);
+                return subscribers.isEmpty() ? null : subscribers;
+            });
+        }
+    }
+
+    // komentarz SSE utrzymuje polaczenie przez proxy i pozwala wykryc rozlaczonych klientow;
+    // przy pelnej kolejce heartbeat jest pomijany - kolejny pojdzie za heartbeat-ms
+    private void sendHeartbeats() {
+        for (Subscriber subscriber : allSubscribers()) {
+            submit(subscriber, () -> subscriber.emitter.send(SseEmitter.event().comment("keep-alive")));
+        }
+    }
+
+    // zapis na puli nadawcow; false, gdy kolejka jest pelna
+    private boolean submit(Subscriber subscriber, SendTask task) {
+        try {
+            sender.execute(() -> write(subscriber, task));
+        } catch (RejectedExecutionException e) {
+            return false;
+        }
+        return true;
+    }
+
+    // limit czasu liczy sie od poczatku zapisu (nie od wejscia do kolejki), wiec czekajacy za zablokowanym
+    // klientem nie sa rozlaczani; po jego przekroczeniu subskrybent jest wypisywany, a zapis przerywany
+    private void write(Subscriber subscriber, SendTask task) {
+        Thread writer = Thread.currentThread();
+        AtomicBoolean writing = new AtomicBoolean(true);
+        ScheduledFuture<?> watchdog = scheduler.schedule(() -> {
+            if (writing.compareAndSet(true, false)) {
+                log.debug("Disconnecting availability subscriber, write took longer than {} ms",
+                        properties.getSendTimeoutMs());
+                unsubscribe(subscriber);
+                writer.interrupt();
+            }
+        }, properties.getSendTimeoutMs(), TimeUnit.MILLISECONDS);
+        try {
+            task.send();
+        } catch (IOException | IllegalStateException e) {
+            unsubscribe(subscriber);
+        } finally {
+            watchdog.cancel(false);
+            if (!writing.compareAndSet(true, false)) {
+                // przerwanie od watchdoga nie moze przejsc na kolejne zadanie tego watku
+                Thread.interrupted();
+            }
+        }
+    }
+
+    private static ThreadFactory daemonThreads(String prefix) {
+        AtomicInteger threadNumber = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    @FunctionalInterface
+    private interface SendTask {
+        void send() throws IOException;
+    }
+
+    private List<Subscriber> allSubscribers() {
+        List<Subscriber> subscribers = new ArrayList<>(allBooksSubscribers);
+        subscribersByBook.values().forEach(subscribers::addAll);
+        return subscribers;
+    }
+
+    private class Subscriber {
+
+        private final Set<Long> bookIds;
+        private final SseEmitter emitter;
+        // ostatni stan kazdej ksiazki czekajacy na wysylke (kolejnosc pierwszej zmiany)
+        private final Map<Long, BookAvailabilityEvent> pending = new LinkedHashMap<>();
+        private boolean flushScheduled;
+        private boolean closed;
+
+        Subscriber(Set<Long> bookIds, SseEmitter emitter) {
+            this.bookIds = bookIds;
+            this.emitter = emitter;
+        }
+
+        void offer(BookAvailabilityEvent event) {
+            boolean overflow = false;
+            boolean schedule = false;
+            synchronized (this) {
+                if (closed) {
+                    return;
+                }
+                pending.put(event.bookId(), event);
+                if (pending.size() > properties.getMaxBufferedEvents()) {
+                    overflow = true;
+                } else if (!flushScheduled) {
+                    flushScheduled = true;
+                    schedule = true;
+                }
+            }
+            if (overflow) {
+                log.debug("Disconnecting slow availability subscriber, more than {} events pending",
+                        properties.getMaxBufferedEvents());
+                unsubscribe(this);
+                // przy pelnej kolejce polaczenie zamknie timeout emitera
+                submit(this, emitter::complete);
+            } else if (schedule) {
+                scheduleFlush();
+            }
+        }
+
+        private void scheduleFlush() {
+            scheduler.schedule(() -> {
+                if (!submit(this, this::flush)) {
+                    // kolejka nadawcow pelna - zmiany dalej sie zlewaja, a limit bufora chroni pamiec
+                    scheduleFlush();
+                }
+            }, properties.getCoalesceMs(), TimeUnit.MILLISECONDS);
+        }
+
+        // jeden flush na subskrybenta naraz, wiec zdarzenia tej samej ksiazki nie zmienia kolejnosci
+        private void flush() throws IOException {
+            List<BookAvailabilityEvent> batch;
+            synchronized (this) {
+                batch = new ArrayList<>(pending.values());
+                pending.clear();
+            }
+            for (BookAvailabilityEvent event : batch) {
+                emitter.send(SseEmitter.event()
+                        .name(EVENT_NAME)
+                        .data(event, MediaType.APPLICATION_JSON));
+            }
+            synchronized (this) {
+                if (pending.isEmpty() || closed) {
+                    flushScheduled = false;
+                    return;
+                }
+            }
+            scheduleFlush();
+        }
+
+        // true tylko przy pierwszym zamknieciu
+        synchronized boolean markClosed() {
+            if (closed) {
+                return false;
+            }
+            closed = true;
+            pending.clear();
+            return true;
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package org.example.availability;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+// strumien zmian dostepnosci ksiazek (bookstore.availability-stream.*)
+@ConfigurationProperties("bookstore.availability-stream")
+public class AvailabilityStreamProperties {
+
+    // zmiany tej samej ksiazki w tym oknie trafiaja do klienta jako jedno zdarzenie (ostatni stan)
+    private long coalesceMs = 250;
+    // limit zaleglych zdarzen na subskrybenta - wolny klient jest rozlaczany zamiast zbierac pamiec
+    private int maxBufferedEvents = 100;
+    private int maxSubscribers = 1000;
+    private int maxBooksPerSubscription = 100;
+    private long timeoutMs = 1800000;
+    private long heartbeatMs = 30000;
+    // pula zapisujaca do klientow; przy pelnej kolejce flush jest odkladany, a heartbeat pomijany
+    private int senderThreads = 4;
+    private int sendQueueCapacity = 2000;
+    // zapis do jednego klienta dluzszy niz ten limit rozlacza klienta i zwalnia watek nadawcy
+    private long sendTimeoutMs = 5000;
+
+    public long getCoalesceMs() {
+        return coalesceMs;
+    }
+
+    public void setCoalesceMs(long coalesceMs) {
+        this.coalesceMs = coalesceMs;
+    }
+
+    public int getMaxBufferedEvents() {
+        return maxBufferedEvents;
+    }
+
+    public void setMaxBufferedEvents(int maxBufferedEvents) {
+        this.maxBufferedEvents = maxBufferedEvents;
+    }
+
+    public int getMaxSubscribers() {
+        return maxSubscribers;
+    }
+
+    public void setMaxSubscribers(int maxSubscribers) {
+        this.maxSubscribers = maxSubscribers;
+    }
+
+    public int getMaxBooksPerSubscription() {
+        return maxBooksPerSubscription;
+    }
+
+    public void setMaxBooksPerSubscription(int maxBooksPerSubscription) {
+        this.maxBooksPerSubscription = maxBooksPerSubscription;
+    }
+
+    public long getTimeoutMs() {
+        return timeoutMs;
+    }
+
+    public void setTimeoutMs(long timeoutMs) {
+        this.timeoutMs = timeoutMs;
+    }
+
+    public long getHeartbeatMs() {
+        return heartbeatMs;
+    }
+
+    public void setHeartbeatMs(long heartbeatMs) {
+        this.heartbeatMs = heartbeatMs;
+    }
+
+    public int getSenderThreads() {
+        return senderThreads;
+    }
+
+    public void setSenderThreads(int senderThreads) {
+        this.senderThreads = senderThreads;
+    }
+
+    public int getSendQueueCapacity() {
+        return sendQueueCapacity;
+    }
+
+    public void setSendQueueCapacity(int sendQueueCapacity) {
+        this.sendQueueCapacity = sendQueueCapacity;
+    }
+
+    public long getSendTimeoutMs() {
+        return sendTimeoutMs;
+    }
+
+    public void setSendTimeoutMs(long sendTimeoutMs) {
+        this.sendTimeoutMs = sendTimeoutMs;
+    }
+}
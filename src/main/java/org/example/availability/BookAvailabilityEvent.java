@@ -0,0 +1,12 @@
+package org.example.availability;
+
+import org.example.model.AbstractBook;
+
+// zmiana liczby dostepnych egzemplarzy ksiazki, publikowana przez serwisy po wypozyczeniu,
+// zwrocie i edycji ksiazki; do subskrybentow trafia dopiero po zatwierdzeniu transakcji
+public record BookAvailabilityEvent(Long bookId, int availableCopies, int totalCopies) {
+
+    public static BookAvailabilityEvent of(AbstractBook book) {
+        return new BookAvailabilityEvent(book.getId(), book.getAvailableCopies(), book.getTotalCopies());
+    }
+}
@@ -0,0 +1,23 @@
+package org.example.config;
+
+import org.example.archive.ArchiveProperties;
+import org.example.archive.BorrowingArchiveJob;
+import org.example.repository.BorrowingArchiveBatchRepository;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.transaction.PlatformTransactionManager;
+
+// archiwizacja zamknietych wypozyczen (bookstore.archive.*)
+@Configuration
+@EnableConfigurationProperties(ArchiveProperties.class)
+public class ArchiveConfig {
+
+    @Bean
+    public BorrowingArchiveJob borrowingArchiveJob(BorrowingArchiveBatchRepository archiveBatchRepository,
+                                                   @Qualifier("batchTransactionManager") PlatformTransactionManager batchTransactionManager,
+                                                   ArchiveProperties properties) {
+        return new BorrowingArchiveJob(archiveBatchRepository, batchTransactionManager, properties);
+    }
+}
@@ -0,0 +1,18 @@
+package org.example.config;
+
+import org.example.availability.AvailabilityStream;
+import org.example.availability.AvailabilityStreamProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+// strumien SSE ze zmianami dostepnosci ksiazek (bookstore.availability-stream.*)
+@Configuration
+@EnableConfigurationProperties(AvailabilityStreamProperties.class)
+public class AvailabilityStreamConfig {
+
+    @Bean
+    public AvailabilityStream availabilityStream(AvailabilityStreamProperties properties) {
+        return new AvailabilityStream(properties);
+    }
+}
@@ -0,0 +1,146 @@
+package org.example.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.observation.ObservationRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import org.example.monitoring.MonitoredDataSource;
+import org.example.monitoring.SlowQueryLogger;
+import org.example.monitoring.StatementListener;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.jdbc.support.JdbcTransactionManager;
+import org.springframework.orm.jpa.JpaTransactionManager;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// konfiguracja pul polaczen do bazy danych
+// pula "interactive" obsluguje ruch z API (JPA), pula "batch" zadania administracyjne
+// (sweep przeterminowanych wypozyczen, eksporty, importy), wiec dlugie zadanie
+// nigdy nie zabierze polaczen potrzebnych np. dla borrowBook
+// opcjonalna pula "replica" obsluguje transakcje tylko do odczytu (bookstore.datasource.replica.*)
+@Configuration
+public class DataSourceConfig {
+
+    @Bean
+    @Primary
+    @ConfigurationProperties("spring.datasource")
+    public DataSourceProperties dataSourceProperties() {
+        return new DataSourceProperties();
+    }
+
+    // pula dla ruchu interaktywnego, ustawienia z spring.datasource.hikari.*
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties dataSourceProperties) {
+        return dataSourceProperties.initializeDataSourceBuilder()
+                .type(HikariDataSource.class)
+                .build();
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "bookstore.datasource.replica.enabled", havingValue = "true")
+    @ConfigurationProperties("bookstore.datasource.replica")
+    public DataSourceProperties replicaDataSourceProperties() {
+        return new DataSourceProperties();
+    }
+
+    // pula dla odczytow z repliki, ustawienia z bookstore.datasource.replica.hikari.*
+    @Bean
+    @ConditionalOnProperty(name = "bookstore.datasource.replica.enabled", havingValue = "true")
+    @ConfigurationProperties("bookstore.datasource.replica.hikari")
+    public HikariDataSource replicaDataSource(
+            @Qualifier("replicaDataSourceProperties") DataSourceProperties replicaDataSourceProperties) {
+        return replicaDataSourceProperties.initializeDataSourceBuilder()
+                .type(HikariDataSource.class)
+                .build();
+    }
+
+    // sluchacze zapytan SQL podpinani pod obie pule (na razie log wolnych zapytan)
+    @Bean
+    public SlowQueryLogger slowQueryLogger(@Value("${bookstore.slow-query.threshold-ms:200}") long thresholdMillis) {
+        return new SlowQueryLogger(thresholdMillis);
+    }
+
+    @Bean
+    public ReadYourWritesTracker readYourWritesTracker(
+            @Value("${bookstore.datasource.replica.read-your-writes-window-ms:5000}") long readYourWritesWindowMillis) {
+        return new ReadYourWritesTracker(readYourWritesWindowMillis);
+    }
+
+    // glowny DataSource uzywany przez JPA i Flyway - routing primary/replica
+    // bez wlaczonej repliki odczyty tez trafiaja do puli primary
+    @Bean
+    @Primary
+    public DataSource dataSource(@Qualifier("primaryDataSource") DataSource primaryDataSource,
+                                 @Qualifier("replicaDataSource") ObjectProvider<DataSource> replicaDataSource,
+                                 ReadYourWritesTracker readYourWritesTracker,
+                                 List<StatementListener> statementListeners,
+                                 ObjectProvider<ObservationRegistry> observationRegistry) {
+        ReplicaRoutingDataSource routingDataSource = new ReplicaRoutingDataSource(readYourWritesTracker);
+
+        Map<Object, Object> targetDataSources = new HashMap<>();
+        targetDataSources.put(ReplicaRoutingDataSource.PRIMARY, primaryDataSource);
+        targetDataSources.put(ReplicaRoutingDataSource.REPLICA, replicaDataSource.getIfAvailable(() -> primaryDataSource));
+        routingDataSource.setTargetDataSources(targetDataSources);
+        routingDataSource.setDefaultTargetDataSource(primaryDataSource);
+        routingDataSource.afterPropertiesSet();
+
+        LazyConnectionDataSourceProxy lazyDataSource = new LazyConnectionDataSourceProxy();
+        lazyDataSource.setTargetDataSource(routingDataSource);
+        lazyDataSource.setDefaultAutoCommit(true);
+        lazyDataSource.setDefaultTransactionIsolation(Connection.TRANSACTION_READ_COMMITTED);
+        lazyDataSource.afterPropertiesSet();
+        return new MonitoredDataSource(lazyDataSource, statementListeners,
+                observationRegistry.getIfAvailable(() -> ObservationRegistry.NOOP));
+    }
+
+    // osobna pula dla zadan wsadowych, ustawienia z bookstore.datasource.batch.hikari.*
+    @Bean
+    @ConfigurationProperties("bookstore.datasource.batch.hikari")
+    public HikariDataSource batchDataSource(DataSourceProperties dataSourceProperties) {
+        return dataSourceProperties.initializeDataSourceBuilder()
+                .type(HikariDataSource.class)
+                .build();
+    }
+
+    // JdbcTemplate i menadzer transakcji musza dzielic ten sam obiekt DataSource
+    @Bean
+    public DataSource monitoredBatchDataSource(@Qualifier("batchDataSource") DataSource batchDataSource,
+                                               List<StatementListener> statementListeners,
+                                               ObjectProvider<ObservationRegistry> observationRegistry) {
+        return new MonitoredDataSource(batchDataSource, statementListeners,
+                observationRegistry.getIfAvailable(() -> ObservationRegistry.NOOP));
+    }
+
+    @Bean
+    public JdbcTemplate batchJdbcTemplate(@Qualifier("monitoredBatchDataSource") DataSource batchDataSource) {
+        return new JdbcTemplate(batchDataSource);
+    }
+
+    // wlasny menadzer transakcji wylacza domyslny z autokonfiguracji, wiec deklarujemy tez JPA
+    @Bean
+    @Primary
+    public PlatformTransactionManager transactionManager(EntityManagerFactory entityManagerFactory) {
+        return new JpaTransactionManager(entityManagerFactory);
+    }
+
+    @Bean
+    public PlatformTransactionManager batchTransactionManager(
+            @Qualifier("monitoredBatchDataSource") DataSource batchDataSource) {
+        return new JdbcTransactionManager(batchDataSource);
+    }
+}
@@ -0,0 +1,41 @@
+package org.example.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.example.monitoring.ServiceMetrics;
+import org.example.notification.FileNotificationSender;
+import org.example.notification.LoggingNotificationSender;
+import org.example.notification.NotificationPipeline;
+import org.example.notification.NotificationProperties;
+import org.example.notification.NotificationRenderer;
+import org.example.notification.NotificationSender;
+import org.example.repository.BorrowingBatchRepository;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+// przypomnienia o terminach zwrotu (bookstore.notifications.*); nadawca to plik JSONL (sender-file) albo log
+@Configuration
+@EnableConfigurationProperties(NotificationProperties.class)
+public class NotificationConfig {
+
+    @Bean
+    public NotificationSender notificationSender(NotificationProperties properties, ObjectMapper objectMapper)
+            throws IOException {
+        if (properties.getSenderFile() != null && !properties.getSenderFile().isBlank()) {
+            return new FileNotificationSender(Path.of(properties.getSenderFile()), objectMapper);
+        }
+        return new LoggingNotificationSender();
+    }
+
+    @Bean
+    public NotificationPipeline notificationPipeline(BorrowingBatchRepository borrowingBatchRepository,
+                                                     NotificationSender notificationSender,
+                                                     ServiceMetrics serviceMetrics,
+                                                     NotificationProperties properties) {
+        return new NotificationPipeline(borrowingBatchRepository, new NotificationRenderer(),
+                notificationSender, serviceMetrics, properties);
+    }
+}
@@ -0,0 +1,40 @@
+package org.example.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.example.outbox.FileOutboxEventSink;
+import org.example.outbox.LoggingOutboxEventSink;
+import org.example.outbox.OutboxEventSink;
+import org.example.outbox.OutboxProperties;
+import org.example.outbox.OutboxRelay;
+import org.example.repository.OutboxBatchRepository;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+// wysylka zdarzen z outboxa (bookstore.outbox.*); odbiorca to plik JSONL (sink-file) albo log
+@Configuration
+@EnableConfigurationProperties(OutboxProperties.class)
+public class OutboxConfig {
+
+    @Bean
+    public OutboxEventSink outboxEventSink(OutboxProperties properties, ObjectMapper objectMapper) throws IOException {
+        if (properties.getSinkFile() != null && !properties.getSinkFile().isBlank()) {
+            return new FileOutboxEventSink(Path.of(properties.getSinkFile()), objectMapper);
+        }
+        return new LoggingOutboxEventSink();
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "bookstore.outbox.relay.enabled", havingValue = "true", matchIfMissing = true)
+    public OutboxRelay outboxRelay(OutboxBatchRepository outboxBatchRepository, OutboxEventSink outboxEventSink,
+                                   @Qualifier("batchTransactionManager") PlatformTransactionManager batchTransactionManager,
+                                   OutboxProperties properties) {
+        return new OutboxRelay(outboxBatchRepository, outboxEventSink, batchTransactionManager, properties);
+    }
+}
@@ -0,0 +1,44 @@
+package org.example.config;
+
+import org.example.monitoring.ServiceMetrics;
+import org.example.security.BCryptCalibration;
+import org.example.security.LegacyBCryptUpgradeEncoder;
+import org.example.security.MeteredPasswordEncoder;
+import org.example.security.PasswordHashingExecutor;
+import org.example.security.PasswordHashingProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.DelegatingPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.Map;
+
+// hashowanie hasel: koszt BCrypt i ograniczona pula hashowania przy rejestracji (bookstore.password-hashing.*)
+@Configuration
+@EnableConfigurationProperties(PasswordHashingProperties.class)
+public class PasswordHashingConfig {
+
+    static final String BCRYPT = "bcrypt";
+
+    // nowe hashe maja prefiks {bcrypt} i skalibrowany koszt; hashe bez prefiksu (dane z V1, konta sprzed zmiany)
+    // nadal pasuja przez BCrypt, a DaoAuthenticationProvider po udanym logowaniu zapisuje na nowo hashe o koszcie
+    // nizszym od biezacego (upgradeEncoding -> CustomUserDetailsService.updatePassword), z prefiksem lub bez;
+    // hash bez prefiksu o koszcie rownym lub wyzszym zostaje, zeby przepisanie go nie oslabilo
+    @Bean
+    public PasswordEncoder passwordEncoder(PasswordHashingProperties properties, ServiceMetrics serviceMetrics) {
+        int strength = BCryptCalibration.strength(properties);
+        PasswordEncoder bcrypt = new BCryptPasswordEncoder(strength);
+        DelegatingPasswordEncoder delegating = new DelegatingPasswordEncoder(BCRYPT, Map.of(BCRYPT, bcrypt));
+        delegating.setDefaultPasswordEncoderForMatches(bcrypt);
+        return new MeteredPasswordEncoder(new LegacyBCryptUpgradeEncoder(delegating, strength), serviceMetrics);
+    }
+
+    @Bean
+    public PasswordHashingExecutor passwordHashingExecutor(PasswordEncoder passwordEncoder,
+                                                           ServiceMetrics serviceMetrics,
+                                                           PasswordHashingProperties properties) {
+        return new PasswordHashingExecutor(passwordEncoder, serviceMetrics, properties);
+    }
+}
@@ -0,0 +1,32 @@
+package org.example.config;
+
+import org.example.monitoring.QueryBudgetFilter;
+import org.example.monitoring.QueryBudgetProperties;
+import org.example.monitoring.RequestQueryCounter;
+import org.springframework.boot.autoconfigure.security.SecurityProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+// limit zapytan SQL na zadanie HTTP (bookstore.query-budget.*)
+@Configuration
+@EnableConfigurationProperties(QueryBudgetProperties.class)
+public class QueryBudgetConfig {
+
+    // sluchacz zapytan podpinany do MonitoredDataSource razem z SlowQueryLogger
+    @Bean
+    public RequestQueryCounter requestQueryCounter() {
+        return new RequestQueryCounter();
+    }
+
+    // przed filtrami Spring Security, zeby liczyc tez zapytania uwierzytelnienia
+    @Bean
+    public FilterRegistrationBean<QueryBudgetFilter> queryBudgetFilter(RequestQueryCounter requestQueryCounter,
+                                                                      QueryBudgetProperties properties) {
+        FilterRegistrationBean<QueryBudgetFilter> registration =
+                new FilterRegistrationBean<>(new QueryBudgetFilter(requestQueryCounter, properties));
+        registration.setOrder(SecurityProperties.DEFAULT_FILTER_ORDER - 1);
+        return registration;
+    }
+}
@@ -0,0 +1,38 @@
+package org.example.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.example.monitoring.ServiceMetrics;
+import org.example.ratelimit.LoadShedder;
+import org.example.ratelimit.RateLimitFilter;
+import org.example.ratelimit.RateLimitProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+// limity zadan na uzytkownika i odrzucanie ruchu przy przeciazonej puli (bookstore.rate-limit.*)
+// filtr jest wpinany w lancuch Spring Security w SecurityConfig, za uwierzytelnieniem
+@Configuration
+@EnableConfigurationProperties(RateLimitProperties.class)
+public class RateLimitConfig {
+
+    @Bean
+    public LoadShedder loadShedder(MeterRegistry meterRegistry, RateLimitProperties properties) {
+        return new LoadShedder(meterRegistry, properties.getShedding());
+    }
+
+    @Bean
+    public RateLimitFilter rateLimitFilter(RateLimitProperties properties, LoadShedder loadShedder,
+                                           ServiceMetrics serviceMetrics) {
+        return new RateLimitFilter(properties, loadShedder, serviceMetrics);
+    }
+
+    // bez tego Spring Boot zarejestrowalby filtr drugi raz jako zwykly filtr serwletow,
+    // przed Spring Security, gdzie nie ma jeszcze zalogowanego uzytkownika
+    @Bean
+    public FilterRegistrationBean<RateLimitFilter> rateLimitFilterRegistration(RateLimitFilter rateLimitFilter) {
+        FilterRegistrationBean<RateLimitFilter> registration = new FilterRegistrationBean<>(rateLimitFilter);
+        registration.setEnabled(false);
+        return registration;
+    }
+}
@@ -0,0 +1,40 @@
+package org.example.config;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// pamieta kiedy uzytkownik ostatnio cos zapisal, zeby przez krotkie okno (opoznienie repliki)
+// jego odczyty szly do bazy glownej - np. historia wypozyczen zaraz po borrowBook
+public class ReadYourWritesTracker {
+
+    private static final int CLEANUP_THRESHOLD = 10_000;
+
+    private final long windowMillis;
+    private final Map<String, Long> lastWrites = new ConcurrentHashMap<>();
+
+    public ReadYourWritesTracker(long windowMillis) {
+        this.windowMillis = windowMillis;
+    }
+
+    // zapisuje moment zatwierdzenia transakcji zapisujacej
+    public void recordWrite(String username) {
+        long now = System.currentTimeMillis();
+        lastWrites.put(username, now);
+        if (lastWrites.size() > CLEANUP_THRESHOLD) {
+            lastWrites.values().removeIf(writtenAt -> now - writtenAt > windowMillis);
+        }
+    }
+
+    // sprawdza czy uzytkownik zapisywal w oknie opoznienia repliki
+    public boolean wroteRecently(String username) {
+        Long writtenAt = lastWrites.get(username);
+        if (writtenAt == null) {
+            return false;
+        }
+        if (System.currentTimeMillis() - writtenAt > windowMillis) {
+            lastWrites.remove(username, writtenAt);
+            return false;
+        }
+        return true;
+    }
+}
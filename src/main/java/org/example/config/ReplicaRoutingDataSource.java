@@ -0,0 +1,74 @@
+package org.example.config;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+
+// kieruje transakcje @Transactional(readOnly = true) do repliki, a wszystko inne do bazy glownej
+// musi byc opakowany w LazyConnectionDataSourceProxy, bo flaga readOnly jest ustawiana
+// dopiero po rozpoczeciu transakcji, a polaczenie pobieramy przy pierwszym zapytaniu
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource {
+
+    public static final String PRIMARY = "primary";
+    public static final String REPLICA = "replica";
+
+    private final ReadYourWritesTracker readYourWritesTracker;
+
+    public ReplicaRoutingDataSource(ReadYourWritesTracker readYourWritesTracker) {
+        this.readYourWritesTracker = readYourWritesTracker;
+    }
+
+    // polaczenia dla transakcji tylko do odczytu dostaja JDBC readOnly
+    // (np. PostgreSQL rozpoczyna wtedy BEGIN READ ONLY), Hikari przywraca flage przy zwrocie do puli
+    @Override
+    public Connection getConnection() throws SQLException {
+        Connection connection = super.getConnection();
+        if (TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            connection.setReadOnly(true);
+        }
+        return connection;
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        String username = currentUsername();
+
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            recordWriteOnCommit(username);
+            return PRIMARY;
+        }
+
+        // uzytkownik niedawno zapisywal - replika moze jeszcze nie miec jego zmian
+        if (username != null && readYourWritesTracker.wroteRecently(username)) {
+            return PRIMARY;
+        }
+        return REPLICA;
+    }
+
+    private void recordWriteOnCommit(String username) {
+        if (username == null
+                || !TransactionSynchronizationManager.isActualTransactionActive()
+                || !TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                readYourWritesTracker.recordWrite(username);
+            }
+        });
+    }
+
+    private String currentUsername() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null || !authentication.isAuthenticated()) {
+            return null;
+        }
+        return authentication.getName();
+    }
+}
@@ -0,0 +1,12 @@
+package org.example.config;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+// zadania cykliczne (@Scheduled), wylaczane przez bookstore.scheduling.enabled=false (np. w testach)
+@Configuration
+@EnableScheduling
+@ConditionalOnProperty(name = "bookstore.scheduling.enabled", havingValue = "true", matchIfMissing = true)
+public class SchedulingConfig {
+}
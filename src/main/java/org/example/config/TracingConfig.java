@@ -0,0 +1,32 @@
+package org.example.config;
+
+import io.micrometer.observation.ObservationRegistry;
+import io.micrometer.observation.aop.ObservedAspect;
+import org.example.monitoring.FileSpanExporter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+// konfiguracja tracingu (Micrometer Observation + most OpenTelemetry)
+// spany: zadanie HTTP i uwierzytelnienie (Spring), metody kontrolerow i serwisow (@Observed),
+// zapytania SQL (MonitoredDataSource); traceId/spanId trafiaja do MDC i logow
+@Configuration
+public class TracingConfig {
+
+    // obsluga @Observed na kontrolerach i serwisach
+    @Bean
+    public ObservedAspect observedAspect(ObservationRegistry observationRegistry) {
+        return new ObservedAspect(observationRegistry);
+    }
+
+    // eksport spanow do pliku JSONL zamiast kolektora (bookstore.tracing.export-file)
+    @Bean
+    @ConditionalOnProperty(name = "bookstore.tracing.export-file")
+    public FileSpanExporter fileSpanExporter(@Value("${bookstore.tracing.export-file}") String exportFile) throws IOException {
+        return new FileSpanExporter(Path.of(exportFile));
+    }
+}
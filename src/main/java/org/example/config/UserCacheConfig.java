@@ -0,0 +1,19 @@
+package org.example.config;
+
+import org.example.monitoring.ServiceMetrics;
+import org.example.security.BoundedUserCache;
+import org.example.security.UserCacheProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+// pamiec danych logowania dla CustomUserDetailsService (bookstore.user-cache.*)
+@Configuration
+@EnableConfigurationProperties(UserCacheProperties.class)
+public class UserCacheConfig {
+
+    @Bean
+    public BoundedUserCache userCache(UserCacheProperties properties, ServiceMetrics serviceMetrics) {
+        return new BoundedUserCache(properties, serviceMetrics);
+    }
+}
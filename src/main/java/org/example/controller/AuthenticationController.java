@@ -1,5 +1,6 @@
 package org.example.controller;
 
+import io.micrometer.observation.annotation.Observed;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
@@ -9,8 +10,11 @@ import io.swagger.v3.oas.annotations.tags.Tag;
 import org.example.dataTransfer.AuthenticationRequest;
 import org.example.dataTransfer.RegistrationRequest;
 import org.example.model.User;
+import org.example.security.PasswordHashingBusyException;
 import org.example.service.UserService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
@@ -28,6 +32,7 @@ import java.util.Map;
 @RestController
 @RequestMapping("/api/auth")
 @Tag(name = "Authentication", description = "User registration and login operations")
+@Observed(name = "bookstore.controller")
 public class AuthenticationController {
 
     private final UserService userService;
@@ -46,6 +51,8 @@ public class AuthenticationController {
             @ApiResponse(responseCode = "200", description = "User registered successfully",
                     content = @Content(mediaType = "application/json")),
             @ApiResponse(responseCode = "400", description = "Username or email already exists",
+                    content = @Content(mediaType = "application/json")),
+            @ApiResponse(responseCode = "503", description = "Too many registrations in progress, retry later",
                     content = @Content(mediaType = "application/json"))
     })
     public ResponseEntity<?> register(@RequestBody RegistrationRequest request) {
@@ -68,6 +75,13 @@ public class AuthenticationController {
             Map<String, String> error = new HashMap<>();
             error.put("error", e.getMessage());
             return ResponseEntity.badRequest().body(error);
+        } catch (PasswordHashingBusyException e) {
+            // pula hashowania hasel pelna - klient ponawia za chwile, reszta API dziala normalnie
+            Map<String, String> error = new HashMap<>();
+            error.put("error", e.getMessage());
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, "1")
+                    .body(error);
         }
     }
 
@@ -0,0 +1,69 @@
+package org.example.controller;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.example.availability.AvailabilityStream;
+import org.example.service.BookService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+// kontroler strumienia zmian dostepnosci ksiazek (Server-Sent Events) zamiast odpytywania /api/books/available
+// bez @Observed - span obejmowalby tylko otwarcie polaczenia, a nie czas trwania strumienia
+@RestController
+@RequestMapping("/api/books/availability")
+@Tag(name = "Availability", description = "Live stream of book availability changes")
+@SecurityRequirement(name = "basicAuth")
+public class AvailabilityController {
+
+    private final AvailabilityStream availabilityStream;
+    private final BookService bookService;
+
+    @Autowired
+    public AvailabilityController(AvailabilityStream availabilityStream, BookService bookService) {
+        this.availabilityStream = availabilityStream;
+        this.bookService = bookService;
+    }
+
+    // otwiera strumien zdarzen "availability" dla wybranych ksiazek (bez bookIds - dla wszystkich)
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @Operation(summary = "Stream availability changes",
+            description = "Server-Sent Events with the current and changed number of available copies")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Stream opened"),
+            @ApiResponse(responseCode = "400", description = "Too many books in one subscription"),
+            @ApiResponse(responseCode = "503", description = "Too many open streams, retry later")
+    })
+    public ResponseEntity<SseEmitter> streamAvailability(
+            @Parameter(description = "Book IDs to watch, all books when omitted")
+            @RequestParam(required = false) List<Long> bookIds) {
+        Set<Long> ids = bookIds == null ? Collections.emptySet() : new LinkedHashSet<>(bookIds);
+        try {
+            SseEmitter emitter = availabilityStream.subscribe(ids,
+                    () -> ids.isEmpty() ? Collections.emptyList() : bookService.getAvailability(ids));
+            return ResponseEntity.ok(emitter);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, "5")
+                    .build();
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package org.example.controller;
 
+import io.micrometer.observation.annotation.Observed;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.Content;
@@ -8,23 +9,30 @@ import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import org.example.config.SerializationConfig;
 import org.example.dataTransfer.BookRequest;
 import org.example.model.AbstractBook;
 import org.example.service.BookService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Supplier;
 
 // kontroler do zarzadzania ksiazkami
 @RestController
 @RequestMapping("/api/books")
 @Tag(name = "Books", description = "Book management operations")
 @SecurityRequirement(name = "basicAuth")
+@Observed(name = "bookstore.controller")
 public class BookController {
 
     private final BookService bookService;
@@ -35,11 +43,15 @@ public class BookController {
     }
 
     // zwraca wszystkie ksiazki
-    @GetMapping
+    @GetMapping(produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_CBOR_VALUE,
+            SerializationConfig.APPLICATION_SMILE_VALUE})
     @Operation(summary = "Get all books", description = "Returns list of all books in the system")
-    @ApiResponse(responseCode = "200", description = "Books retrieved successfully")
-    public List<AbstractBook> getAllBooks() {
-        return bookService.getAllBooks();
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Books retrieved successfully"),
+            @ApiResponse(responseCode = "304", description = "Catalog not modified since the given ETag")
+    })
+    public ResponseEntity<List<AbstractBook>> getAllBooks(WebRequest webRequest) {
+        return conditionalList(webRequest, bookService::getAllBooks);
     }
 
     // zwraca ksiazke po ID
@@ -47,12 +59,21 @@ public class BookController {
     @Operation(summary = "Get book by ID", description = "Returns a specific book by its ID")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Book found"),
+            @ApiResponse(responseCode = "304", description = "Book not modified since the given ETag"),
             @ApiResponse(responseCode = "404", description = "Book not found")
     })
     public ResponseEntity<AbstractBook> getBookById(
-            @Parameter(description = "Book ID", required = true) @PathVariable Long id) {
+            @Parameter(description = "Book ID", required = true) @PathVariable Long id, WebRequest webRequest) {
         return bookService.getBookById(id)
-                .map(ResponseEntity::ok)
+                .map(book -> {
+                    String etag = bookEtag(book);
+                    // 304 bez serializacji ksiazki
+                    if (webRequest.checkNotModified(etag)) {
+                        return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).varyBy(HttpHeaders.ACCEPT)
+                                .<AbstractBook>build();
+                    }
+                    return ResponseEntity.ok().eTag(etag).varyBy(HttpHeaders.ACCEPT).body(book);
+                })
                 .orElse(ResponseEntity.notFound().build());
     }
 
@@ -141,28 +162,48 @@ public class BookController {
     }
 
     // wyszukuje ksiazki
-    @GetMapping("/search")
+    @GetMapping(value = "/search", produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_CBOR_VALUE,
+            SerializationConfig.APPLICATION_SMILE_VALUE})
     @Operation(summary = "Search books", description = "Search books by title, author, or genre")
     @ApiResponse(responseCode = "200", description = "Search results returned")
-    public List<AbstractBook> searchBooks(
-            @Parameter(description = "Search term") @RequestParam(required = false) String q) {
-        return bookService.searchBooks(q);
+    public ResponseEntity<List<AbstractBook>> searchBooks(
+            @Parameter(description = "Search term") @RequestParam(required = false) String q, WebRequest webRequest) {
+        return conditionalList(webRequest, () -> bookService.searchBooks(q));
     }
 
     // zwraca ksiazki po gatunku
     @GetMapping("/genre/{genre}")
     @Operation(summary = "Get books by genre", description = "Returns books of a specific genre")
     @ApiResponse(responseCode = "200", description = "Books retrieved successfully")
-    public List<AbstractBook> getBooksByGenre(
-            @Parameter(description = "Genre name", required = true) @PathVariable String genre) {
-        return bookService.getBooksByGenre(genre);
+    public ResponseEntity<List<AbstractBook>> getBooksByGenre(
+            @Parameter(description = "Genre name", required = true) @PathVariable String genre, WebRequest webRequest) {
+        return conditionalList(webRequest, () -> bookService.getBooksByGenre(genre));
     }
 
     // zwraca tylko dostepne ksiazki
     @GetMapping("/available")
     @Operation(summary = "Get available books", description = "Returns books that are available for borrowing")
     @ApiResponse(responseCode = "200", description = "Available books retrieved successfully")
-    public List<AbstractBook> getAvailableBooks() {
-        return bookService.getAvailableBooks();
+    public ResponseEntity<List<AbstractBook>> getAvailableBooks(WebRequest webRequest) {
+        return conditionalList(webRequest, bookService::getAvailableBooks);
+    }
+
+    // listy sa wyliczane z katalogu, wiec wspoldziela jego ETag
+    // ETag jest slaby (W/), bo ta sama wersja katalogu ma rozne reprezentacje (JSON/CBOR/Smile, gzip),
+    // a Tomcat nie kompresuje odpowiedzi z silnym ETagiem; wspolny ETag dla wszystkich formatow, wiec
+    // Vary: Accept, zeby cache po drodze nie oddal klientowi JSON zapamietanej odpowiedzi CBOR
+    // ETag liczony przed pobraniem listy - przy rownoleglej zmianie klient dostanie starszy ETag
+    // (i pelna odpowiedz przy nastepnym zapytaniu), nigdy nowy ETag ze starymi danymi
+    private ResponseEntity<List<AbstractBook>> conditionalList(WebRequest webRequest,
+                                                               Supplier<List<AbstractBook>> loader) {
+        String etag = bookService.getCatalogEtag();
+        if (webRequest.checkNotModified(etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).varyBy(HttpHeaders.ACCEPT).build();
+        }
+        return ResponseEntity.ok().eTag(etag).varyBy(HttpHeaders.ACCEPT).body(loader.get());
+    }
+
+    private static String bookEtag(AbstractBook book) {
+        return "W/\"book-" + book.getId() + "-" + book.getVersion() + "\"";
     }
 }
@@ -1,5 +1,6 @@
 package org.example.controller;
 
+import io.micrometer.observation.annotation.Observed;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.Content;
@@ -7,13 +8,21 @@ import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletResponse;
+import org.example.config.SerializationConfig;
+import org.example.dataTransfer.AdminBorrowingView;
+import org.example.dataTransfer.BorrowingHistoryPage;
+import org.example.dataTransfer.PageResponse;
 import org.example.model.Borrowing;
+import org.example.model.BorrowingStatus;
 import org.example.service.BorrowingService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -23,6 +32,7 @@ import java.util.Map;
 @RequestMapping("/api/borrowings")
 @Tag(name = "Borrowings", description = "Book borrowing and return operations")
 @SecurityRequirement(name = "basicAuth")
+@Observed(name = "bookstore.controller")
 public class BorrowingController {
 
     private final BorrowingService borrowingService;
@@ -81,6 +91,28 @@ public class BorrowingController {
         return borrowingService.getUserBorrowingHistory();
     }
 
+    // zwraca strone historii wypozyczen uzytkownika od najnowszych
+    @GetMapping("/my-history/page")
+    @Operation(summary = "Get user borrowing history page",
+            description = "Returns one page of the authenticated user's borrowings, newest first, optionally filtered by status")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Borrowing history page retrieved successfully"),
+            @ApiResponse(responseCode = "400", description = "Invalid cursor or page size")
+    })
+    public ResponseEntity<?> getUserBorrowingHistoryPage(
+            @Parameter(description = "Only borrowings with this status") @RequestParam(required = false) BorrowingStatus status,
+            @Parameter(description = "nextCursor from the previous page") @RequestParam(required = false) String cursor,
+            @Parameter(description = "Page size (1-100)") @RequestParam(defaultValue = "20") int size) {
+        try {
+            BorrowingHistoryPage page = borrowingService.getUserBorrowingHistoryPage(status, cursor, size);
+            return ResponseEntity.ok(page);
+        } catch (IllegalArgumentException e) {
+            Map<String, String> error = new HashMap<>();
+            error.put("error", e.getMessage());
+            return ResponseEntity.badRequest().body(error);
+        }
+    }
+
     // zwraca aktywne wypozyczenia uzytkownika
     @GetMapping("/my-active")
     @Operation(summary = "Get user active borrowings", description = "Returns active borrowings for the authenticated user")
@@ -103,16 +135,50 @@ public class BorrowingController {
                 .orElse(ResponseEntity.notFound().build());
     }
 
-    // zwraca wszystkie wypozyczenia (tylko admin)
-    @GetMapping("/all")
+    // zwraca strone wszystkich wypozyczen (tylko admin)
+    @GetMapping(value = "/all", produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_CBOR_VALUE,
+            SerializationConfig.APPLICATION_SMILE_VALUE})
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(summary = "Get borrowings page",
+            description = "Returns one page of all borrowings, newest first by default, optionally filtered by status and user (Admin only)")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Borrowings retrieved successfully"),
+            @ApiResponse(responseCode = "400", description = "Invalid page, size or sort"),
+            @ApiResponse(responseCode = "403", description = "Access denied - Admin role required")
+    })
+    public ResponseEntity<?> getBorrowingsPage(
+            @Parameter(description = "Only borrowings with this status") @RequestParam(required = false) BorrowingStatus status,
+            @Parameter(description = "Only borrowings of this user") @RequestParam(required = false) Long userId,
+            @Parameter(description = "Page number, starting at 0") @RequestParam(defaultValue = "0") int page,
+            @Parameter(description = "Page size (1-100)") @RequestParam(defaultValue = "50") int size,
+            @Parameter(description = "Sort field (id, status, borrowDate, dueDate, returnDate) with optional direction",
+                    example = "dueDate,asc") @RequestParam(required = false) String sort) {
+        try {
+            PageResponse<AdminBorrowingView> borrowings =
+                    borrowingService.getBorrowingsPage(status, userId, page, size, sort);
+            return ResponseEntity.ok(borrowings);
+        } catch (IllegalArgumentException e) {
+            Map<String, String> error = new HashMap<>();
+            error.put("error", e.getMessage());
+            return ResponseEntity.badRequest().body(error);
+        }
+    }
+
+    // eksport wszystkich wypozyczen do CSV (tylko admin) - wiersze sa wysylane w trakcie czytania z bazy
+    @GetMapping(value = "/all/export", produces = CsvWriter.TEXT_CSV_VALUE)
     @PreAuthorize("hasRole('ADMIN')")
-    @Operation(summary = "Get all borrowings", description = "Returns all borrowings in the system (Admin only)")
+    @Operation(summary = "Export borrowings as CSV", description = "Streams all borrowings as a CSV file (Admin only)")
     @ApiResponses(value = {
-            @ApiResponse(responseCode = "200", description = "All borrowings retrieved successfully"),
+            @ApiResponse(responseCode = "200", description = "Borrowings exported successfully"),
             @ApiResponse(responseCode = "403", description = "Access denied - Admin role required")
     })
-    public List<Borrowing> getAllBorrowings() {
-        return borrowingService.getAllBorrowings();
+    public void exportBorrowings(HttpServletResponse response) throws IOException {
+        CsvWriter csv = CsvWriter.attachment(response, "borrowings.csv");
+        csv.row("id", "userId", "username", "bookId", "bookTitle", "status", "borrowDate", "dueDate", "returnDate");
+        borrowingService.exportBorrowings(borrowing -> csv.row(borrowing.id(), borrowing.userId(),
+                borrowing.username(), borrowing.bookId(), borrowing.bookTitle(), borrowing.status(),
+                borrowing.borrowDate(), borrowing.dueDate(), borrowing.returnDate()));
+        csv.flush();
     }
 
     // zwraca przeterminowane wypozyczenia (tylko admin)
@@ -0,0 +1,64 @@
+package org.example.controller;
+
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+// zapis eksportu CSV (RFC 4180) wiersz po wierszu prosto do odpowiedzi, bez skladania calego pliku w pamieci
+// pola zaczynajace sie od = + - @ dostaja apostrof, zeby arkusz kalkulacyjny nie potraktowal ich jako formuly
+final class CsvWriter {
+
+    static final String TEXT_CSV_VALUE = "text/csv";
+
+    private final Writer writer;
+
+    CsvWriter(Writer writer) {
+        this.writer = writer;
+    }
+
+    // ustawia naglowki pobierania pliku i zwraca writer na strumien odpowiedzi
+    static CsvWriter attachment(HttpServletResponse response, String filename) throws IOException {
+        response.setContentType(TEXT_CSV_VALUE + ";charset=UTF-8");
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + filename + "\"");
+        return new CsvWriter(new BufferedWriter(new OutputStreamWriter(response.getOutputStream(), StandardCharsets.UTF_8)));
+    }
+
+    // blad zapisu (np. zerwane polaczenie) przerywa eksport i zamyka strumien z bazy
+    void row(Object... values) {
+        try {
+            for (int i = 0; i < values.length; i++) {
+                if (i > 0) {
+                    writer.write(',');
+                }
+                writer.write(escape(values[i]));
+            }
+            writer.write("\r\n");
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    void flush() throws IOException {
+        writer.flush();
+    }
+
+    static String escape(Object value) {
+        if (value == null) {
+            return "";
+        }
+        String text = value.toString();
+        if (!text.isEmpty() && "=+-@".indexOf(text.charAt(0)) >= 0) {
+            text = "'" + text;
+        }
+        if (text.contains(",") || text.contains("\"") || text.contains("\n") || text.contains("\r")) {
+            return "\"" + text.replace("\"", "\"\"") + "\"";
+        }
+        return text;
+    }
+}
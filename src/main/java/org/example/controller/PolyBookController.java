@@ -1,5 +1,6 @@
 package org.example.controller;
 
+import io.micrometer.observation.annotation.Observed;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
@@ -21,6 +22,7 @@ import java.util.stream.Collectors;
 @RequestMapping("/api/poly")
 @Tag(name = "Polymorphism Demo", description = "Endpoints demonstrating polymorphic behavior of books")
 @SecurityRequirement(name = "basicAuth")
+@Observed(name = "bookstore.controller")
 public class PolyBookController {
 
     private final BookService bookService;
@@ -58,13 +60,13 @@ public class PolyBookController {
                description = "Returns statistics about digital vs physical books")
     @ApiResponse(responseCode = "200", description = "Book statistics retrieved successfully")
     public ResponseEntity<Map<String, Object>> getBookStats() {
-        List<AbstractBook> books = bookService.getAllBooks();
-
-        long digitalBooks = books.stream().filter(AbstractBook::isDigital).count();
-        long physicalBooks = books.stream().filter(book -> !book.isDigital()).count();
+        // same liczniki z bazy zamiast ladowania calego katalogu
+        long totalBooks = bookService.countAllBooks();
+        long digitalBooks = bookService.countDigitalBooks();
+        long physicalBooks = totalBooks - digitalBooks;
 
         Map<String, Object> stats = new HashMap<>();
-        stats.put("totalBooks", books.size());
+        stats.put("totalBooks", totalBooks);
         stats.put("digitalBooks", digitalBooks);
         stats.put("physicalBooks", physicalBooks);
 
@@ -0,0 +1,117 @@
+package org.example.controller;
+
+import io.micrometer.observation.annotation.Observed;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.example.model.Borrowing;
+import org.example.model.Reservation;
+import org.example.service.ReservationService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// kontroler kolejki oczekujacych na ksiazki
+@RestController
+@RequestMapping("/api/reservations")
+@Tag(name = "Reservations", description = "Waitlist for books with no available copies")
+@SecurityRequirement(name = "basicAuth")
+@Observed(name = "bookstore.controller")
+public class ReservationController {
+
+    private final ReservationService reservationService;
+
+    @Autowired
+    public ReservationController(ReservationService reservationService) {
+        this.reservationService = reservationService;
+    }
+
+    // dopisuje uzytkownika do kolejki na ksiazke
+    @PostMapping("/{bookId}")
+    @Operation(summary = "Reserve a book", description = "Join the waitlist for a book with no available copies")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Added to the waitlist"),
+            @ApiResponse(responseCode = "400", description = "Book available, already borrowed or already waiting")
+    })
+    public ResponseEntity<?> reserveBook(
+            @Parameter(description = "Book ID to reserve", required = true) @PathVariable Long bookId) {
+        try {
+            Reservation reservation = reservationService.reserveBook(bookId);
+            Map<String, Object> response = new HashMap<>();
+            response.put("reservation", reservation);
+            response.put("position", reservationService.getQueuePosition(reservation));
+            return ResponseEntity.ok(response);
+        } catch (IllegalArgumentException e) {
+            Map<String, String> error = new HashMap<>();
+            error.put("error", e.getMessage());
+            return ResponseEntity.badRequest().body(error);
+        }
+    }
+
+    // zwraca ksiazki, na ktore czeka uzytkownik
+    @GetMapping("/my")
+    @Operation(summary = "Get user waitlist entries", description = "Returns waiting reservations of the authenticated user")
+    @ApiResponse(responseCode = "200", description = "Reservations retrieved successfully")
+    public List<Reservation> getUserReservations() {
+        return reservationService.getUserWaitingReservations();
+    }
+
+    // rezygnacja z miejsca w kolejce
+    @DeleteMapping("/{reservationId}")
+    @Operation(summary = "Cancel reservation", description = "Leave the waitlist for a book")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Reservation cancelled"),
+            @ApiResponse(responseCode = "400", description = "Reservation not found, not owned or no longer waiting")
+    })
+    public ResponseEntity<?> cancelReservation(
+            @Parameter(description = "Reservation ID", required = true) @PathVariable Long reservationId) {
+        try {
+            return ResponseEntity.ok(reservationService.cancelReservation(reservationId));
+        } catch (IllegalArgumentException e) {
+            Map<String, String> error = new HashMap<>();
+            error.put("error", e.getMessage());
+            return ResponseEntity.badRequest().body(error);
+        }
+    }
+
+    // odbior odlozonego egzemplarza (wypozyczenie RESERVED -> BORROWED)
+    @PostMapping("/pickup/{borrowingId}")
+    @Operation(summary = "Pick up a reserved book", description = "Turns a reserved copy into a regular borrowing")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Book picked up"),
+            @ApiResponse(responseCode = "400", description = "Not a reservation, not owned or expired")
+    })
+    public ResponseEntity<?> pickUp(
+            @Parameter(description = "Reserved borrowing ID", required = true) @PathVariable Long borrowingId) {
+        try {
+            Borrowing borrowing = reservationService.pickUp(borrowingId);
+            return ResponseEntity.ok(borrowing);
+        } catch (IllegalArgumentException e) {
+            Map<String, String> error = new HashMap<>();
+            error.put("error", e.getMessage());
+            return ResponseEntity.badRequest().body(error);
+        }
+    }
+
+    // wygasza nieodebrane rezerwacje (tylko admin), normalnie robi to ReservationExpiryJob
+    @PostMapping("/release-expired")
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(summary = "Release expired holds", description = "Expires uncollected reservations and passes copies on (Admin only)")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Expired holds released"),
+            @ApiResponse(responseCode = "403", description = "Access denied - Admin role required")
+    })
+    public ResponseEntity<?> releaseExpiredHolds() {
+        Map<String, Object> response = new HashMap<>();
+        response.put("released", reservationService.releaseExpiredHolds());
+        return ResponseEntity.ok(response);
+    }
+}
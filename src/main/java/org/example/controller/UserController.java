@@ -1,50 +1,152 @@
 package org.example.controller;
 
+import io.micrometer.observation.annotation.Observed;
 import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletResponse;
+import org.example.dataTransfer.AdminUserView;
+import org.example.dataTransfer.PageResponse;
+import org.example.dataTransfer.PasswordChangeRequest;
+import org.example.dataTransfer.UserProfile;
+import org.example.model.Role;
 import org.example.model.User;
+import org.example.security.PasswordHashingBusyException;
+import org.example.service.BorrowingSummaryService;
 import org.example.service.UserService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
-import java.util.List;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
 
 // kontroler dla userow
 @RestController
 @RequestMapping("/api")
 @Tag(name = "Users", description = "User management operations")
 @SecurityRequirement(name = "basicAuth")
+@Observed(name = "bookstore.controller")
 public class UserController {
 
     private final UserService userService;
+    private final BorrowingSummaryService borrowingSummaryService;
 
     @Autowired
-    public UserController(UserService userService) {
+    public UserController(UserService userService, BorrowingSummaryService borrowingSummaryService) {
         this.userService = userService;
+        this.borrowingSummaryService = borrowingSummaryService;
     }
 
-    // zwraca liste wszystkich userow tylko dla adminow
+    // zwraca strone userow tylko dla adminow (bez hasel)
     @GetMapping("/admin/users")
     @PreAuthorize("hasRole('ADMIN')")
-    @Operation(summary = "Get all users", description = "Returns list of all users (Admin only)")
+    @Operation(summary = "Get users page",
+            description = "Returns one page of users, optionally filtered by role and username/email prefix (Admin only)")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Users retrieved successfully"),
+            @ApiResponse(responseCode = "400", description = "Invalid page, size or sort"),
             @ApiResponse(responseCode = "403", description = "Access denied - Admin role required")
     })
-    public List<User> getAllUsers() {
-        return userService.findAllUsers();
+    public ResponseEntity<?> getUsersPage(
+            @Parameter(description = "Only users with this role") @RequestParam(required = false) Role role,
+            @Parameter(description = "Start of username or email") @RequestParam(required = false) String search,
+            @Parameter(description = "Page number, starting at 0") @RequestParam(defaultValue = "0") int page,
+            @Parameter(description = "Page size (1-100)") @RequestParam(defaultValue = "50") int size,
+            @Parameter(description = "Sort field (id, username, email, lastName, role) with optional direction",
+                    example = "username,asc") @RequestParam(required = false) String sort) {
+        try {
+            PageResponse<AdminUserView> users = userService.findUsersPage(role, search, page, size, sort);
+            return ResponseEntity.ok(users);
+        } catch (IllegalArgumentException e) {
+            Map<String, String> error = new HashMap<>();
+            error.put("error", e.getMessage());
+            return ResponseEntity.badRequest().body(error);
+        }
     }
 
-    // zwraca dane aktualnego usera
+    // eksport wszystkich userow do CSV tylko dla adminow - wiersze sa wysylane w trakcie czytania z bazy
+    @GetMapping(value = "/admin/users/export", produces = CsvWriter.TEXT_CSV_VALUE)
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(summary = "Export users as CSV", description = "Streams all users as a CSV file (Admin only)")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Users exported successfully"),
+            @ApiResponse(responseCode = "403", description = "Access denied - Admin role required")
+    })
+    public void exportUsers(HttpServletResponse response) throws IOException {
+        CsvWriter csv = CsvWriter.attachment(response, "users.csv");
+        csv.row("id", "username", "email", "firstName", "lastName", "role");
+        userService.exportUsers(user -> csv.row(user.id(), user.username(), user.email(), user.firstName(),
+                user.lastName(), user.role()));
+        csv.flush();
+    }
+
+    // zmienia role usera tylko dla adminow
+    @PutMapping("/admin/users/{id}/role")
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(summary = "Change user role", description = "Changes the role of a user, effective from the next request (Admin only)")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Role changed successfully"),
+            @ApiResponse(responseCode = "400", description = "User not found or missing role"),
+            @ApiResponse(responseCode = "403", description = "Access denied - Admin role required")
+    })
+    public ResponseEntity<?> changeRole(
+            @Parameter(description = "User ID", required = true) @PathVariable Long id,
+            @Parameter(description = "New role", required = true) @RequestParam Role role) {
+        try {
+            User user = userService.changeRole(id, role);
+            return ResponseEntity.ok(new AdminUserView(user.getId(), user.getUsername(), user.getEmail(),
+                    user.getFirstName(), user.getLastName(), user.getRole()));
+        } catch (IllegalArgumentException e) {
+            Map<String, String> error = new HashMap<>();
+            error.put("error", e.getMessage());
+            return ResponseEntity.badRequest().body(error);
+        }
+    }
+
+    // zmienia haslo aktualnego usera
+    @PutMapping("/user/password")
+    @Operation(summary = "Change password", description = "Changes the password of the authenticated user")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Password changed successfully"),
+            @ApiResponse(responseCode = "400", description = "Current password is incorrect or new password is missing"),
+            @ApiResponse(responseCode = "503", description = "Password hashing pool is busy, retry later")
+    })
+    public ResponseEntity<?> changePassword(@RequestBody PasswordChangeRequest request) {
+        try {
+            userService.changePassword(request.getCurrentPassword(), request.getNewPassword());
+            Map<String, String> response = new HashMap<>();
+            response.put("message", "Password changed successfully");
+            return ResponseEntity.ok(response);
+        } catch (IllegalArgumentException e) {
+            Map<String, String> error = new HashMap<>();
+            error.put("error", e.getMessage());
+            return ResponseEntity.badRequest().body(error);
+        } catch (PasswordHashingBusyException e) {
+            // pula hashowania hasel pelna - klient ponawia za chwile, jak przy rejestracji
+            Map<String, String> error = new HashMap<>();
+            error.put("error", e.getMessage());
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, "1")
+                    .body(error);
+        }
+    }
+
+    // zwraca dane aktualnego usera z podsumowaniem wypozyczen (liczniki wg statusu, najblizszy termin zwrotu)
     @GetMapping("/user/profile")
-    @Operation(summary = "Get current user profile", description = "Returns profile information of the authenticated user")
+    @Operation(summary = "Get current user profile",
+            description = "Returns profile information of the authenticated user with counts of reserved, borrowed, "
+                    + "overdue and returned books and the next due date")
     @ApiResponse(responseCode = "200", description = "User profile retrieved successfully")
-    public ResponseEntity<User> getCurrentUser() {
-        return ResponseEntity.ok(userService.getCurrentUser());
+    public ResponseEntity<UserProfile> getCurrentUser() {
+        User user = userService.getCurrentUser();
+        return ResponseEntity.ok(UserProfile.of(user, borrowingSummaryService.getSummary(user.getId())));
     }
 }
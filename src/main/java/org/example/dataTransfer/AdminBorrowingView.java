@@ -0,0 +1,20 @@
+package org.example.dataTransfer;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import org.example.model.BorrowingStatus;
+
+import java.time.LocalDate;
+
+// wypozyczenie na liscie administratora - projekcja z loginem i tytulem zamiast calych encji
+@Schema(description = "Borrowing as listed to administrators")
+public record AdminBorrowingView(
+        @Schema(example = "42") Long id,
+        @Schema(example = "1") Long userId,
+        @Schema(example = "jkowalski") String username,
+        @Schema(example = "7") Long bookId,
+        @Schema(example = "Lalka") String bookTitle,
+        BorrowingStatus status,
+        LocalDate borrowDate,
+        LocalDate dueDate,
+        LocalDate returnDate) {
+}
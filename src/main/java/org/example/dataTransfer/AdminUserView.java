@@ -0,0 +1,15 @@
+package org.example.dataTransfer;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import org.example.model.Role;
+
+// uzytkownik na liscie administratora - projekcja bez hasla i relacji
+@Schema(description = "User as listed to administrators")
+public record AdminUserView(
+        @Schema(example = "1") Long id,
+        @Schema(example = "jkowalski") String username,
+        @Schema(example = "jan@example.com") String email,
+        String firstName,
+        String lastName,
+        Role role) {
+}
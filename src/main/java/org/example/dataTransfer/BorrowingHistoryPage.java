@@ -0,0 +1,13 @@
+package org.example.dataTransfer;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import org.example.model.Borrowing;
+
+import java.util.List;
+
+// strona historii wypozyczen; nextCursor przekazuje sie jako cursor, zeby pobrac kolejna strone
+@Schema(description = "Page of borrowing history, newest first")
+public record BorrowingHistoryPage(
+        @Schema(description = "Borrowings on this page") List<Borrowing> items,
+        @Schema(description = "Cursor of the next page, null on the last page", example = "2024-03-01:42") String nextCursor) {
+}
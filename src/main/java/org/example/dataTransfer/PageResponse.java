@@ -0,0 +1,21 @@
+package org.example.dataTransfer;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import org.springframework.data.domain.Page;
+
+import java.util.List;
+
+// strona listy administratora; page liczone od 0
+@Schema(description = "Page of an administrator listing")
+public record PageResponse<T>(
+        @Schema(description = "Items on this page") List<T> items,
+        @Schema(description = "Page number, starting at 0", example = "0") int page,
+        @Schema(description = "Requested page size", example = "50") int size,
+        @Schema(description = "Number of items matching the filters", example = "1234") long totalElements,
+        @Schema(description = "Number of pages", example = "25") int totalPages) {
+
+    public static <T> PageResponse<T> of(Page<T> page) {
+        return new PageResponse<>(page.getContent(), page.getNumber(), page.getSize(), page.getTotalElements(),
+                page.getTotalPages());
+    }
+}
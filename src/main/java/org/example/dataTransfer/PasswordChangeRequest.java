@@ -0,0 +1,33 @@
+package org.example.dataTransfer;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+// klasa dla zmiany hasla zalogowanego uzytkownika
+@Schema(description = "Password change request")
+public class PasswordChangeRequest {
+
+    @Schema(description = "Current password", example = "password123", required = true)
+    private String currentPassword;
+
+    @Schema(description = "New password", example = "n3w-Passw0rd", required = true)
+    private String newPassword;
+
+    public PasswordChangeRequest() {
+    }
+
+    public String getCurrentPassword() {
+        return currentPassword;
+    }
+
+    public void setCurrentPassword(String currentPassword) {
+        this.currentPassword = currentPassword;
+    }
+
+    public String getNewPassword() {
+        return newPassword;
+    }
+
+    public void setNewPassword(String newPassword) {
+        this.newPassword = newPassword;
+    }
+}
@@ -0,0 +1,23 @@
+package org.example.dataTransfer;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import org.example.model.Role;
+import org.example.model.User;
+import org.example.model.UserBorrowingSummary;
+
+// profil zalogowanego uzytkownika razem z podsumowaniem wypozyczen (jeden odczyt user_borrowing_summary po kluczu)
+@Schema(description = "Profile of the authenticated user with borrowing summary")
+public record UserProfile(
+        @Schema(example = "1") Long id,
+        @Schema(example = "jkowalski") String username,
+        @Schema(example = "jan@example.com") String email,
+        String firstName,
+        String lastName,
+        Role role,
+        UserBorrowingSummary borrowingSummary) {
+
+    public static UserProfile of(User user, UserBorrowingSummary borrowingSummary) {
+        return new UserProfile(user.getId(), user.getUsername(), user.getEmail(), user.getFirstName(),
+                user.getLastName(), user.getRole(), borrowingSummary);
+    }
+}
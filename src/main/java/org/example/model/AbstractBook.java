@@ -2,6 +2,9 @@ package org.example.model;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
+import org.example.service.CatalogChangeListener;
+
+import java.time.LocalDateTime;
 import java.util.HashSet;
 import java.util.Set;
 
@@ -10,6 +13,7 @@ import java.util.Set;
 @Table(name = "books")
 @Inheritance(strategy = InheritanceType.SINGLE_TABLE)
 @DiscriminatorColumn(name = "book_type", discriminatorType = DiscriminatorType.STRING)
+@EntityListeners(CatalogChangeListener.class)
 public abstract class AbstractBook {
 
     @Id
@@ -34,6 +38,18 @@ public abstract class AbstractBook {
     @Column(name = "total_copies", nullable = false)
     private Integer totalCopies;
 
+    // licznik zmian ksiazki - zrodlo ETagow (pojedyncza ksiazka i caly katalog)
+    // celowo nie @Version: wypozyczenia i zwroty zmieniaja liczbe egzemplarzy warunkowym UPDATE
+    // (BookRepository.takeCopy/putBackCopy), ktory sam podbija licznik, wiec rownolegle operacje na tej samej
+    // ksiazce nie koncza sie OptimisticLockException
+    @JsonIgnore
+    @Column(nullable = false)
+    private Long version;
+
+    @JsonIgnore
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
     // relacja jeden do wielu z tabela Borrowing
     @JsonIgnore
     @OneToMany(mappedBy = "book", cascade = CascadeType.ALL, orphanRemoval = true)
@@ -49,6 +65,19 @@ public abstract class AbstractBook {
         this.totalCopies = totalCopies;
     }
 
+    @PrePersist
+    protected void onCreate() {
+        version = 0L;
+        updatedAt = LocalDateTime.now();
+    }
+
+    // kazda zmiana encji (takze availableCopies przy wypozyczeniu) zmienia ETag
+    @PreUpdate
+    protected void onUpdate() {
+        version = version == null ? 1L : version + 1;
+        updatedAt = LocalDateTime.now();
+    }
+
     // metody abstrakcyjne dla podklas
     public abstract String getBookType();
     public abstract boolean isDigital();
@@ -76,6 +105,12 @@ public abstract class AbstractBook {
     public Integer getTotalCopies() { return totalCopies; }
     public void setTotalCopies(Integer totalCopies) { this.totalCopies = totalCopies; }
 
+    public Long getVersion() { return version; }
+    public void setVersion(Long version) { this.version = version; }
+
+    public LocalDateTime getUpdatedAt() { return updatedAt; }
+    public void setUpdatedAt(LocalDateTime updatedAt) { this.updatedAt = updatedAt; }
+
     public Set<Borrowing> getBorrowings() { return borrowings; }
     public void setBorrowings(Set<Borrowing> borrowings) { this.borrowings = borrowings; }
 
@@ -0,0 +1,115 @@
+package org.example.model;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+// zamkniete wypozyczenie przeniesione do archiwum (borrowings_archive) przez BorrowingArchiveJob
+// tylko do odczytu - wiersze wstawia i usuwa SQL zadania archiwizacji; id pozostaje takie jak w borrowings
+@Entity
+@Table(name = "borrowings_archive")
+public class ArchivedBorrowing {
+
+    @Id
+    private Long id;
+
+    // bez kluczy obcych - archiwum jest partycjonowane i nie blokuje zmian w tabelach users/books
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "user_id", nullable = false, foreignKey = @ForeignKey(ConstraintMode.NO_CONSTRAINT))
+    private User user;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "book_id", nullable = false, foreignKey = @ForeignKey(ConstraintMode.NO_CONSTRAINT))
+    private AbstractBook book;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private BorrowingStatus status;
+
+    @Column(name = "borrow_date", nullable = false)
+    private LocalDate borrowDate;
+
+    @Column(name = "due_date", nullable = false)
+    private LocalDate dueDate;
+
+    @Column(name = "return_date")
+    private LocalDate returnDate;
+
+    @Column(name = "created_at")
+    private LocalDateTime createdAt;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    @Column(name = "archived_at", nullable = false)
+    private LocalDateTime archivedAt;
+
+    // konstruktory
+    public ArchivedBorrowing() {}
+
+    public ArchivedBorrowing(Borrowing borrowing) {
+        this.id = borrowing.getId();
+        this.user = borrowing.getUser();
+        this.book = borrowing.getBook();
+        this.status = borrowing.getStatus();
+        this.borrowDate = borrowing.getBorrowDate();
+        this.dueDate = borrowing.getDueDate();
+        this.returnDate = borrowing.getReturnDate();
+        this.createdAt = borrowing.getCreatedAt();
+        this.updatedAt = borrowing.getUpdatedAt();
+        this.archivedAt = LocalDateTime.now();
+    }
+
+    // odlaczona kopia w postaci Borrowing - historia zwraca wiersze biezace i archiwalne w jednym formacie
+    public Borrowing toBorrowing() {
+        Borrowing borrowing = new Borrowing(user, book, status, borrowDate, dueDate);
+        borrowing.setId(id);
+        borrowing.setReturnDate(returnDate);
+        borrowing.setCreatedAt(createdAt);
+        borrowing.setUpdatedAt(updatedAt);
+        return borrowing;
+    }
+
+    // gettery
+
+    public Long getId() {
+        return id;
+    }
+
+    public User getUser() {
+        return user;
+    }
+
+    public AbstractBook getBook() {
+        return book;
+    }
+
+    public BorrowingStatus getStatus() {
+        return status;
+    }
+
+    public LocalDate getBorrowDate() {
+        return borrowDate;
+    }
+
+    public LocalDate getDueDate() {
+        return dueDate;
+    }
+
+    public LocalDate getReturnDate() {
+        return returnDate;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public LocalDateTime getArchivedAt() {
+        return archivedAt;
+    }
+}
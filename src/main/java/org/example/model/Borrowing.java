@@ -14,11 +14,13 @@ public class Borrowing {
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
-    @ManyToOne
+    // relacje leniwe - zapytania w BorrowingRepository pobieraja je jawnie (EntityGraph),
+    // bo przy wylaczonym open-in-view serializacja odbywa sie juz poza sesja Hibernate
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "user_id", nullable = false)
     private User user;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "book_id", nullable = false)
     private AbstractBook book; //zmiana na polimorfizm
 
@@ -0,0 +1,72 @@
+package org.example.model;
+
+import jakarta.persistence.*;
+import org.example.notification.NotificationType;
+
+import java.time.LocalDateTime;
+
+// wyslane powiadomienie danego typu dla wypozyczenia; zapisywane przez NotificationPipeline po udanej wysylce
+// partii, wiec brak wpisu oznacza powiadomienie jeszcze niewyslane (takze po bledzie nadawcy)
+@Entity
+@Table(name = "borrowing_notifications",
+       uniqueConstraints = @UniqueConstraint(name = "uq_borrowing_notifications_borrowing_type",
+                                             columnNames = {"borrowing_id", "type"}))
+public class BorrowingNotification {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "borrowing_id", nullable = false)
+    private Long borrowingId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private NotificationType type;
+
+    @Column(name = "sent_at", nullable = false)
+    private LocalDateTime sentAt;
+
+    // konstruktory
+    public BorrowingNotification() {}
+
+    public BorrowingNotification(Long borrowingId, NotificationType type, LocalDateTime sentAt) {
+        this.borrowingId = borrowingId;
+        this.type = type;
+        this.sentAt = sentAt;
+    }
+
+    // gettery i settery
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public Long getBorrowingId() {
+        return borrowingId;
+    }
+
+    public void setBorrowingId(Long borrowingId) {
+        this.borrowingId = borrowingId;
+    }
+
+    public NotificationType getType() {
+        return type;
+    }
+
+    public void setType(NotificationType type) {
+        this.type = type;
+    }
+
+    public LocalDateTime getSentAt() {
+        return sentAt;
+    }
+
+    public void setSentAt(LocalDateTime sentAt) {
+        this.sentAt = sentAt;
+    }
+}
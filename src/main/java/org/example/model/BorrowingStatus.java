@@ -5,5 +5,7 @@ public enum BorrowingStatus {
     RESERVED,
     BORROWED,
     RETURNED,
-    OVERDUE
+    OVERDUE,
+    // rezerwacja nieodebrana w terminie - egzemplarz przechodzi na kolejna osobe z kolejki
+    EXPIRED
 }
\ No newline at end of file
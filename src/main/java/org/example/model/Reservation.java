@@ -0,0 +1,106 @@
+package org.example.model;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+
+// miejsce uzytkownika w kolejce oczekujacych na ksiazke (waitlista)
+// kolejnosc wyznacza id - glowa kolejki to najmniejsze id ze statusem WAITING dla danej ksiazki
+// po zwrocie egzemplarza wpis przechodzi w FULFILLED, a uzytkownik dostaje wypozyczenie RESERVED do odbioru
+@Entity
+@Table(name = "reservations")
+public class Reservation {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "user_id", nullable = false)
+    private User user;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "book_id", nullable = false)
+    private AbstractBook book;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private ReservationStatus status;
+
+    @Column(name = "created_at")
+    private LocalDateTime createdAt;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    // konstruktory
+    public Reservation() {}
+
+    public Reservation(User user, AbstractBook book) {
+        this.user = user;
+        this.book = book;
+        this.status = ReservationStatus.WAITING;
+    }
+
+    // gettery i settery
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public User getUser() {
+        return user;
+    }
+
+    public void setUser(User user) {
+        this.user = user;
+    }
+
+    public AbstractBook getBook() {
+        return book;
+    }
+
+    public void setBook(AbstractBook book) {
+        this.book = book;
+    }
+
+    public ReservationStatus getStatus() {
+        return status;
+    }
+
+    public void setStatus(ReservationStatus status) {
+        this.status = status;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(LocalDateTime updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+
+    //Automatycznie dodawanie pol z czasem
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+        updatedAt = LocalDateTime.now();
+    }
+
+    @PreUpdate
+    protected void onUpdate() {
+        updatedAt = LocalDateTime.now();
+    }
+}
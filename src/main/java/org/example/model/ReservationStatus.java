@@ -0,0 +1,8 @@
+package org.example.model;
+
+// Enum ze statusami miejsc w kolejce oczekujacych na ksiazke
+public enum ReservationStatus {
+    WAITING,
+    FULFILLED,
+    CANCELLED
+}
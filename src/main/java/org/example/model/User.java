@@ -9,20 +9,25 @@ import java.util.Set;
 // Encja reprezentująca użytkownika w aplikacji księgarni.
 
 @Entity
-@Table(name = "users")
+@Table(name = "users", uniqueConstraints = {
+        @UniqueConstraint(name = "uq_users_username", columnNames = "username"),
+        @UniqueConstraint(name = "uq_users_email", columnNames = "email")
+})
 public class User {
 
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
-    @Column(nullable = false, unique = true, length = 50)
+    @Column(nullable = false, length = 50)
     private String username;
 
+    // hash hasla nigdy nie trafia do odpowiedzi JSON
+    @JsonIgnore
     @Column(nullable = false)
     private String password;
 
-    @Column(nullable = false, unique = true)
+    @Column(nullable = false)
     private String email;
 
     @Column(name = "first_name", length = 50)
@@ -0,0 +1,102 @@
+package org.example.model;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+// utrzymywane podsumowanie wypozyczen uzytkownika (liczniki wg statusu, najblizszy termin, ostatnia aktywnosc)
+// aktualizowane przyrostowo przy kazdej zmianie wypozyczenia (BorrowingSummaryService), wiec profil
+// czyta jeden wiersz po kluczu zamiast agregowac cala historie
+@Entity
+@Table(name = "user_borrowing_summary")
+public class UserBorrowingSummary {
+
+    @Id
+    @Column(name = "user_id")
+    private Long userId;
+
+    @Column(name = "reserved_count", nullable = false)
+    private long reservedCount;
+
+    @Column(name = "borrowed_count", nullable = false)
+    private long borrowedCount;
+
+    @Column(name = "overdue_count", nullable = false)
+    private long overdueCount;
+
+    @Column(name = "returned_count", nullable = false)
+    private long returnedCount;
+
+    // najwczesniejszy termin zwrotu sposrod wypozyczen BORROWED i OVERDUE
+    @Column(name = "next_due_date")
+    private LocalDate nextDueDate;
+
+    @Column(name = "last_activity_at")
+    private LocalDateTime lastActivityAt;
+
+    // konstruktory
+    public UserBorrowingSummary() {}
+
+    public UserBorrowingSummary(Long userId) {
+        this.userId = userId;
+    }
+
+    // gettery i settery
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public void setUserId(Long userId) {
+        this.userId = userId;
+    }
+
+    public long getReservedCount() {
+        return reservedCount;
+    }
+
+    public void setReservedCount(long reservedCount) {
+        this.reservedCount = reservedCount;
+    }
+
+    public long getBorrowedCount() {
+        return borrowedCount;
+    }
+
+    public void setBorrowedCount(long borrowedCount) {
+        this.borrowedCount = borrowedCount;
+    }
+
+    public long getOverdueCount() {
+        return overdueCount;
+    }
+
+    public void setOverdueCount(long overdueCount) {
+        this.overdueCount = overdueCount;
+    }
+
+    public long getReturnedCount() {
+        return returnedCount;
+    }
+
+    public void setReturnedCount(long returnedCount) {
+        this.returnedCount = returnedCount;
+    }
+
+    public LocalDate getNextDueDate() {
+        return nextDueDate;
+    }
+
+    public void setNextDueDate(LocalDate nextDueDate) {
+        this.nextDueDate = nextDueDate;
+    }
+
+    public LocalDateTime getLastActivityAt() {
+        return lastActivityAt;
+    }
+
+    public void setLastActivityAt(LocalDateTime lastActivityAt) {
+        this.lastActivityAt = lastActivityAt;
+    }
+}
@@ -0,0 +1,30 @@
+package org.example.monitoring;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.EventListener;
+import org.springframework.security.authentication.event.AbstractAuthenticationFailureEvent;
+import org.springframework.security.authentication.event.AuthenticationSuccessEvent;
+import org.springframework.stereotype.Component;
+
+// zlicza udane i nieudane uwierzytelnienia (HTTP Basic przy kazdym zadaniu)
+// czas uwierzytelnienia mierzy sam Spring Security - timer "spring.security.authentications"
+@Component
+public class AuthenticationMetricsListener {
+
+    private final ServiceMetrics serviceMetrics;
+
+    @Autowired
+    public AuthenticationMetricsListener(ServiceMetrics serviceMetrics) {
+        this.serviceMetrics = serviceMetrics;
+    }
+
+    @EventListener
+    public void onSuccess(AuthenticationSuccessEvent event) {
+        serviceMetrics.increment(ServiceMetrics.AUTHENTICATION, ServiceMetrics.SUCCESS);
+    }
+
+    @EventListener
+    public void onFailure(AbstractAuthenticationFailureEvent event) {
+        serviceMetrics.increment(ServiceMetrics.AUTHENTICATION, ServiceMetrics.FAILURE);
+    }
+}
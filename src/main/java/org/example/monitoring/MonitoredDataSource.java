@@ -0,0 +1,187 @@
+package org.example.monitoring;
+
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// lekki proxy JDBC - mierzy czas kazdego execute* i liczbe bindowanych parametrow
+// i przekazuje je do sluchaczy (np. SlowQueryLogger)
+// kazde wykonanie jest tez obserwacja "bookstore.jdbc.query" - przy wlaczonym tracingu span SQL
+// podpiety pod span serwisu, w ktorym zapytanie sie wykonalo
+public class MonitoredDataSource extends DelegatingDataSource {
+
+    public static final String OBSERVATION_NAME = "bookstore.jdbc.query";
+
+    // SQL z Hibernate to skonczony zbior tekstow, ale zapytania z literalami (createStatement) moga byc
+    // kazde inne - ponad limit normalizujemy bez zapamietywania
+    private static final int MAX_NORMALIZED_STATEMENTS = 2000;
+
+    private final List<StatementListener> listeners;
+    private final ObservationRegistry observationRegistry;
+    private final Map<String, String> normalizedStatements = new ConcurrentHashMap<>();
+
+    public MonitoredDataSource(DataSource targetDataSource, List<StatementListener> listeners) {
+        this(targetDataSource, listeners, ObservationRegistry.NOOP);
+    }
+
+    public MonitoredDataSource(DataSource targetDataSource, List<StatementListener> listeners,
+                               ObservationRegistry observationRegistry) {
+        super(targetDataSource);
+        this.listeners = List.copyOf(listeners);
+        this.observationRegistry = observationRegistry;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return proxyConnection(obtainTargetDataSource().getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return proxyConnection(obtainTargetDataSource().getConnection(username, password));
+    }
+
+    private Connection proxyConnection(Connection connection) {
+        return (Connection) Proxy.newProxyInstance(MonitoredDataSource.class.getClassLoader(),
+                new Class<?>[]{Connection.class}, new ConnectionHandler(connection));
+    }
+
+    private void notifyListeners(String sql, int bindCount, long elapsedNanos) {
+        for (StatementListener listener : listeners) {
+            listener.afterExecute(sql, bindCount, elapsedNanos);
+        }
+    }
+
+    // bez rejestru obserwacji (np. w testach) nie normalizujemy SQL na kazde zapytanie
+    private Observation startObservation(String methodName, String sql) {
+        if (observationRegistry.isNoop()) {
+            return Observation.NOOP;
+        }
+        return Observation.createNotStarted(OBSERVATION_NAME, observationRegistry)
+                .contextualName("SQL " + methodName)
+                .highCardinalityKeyValue("db.statement", normalized(sql))
+                .start();
+    }
+
+    // znormalizowany SQL liczony raz na rozny tekst zapytania, a nie przy kazdym wykonaniu
+    String normalized(String sql) {
+        if (sql == null) {
+            return SlowQueryLogger.normalize(null);
+        }
+        String cached = normalizedStatements.get(sql);
+        if (cached != null) {
+            return cached;
+        }
+        String normalized = SlowQueryLogger.normalize(sql);
+        if (normalizedStatements.size() < MAX_NORMALIZED_STATEMENTS) {
+            normalizedStatements.putIfAbsent(sql, normalized);
+        }
+        return normalized;
+    }
+
+    private static Object invokeTarget(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    // opakowuje Statement/PreparedStatement/CallableStatement zwracane przez polaczenie
+    private class ConnectionHandler implements InvocationHandler {
+
+        private final Connection target;
+
+        ConnectionHandler(Connection target) {
+            this.target = target;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                default:
+                    break;
+            }
+
+            Object result = invokeTarget(target, method, args);
+            if (!(result instanceof Statement statement)) {
+                return result;
+            }
+
+            // prepareStatement/prepareCall dostaja SQL jako pierwszy argument, createStatement nie
+            String sql = (args != null && args.length > 0 && args[0] instanceof String text) ? text : null;
+            Class<?> statementType = statement instanceof CallableStatement ? CallableStatement.class
+                    : statement instanceof PreparedStatement ? PreparedStatement.class
+                    : Statement.class;
+            return Proxy.newProxyInstance(MonitoredDataSource.class.getClassLoader(),
+                    new Class<?>[]{statementType}, new StatementHandler(statement, sql));
+        }
+    }
+
+    // mierzy execute*, liczy wywolania setXxx(parametr, wartosc) od ostatniego wykonania
+    private class StatementHandler implements InvocationHandler {
+
+        private final Statement target;
+        private final String preparedSql;
+        private int bindCount;
+
+        StatementHandler(Statement target, String preparedSql) {
+            this.target = target;
+            this.preparedSql = preparedSql;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            switch (name) {
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                default:
+                    break;
+            }
+
+            // setFetchSize, setMaxRows itp. maja jeden argument - bindowanie parametru ma co najmniej dwa
+            if (name.startsWith("set") && args != null && args.length >= 2) {
+                bindCount++;
+            }
+            if (!name.startsWith("execute")) {
+                return invokeTarget(target, method, args);
+            }
+
+            String sql = (args != null && args.length > 0 && args[0] instanceof String text) ? text : preparedSql;
+            Observation observation = startObservation(name, sql);
+            long start = System.nanoTime();
+            try (Observation.Scope scope = observation.openScope()) {
+                return invokeTarget(target, method, args);
+            } catch (Throwable e) {
+                observation.error(e);
+                throw e;
+            } finally {
+                int executedBinds = bindCount;
+                bindCount = 0;
+                notifyListeners(sql, executedBinds, System.nanoTime() - start);
+                observation.stop();
+            }
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package org.example.monitoring;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.Comparator;
+import java.util.Map;
+
+// pilnuje limitu zapytan SQL na zadanie - wykrywa N+1 zanim trafi na produkcje
+// tryb LOG (produkcja) zapisuje ostrzezenie, tryb FAIL (profil test) rzuca wyjatek, wiec test endpointu nie przejdzie
+public class QueryBudgetFilter extends OncePerRequestFilter {
+
+    private static final Logger log = LoggerFactory.getLogger(QueryBudgetFilter.class);
+
+    private final RequestQueryCounter requestQueryCounter;
+    private final QueryBudgetProperties properties;
+    private final AntPathMatcher pathMatcher = new AntPathMatcher();
+
+    public QueryBudgetFilter(RequestQueryCounter requestQueryCounter, QueryBudgetProperties properties) {
+        this.requestQueryCounter = requestQueryCounter;
+        this.properties = properties;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !properties.isEnabled();
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        int queries;
+        requestQueryCounter.start();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            queries = requestQueryCounter.stop();
+        }
+
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        int budget = budgetFor(path);
+        if (queries <= budget) {
+            return;
+        }
+        String message = String.format("query_budget_exceeded method=%s path=%s queries=%d budget=%d",
+                request.getMethod(), path, queries, budget);
+        if (properties.getMode() == QueryBudgetProperties.Mode.FAIL) {
+            throw new IllegalStateException(message);
+        }
+        log.warn(message);
+    }
+
+    // najbardziej szczegolowy pasujacy wzorzec, a bez dopasowania limit domyslny
+    int budgetFor(String path) {
+        Comparator<String> specificity = pathMatcher.getPatternComparator(path);
+        return properties.getEndpoints().entrySet().stream()
+                .filter(entry -> pathMatcher.match(entry.getKey(), path))
+                .min((left, right) -> specificity.compare(left.getKey(), right.getKey()))
+                .map(Map.Entry::getValue)
+                .orElse(properties.getDefaultBudget());
+    }
+}
@@ -0,0 +1,51 @@
+package org.example.monitoring;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// limity zapytan SQL na jedno zadanie HTTP (bookstore.query-budget.*)
+// klucze endpoints to wzorce sciezek, np. endpoints[/api/borrowings/my-history]=3
+@ConfigurationProperties("bookstore.query-budget")
+public class QueryBudgetProperties {
+
+    public enum Mode { LOG, FAIL }
+
+    private boolean enabled = true;
+    private Mode mode = Mode.LOG;
+    private int defaultBudget = 10;
+    private Map<String, Integer> endpoints = new LinkedHashMap<>();
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public Mode getMode() {
+        return mode;
+    }
+
+    public void setMode(Mode mode) {
+        this.mode = mode;
+    }
+
+    public int getDefaultBudget() {
+        return defaultBudget;
+    }
+
+    public void setDefaultBudget(int defaultBudget) {
+        this.defaultBudget = defaultBudget;
+    }
+
+    public Map<String, Integer> getEndpoints() {
+        return endpoints;
+    }
+
+    public void setEndpoints(Map<String, Integer> endpoints) {
+        this.endpoints = endpoints;
+    }
+}
@@ -0,0 +1,27 @@
+package org.example.monitoring;
+
+// liczy zapytania SQL wykonane w watku biezacego zadania HTTP (start/stop wywoluje QueryBudgetFilter)
+// poza zadaniem (zadania wsadowe, scheduler) nic nie liczy
+public class RequestQueryCounter implements StatementListener {
+
+    private final ThreadLocal<int[]> currentCount = new ThreadLocal<>();
+
+    public void start() {
+        currentCount.set(new int[1]);
+    }
+
+    // zwraca liczbe zapytan od start() i konczy liczenie
+    public int stop() {
+        int[] count = currentCount.get();
+        currentCount.remove();
+        return count == null ? 0 : count[0];
+    }
+
+    @Override
+    public void afterExecute(String sql, int bindCount, long elapsedNanos) {
+        int[] count = currentCount.get();
+        if (count != null) {
+            count[0]++;
+        }
+    }
+}
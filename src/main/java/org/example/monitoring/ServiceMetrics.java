@@ -0,0 +1,78 @@
+package org.example.monitoring;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+// metryki glownych sciezek serwisow - timer na operacje z tagiem outcome
+// histogramy (p50/p95/p99) wlaczane sa w application.properties dla prefiksu "bookstore"
+@Component
+public class ServiceMetrics {
+
+    public static final String BORROW = "bookstore.borrowings.borrow";
+    public static final String RETURN = "bookstore.borrowings.return";
+    public static final String SEARCH = "bookstore.books.search";
+    public static final String CURRENT_USER = "bookstore.users.current";
+    public static final String AUTHENTICATION = "bookstore.authentications";
+    public static final String REJECTED = "bookstore.requests.rejected";
+    public static final String NOTIFICATIONS = "bookstore.notifications";
+    public static final String NOTIFICATIONS_RUN = "bookstore.notifications.run";
+    public static final String USER_CACHE = "bookstore.users.cache";
+    public static final String PASSWORD_ENCODE = "bookstore.passwords.encode";
+    public static final String PASSWORD_MATCH = "bookstore.passwords.match";
+    public static final String PASSWORD_UPGRADE = "bookstore.passwords.upgrade";
+
+    public static final String SUCCESS = "success";
+    public static final String FAILURE = "failure";
+    public static final String NOT_FOUND = "not-found";
+    public static final String NOT_AVAILABLE = "not-available";
+    public static final String ALREADY_BORROWED = "already-borrowed";
+    public static final String ALREADY_RETURNED = "already-returned";
+    public static final String NOT_RETURNABLE = "not-returnable";
+    public static final String NOT_OWNER = "not-owner";
+    public static final String NOT_AUTHENTICATED = "not-authenticated";
+    public static final String ERROR = "error";
+    public static final String RATE_LIMITED = "rate-limited";
+    public static final String SHED = "shed";
+    public static final String HASHING_BUSY = "hashing-busy";
+    public static final String HIT = "hit";
+    public static final String MISS = "miss";
+    public static final String MISSING_HIT = "missing-hit";
+
+    private final MeterRegistry meterRegistry;
+    // Timer.builder(...).register() przy kazdym wywolaniu alokuje builder i Meter.Id - trzymamy gotowe
+    private final Map<String, Timer> timers = new ConcurrentHashMap<>();
+    private final Map<String, Counter> counters = new ConcurrentHashMap<>();
+
+    @Autowired
+    public ServiceMetrics(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    // zapisuje czas operacji liczony od startNanos (System.nanoTime())
+    public void record(String operation, String outcome, long startNanos) {
+        timers.computeIfAbsent(operation + '|' + outcome, key -> Timer.builder(operation)
+                        .tag("outcome", outcome)
+                        .register(meterRegistry))
+                .record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    // zlicza zdarzenie bez pomiaru czasu (np. wynik uwierzytelnienia)
+    public void increment(String name, String outcome) {
+        increment(name, outcome, 1);
+    }
+
+    // zlicza wiele zdarzen naraz (np. cala wyslana partia powiadomien)
+    public void increment(String name, String outcome, double amount) {
+        counters.computeIfAbsent(name + '|' + outcome, key -> Counter.builder(name)
+                        .tag("outcome", outcome)
+                        .register(meterRegistry))
+                .increment(amount);
+    }
+}
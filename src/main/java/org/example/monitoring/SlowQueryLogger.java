@@ -0,0 +1,63 @@
+package org.example.monitoring;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
+
+// loguje tylko zapytania wolniejsze niz prog, w formacie klucz=wartosc
+// logger "org.example.monitoring.SlowQuery" jest podpiety pod AsyncAppender (logback-spring.xml),
+// wiec watek zapytania nie czeka na zapis logu
+public class SlowQueryLogger implements StatementListener {
+
+    private static final Logger log = LoggerFactory.getLogger("org.example.monitoring.SlowQuery");
+    private static final int MAX_SQL_LENGTH = 1000;
+    private static final StackWalker STACK_WALKER = StackWalker.getInstance();
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    private final long thresholdNanos;
+
+    public SlowQueryLogger(long thresholdMillis) {
+        this.thresholdNanos = TimeUnit.MILLISECONDS.toNanos(thresholdMillis);
+    }
+
+    @Override
+    public void afterExecute(String sql, int bindCount, long elapsedNanos) {
+        if (elapsedNanos < thresholdNanos || !log.isInfoEnabled()) {
+            return;
+        }
+        // stos musimy odczytac na watku zapytania, ale tylko dla wolnych zapytan
+        log.info("slow_query duration_ms={} binds={} caller={} sql=\"{}\"",
+                TimeUnit.NANOSECONDS.toMillis(elapsedNanos), bindCount, findCaller(), normalize(sql));
+    }
+
+    // pierwsza metoda serwisu na stosie, a jesli jej nie ma - pierwsza klasa aplikacji
+    static String findCaller() {
+        return findFrame(className -> className.startsWith("org.example.service."))
+                .or(() -> findFrame(className -> className.startsWith("org.example.")
+                        && !className.startsWith("org.example.monitoring.")))
+                .orElse("unknown");
+    }
+
+    private static Optional<String> findFrame(Predicate<String> classFilter) {
+        return STACK_WALKER.walk(frames -> frames
+                .filter(frame -> !frame.getClassName().contains("$$") && classFilter.test(frame.getClassName()))
+                .findFirst()
+                .map(frame -> simpleName(frame.getClassName()) + "." + frame.getMethodName()));
+    }
+
+    private static String simpleName(String className) {
+        return className.substring(className.lastIndexOf('.') + 1);
+    }
+
+    static String normalize(String sql) {
+        if (sql == null) {
+            return "";
+        }
+        String compact = WHITESPACE.matcher(sql).replaceAll(" ").trim().replace("\"", "'");
+        return compact.length() > MAX_SQL_LENGTH ? compact.substring(0, MAX_SQL_LENGTH) + "..." : compact;
+    }
+}
@@ -0,0 +1,8 @@
+package org.example.monitoring;
+
+// sluchacz wykonanych zapytan SQL przechodzacych przez MonitoredDataSource
+public interface StatementListener {
+
+    // wywolywany po kazdym execute* (takze zakonczonym wyjatkiem) na watku wykonujacym zapytanie
+    void afterExecute(String sql, int bindCount, long elapsedNanos);
+}
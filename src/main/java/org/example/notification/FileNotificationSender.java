@@ -0,0 +1,42 @@
+package org.example.notification;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+// zapisuje powiadomienia do pliku JSONL (bookstore.notifications.sender-file) - lokalnie zamiast bramki e-mail
+public class FileNotificationSender implements NotificationSender {
+
+    private final Path file;
+    private final ObjectMapper objectMapper;
+
+    public FileNotificationSender(Path file, ObjectMapper objectMapper) throws IOException {
+        this.file = file;
+        this.objectMapper = objectMapper;
+        Path parent = file.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+    }
+
+    // partie z kilku watkow nie przeplataja sie w pliku
+    @Override
+    public synchronized void send(List<Notification> notifications) {
+        try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+            for (Notification notification : notifications) {
+                writer.write(objectMapper.writeValueAsString(notification));
+                writer.newLine();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot write notifications to " + file, e);
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package org.example.notification;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+
+// domyslny nadawca - zapisuje powiadomienia do loggera org.example.notification.Notifications
+public class LoggingNotificationSender implements NotificationSender {
+
+    private static final Logger log = LoggerFactory.getLogger("org.example.notification.Notifications");
+
+    @Override
+    public void send(List<Notification> notifications) {
+        for (Notification notification : notifications) {
+            log.info("notification type={} borrowing={} to={} subject={}", notification.type(),
+                    notification.borrowingId(), notification.recipient(), notification.subject());
+        }
+    }
+}
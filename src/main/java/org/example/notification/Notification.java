@@ -0,0 +1,5 @@
+package org.example.notification;
+
+// gotowe powiadomienie przekazywane do NotificationSender
+public record Notification(NotificationType type, Long borrowingId, String recipient, String subject, String body) {
+}
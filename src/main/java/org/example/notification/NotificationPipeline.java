@@ -0,0 +1,157 @@
+package org.example.notification;
+
+import org.example.model.BorrowingStatus;
+import org.example.monitoring.ServiceMetrics;
+import org.example.repository.BorrowingBatchRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongFunction;
+
+// przypomnienia o zblizajacym sie terminie zwrotu i powiadomienia o przeterminowaniu
+// watek wywolujacy czyta wypozyczenia stronami (keyset po id, bez OFFSET) w puli "batch", zeby przebieg
+// nie zajmowal polaczen interaktywnych, a kazda strona jest renderowana
+// i wysylana jako partia w puli workerThreads; semafor ogranicza partie w toku, wiec przy wolnym nadawcy
+// odczyt czeka zamiast gromadzic strony w pamieci; udana partia zapisuje wpisy w borrowing_notifications,
+// a kandydaci to wypozyczenia bez wpisu, wiec nieudane partie i pominiete dni wracaja w kolejnym przebiegu
+public class NotificationPipeline {
+
+    private static final Logger log = LoggerFactory.getLogger(NotificationPipeline.class);
+
+    private final BorrowingBatchRepository borrowingBatchRepository;
+    private final NotificationRenderer renderer;
+    private final NotificationSender sender;
+    private final ServiceMetrics serviceMetrics;
+    private final NotificationProperties properties;
+    private final ExecutorService executor;
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    public NotificationPipeline(BorrowingBatchRepository borrowingBatchRepository, NotificationRenderer renderer,
+                                NotificationSender sender, ServiceMetrics serviceMetrics,
+                                NotificationProperties properties) {
+        this.borrowingBatchRepository = borrowingBatchRepository;
+        this.renderer = renderer;
+        this.sender = sender;
+        this.serviceMetrics = serviceMetrics;
+        this.properties = properties;
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(properties.getWorkerThreads(), runnable -> {
+            Thread thread = new Thread(runnable, "notification-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    // codziennie rano; przeterminowane sa wybierane po braku wpisu powiadomienia, wiec nie zalezy to od tego,
+    // kiedy zostaly oznaczone; dziala tylko przy wlaczonym harmonogramie
+    @Scheduled(cron = "${bookstore.notifications.cron:0 0 7 * * *}")
+    public void runScheduled() {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        NotificationRunResult result = run(LocalDate.now());
+        log.info("Notifications sent: dueSoon={} overdue={} failed={} in {} ms", result.dueSoon(),
+                result.overdue(), result.failed(), result.elapsedMs());
+    }
+
+    // przypomnienia dla wypozyczen z terminem w ciagu dueSoonDaysBefore dni i powiadomienia dla wszystkich
+    // przeterminowanych - kazde wypozyczenie dostaje kazde powiadomienie raz, po udanej wysylce
+    public NotificationRunResult run(LocalDate today) {
+        if (!running.compareAndSet(false, true)) {
+            throw new IllegalStateException("Notification run already in progress");
+        }
+        long start = System.nanoTime();
+        String outcome = ServiceMetrics.ERROR;
+        try {
+            LocalDate dueSoon = today.plusDays(properties.getDueSoonDaysBefore());
+            int pageSize = properties.getPageSize();
+            RunCounters dueSoonCounters = process(NotificationType.DUE_SOON, today,
+                    afterId -> borrowingBatchRepository.findReminderCandidates(BorrowingStatus.BORROWED, today,
+                            dueSoon, NotificationType.DUE_SOON, afterId, pageSize));
+            RunCounters overdueCounters = process(NotificationType.OVERDUE, today,
+                    afterId -> borrowingBatchRepository.findOverdueCandidates(NotificationType.OVERDUE, afterId,
+                            pageSize));
+            outcome = ServiceMetrics.SUCCESS;
+            return new NotificationRunResult(dueSoonCounters.sent.sum(), overdueCounters.sent.sum(),
+                    dueSoonCounters.failed.sum() + overdueCounters.failed.sum(),
+                    (System.nanoTime() - start) / 1_000_000);
+        } finally {
+            serviceMetrics.record(ServiceMetrics.NOTIFICATIONS_RUN, outcome, start);
+            running.set(false);
+        }
+    }
+
+    // pageLoader zwraca strone kandydatow o id wiekszym od podanego
+    private RunCounters process(NotificationType type, LocalDate today,
+                                LongFunction<List<ReminderCandidate>> pageLoader) {
+        RunCounters counters = new RunCounters();
+        Semaphore inFlight = new Semaphore(properties.getMaxInFlightBatches());
+        long afterId = 0;
+        try {
+            while (true) {
+                List<ReminderCandidate> candidates = pageLoader.apply(afterId);
+                if (candidates.isEmpty()) {
+                    break;
+                }
+                afterId = candidates.get(candidates.size() - 1).borrowingId();
+                inFlight.acquire();
+                executor.execute(() -> {
+                    try {
+                        sendBatch(type, candidates, today, counters);
+                    } finally {
+                        inFlight.release();
+                    }
+                });
+                if (candidates.size() < properties.getPageSize()) {
+                    break;
+                }
+            }
+            // czeka na zakonczenie wszystkich partii tego typu
+            inFlight.acquire(properties.getMaxInFlightBatches());
+            inFlight.release(properties.getMaxInFlightBatches());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Notification run interrupted", e);
+        }
+        return counters;
+    }
+
+    private void sendBatch(NotificationType type, List<ReminderCandidate> candidates, LocalDate today,
+                           RunCounters counters) {
+        try {
+            List<Notification> notifications = candidates.stream()
+                    .map(candidate -> renderer.render(type, candidate, today))
+                    .toList();
+            sender.send(notifications);
+            // blad zapisu wpisow liczy partie jako nieudana - zostanie wyslana ponownie (co najmniej raz)
+            borrowingBatchRepository.recordNotifications(type,
+                    candidates.stream().map(ReminderCandidate::borrowingId).toList(), LocalDateTime.now());
+            counters.sent.add(notifications.size());
+            serviceMetrics.increment(ServiceMetrics.NOTIFICATIONS, ServiceMetrics.SUCCESS, notifications.size());
+        } catch (RuntimeException e) {
+            counters.failed.add(candidates.size());
+            serviceMetrics.increment(ServiceMetrics.NOTIFICATIONS, ServiceMetrics.FAILURE, candidates.size());
+            log.warn("Failed to send {} {} notifications: {}", candidates.size(), type, e.getMessage());
+        }
+    }
+
+    // zamykane przez Spring razem z kontekstem (metoda shutdown jest wykrywana dla @Bean)
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private static class RunCounters {
+        private final LongAdder sent = new LongAdder();
+        private final LongAdder failed = new LongAdder();
+    }
+}
@@ -0,0 +1,67 @@
+package org.example.notification;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+// ustawienia przypomnien o terminie zwrotu i powiadomien o przeterminowaniu (bookstore.notifications.*)
+@ConfigurationProperties("bookstore.notifications")
+public class NotificationProperties {
+
+    private boolean enabled = true;
+    // przypomnienie idzie raz, gdy do terminu zostalo tyle dni
+    private int dueSoonDaysBefore = 2;
+    // liczba wypozyczen pobieranych jednym zapytaniem i wysylanych jedna partia
+    private int pageSize = 500;
+    private int workerThreads = 4;
+    // limit partii w toku (renderowanie + wysylka); po jego osiagnieciu odczyt kolejnych stron czeka
+    private int maxInFlightBatches = 8;
+    // plik JSONL dla FileNotificationSender; bez ustawienia powiadomienia trafiaja do logu
+    private String senderFile;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public int getDueSoonDaysBefore() {
+        return dueSoonDaysBefore;
+    }
+
+    public void setDueSoonDaysBefore(int dueSoonDaysBefore) {
+        this.dueSoonDaysBefore = dueSoonDaysBefore;
+    }
+
+    public int getPageSize() {
+        return pageSize;
+    }
+
+    public void setPageSize(int pageSize) {
+        this.pageSize = pageSize;
+    }
+
+    public int getWorkerThreads() {
+        return workerThreads;
+    }
+
+    public void setWorkerThreads(int workerThreads) {
+        this.workerThreads = workerThreads;
+    }
+
+    public int getMaxInFlightBatches() {
+        return maxInFlightBatches;
+    }
+
+    public void setMaxInFlightBatches(int maxInFlightBatches) {
+        this.maxInFlightBatches = maxInFlightBatches;
+    }
+
+    public String getSenderFile() {
+        return senderFile;
+    }
+
+    public void setSenderFile(String senderFile) {
+        this.senderFile = senderFile;
+    }
+}
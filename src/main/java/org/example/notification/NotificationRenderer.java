@@ -0,0 +1,22 @@
+package org.example.notification;
+
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+
+// sklada tresc powiadomienia; bezstanowy, wiec wywolywany rownolegle z watkow NotificationPipeline
+public class NotificationRenderer {
+
+    public Notification render(NotificationType type, ReminderCandidate candidate, LocalDate today) {
+        return switch (type) {
+            case DUE_SOON -> new Notification(type, candidate.borrowingId(), candidate.email(),
+                    "Reminder: \"" + candidate.bookTitle() + "\" is due on " + candidate.dueDate(),
+                    "Hi " + candidate.username() + ", please return \"" + candidate.bookTitle() + "\" within "
+                            + ChronoUnit.DAYS.between(today, candidate.dueDate()) + " day(s), by "
+                            + candidate.dueDate() + ".");
+            case OVERDUE -> new Notification(type, candidate.borrowingId(), candidate.email(),
+                    "Overdue: \"" + candidate.bookTitle() + "\"",
+                    "Hi " + candidate.username() + ", \"" + candidate.bookTitle() + "\" was due on "
+                            + candidate.dueDate() + ". Please return it as soon as possible.");
+        };
+    }
+}
@@ -0,0 +1,5 @@
+package org.example.notification;
+
+// wynik przebiegu NotificationPipeline: liczba wyslanych powiadomien kazdego typu i niewyslanych
+public record NotificationRunResult(long dueSoon, long overdue, long failed, long elapsedMs) {
+}
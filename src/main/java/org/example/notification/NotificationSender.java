@@ -0,0 +1,10 @@
+package org.example.notification;
+
+import java.util.List;
+
+// wysylka powiadomien (e-mail, SMS, push); dostaje cala partie, zeby odbiorca mogl wyslac ja jednym zadaniem
+// wyjatek oznacza niewyslana partie - liczona jako failed, bez ponawiania w tym przebiegu
+public interface NotificationSender {
+
+    void send(List<Notification> notifications);
+}
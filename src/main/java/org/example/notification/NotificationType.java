@@ -0,0 +1,7 @@
+package org.example.notification;
+
+// rodzaje powiadomien o wypozyczeniach
+public enum NotificationType {
+    DUE_SOON,
+    OVERDUE
+}
@@ -0,0 +1,8 @@
+package org.example.notification;
+
+import java.time.LocalDate;
+
+// wypozyczenie kwalifikujace sie do powiadomienia - wiersz z BorrowingBatchRepository.findReminderCandidates
+// (tylko pola potrzebne do tresci, bez ladowania encji)
+public record ReminderCandidate(Long borrowingId, String username, String email, String bookTitle, LocalDate dueDate) {
+}
@@ -0,0 +1,56 @@
+package org.example.outbox;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// zapisuje zdarzenia do pliku JSONL (bookstore.outbox.sink-file) - lokalnie i w testach zamiast brokera
+public class FileOutboxEventSink implements OutboxEventSink {
+
+    private final Path file;
+    private final ObjectMapper objectMapper;
+
+    public FileOutboxEventSink(Path file, ObjectMapper objectMapper) throws IOException {
+        this.file = file;
+        this.objectMapper = objectMapper;
+        Path parent = file.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+    }
+
+    // cala partia jednym zapisem; wyjatek wycofuje oznaczenie partii jako wyslanej
+    @Override
+    public synchronized void publish(List<OutboxMessage> messages) {
+        try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+            for (OutboxMessage message : messages) {
+                writer.write(objectMapper.writeValueAsString(toMap(message)));
+                writer.newLine();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot write outbox events to " + file, e);
+        }
+    }
+
+    // payload jest juz JSON-em, wiec trafia do linii jako obiekt, nie jako napis
+    private Map<String, Object> toMap(OutboxMessage message) throws IOException {
+        Map<String, Object> line = new LinkedHashMap<>();
+        line.put("id", message.id());
+        line.put("eventType", message.eventType());
+        line.put("aggregateType", message.aggregateType());
+        line.put("aggregateId", message.aggregateId());
+        line.put("createdAt", message.createdAt().toString());
+        line.put("payload", objectMapper.readTree(message.payload()));
+        return line;
+    }
+}
@@ -0,0 +1,20 @@
+package org.example.outbox;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+
+// domyslny odbiorca - zapisuje zdarzenia do loggera org.example.outbox.Events
+public class LoggingOutboxEventSink implements OutboxEventSink {
+
+    private static final Logger log = LoggerFactory.getLogger("org.example.outbox.Events");
+
+    @Override
+    public void publish(List<OutboxMessage> messages) {
+        for (OutboxMessage message : messages) {
+            log.info("outbox_event id={} type={} aggregate={}:{} payload={}", message.id(), message.eventType(),
+                    message.aggregateType(), message.aggregateId(), message.payload());
+        }
+    }
+}
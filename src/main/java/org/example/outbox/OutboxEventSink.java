@@ -0,0 +1,10 @@
+package org.example.outbox;
+
+import java.util.List;
+
+// odbiorca zdarzen z outboxa (broker, webhook, plik); wyjatek wycofuje partie,
+// ktora zostanie wyslana ponownie w kolejnym przebiegu - dostarczenie co najmniej raz
+public interface OutboxEventSink {
+
+    void publish(List<OutboxMessage> messages);
+}
@@ -0,0 +1,8 @@
+package org.example.outbox;
+
+import java.time.LocalDateTime;
+
+// zdarzenie z outboxa przekazywane do odbiorcy (OutboxEventSink)
+public record OutboxMessage(Long id, String aggregateType, Long aggregateId, String eventType,
+                            String payload, LocalDateTime createdAt) {
+}
@@ -0,0 +1,83 @@
+package org.example.outbox;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+// ustawienia wysylki zdarzen z outboxa (bookstore.outbox.*)
+@ConfigurationProperties("bookstore.outbox")
+public class OutboxProperties {
+
+    private final Relay relay = new Relay();
+    // plik JSONL dla FileOutboxEventSink; bez ustawienia zdarzenia trafiaja do logu
+    private String sinkFile;
+
+    public Relay getRelay() {
+        return relay;
+    }
+
+    public String getSinkFile() {
+        return sinkFile;
+    }
+
+    public void setSinkFile(String sinkFile) {
+        this.sinkFile = sinkFile;
+    }
+
+    public static class Relay {
+
+        private boolean enabled = true;
+        private long pollIntervalMs = 1000;
+        private int batchSize = 100;
+        // ograniczenie pracy jednego przebiegu, zeby duza zaleglosc nie blokowala watku harmonogramu
+        private int maxBatchesPerPoll = 10;
+        private long retentionHours = 168;
+        private long cleanupIntervalMs = 3600000;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public long getPollIntervalMs() {
+            return pollIntervalMs;
+        }
+
+        public void setPollIntervalMs(long pollIntervalMs) {
+            this.pollIntervalMs = pollIntervalMs;
+        }
+
+        public int getBatchSize() {
+            return batchSize;
+        }
+
+        public void setBatchSize(int batchSize) {
+            this.batchSize = batchSize;
+        }
+
+        public int getMaxBatchesPerPoll() {
+            return maxBatchesPerPoll;
+        }
+
+        public void setMaxBatchesPerPoll(int maxBatchesPerPoll) {
+            this.maxBatchesPerPoll = maxBatchesPerPoll;
+        }
+
+        public long getRetentionHours() {
+            return retentionHours;
+        }
+
+        public void setRetentionHours(long retentionHours) {
+            this.retentionHours = retentionHours;
+        }
+
+        public long getCleanupIntervalMs() {
+            return cleanupIntervalMs;
+        }
+
+        public void setCleanupIntervalMs(long cleanupIntervalMs) {
+            this.cleanupIntervalMs = cleanupIntervalMs;
+        }
+    }
+}
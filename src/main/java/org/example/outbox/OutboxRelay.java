@@ -0,0 +1,78 @@
+package org.example.outbox;
+
+import org.example.repository.OutboxBatchRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+// przekazuje zdarzenia z outbox_events do OutboxEventSink partiami
+// kazda partia to jedna transakcja na puli "batch": blokada wierszy (SKIP LOCKED), wysylka, oznaczenie
+// published_at; blad odbiorcy wycofuje transakcje i partia wraca w kolejnym przebiegu (co najmniej raz)
+public class OutboxRelay {
+
+    private static final Logger log = LoggerFactory.getLogger(OutboxRelay.class);
+
+    private final OutboxBatchRepository outboxBatchRepository;
+    private final OutboxEventSink sink;
+    private final TransactionTemplate transactionTemplate;
+    private final OutboxProperties.Relay properties;
+
+    public OutboxRelay(OutboxBatchRepository outboxBatchRepository, OutboxEventSink sink,
+                       PlatformTransactionManager batchTransactionManager, OutboxProperties properties) {
+        this.outboxBatchRepository = outboxBatchRepository;
+        this.sink = sink;
+        this.transactionTemplate = new TransactionTemplate(batchTransactionManager);
+        this.properties = properties.getRelay();
+    }
+
+    // dziala tylko przy wlaczonym harmonogramie (SchedulingConfig)
+    @Scheduled(fixedDelayString = "${bookstore.outbox.relay.poll-interval-ms:1000}")
+    public void poll() {
+        try {
+            relayPending();
+        } catch (RuntimeException e) {
+            log.warn("Outbox relay failed, batch will be retried: {}", e.getMessage());
+        }
+    }
+
+    // wysyla partie az do pustej (lub niepelnej) albo limitu partii na przebieg, zwraca liczbe zdarzen
+    public int relayPending() {
+        int total = 0;
+        for (int i = 0; i < properties.getMaxBatchesPerPoll(); i++) {
+            int relayed = relayBatch();
+            total += relayed;
+            if (relayed < properties.getBatchSize()) {
+                break;
+            }
+        }
+        return total;
+    }
+
+    int relayBatch() {
+        Integer relayed = transactionTemplate.execute(status -> {
+            List<OutboxMessage> batch = outboxBatchRepository.lockUnpublished(properties.getBatchSize());
+            if (batch.isEmpty()) {
+                return 0;
+            }
+            sink.publish(batch);
+            outboxBatchRepository.markPublished(batch.stream().map(OutboxMessage::id).toList(), LocalDateTime.now());
+            return batch.size();
+        });
+        return relayed == null ? 0 : relayed;
+    }
+
+    // sprzatanie wyslanych zdarzen starszych niz okres retencji
+    @Scheduled(fixedDelayString = "${bookstore.outbox.relay.cleanup-interval-ms:3600000}")
+    public void purgePublished() {
+        int deleted = outboxBatchRepository.deletePublishedBefore(
+                LocalDateTime.now().minusHours(properties.getRetentionHours()));
+        if (deleted > 0) {
+            log.info("Purged {} published outbox events", deleted);
+        }
+    }
+}
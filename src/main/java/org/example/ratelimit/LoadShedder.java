@@ -0,0 +1,62 @@
+package org.example.ratelimit;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.util.concurrent.TimeUnit;
+
+// wlacza odrzucanie zadan, gdy sredni czas oczekiwania na polaczenie z puli przekracza prog
+// srednia liczona z przyrostu timera hikaricp.connections.acquire od poprzedniej probki,
+// probka odswiezana najwyzej raz na sample-interval przez watek obslugujacy zadanie
+public class LoadShedder {
+
+    static final String ACQUIRE_TIMER = "hikaricp.connections.acquire";
+
+    private final MeterRegistry meterRegistry;
+    private final RateLimitProperties.Shedding properties;
+    private final long sampleIntervalNanos;
+    private final long thresholdNanos;
+
+    private volatile long nextSampleNanos;
+    private volatile boolean shedding;
+    private long lastCount;
+    private double lastTotalNanos;
+
+    public LoadShedder(MeterRegistry meterRegistry, RateLimitProperties.Shedding properties) {
+        this.meterRegistry = meterRegistry;
+        this.properties = properties;
+        this.sampleIntervalNanos = TimeUnit.MILLISECONDS.toNanos(properties.getSampleIntervalMs());
+        this.thresholdNanos = TimeUnit.MILLISECONDS.toNanos(properties.getAcquireThresholdMs());
+        this.nextSampleNanos = System.nanoTime();
+    }
+
+    public boolean isShedding() {
+        if (!properties.isEnabled()) {
+            return false;
+        }
+        long now = System.nanoTime();
+        if (now - nextSampleNanos >= 0) {
+            sample(now);
+        }
+        return shedding;
+    }
+
+    private synchronized void sample(long now) {
+        if (now - nextSampleNanos < 0) {
+            return;
+        }
+        nextSampleNanos = now + sampleIntervalNanos;
+        Timer timer = meterRegistry.find(ACQUIRE_TIMER).tag("pool", properties.getPool()).timer();
+        if (timer == null) {
+            shedding = false;
+            return;
+        }
+        long count = timer.count();
+        double totalNanos = timer.totalTime(TimeUnit.NANOSECONDS);
+        long acquired = count - lastCount;
+        double waitedNanos = totalNanos - lastTotalNanos;
+        lastCount = count;
+        lastTotalNanos = totalNanos;
+        shedding = acquired > 0 && waitedNanos / acquired > thresholdNanos;
+    }
+}
@@ -0,0 +1,129 @@
+package org.example.ratelimit;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.example.monitoring.ServiceMetrics;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+// limity per uzytkownik dla wyszukiwania i wypozyczania, wpiety w lancuch Spring Security
+// za uwierzytelnieniem (klucz to nazwa uzytkownika); niezalogowane zadania przepuszcza dalej,
+// bo i tak odrzuci je autoryzacja
+// przy przeciazonej puli polaczen odrzuca wyszukiwania (503) - wypozyczenia obsluguje dalej
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    private static final String SEARCH_PATH = "/api/books/search";
+    private static final String BORROW_PATTERN = "/api/borrowings/borrow/*";
+
+    private final RateLimitProperties properties;
+    private final RateLimiter searchLimiter;
+    private final RateLimiter borrowLimiter;
+    private final LoadShedder loadShedder;
+    private final ServiceMetrics serviceMetrics;
+    private final AntPathMatcher pathMatcher = new AntPathMatcher();
+    // wlasny watek zamiast @Scheduled - kubelki musza znikac takze przy wylaczonym harmonogramie
+    // (bookstore.scheduling.enabled=false), inaczej mapy rosna z kazdym nowym uzytkownikiem
+    private final ScheduledExecutorService evictionScheduler;
+
+    public RateLimitFilter(RateLimitProperties properties, LoadShedder loadShedder, ServiceMetrics serviceMetrics) {
+        this.properties = properties;
+        this.searchLimiter = new RateLimiter(properties.getSearch());
+        this.borrowLimiter = new RateLimiter(properties.getBorrow());
+        this.loadShedder = loadShedder;
+        this.serviceMetrics = serviceMetrics;
+        this.evictionScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "rate-limit-eviction");
+            thread.setDaemon(true);
+            return thread;
+        });
+        if (properties.isEnabled()) {
+            evictionScheduler.scheduleWithFixedDelay(this::evictFullBuckets, properties.getEvictionIntervalMs(),
+                    properties.getEvictionIntervalMs(), TimeUnit.MILLISECONDS);
+        }
+    }
+
+    // co eviction-interval-ms usuwa kubelki uzytkownikow, ktorzy od dawna nic nie wyslali;
+    // przeglad calej mapy idzie w watku evictionScheduler, wiec zadania placa tylko za swoj kubelek
+    void evictFullBuckets() {
+        long now = System.nanoTime();
+        searchLimiter.evictFull(now);
+        borrowLimiter.evictFull(now);
+    }
+
+    int trackedUsers() {
+        return searchLimiter.trackedUsers() + borrowLimiter.trackedUsers();
+    }
+
+    // zamykane przez Spring razem z kontekstem (GenericFilterBean jest DisposableBean)
+    @Override
+    public void destroy() {
+        evictionScheduler.shutdownNow();
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !properties.isEnabled();
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null || !authentication.isAuthenticated()) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        String username = authentication.getName();
+        if ("GET".equals(request.getMethod()) && SEARCH_PATH.equals(path)) {
+            if (loadShedder.isShedding()) {
+                serviceMetrics.increment(ServiceMetrics.REJECTED, ServiceMetrics.SHED);
+                reject(response, HttpStatus.SERVICE_UNAVAILABLE, properties.getShedding().getRetryAfterSeconds(),
+                        "Service is overloaded, try again later");
+                return;
+            }
+            if (!acquire(searchLimiter, username, response)) {
+                return;
+            }
+        } else if ("POST".equals(request.getMethod()) && pathMatcher.match(BORROW_PATTERN, path)) {
+            if (!acquire(borrowLimiter, username, response)) {
+                return;
+            }
+        }
+        filterChain.doFilter(request, response);
+    }
+
+    private boolean acquire(RateLimiter limiter, String username, HttpServletResponse response) throws IOException {
+        long waitNanos = limiter.tryAcquire(username);
+        if (waitNanos == 0) {
+            return true;
+        }
+        serviceMetrics.increment(ServiceMetrics.REJECTED, ServiceMetrics.RATE_LIMITED);
+        // Retry-After w pelnych sekundach, zaokraglony w gore
+        long retryAfterSeconds = Math.max(1, (waitNanos + TimeUnit.SECONDS.toNanos(1) - 1) / TimeUnit.SECONDS.toNanos(1));
+        reject(response, HttpStatus.TOO_MANY_REQUESTS, retryAfterSeconds, "Too many requests, try again later");
+        return false;
+    }
+
+    // ten sam format bledu co w kontrolerach: {"error": "..."}
+    private static void reject(HttpServletResponse response, HttpStatus status, long retryAfterSeconds, String message)
+            throws IOException {
+        response.setStatus(status.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.getWriter().write("{\"error\":\"" + message + "\"}");
+    }
+}
@@ -0,0 +1,136 @@
+package org.example.ratelimit;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+// limity zadan na uzytkownika i odrzucanie ruchu przy przeciazonej puli (bookstore.rate-limit.*)
+@ConfigurationProperties("bookstore.rate-limit")
+public class RateLimitProperties {
+
+    private boolean enabled = true;
+    // co ile usuwane sa pelne kubelki (nieaktywni uzytkownicy)
+    private long evictionIntervalMs = 60000;
+    private Limit search = new Limit(20, 5);
+    private Limit borrow = new Limit(5, 0.2);
+    private Shedding shedding = new Shedding();
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public long getEvictionIntervalMs() {
+        return evictionIntervalMs;
+    }
+
+    public void setEvictionIntervalMs(long evictionIntervalMs) {
+        this.evictionIntervalMs = evictionIntervalMs;
+    }
+
+    public Limit getSearch() {
+        return search;
+    }
+
+    public void setSearch(Limit search) {
+        this.search = search;
+    }
+
+    public Limit getBorrow() {
+        return borrow;
+    }
+
+    public void setBorrow(Limit borrow) {
+        this.borrow = borrow;
+    }
+
+    public Shedding getShedding() {
+        return shedding;
+    }
+
+    public void setShedding(Shedding shedding) {
+        this.shedding = shedding;
+    }
+
+    // pojemnosc kubelka (dopuszczalna seria zadan) i tempo odnawiania tokenow
+    public static class Limit {
+
+        private long capacity;
+        private double refillPerSecond;
+
+        public Limit() {
+        }
+
+        public Limit(long capacity, double refillPerSecond) {
+            this.capacity = capacity;
+            this.refillPerSecond = refillPerSecond;
+        }
+
+        public long getCapacity() {
+            return capacity;
+        }
+
+        public void setCapacity(long capacity) {
+            this.capacity = capacity;
+        }
+
+        public double getRefillPerSecond() {
+            return refillPerSecond;
+        }
+
+        public void setRefillPerSecond(double refillPerSecond) {
+            this.refillPerSecond = refillPerSecond;
+        }
+    }
+
+    // odrzucanie wyszukiwan, gdy sredni czas pobrania polaczenia z puli przekracza prog
+    public static class Shedding {
+
+        private boolean enabled = true;
+        private String pool = "bookstore-interactive";
+        private long acquireThresholdMs = 200;
+        private long sampleIntervalMs = 1000;
+        private long retryAfterSeconds = 2;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public String getPool() {
+            return pool;
+        }
+
+        public void setPool(String pool) {
+            this.pool = pool;
+        }
+
+        public long getAcquireThresholdMs() {
+            return acquireThresholdMs;
+        }
+
+        public void setAcquireThresholdMs(long acquireThresholdMs) {
+            this.acquireThresholdMs = acquireThresholdMs;
+        }
+
+        public long getSampleIntervalMs() {
+            return sampleIntervalMs;
+        }
+
+        public void setSampleIntervalMs(long sampleIntervalMs) {
+            this.sampleIntervalMs = sampleIntervalMs;
+        }
+
+        public long getRetryAfterSeconds() {
+            return retryAfterSeconds;
+        }
+
+        public void setRetryAfterSeconds(long retryAfterSeconds) {
+            this.retryAfterSeconds = retryAfterSeconds;
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package org.example.ratelimit;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// osobny kubelek tokenow dla kazdego uzytkownika w ramach jednego limitu (np. wyszukiwanie)
+// kubelki nieaktywnych uzytkownikow usuwa cyklicznie evictFull (RateLimitFilter), a nie zadanie uzytkownika
+public class RateLimiter {
+
+    private final RateLimitProperties.Limit limit;
+    private final Map<String, TokenBucket> buckets = new ConcurrentHashMap<>();
+
+    public RateLimiter(RateLimitProperties.Limit limit) {
+        this.limit = limit;
+    }
+
+    // 0 gdy zadanie moze przejsc, w przeciwnym razie czas (ns) po ktorym warto ponowic
+    public long tryAcquire(String username) {
+        long now = System.nanoTime();
+        return buckets
+                .computeIfAbsent(username, key -> new TokenBucket(limit.getCapacity(), limit.getRefillPerSecond(), now))
+                .tryConsume(now);
+    }
+
+    // usuwa pelne kubelki - ich odtworzenie niczego nie zmienia dla uzytkownika; zwraca liczbe usunietych
+    public int evictFull(long nowNanos) {
+        int before = buckets.size();
+        buckets.values().removeIf(bucket -> bucket.isFull(nowNanos));
+        return before - buckets.size();
+    }
+
+    int trackedUsers() {
+        return buckets.size();
+    }
+}
@@ -0,0 +1,45 @@
+package org.example.ratelimit;
+
+// kubelek tokenow: pojemnosc to dopuszczalny "wybuch" zadan, tokeny doplywaja w stalym tempie
+// czas podawany z zewnatrz (System.nanoTime()), zeby dalo sie go testowac bez czekania
+public class TokenBucket {
+
+    private final long capacity;
+    private final double tokensPerNano;
+    private double tokens;
+    private long lastRefillNanos;
+
+    public TokenBucket(long capacity, double refillPerSecond, long nowNanos) {
+        if (capacity < 1 || refillPerSecond <= 0) {
+            throw new IllegalArgumentException("Token bucket needs capacity >= 1 and positive refill rate");
+        }
+        this.capacity = capacity;
+        this.tokensPerNano = refillPerSecond / 1_000_000_000d;
+        this.tokens = capacity;
+        this.lastRefillNanos = nowNanos;
+    }
+
+    // 0 gdy token zostal pobrany, w przeciwnym razie czas (ns) do pojawienia sie kolejnego tokenu
+    public synchronized long tryConsume(long nowNanos) {
+        refill(nowNanos);
+        if (tokens >= 1) {
+            tokens -= 1;
+            return 0;
+        }
+        return (long) Math.ceil((1 - tokens) / tokensPerNano);
+    }
+
+    // pelny kubelek zachowuje sie jak nowy, wiec mozna go usunac z pamieci
+    public synchronized boolean isFull(long nowNanos) {
+        refill(nowNanos);
+        return tokens >= capacity;
+    }
+
+    private void refill(long nowNanos) {
+        long elapsed = nowNanos - lastRefillNanos;
+        if (elapsed > 0) {
+            tokens = Math.min(capacity, tokens + elapsed * tokensPerNano);
+            lastRefillNanos = nowNanos;
+        }
+    }
+}
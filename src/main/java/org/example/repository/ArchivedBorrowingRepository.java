@@ -0,0 +1,53 @@
+package org.example.repository;
+
+import org.example.model.ArchivedBorrowing;
+import org.example.model.BorrowingStatus;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+// odczyt archiwum zamknietych wypozyczen; zapytania odpowiadaja zapytaniom historii z BorrowingRepository
+@Repository
+public interface ArchivedBorrowingRepository extends JpaRepository<ArchivedBorrowing, Long> {
+
+    // cala archiwalna historia uzytkownika od najnowszych
+    @EntityGraph(attributePaths = {"user", "book"})
+    @Query("SELECT a FROM ArchivedBorrowing a WHERE a.user.id = :userId ORDER BY a.borrowDate DESC, a.id DESC")
+    List<ArchivedBorrowing> findByUserId(@Param("userId") Long userId);
+
+    // strona archiwalnej historii przed kursorem borrowDate/id; borrowDate <= kursor ogranicza zakres
+    // na indeksie (user_id, borrow_date DESC, id DESC) i pozwala pominac partycje lat po kursorze
+    @EntityGraph(attributePaths = {"user", "book"})
+    @Query("SELECT a FROM ArchivedBorrowing a WHERE a.user.id = :userId " +
+           "AND a.borrowDate <= :beforeDate " +
+           "AND (a.borrowDate < :beforeDate OR (a.borrowDate = :beforeDate AND a.id < :beforeId)) " +
+           "ORDER BY a.borrowDate DESC, a.id DESC")
+    List<ArchivedBorrowing> findHistoryPage(@Param("userId") Long userId,
+                                            @Param("beforeDate") LocalDate beforeDate,
+                                            @Param("beforeId") Long beforeId,
+                                            Pageable pageable);
+
+    // jak findHistoryPage, ale tylko wypozyczenia o danym statusie
+    @EntityGraph(attributePaths = {"user", "book"})
+    @Query("SELECT a FROM ArchivedBorrowing a WHERE a.user.id = :userId AND a.status = :status " +
+           "AND a.borrowDate <= :beforeDate " +
+           "AND (a.borrowDate < :beforeDate OR (a.borrowDate = :beforeDate AND a.id < :beforeId)) " +
+           "ORDER BY a.borrowDate DESC, a.id DESC")
+    List<ArchivedBorrowing> findHistoryPageByStatus(@Param("userId") Long userId,
+                                                    @Param("status") BorrowingStatus status,
+                                                    @Param("beforeDate") LocalDate beforeDate,
+                                                    @Param("beforeId") Long beforeId,
+                                                    Pageable pageable);
+
+    // usuwa archiwalne wypozyczenia ksiazki - wywolywane przy usuwaniu ksiazki, bo archiwum nie ma klucza obcego
+    @Modifying
+    @Query("DELETE FROM ArchivedBorrowing a WHERE a.book.id = :bookId")
+    int deleteByBookId(@Param("bookId") Long bookId);
+}
@@ -0,0 +1,18 @@
+package org.example.repository;
+
+import org.example.model.AbstractBook;
+
+import java.util.Optional;
+
+// atomowe zmiany liczby wolnych egzemplarzy warunkowym UPDATE (fragment BookRepository)
+// rownolegle wypozyczenia i zwroty tej samej ksiazki nie gubia zmian i nie schodza ponizej zera
+public interface BookCopies {
+
+    // zabiera wolny egzemplarz; ksiazka ze stanem po zmianie albo pusty wynik, gdy nie ma wolnego
+    // egzemplarza (albo samej ksiazki)
+    Optional<AbstractBook> takeCopy(Long bookId);
+
+    // oddaje egzemplarz do puli (nie ponad totalCopies) i odswieza book stanem po zmianie;
+    // false, gdy wszystkie egzemplarze juz byly wolne
+    boolean putBackCopy(AbstractBook book);
+}
@@ -0,0 +1,73 @@
+package org.example.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.example.model.AbstractBook;
+import org.example.service.CatalogEtagCache;
+import org.hibernate.Hibernate;
+import org.springframework.beans.factory.ObjectProvider;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+// UPDATE z warunkiem na liczbe egzemplarzy blokuje wiersz ksiazki tylko na czas zmiany, a drugi wyscigujacy sie
+// zapis widzi juz wynik pierwszego; version i updated_at rosna jak przy @PreUpdate (ETag ksiazki),
+// a ETag katalogu jest uniewazniany po zatwierdzeniu, bo masowy UPDATE omija listenery encji
+class BookCopiesImpl implements BookCopies {
+
+    private static final String TAKE_COPY =
+            "UPDATE AbstractBook b SET b.availableCopies = b.availableCopies - 1, " +
+            "b.version = b.version + 1, b.updatedAt = :now " +
+            "WHERE b.id = :id AND b.availableCopies > 0";
+
+    private static final String PUT_BACK_COPY =
+            "UPDATE AbstractBook b SET b.availableCopies = b.availableCopies + 1, " +
+            "b.version = b.version + 1, b.updatedAt = :now " +
+            "WHERE b.id = :id AND b.availableCopies < b.totalCopies";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private final ObjectProvider<CatalogEtagCache> catalogEtagCache;
+
+    BookCopiesImpl(ObjectProvider<CatalogEtagCache> catalogEtagCache) {
+        this.catalogEtagCache = catalogEtagCache;
+    }
+
+    @Override
+    public Optional<AbstractBook> takeCopy(Long bookId) {
+        if (update(TAKE_COPY, bookId) == 0) {
+            return Optional.empty();
+        }
+        // ksiazka wczytana wczesniej w tej transakcji ma stan sprzed zmiany - odswiezana, inaczej wczytywana
+        // (w obu przypadkach jedno zapytanie)
+        AbstractBook book = entityManager.getReference(AbstractBook.class, bookId);
+        if (Hibernate.isInitialized(book)) {
+            entityManager.refresh(book);
+        }
+        return Optional.of((AbstractBook) Hibernate.unproxy(book));
+    }
+
+    @Override
+    public boolean putBackCopy(AbstractBook book) {
+        boolean updated = update(PUT_BACK_COPY, book.getId()) > 0;
+        if (updated) {
+            entityManager.refresh(book);
+        }
+        return updated;
+    }
+
+    private int update(String jpql, Long bookId) {
+        int updated = entityManager.createQuery(jpql)
+                .setParameter("now", LocalDateTime.now())
+                .setParameter("id", bookId)
+                .executeUpdate();
+        if (updated > 0) {
+            CatalogEtagCache cache = catalogEtagCache.getIfAvailable();
+            if (cache != null) {
+                cache.invalidateAfterCommit();
+            }
+        }
+        return updated;
+    }
+}
@@ -1,16 +1,19 @@
 package org.example.repository;
 
+import jakarta.persistence.LockModeType;
 import org.example.model.AbstractBook;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
+import java.util.Optional;
 
-// repozytorium dla operacji na tabeli ksiazek
+// repozytorium dla operacji na tabeli ksiazek; liczba wolnych egzemplarzy zmienia sie przez BookCopies
 @Repository
-public interface BookRepository extends JpaRepository<AbstractBook, Long> {
+public interface BookRepository extends JpaRepository<AbstractBook, Long>, BookCopies {
     
     // znajduje ksiazki po tytule zawierajacym szukany tekst
     List<AbstractBook> findByTitleContainingIgnoreCase(String title);
@@ -30,4 +33,26 @@ public interface BookRepository extends JpaRepository<AbstractBook, Long> {
            "LOWER(b.author) LIKE LOWER(CONCAT('%', :searchTerm, '%')) OR " +
            "LOWER(b.genre) LIKE LOWER(CONCAT('%', :searchTerm, '%'))")
     List<AbstractBook> searchBooks(@Param("searchTerm") String searchTerm);
-}
\ No newline at end of file
+
+    // ksiazka z blokada wiersza do konca transakcji - dopisanie do kolejki i zwrot egzemplarza tej samej
+    // ksiazki wykonuja sie po kolei (zwrot blokuje wiersz warunkowym UPDATE w putBackCopy)
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT b FROM AbstractBook b WHERE b.id = :id")
+    Optional<AbstractBook> findByIdForUpdate(@Param("id") Long id);
+
+    // liczy ksiazki cyfrowe (eBooki i audiobooki) bez ladowania encji
+    @Query("SELECT COUNT(b) FROM AbstractBook b WHERE TYPE(b) IN (EBook, AudioBook)")
+    long countDigitalBooks();
+
+    // stan katalogu dla ETagu list: COUNT i MAX(id) zmieniaja sie przy dodaniu/usunieciu,
+    // SUM(version) rosnie o 1 przy kazdej zmianie ksiazki - razem licznik zmian katalogu
+    @Query("SELECT COUNT(b) AS bookCount, COALESCE(SUM(b.version), 0) AS versionSum, " +
+           "COALESCE(MAX(b.id), 0) AS maxId FROM AbstractBook b")
+    CatalogState findCatalogState();
+
+    interface CatalogState {
+        long getBookCount();
+        long getVersionSum();
+        long getMaxId();
+    }
+}
@@ -0,0 +1,54 @@
+package org.example.repository;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.List;
+
+// przenoszenie zamknietych wypozyczen do archiwum (pula polaczen "batch"); SQL specyficzny dla PostgreSQL
+@Repository
+public class BorrowingArchiveBatchRepository {
+
+    // jedno zapytanie usuwa partie z borrowings i wstawia ja do archiwum; SKIP LOCKED pomija wiersze
+    // zablokowane przez biezace transakcje, a ORDER BY id LIMIT ogranicza czas trwania blokad
+    private static final String MOVE_BATCH =
+            "WITH moved AS (" +
+            "  DELETE FROM borrowings WHERE id IN (" +
+            "    SELECT id FROM borrowings WHERE status IN ('RETURNED', 'EXPIRED') AND return_date < ? " +
+            "    ORDER BY id LIMIT ? FOR UPDATE SKIP LOCKED) " +
+            "  RETURNING id, user_id, book_id, status, borrow_date, due_date, return_date, created_at, updated_at) " +
+            "INSERT INTO borrowings_archive (id, user_id, book_id, status, borrow_date, due_date, return_date, " +
+            "created_at, updated_at) " +
+            "SELECT id, user_id, book_id, status, borrow_date, due_date, return_date, created_at, updated_at FROM moved";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    public BorrowingArchiveBatchRepository(@Qualifier("batchJdbcTemplate") JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    // lata borrow_date wierszy do przeniesienia - dla nich musza istniec partycje archiwum
+    public List<Integer> findArchivableYears(LocalDate returnedBefore) {
+        return jdbcTemplate.queryForList(
+                "SELECT DISTINCT CAST(EXTRACT(YEAR FROM borrow_date) AS INTEGER) FROM borrowings " +
+                "WHERE status IN ('RETURNED', 'EXPIRED') AND return_date < ?",
+                Integer.class, Date.valueOf(returnedBefore));
+    }
+
+    // zaklada partycje archiwum na dany rok, jesli jeszcze jej nie ma
+    public void ensureYearPartition(int year) {
+        jdbcTemplate.execute(String.format(
+                "CREATE TABLE IF NOT EXISTS borrowings_archive_%d PARTITION OF borrowings_archive " +
+                "FOR VALUES FROM ('%d-01-01') TO ('%d-01-01')", year, year, year + 1));
+    }
+
+    // przenosi do limit wierszy zamknietych przed returnedBefore, zwraca liczbe przeniesionych
+    public int moveBatch(LocalDate returnedBefore, int limit) {
+        return jdbcTemplate.update(MOVE_BATCH, Date.valueOf(returnedBefore), limit);
+    }
+}
@@ -0,0 +1,150 @@
+package org.example.repository;
+
+import org.example.dataTransfer.AdminBorrowingView;
+import org.example.model.BorrowingStatus;
+import org.example.notification.NotificationType;
+import org.example.notification.ReminderCandidate;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.function.Consumer;
+
+// repozytorium dla operacji wsadowych na tabeli wypozyczen (pula polaczen "batch")
+@Repository
+public class BorrowingBatchRepository {
+
+    static final int EXPORT_FETCH_SIZE = 500;
+
+    // login i tytul jednym joinem, bez encji - ten sam ksztalt co strona listy administratora
+    private static final String SELECT_ADMIN_VIEWS =
+            "SELECT b.id, b.user_id, u.username, b.book_id, bk.title, b.status, b.borrow_date, b.due_date, " +
+            "b.return_date FROM borrowings b JOIN users u ON u.id = b.user_id JOIN books bk ON bk.id = b.book_id " +
+            "ORDER BY b.id";
+
+    // zdarzenia BorrowingOverdue dla wierszy oznaczonych w tym przebiegu (updated_at = znacznik przebiegu);
+    // payload budowany w SQL w tym samym ksztalcie co zdarzenia z OutboxService
+    private static final String INSERT_OVERDUE_EVENTS =
+            "INSERT INTO outbox_events (aggregate_type, aggregate_id, event_type, payload, created_at) " +
+            "SELECT 'Borrowing', id, 'BorrowingOverdue', " +
+            "'{\"borrowingId\":' || id || ',\"userId\":' || user_id || ',\"bookId\":' || book_id || " +
+            "',\"status\":\"OVERDUE\",\"dueDate\":\"' || due_date || '\"}', ? " +
+            "FROM borrowings WHERE status = 'OVERDUE' AND updated_at = ?";
+
+    // przeniesienie oznaczonych w tym przebiegu wypozyczen z borrowed_count do overdue_count w podsumowaniach;
+    // skorelowane podzapytania zamiast UPDATE ... FROM, zeby zapytanie dzialalo tez na H2
+    private static final String MOVE_SUMMARY_COUNTS_TO_OVERDUE =
+            "UPDATE user_borrowing_summary SET " +
+            "borrowed_count = borrowed_count - (SELECT COUNT(*) FROM borrowings b " +
+            "WHERE b.user_id = user_borrowing_summary.user_id AND b.status = 'OVERDUE' AND b.updated_at = ?), " +
+            "overdue_count = overdue_count + (SELECT COUNT(*) FROM borrowings b " +
+            "WHERE b.user_id = user_borrowing_summary.user_id AND b.status = 'OVERDUE' AND b.updated_at = ?) " +
+            "WHERE user_id IN (SELECT user_id FROM borrowings WHERE status = 'OVERDUE' AND updated_at = ?)";
+
+    // wpis wyslanego powiadomienia; pomijany, gdy juz istnieje (np. po ponowieniu partii zapisanej tylko czesciowo)
+    private static final String INSERT_NOTIFICATION =
+            "INSERT INTO borrowing_notifications (borrowing_id, type, sent_at) SELECT ?, ?, ? " +
+            "WHERE NOT EXISTS (SELECT 1 FROM borrowing_notifications WHERE borrowing_id = ? AND type = ?)";
+
+    // kandydaci do przypomnien: dane odbiorcy i tytul jednym joinem, bez wpisu powiadomienia danego typu,
+    // keyset po id (id wieksze od ostatniego z poprzedniej strony) zamiast OFFSET
+    private static final String SELECT_REMINDER_CANDIDATES =
+            "SELECT b.id, u.username, u.email, bk.title, b.due_date " +
+            "FROM borrowings b JOIN users u ON u.id = b.user_id JOIN books bk ON bk.id = b.book_id " +
+            "WHERE b.status = ? AND b.due_date BETWEEN ? AND ? AND b.id > ? " +
+            "AND NOT EXISTS (SELECT 1 FROM borrowing_notifications n WHERE n.borrowing_id = b.id AND n.type = ?) " +
+            "ORDER BY b.id LIMIT ?";
+
+    // przeterminowane bez wpisu powiadomienia, niezaleznie od tego, kiedy zostaly oznaczone;
+    // keyset po id czyta indeks czesciowy idx_borrowings_overdue
+    private static final String SELECT_OVERDUE_CANDIDATES =
+            "SELECT b.id, u.username, u.email, bk.title, b.due_date " +
+            "FROM borrowings b JOIN users u ON u.id = b.user_id JOIN books bk ON bk.id = b.book_id " +
+            "WHERE b.status = 'OVERDUE' AND b.id > ? " +
+            "AND NOT EXISTS (SELECT 1 FROM borrowing_notifications n WHERE n.borrowing_id = b.id AND n.type = ?) " +
+            "ORDER BY b.id LIMIT ?";
+
+    private static final RowMapper<ReminderCandidate> REMINDER_CANDIDATE = (rs, rowNum) -> new ReminderCandidate(
+            rs.getLong("id"),
+            rs.getString("username"),
+            rs.getString("email"),
+            rs.getString("title"),
+            rs.getObject("due_date", LocalDate.class));
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    public BorrowingBatchRepository(@Qualifier("batchJdbcTemplate") JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    // oznacza przeterminowane wypozyczenia jednym zapytaniem, dopisuje ich zdarzenia do outboxa
+    // i przenosi liczniki w podsumowaniach uzytkownikow, zwraca liczbe zmienionych wierszy;
+    // wywolywane w transakcji batchTransactionManager, wiec wszystkie zmiany zatwierdzaja sie razem
+    public int markOverdue(LocalDate currentDate) {
+        Timestamp sweptAt = Timestamp.valueOf(LocalDateTime.now());
+        int updated = jdbcTemplate.update(
+                "UPDATE borrowings SET status = 'OVERDUE', updated_at = ? " +
+                "WHERE status = 'BORROWED' AND due_date < ?",
+                sweptAt, Date.valueOf(currentDate));
+        if (updated > 0) {
+            jdbcTemplate.update(INSERT_OVERDUE_EVENTS, sweptAt, sweptAt);
+            jdbcTemplate.update(MOVE_SUMMARY_COUNTS_TO_OVERDUE, sweptAt, sweptAt, sweptAt);
+        }
+        return updated;
+    }
+
+    // zapisuje wyslane powiadomienia partii jednym batchem JDBC; wypozyczenia bez wpisu wracaja
+    // do kolejnego przebiegu NotificationPipeline
+    public void recordNotifications(NotificationType type, List<Long> borrowingIds, LocalDateTime sentAt) {
+        Timestamp timestamp = Timestamp.valueOf(sentAt);
+        jdbcTemplate.batchUpdate(INSERT_NOTIFICATION, borrowingIds, borrowingIds.size(),
+                (ps, borrowingId) -> {
+                    ps.setLong(1, borrowingId);
+                    ps.setString(2, type.name());
+                    ps.setTimestamp(3, timestamp);
+                    ps.setLong(4, borrowingId);
+                    ps.setString(5, type.name());
+                });
+    }
+
+    // strona wypozyczen o danym statusie do przypomnien, z terminem w podanym przedziale
+    public List<ReminderCandidate> findReminderCandidates(BorrowingStatus status, LocalDate dueFrom, LocalDate dueTo,
+                                                          NotificationType type, long afterId, int limit) {
+        return jdbcTemplate.query(SELECT_REMINDER_CANDIDATES, REMINDER_CANDIDATE, status.name(),
+                Date.valueOf(dueFrom), Date.valueOf(dueTo), afterId, type.name(), limit);
+    }
+
+    // strona przeterminowanych wypozyczen bez powiadomienia danego typu
+    public List<ReminderCandidate> findOverdueCandidates(NotificationType type, long afterId, int limit) {
+        return jdbcTemplate.query(SELECT_OVERDUE_CANDIDATES, REMINDER_CANDIDATE, afterId, type.name(), limit);
+    }
+
+    // przekazuje wszystkie wypozyczenia po kolei do consumer, wiersze czytane kursorem po EXPORT_FETCH_SIZE;
+    // PostgreSQL czyta kursorem tylko z wylaczonym autocommit, wiec wywolywane w transakcji batchTransactionManager
+    public void exportAdminViews(Consumer<AdminBorrowingView> consumer) {
+        jdbcTemplate.query(connection -> {
+            PreparedStatement ps = connection.prepareStatement(SELECT_ADMIN_VIEWS);
+            ps.setFetchSize(EXPORT_FETCH_SIZE);
+            return ps;
+        }, (RowCallbackHandler) rs -> consumer.accept(new AdminBorrowingView(
+                rs.getLong("id"),
+                rs.getLong("user_id"),
+                rs.getString("username"),
+                rs.getLong("book_id"),
+                rs.getString("title"),
+                BorrowingStatus.valueOf(rs.getString("status")),
+                rs.getObject("borrow_date", LocalDate.class),
+                rs.getObject("due_date", LocalDate.class),
+                rs.getObject("return_date", LocalDate.class))));
+    }
+}
@@ -1,8 +1,12 @@
 package org.example.repository;
 
+import org.example.dataTransfer.AdminBorrowingView;
 import org.example.model.Borrowing;
 import org.example.model.BorrowingStatus;
 import org.example.model.User;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -13,16 +17,61 @@ import java.util.List;
 import java.util.Optional;
 
 // repozytorium dla operacji na tabeli wypozyczen
+// zapytania zwracane do kontrolerow pobieraja uzytkownika i ksiazke jednym joinem (EntityGraph),
+// bo open-in-view jest wylaczone i leniwe relacje nie moga byc doladowane podczas serializacji
 @Repository
 public interface BorrowingRepository extends JpaRepository<Borrowing, Long> {
-    
+
+    // znajduje wypozyczenie po ID razem z uzytkownikiem i ksiazka
+    @Override
+    @EntityGraph(attributePaths = {"user", "book"})
+    Optional<Borrowing> findById(Long id);
+
+    // strona listy administratora jako projekcja (login i tytul jednym joinem, bez encji); filtry null sa pomijane
+    @Query(value = "SELECT new org.example.dataTransfer.AdminBorrowingView(b.id, u.id, u.username, bk.id, bk.title, " +
+                   "b.status, b.borrowDate, b.dueDate, b.returnDate) FROM Borrowing b JOIN b.user u JOIN b.book bk " +
+                   "WHERE (:status IS NULL OR b.status = :status) AND (:userId IS NULL OR u.id = :userId)",
+           countQuery = "SELECT COUNT(b) FROM Borrowing b " +
+                        "WHERE (:status IS NULL OR b.status = :status) AND (:userId IS NULL OR b.user.id = :userId)")
+    Page<AdminBorrowingView> findAdminViews(@Param("status") BorrowingStatus status,
+                                            @Param("userId") Long userId,
+                                            Pageable pageable);
+
     // znajduje wypozyczenia po uzytkoniku
+    @EntityGraph(attributePaths = {"user", "book"})
     List<Borrowing> findByUser(User user);
     
+    // strona historii uzytkownika od najnowszych (keyset: wiersze przed kursorem borrowDate/id)
+    // warunek borrowDate <= kursor jest nadmiarowy wobec alternatywy, ale to on daje planerowi granice zakresu
+    // na indeksie (user_id, borrow_date DESC, id DESC) - skan zaczyna sie od kursora i konczy po limicie z pageable
+    @EntityGraph(attributePaths = {"user", "book"})
+    @Query("SELECT b FROM Borrowing b WHERE b.user.id = :userId " +
+           "AND b.borrowDate <= :beforeDate " +
+           "AND (b.borrowDate < :beforeDate OR (b.borrowDate = :beforeDate AND b.id < :beforeId)) " +
+           "ORDER BY b.borrowDate DESC, b.id DESC")
+    List<Borrowing> findHistoryPage(@Param("userId") Long userId,
+                                    @Param("beforeDate") LocalDate beforeDate,
+                                    @Param("beforeId") Long beforeId,
+                                    Pageable pageable);
+
+    // jak findHistoryPage, ale tylko wypozyczenia o danym statusie (indeks (user_id, status, borrow_date DESC, id DESC))
+    @EntityGraph(attributePaths = {"user", "book"})
+    @Query("SELECT b FROM Borrowing b WHERE b.user.id = :userId AND b.status = :status " +
+           "AND b.borrowDate <= :beforeDate " +
+           "AND (b.borrowDate < :beforeDate OR (b.borrowDate = :beforeDate AND b.id < :beforeId)) " +
+           "ORDER BY b.borrowDate DESC, b.id DESC")
+    List<Borrowing> findHistoryPageByStatus(@Param("userId") Long userId,
+                                            @Param("status") BorrowingStatus status,
+                                            @Param("beforeDate") LocalDate beforeDate,
+                                            @Param("beforeId") Long beforeId,
+                                            Pageable pageable);
+
     // znajduje wypozyczenia po uzytkoniku i statusie
+    @EntityGraph(attributePaths = {"user", "book"})
     List<Borrowing> findByUserAndStatus(User user, BorrowingStatus status);
     
     // znajduje wypozyczenia po statusie
+    @EntityGraph(attributePaths = {"user", "book"})
     List<Borrowing> findByStatus(BorrowingStatus status);
     
     // znajduje aktywne wypozyczenie ksiazki przez uzytkownika
@@ -36,4 +85,9 @@ public interface BorrowingRepository extends JpaRepository<Borrowing, Long> {
     // sprawdza czy uzytkownik ma aktywne wypozyczenie ksiazki
     @Query("SELECT COUNT(b) > 0 FROM Borrowing b WHERE b.user.id = :userId AND b.book.id = :bookId AND b.status IN ('RESERVED', 'BORROWED')")
     boolean existsActiveBorrowingByUserAndBook(@Param("userId") Long userId, @Param("bookId") Long bookId);
-}
\ No newline at end of file
+
+    // rezerwacje (egzemplarz odlozony dla uzytkownika) nieodebrane przed terminem
+    @EntityGraph(attributePaths = {"user", "book"})
+    @Query("SELECT b FROM Borrowing b WHERE b.status = 'RESERVED' AND b.dueDate < :currentDate")
+    List<Borrowing> findExpiredHolds(@Param("currentDate") LocalDate currentDate);
+}
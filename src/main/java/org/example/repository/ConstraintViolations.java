@@ -0,0 +1,53 @@
+package org.example.repository;
+
+import org.hibernate.exception.ConstraintViolationException;
+import org.springframework.dao.DataIntegrityViolationException;
+
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+// rozpoznawanie naruszen konkretnych ograniczen bazy - serwisy zamiast sprawdzac istnienie wiersza
+// przed zapisem (dodatkowe zapytanie i wyscig) polegaja na ograniczeniu i tlumacza jego naruszenie
+public final class ConstraintViolations {
+
+    // jedno aktywne (RESERVED/BORROWED) wypozyczenie uzytkownika na ksiazke - indeks czesciowy z V8
+    public static final String ACTIVE_BORROWING_PER_USER_BOOK = "uq_borrowings_active_user_book";
+    // unikalny login i email uzytkownika - nazwy nadane w V10
+    public static final String USER_USERNAME = "uq_users_username";
+    public static final String USER_EMAIL = "uq_users_email";
+
+    // sufiks nadawany przez H2 indeksowi ograniczenia unikalnego
+    private static final Pattern H2_INDEX_SUFFIX = Pattern.compile("_INDEX_\\d+$", Pattern.CASE_INSENSITIVE);
+
+    private ConstraintViolations() {}
+
+    // czy wyjatek zapisu pochodzi z naruszenia ograniczenia o podanej nazwie (porownanie dokladne, bez wielkosci liter)
+    public static boolean isViolationOf(DataIntegrityViolationException exception, String constraintName) {
+        for (Throwable cause = exception; cause != null; cause = cause.getCause()) {
+            if (cause instanceof ConstraintViolationException violation) {
+                String violated = normalize(violation.getConstraintName());
+                return violated != null && violated.equals(constraintName.toLowerCase(Locale.ROOT));
+            }
+        }
+        return false;
+    }
+
+    // PostgreSQL podaje sama nazwe ograniczenia; H2 podaje reszte komunikatu zaczynajaca sie od nazwy indeksu
+    // ze schematem i sufiksem ("PUBLIC.UQ_USERS_USERNAME_INDEX_4 ON PUBLIC.USERS(...) ...") - zostawiamy
+    // pierwszy wyraz bez cudzyslowu, schematu i sufiksu indeksu
+    static String normalize(String reported) {
+        if (reported == null) {
+            return null;
+        }
+        String name = reported.strip();
+        if (name.startsWith("\"")) {
+            name = name.substring(1);
+        }
+        int end = 0;
+        while (end < name.length() && !Character.isWhitespace(name.charAt(end)) && name.charAt(end) != '"') {
+            end++;
+        }
+        name = name.substring(name.lastIndexOf('.', end - 1) + 1, end);
+        return H2_INDEX_SUFFIX.matcher(name).replaceFirst("").toLowerCase(Locale.ROOT);
+    }
+}
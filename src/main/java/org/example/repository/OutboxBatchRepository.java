@@ -0,0 +1,50 @@
+package org.example.repository;
+
+import org.example.outbox.OutboxMessage;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+
+// odczyt i oznaczanie zdarzen outboxa przez OutboxRelay (pula polaczen "batch")
+@Repository
+public class OutboxBatchRepository {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    public OutboxBatchRepository(@Qualifier("batchJdbcTemplate") JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    // blokuje partie najstarszych niewyslanych zdarzen; SKIP LOCKED pomija wiersze zablokowane
+    // przez inna instancje, wiec kilka relay dziala rownolegle bez wysylania tych samych zdarzen
+    public List<OutboxMessage> lockUnpublished(int limit) {
+        return jdbcTemplate.query(
+                "SELECT id, aggregate_type, aggregate_id, event_type, payload, created_at FROM outbox_events " +
+                "WHERE published_at IS NULL ORDER BY id LIMIT ? FOR UPDATE SKIP LOCKED",
+                (rs, rowNum) -> new OutboxMessage(rs.getLong("id"), rs.getString("aggregate_type"),
+                        rs.getLong("aggregate_id"), rs.getString("event_type"), rs.getString("payload"),
+                        rs.getTimestamp("created_at").toLocalDateTime()),
+                limit);
+    }
+
+    // oznacza partie jako wyslana jednym batchem JDBC
+    public void markPublished(List<Long> ids, LocalDateTime publishedAt) {
+        Timestamp timestamp = Timestamp.valueOf(publishedAt);
+        jdbcTemplate.batchUpdate("UPDATE outbox_events SET published_at = ? WHERE id = ?", ids, ids.size(),
+                (ps, id) -> {
+                    ps.setTimestamp(1, timestamp);
+                    ps.setLong(2, id);
+                });
+    }
+
+    // usuwa wyslane zdarzenia starsze niz podana data, zwraca liczbe usunietych wierszy
+    public int deletePublishedBefore(LocalDateTime cutoff) {
+        return jdbcTemplate.update("DELETE FROM outbox_events WHERE published_at < ?", Timestamp.valueOf(cutoff));
+    }
+}
@@ -0,0 +1,16 @@
+package org.example.repository;
+
+import org.example.model.OutboxEvent;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+// repozytorium tabeli outbox_events - zapis zdarzen w transakcjach JPA (pula "interactive")
+// odczyt i oznaczanie wyslanych robi OutboxBatchRepository na puli "batch"
+@Repository
+public interface OutboxEventRepository extends JpaRepository<OutboxEvent, Long> {
+
+    // zdarzenia dotyczace danego obiektu w kolejnosci zapisu
+    List<OutboxEvent> findByAggregateTypeAndAggregateIdOrderByIdAsc(String aggregateType, Long aggregateId);
+}
@@ -0,0 +1,57 @@
+package org.example.repository;
+
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.example.model.AbstractBook;
+import org.example.model.Reservation;
+import org.example.model.ReservationStatus;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+
+// repozytorium kolejki oczekujacych na ksiazki
+// zapytania o glowe kolejki korzystaja z indeksu (book_id, id) WHERE status = 'WAITING' (V3)
+@Repository
+public interface ReservationRepository extends JpaRepository<Reservation, Long> {
+
+    // glowa kolejki dla ksiazki: SELECT ... ORDER BY id LIMIT 1 FOR UPDATE SKIP LOCKED
+    // rownolegle zwroty tej samej ksiazki dostaja kolejne wpisy zamiast czekac na blokade
+    // (lock.timeout = -2 to LockOptions.SKIP_LOCKED w Hibernate); bez EntityGraph, zeby blokowac tylko wiersz kolejki
+    // pomija osoby, ktore maja juz aktywne wypozyczenie ksiazki - drugie odrzucilby indeks unikalny z V8;
+    // zostaja w kolejce i dostana egzemplarz po zamknieciu swojego wypozyczenia
+    // limit (PageRequest.of(0, 1)) podaje wywolujacy
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    @Query("SELECT r FROM Reservation r WHERE r.book.id = :bookId AND r.status = 'WAITING' " +
+           "AND NOT EXISTS (SELECT b.id FROM Borrowing b WHERE b.user.id = r.user.id AND b.book.id = :bookId " +
+           "AND b.status IN ('RESERVED', 'BORROWED')) " +
+           "ORDER BY r.id")
+    List<Reservation> findNextWaiting(@Param("bookId") Long bookId, Pageable limit);
+
+    // znajduje wpis po ID razem z uzytkownikiem i ksiazka
+    @Override
+    @EntityGraph(attributePaths = {"user", "book"})
+    Optional<Reservation> findById(Long id);
+
+    // wpisy uzytkownika o danym statusie razem z ksiazkami
+    @EntityGraph(attributePaths = {"user", "book"})
+    List<Reservation> findByUserIdAndStatusOrderByIdAsc(Long userId, ReservationStatus status);
+
+    // sprawdza czy uzytkownik juz czeka na ksiazke
+    boolean existsByUserIdAndBookIdAndStatus(Long userId, Long bookId, ReservationStatus status);
+
+    // liczba osob przed danym wpisem w kolejce
+    long countByBookIdAndStatusAndIdLessThan(Long bookId, ReservationStatus status, Long id);
+
+    // ksiazki z wolnymi egzemplarzami i oczekujacymi - zostaja po wyscigu zwrotu z dopisaniem do kolejki
+    @Query("SELECT DISTINCT r.book FROM Reservation r WHERE r.status = 'WAITING' AND r.book.availableCopies > 0")
+    List<AbstractBook> findBooksWithWaitingReservationsAndFreeCopies();
+}
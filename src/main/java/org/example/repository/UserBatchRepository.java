@@ -0,0 +1,45 @@
+package org.example.repository;
+
+import org.example.dataTransfer.AdminUserView;
+import org.example.model.Role;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.util.function.Consumer;
+
+// repozytorium dla operacji wsadowych na tabeli uzytkownikow (pula polaczen "batch")
+@Repository
+public class UserBatchRepository {
+
+    static final int EXPORT_FETCH_SIZE = 500;
+
+    private static final String SELECT_ADMIN_VIEWS =
+            "SELECT id, username, email, first_name, last_name, role FROM users ORDER BY id";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    public UserBatchRepository(@Qualifier("batchJdbcTemplate") JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    // przekazuje wszystkich uzytkownikow po kolei do consumer, wiersze czytane kursorem po EXPORT_FETCH_SIZE;
+    // PostgreSQL czyta kursorem tylko z wylaczonym autocommit, wiec wywolywane w transakcji batchTransactionManager
+    public void exportAdminViews(Consumer<AdminUserView> consumer) {
+        jdbcTemplate.query(connection -> {
+            PreparedStatement ps = connection.prepareStatement(SELECT_ADMIN_VIEWS);
+            ps.setFetchSize(EXPORT_FETCH_SIZE);
+            return ps;
+        }, (RowCallbackHandler) rs -> consumer.accept(new AdminUserView(
+                rs.getLong("id"),
+                rs.getString("username"),
+                rs.getString("email"),
+                rs.getString("first_name"),
+                rs.getString("last_name"),
+                Role.valueOf(rs.getString("role")))));
+    }
+}
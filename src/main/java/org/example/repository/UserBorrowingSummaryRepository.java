@@ -0,0 +1,11 @@
+package org.example.repository;
+
+import org.example.model.UserBorrowingSummary;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+// repozytorium podsumowan wypozyczen uzytkownikow; zmiany licznikow przez upsertDelta (UserBorrowingSummaryUpsertImpl)
+@Repository
+public interface UserBorrowingSummaryRepository extends JpaRepository<UserBorrowingSummary, Long>,
+        UserBorrowingSummaryUpsert {
+}
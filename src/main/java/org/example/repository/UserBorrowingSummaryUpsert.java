@@ -0,0 +1,11 @@
+package org.example.repository;
+
+import java.time.LocalDateTime;
+
+// przyrostowa zmiana podsumowania wypozyczen jednym zapytaniem (fragment UserBorrowingSummaryRepository)
+public interface UserBorrowingSummaryUpsert {
+
+    // dodaje delty do licznikow uzytkownika, a bez wiersza tworzy go z deltami jako stanem poczatkowym;
+    // najblizszy termin liczony z aktywnych wypozyczen uzytkownika (indeks po user_id)
+    void upsertDelta(Long userId, long reserved, long borrowed, long overdue, long returned, LocalDateTime now);
+}
@@ -0,0 +1,66 @@
+package org.example.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.dialect.PostgreSQLDialect;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+
+import java.time.LocalDateTime;
+
+// upsert podsumowania: na PostgreSQL INSERT ... ON CONFLICT DO UPDATE - rownolegle pierwsze zmiany tego samego
+// uzytkownika nie koncza sie naruszeniem klucza glownego, a istniejacy wiersz jest zmieniany pod blokada wiersza
+// H2 (testy) nie zna ON CONFLICT DO UPDATE, wiec tam ten sam efekt daje standardowy MERGE
+class UserBorrowingSummaryUpsertImpl implements UserBorrowingSummaryUpsert {
+
+    private static final String NEXT_DUE_DATE =
+            "(SELECT MIN(b.due_date) FROM borrowings b WHERE b.user_id = :userId AND b.status IN ('BORROWED', 'OVERDUE'))";
+
+    private static final String POSTGRES_UPSERT =
+            "INSERT INTO user_borrowing_summary AS s (user_id, reserved_count, borrowed_count, overdue_count, " +
+            "returned_count, next_due_date, last_activity_at) " +
+            "VALUES (:userId, :reserved, :borrowed, :overdue, :returned, " + NEXT_DUE_DATE + ", :now) " +
+            "ON CONFLICT (user_id) DO UPDATE SET " +
+            "reserved_count = s.reserved_count + EXCLUDED.reserved_count, " +
+            "borrowed_count = s.borrowed_count + EXCLUDED.borrowed_count, " +
+            "overdue_count = s.overdue_count + EXCLUDED.overdue_count, " +
+            "returned_count = s.returned_count + EXCLUDED.returned_count, " +
+            "next_due_date = EXCLUDED.next_due_date, " +
+            "last_activity_at = EXCLUDED.last_activity_at";
+
+    private static final String STANDARD_MERGE =
+            "MERGE INTO user_borrowing_summary s USING (VALUES (CAST(:userId AS BIGINT))) v(user_id) " +
+            "ON s.user_id = v.user_id " +
+            "WHEN MATCHED THEN UPDATE SET " +
+            "reserved_count = s.reserved_count + :reserved, " +
+            "borrowed_count = s.borrowed_count + :borrowed, " +
+            "overdue_count = s.overdue_count + :overdue, " +
+            "returned_count = s.returned_count + :returned, " +
+            "next_due_date = " + NEXT_DUE_DATE + ", " +
+            "last_activity_at = :now " +
+            "WHEN NOT MATCHED THEN INSERT (user_id, reserved_count, borrowed_count, overdue_count, returned_count, " +
+            "next_due_date, last_activity_at) " +
+            "VALUES (v.user_id, :reserved, :borrowed, :overdue, :returned, " + NEXT_DUE_DATE + ", :now)";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public void upsertDelta(Long userId, long reserved, long borrowed, long overdue, long returned,
+                            LocalDateTime now) {
+        // najblizszy termin czyta wypozyczenia z bazy, wiec zmiany z tej transakcji musza juz tam byc
+        entityManager.flush();
+        entityManager.createNativeQuery(isPostgres() ? POSTGRES_UPSERT : STANDARD_MERGE)
+                .setParameter("userId", userId)
+                .setParameter("reserved", reserved)
+                .setParameter("borrowed", borrowed)
+                .setParameter("overdue", overdue)
+                .setParameter("returned", returned)
+                .setParameter("now", now)
+                .executeUpdate();
+    }
+
+    private boolean isPostgres() {
+        return entityManager.getEntityManagerFactory().unwrap(SessionFactoryImplementor.class)
+                .getJdbcServices().getDialect() instanceof PostgreSQLDialect;
+    }
+}
@@ -1,7 +1,14 @@
 package org.example.repository;
 
+import org.example.dataTransfer.AdminUserView;
+import org.example.model.Role;
 import org.example.model.User;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.Optional;
@@ -21,4 +28,21 @@ public interface UserRepository extends JpaRepository<User, Long> {
 
     // sprawdza czy uzytkownik o podanym email istnieje
     boolean existsByEmail(String email);
-}
\ No newline at end of file
+
+    // podmienia hash hasla tylko, gdy w bazie jest nadal oldPassword - rownolegla zmiana hasla nie zostanie
+    // nadpisana hashem starego hasla; zwraca liczbe zmienionych wierszy (0 albo 1)
+    @Modifying
+    @Query("UPDATE User u SET u.password = :newPassword WHERE u.username = :username AND u.password = :oldPassword")
+    int replacePassword(@Param("username") String username, @Param("oldPassword") String oldPassword,
+                        @Param("newPassword") String newPassword);
+
+    // strona listy administratora jako projekcja (bez hasla); filtry null sa pomijane,
+    // prefix to wzorzec LIKE z % na koncu dopasowywany do loginu lub emaila
+    @Query(value = "SELECT new org.example.dataTransfer.AdminUserView(u.id, u.username, u.email, u.firstName, " +
+                   "u.lastName, u.role) FROM User u " +
+                   "WHERE (:role IS NULL OR u.role = :role) " +
+                   "AND (:prefix IS NULL OR u.username LIKE :prefix ESCAPE '\\' OR u.email LIKE :prefix ESCAPE '\\')",
+           countQuery = "SELECT COUNT(u) FROM User u WHERE (:role IS NULL OR u.role = :role) " +
+                        "AND (:prefix IS NULL OR u.username LIKE :prefix ESCAPE '\\' OR u.email LIKE :prefix ESCAPE '\\')")
+    Page<AdminUserView> findAdminViews(@Param("role") Role role, @Param("prefix") String prefix, Pageable pageable);
+}
@@ -0,0 +1,48 @@
+package org.example.security;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+// dobiera koszt BCrypt do sprzetu, na ktorym dziala aplikacja - kazdy kolejny poziom podwaja czas hasha,
+// wiec wystarczy zmierzyc hash przy minimalnym koszcie i podwajac az do czasu docelowego
+public final class BCryptCalibration {
+
+    private static final Logger log = LoggerFactory.getLogger(BCryptCalibration.class);
+
+    // pierwszy pomiar rozgrzewa JIT, bierzemy najszybszy z kolejnych
+    private static final int SAMPLES = 3;
+
+    private BCryptCalibration() {}
+
+    // koszt z bookstore.password-hashing.bcrypt-strength albo zmierzony przy starcie
+    public static int strength(PasswordHashingProperties properties) {
+        if (properties.getBcryptStrength() > 0) {
+            return properties.getBcryptStrength();
+        }
+        int minStrength = properties.getMinBcryptStrength();
+        BCryptPasswordEncoder encoder = new BCryptPasswordEncoder(minStrength);
+        long fastest = Long.MAX_VALUE;
+        for (int i = 0; i < SAMPLES; i++) {
+            long start = System.nanoTime();
+            encoder.encode("calibration");
+            fastest = Math.min(fastest, System.nanoTime() - start);
+        }
+        int strength = strengthFor(properties.getTargetHashTime().toNanos(), fastest,
+                minStrength, properties.getMaxBcryptStrength());
+        log.info("bcrypt_calibrated strength={} min_strength_ms={} target_ms={}", strength,
+                fastest / 1_000_000, properties.getTargetHashTime().toMillis());
+        return strength;
+    }
+
+    // najwyzszy koszt, ktorego szacowany czas miesci sie w targetNanos (nie mniej niz minStrength)
+    static int strengthFor(long targetNanos, long minStrengthNanos, int minStrength, int maxStrength) {
+        int strength = minStrength;
+        long estimated = minStrengthNanos;
+        while (strength < maxStrength && estimated * 2 <= targetNanos) {
+            strength++;
+            estimated *= 2;
+        }
+        return strength;
+    }
+}
@@ -0,0 +1,134 @@
+package org.example.security;
+
+import org.example.monitoring.ServiceMetrics;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserCache;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.LongSupplier;
+
+// ograniczona pamiec UserDetails dla uwierzytelniania z czasem zycia wpisu oraz krotka pamiec nieistniejacych
+// loginow - kazde zadanie z HTTP Basic i powtarzane proby nieznanych loginow nie siegaja do tabeli users
+// wpisy ponad limit sa usuwane od najdawniej uzywanych; trafienia liczy metryka bookstore.users.cache
+public class BoundedUserCache implements UserCache {
+
+    private final UserCacheProperties properties;
+    private final ServiceMetrics serviceMetrics;
+    private final LongSupplier nanoClock;
+    private final long ttlNanos;
+    private final long missingTtlNanos;
+
+    // oba slowniki chroni monitor obiektu - operacje sa krotkie, a uwierzytelnienie i tak liczy BCrypt
+    private final LinkedHashMap<String, Entry> users;
+    private final LinkedHashMap<String, Long> missing;
+
+    public BoundedUserCache(UserCacheProperties properties, ServiceMetrics serviceMetrics) {
+        this(properties, serviceMetrics, System::nanoTime);
+    }
+
+    BoundedUserCache(UserCacheProperties properties, ServiceMetrics serviceMetrics, LongSupplier nanoClock) {
+        this.properties = properties;
+        this.serviceMetrics = serviceMetrics;
+        this.nanoClock = nanoClock;
+        this.ttlNanos = properties.getTtl().toNanos();
+        this.missingTtlNanos = properties.getMissingTtl().toNanos();
+        this.users = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > properties.getMaxEntries();
+            }
+        };
+        this.missing = new LinkedHashMap<>() {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Long> eldest) {
+                return size() > properties.getMaxMissingEntries();
+            }
+        };
+    }
+
+    // zwraca kopie - ProviderManager czysci haslo w zwroconym obiekcie po uwierzytelnieniu,
+    // wiec zapamietany egzemplarz nie moze trafic na zewnatrz
+    @Override
+    public UserDetails getUserFromCache(String username) {
+        if (!properties.isEnabled()) {
+            return null;
+        }
+        long now = nanoClock.getAsLong();
+        UserDetails cached = null;
+        synchronized (this) {
+            Entry entry = users.get(username);
+            if (entry != null && now - entry.cachedAtNanos() < ttlNanos) {
+                cached = entry.user();
+            } else if (entry != null) {
+                users.remove(username);
+            }
+        }
+        serviceMetrics.increment(ServiceMetrics.USER_CACHE, cached == null ? ServiceMetrics.MISS : ServiceMetrics.HIT);
+        return cached == null ? null : User.withUserDetails(cached).build();
+    }
+
+    @Override
+    public void putUserInCache(UserDetails user) {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        Entry entry = new Entry(User.withUserDetails(user).build(), nanoClock.getAsLong());
+        synchronized (this) {
+            users.put(user.getUsername(), entry);
+            missing.remove(user.getUsername());
+        }
+    }
+
+    // po zmianie hasla lub roli oraz po rejestracji (login mogl byc zapamietany jako nieistniejacy)
+    @Override
+    public void removeUserFromCache(String username) {
+        synchronized (this) {
+            users.remove(username);
+            missing.remove(username);
+        }
+    }
+
+    // zapamietuje, ze w bazie nie ma uzytkownika o tym loginie
+    public void putMissing(String username) {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        long now = nanoClock.getAsLong();
+        synchronized (this) {
+            missing.put(username, now);
+        }
+    }
+
+    // true gdy login niedawno okazal sie nieistniejacy - mozna odmowic bez zapytania do bazy
+    public boolean isKnownMissing(String username) {
+        if (!properties.isEnabled()) {
+            return false;
+        }
+        long now = nanoClock.getAsLong();
+        boolean known;
+        synchronized (this) {
+            Long markedAt = missing.get(username);
+            known = markedAt != null && now - markedAt < missingTtlNanos;
+            if (markedAt != null && !known) {
+                missing.remove(username);
+            }
+        }
+        if (known) {
+            serviceMetrics.increment(ServiceMetrics.USER_CACHE, ServiceMetrics.MISSING_HIT);
+        }
+        return known;
+    }
+
+    synchronized int size() {
+        return users.size();
+    }
+
+    synchronized int missingSize() {
+        return missing.size();
+    }
+
+    private record Entry(UserDetails user, long cachedAtNanos) {
+    }
+}
@@ -0,0 +1,45 @@
+package org.example.security;
+
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+// DelegatingPasswordEncoder prosi o przepisanie kazdego hasha bez prefiksu {id}, a przepisanie koduje haslo
+// biezacym kosztem - hash bez prefiksu o wyzszym koszcie (np. 12 przy skalibrowanym 10) zostalby oslabiony.
+// Hash BCrypt bez prefiksu jest wiec przepisywany tylko wtedy, gdy jego koszt jest nizszy od biezacego;
+// pozostale zostaja w bazie bez zmian i nadal pasuja przez domyslny koder BCrypt
+public class LegacyBCryptUpgradeEncoder implements PasswordEncoder {
+
+    // $2a$12$... / $2b$ / $2y$ - koszt to dwie cyfry po wersji
+    private static final Pattern BCRYPT_COST = Pattern.compile("^\\$2[abxy]?\\$(\\d{2})\\$");
+
+    private final PasswordEncoder delegate;
+    private final int strength;
+
+    public LegacyBCryptUpgradeEncoder(PasswordEncoder delegate, int strength) {
+        this.delegate = delegate;
+        this.strength = strength;
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return delegate.encode(rawPassword);
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return delegate.matches(rawPassword, encodedPassword);
+    }
+
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        if (encodedPassword != null) {
+            Matcher matcher = BCRYPT_COST.matcher(encodedPassword);
+            if (matcher.find()) {
+                return Integer.parseInt(matcher.group(1)) < strength;
+            }
+        }
+        return delegate.upgradeEncoding(encodedPassword);
+    }
+}
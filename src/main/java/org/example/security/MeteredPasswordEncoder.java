@@ -0,0 +1,48 @@
+package org.example.security;
+
+import org.example.monitoring.ServiceMetrics;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+// mierzy czas hashowania i sprawdzania hasel - koszt BCrypt to glowna czesc CPU logowania i rejestracji
+// bookstore.passwords.encode (outcome=success) i bookstore.passwords.match (outcome=success/failure)
+public class MeteredPasswordEncoder implements PasswordEncoder {
+
+    private final PasswordEncoder delegate;
+    private final ServiceMetrics serviceMetrics;
+
+    public MeteredPasswordEncoder(PasswordEncoder delegate, ServiceMetrics serviceMetrics) {
+        this.delegate = delegate;
+        this.serviceMetrics = serviceMetrics;
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        long start = System.nanoTime();
+        String outcome = ServiceMetrics.ERROR;
+        try {
+            String encoded = delegate.encode(rawPassword);
+            outcome = ServiceMetrics.SUCCESS;
+            return encoded;
+        } finally {
+            serviceMetrics.record(ServiceMetrics.PASSWORD_ENCODE, outcome, start);
+        }
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        long start = System.nanoTime();
+        String outcome = ServiceMetrics.ERROR;
+        try {
+            boolean matches = delegate.matches(rawPassword, encodedPassword);
+            outcome = matches ? ServiceMetrics.SUCCESS : ServiceMetrics.FAILURE;
+            return matches;
+        } finally {
+            serviceMetrics.record(ServiceMetrics.PASSWORD_MATCH, outcome, start);
+        }
+    }
+
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        return delegate.upgradeEncoding(encodedPassword);
+    }
+}
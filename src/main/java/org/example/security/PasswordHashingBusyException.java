@@ -0,0 +1,10 @@
+package org.example.security;
+
+// pula hashowania hasel odrzucila zadanie (pelna kolejka albo przekroczony czas) - przejsciowe przeciazenie,
+// ktore AuthenticationController zamienia na 503 z Retry-After; inne IllegalStateException to zwykle bledy
+public class PasswordHashingBusyException extends IllegalStateException {
+
+    public PasswordHashingBusyException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,86 @@
+package org.example.security;
+
+import org.example.monitoring.ServiceMetrics;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// osobna, ograniczona pula do hashowania i sprawdzania hasel przy rejestracji i zmianie hasla
+// (BCrypt to dziesiatki ms CPU na haslo)
+// naraz liczy sie najwyzej threads hashy, a queue-capacity czeka w kolejce; kolejne rejestracje sa od razu
+// odrzucane (503), zamiast zajmowac nastepne watki Tomcata czekajace na CPU - przy naplywie rejestracji
+// w puli Tomcata zostaje najwyzej threads + queue-capacity watkow rejestracji, reszta API dziala dalej
+public class PasswordHashingExecutor {
+
+    private final PasswordEncoder passwordEncoder;
+    private final ServiceMetrics serviceMetrics;
+    private final long timeoutMs;
+    private final ThreadPoolExecutor executor;
+
+    public PasswordHashingExecutor(PasswordEncoder passwordEncoder, ServiceMetrics serviceMetrics,
+                                   PasswordHashingProperties properties) {
+        this.passwordEncoder = passwordEncoder;
+        this.serviceMetrics = serviceMetrics;
+        this.timeoutMs = properties.getTimeoutMs();
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(properties.getThreads(), properties.getThreads(), 0L,
+                TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(properties.getQueueCapacity()), runnable -> {
+                    Thread thread = new Thread(runnable, "password-hashing-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }, new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    // hash hasla policzony w puli; PasswordHashingBusyException gdy pula i kolejka sa pelne albo hash nie zdazyl
+    public String encode(String rawPassword) {
+        return compute(() -> passwordEncoder.encode(rawPassword));
+    }
+
+    // porownanie hasla z hashem (ten sam koszt BCrypt co encode) w tej samej puli i z tymi samymi limitami
+    public boolean matches(String rawPassword, String encodedPassword) {
+        return compute(() -> passwordEncoder.matches(rawPassword, encodedPassword));
+    }
+
+    private <T> T compute(Callable<T> task) {
+        Future<T> result;
+        try {
+            result = executor.submit(task);
+        } catch (RejectedExecutionException e) {
+            serviceMetrics.increment(ServiceMetrics.REJECTED, ServiceMetrics.HASHING_BUSY);
+            throw new PasswordHashingBusyException("Too many registrations in progress, retry later");
+        }
+        try {
+            return result.get(timeoutMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            result.cancel(true);
+            serviceMetrics.increment(ServiceMetrics.REJECTED, ServiceMetrics.HASHING_BUSY);
+            throw new PasswordHashingBusyException("Too many registrations in progress, retry later");
+        } catch (InterruptedException e) {
+            result.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while hashing password");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException("Password hashing failed", e.getCause());
+        }
+    }
+
+    int queuedTasks() {
+        return executor.getQueue().size();
+    }
+
+    // zamykane przez Spring razem z kontekstem (metoda shutdown jest wykrywana dla @Bean)
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,79 @@
+package org.example.security;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+// koszt hashowania hasel i pula liczenia hashy przy rejestracji (bookstore.password-hashing.*)
+@ConfigurationProperties("bookstore.password-hashing")
+public class PasswordHashingProperties {
+
+    // staly koszt BCrypt; 0 - koszt dobierany przy starcie tak, zeby hash trwal okolo target-hash-time
+    private int bcryptStrength = 0;
+    private Duration targetHashTime = Duration.ofMillis(250);
+    // granice kalibracji - ponizej 10 hash jest za tani na atak slownikowy, powyzej 14 logowanie trwa sekundy
+    private int minBcryptStrength = 10;
+    private int maxBcryptStrength = 14;
+
+    // hashowanie to czysty CPU - wiecej watkow niz rdzeni tylko wydluza kazdy hash
+    private int threads = 4;
+    // rejestracje czekajace na wolny watek; kazda trzyma watek Tomcata, wiec kolejka jest krotka
+    private int queueCapacity = 16;
+    private long timeoutMs = 5000;
+
+    public int getBcryptStrength() {
+        return bcryptStrength;
+    }
+
+    public void setBcryptStrength(int bcryptStrength) {
+        this.bcryptStrength = bcryptStrength;
+    }
+
+    public Duration getTargetHashTime() {
+        return targetHashTime;
+    }
+
+    public void setTargetHashTime(Duration targetHashTime) {
+        this.targetHashTime = targetHashTime;
+    }
+
+    public int getMinBcryptStrength() {
+        return minBcryptStrength;
+    }
+
+    public void setMinBcryptStrength(int minBcryptStrength) {
+        this.minBcryptStrength = minBcryptStrength;
+    }
+
+    public int getMaxBcryptStrength() {
+        return maxBcryptStrength;
+    }
+
+    public void setMaxBcryptStrength(int maxBcryptStrength) {
+        this.maxBcryptStrength = maxBcryptStrength;
+    }
+
+    public int getThreads() {
+        return threads;
+    }
+
+    public void setThreads(int threads) {
+        this.threads = threads;
+    }
+
+    public int getQueueCapacity() {
+        return queueCapacity;
+    }
+
+    public void setQueueCapacity(int queueCapacity) {
+        this.queueCapacity = queueCapacity;
+    }
+
+    public long getTimeoutMs() {
+        return timeoutMs;
+    }
+
+    public void setTimeoutMs(long timeoutMs) {
+        this.timeoutMs = timeoutMs;
+    }
+}
@@ -0,0 +1,58 @@
+package org.example.security;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+// pamiec danych logowania (bookstore.user-cache.*)
+@ConfigurationProperties("bookstore.user-cache")
+public class UserCacheProperties {
+
+    private boolean enabled = true;
+    // gorna granica liczby zapamietanych uzytkownikow, powyzej niej usuwani sa najdawniej uzywani
+    private int maxEntries = 10000;
+    private Duration ttl = Duration.ofMinutes(5);
+    // nieistniejace loginy (np. proby botow) - krotko, zeby swiezo zarejestrowany uzytkownik nie czekal
+    private int maxMissingEntries = 10000;
+    private Duration missingTtl = Duration.ofSeconds(30);
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public int getMaxEntries() {
+        return maxEntries;
+    }
+
+    public void setMaxEntries(int maxEntries) {
+        this.maxEntries = maxEntries;
+    }
+
+    public Duration getTtl() {
+        return ttl;
+    }
+
+    public void setTtl(Duration ttl) {
+        this.ttl = ttl;
+    }
+
+    public int getMaxMissingEntries() {
+        return maxMissingEntries;
+    }
+
+    public void setMaxMissingEntries(int maxMissingEntries) {
+        this.maxMissingEntries = maxMissingEntries;
+    }
+
+    public Duration getMissingTtl() {
+        return missingTtl;
+    }
+
+    public void setMissingTtl(Duration missingTtl) {
+        this.missingTtl = missingTtl;
+    }
+}
@@ -0,0 +1,52 @@
+package org.example.service;
+
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+
+import java.util.Set;
+
+// wspolne zasady list administratora: ograniczony rozmiar strony i sortowanie tylko po dozwolonych polach
+final class AdminListing {
+
+    static final int MAX_PAGE_SIZE = 100;
+
+    private AdminListing() {
+    }
+
+    // sort w formacie "pole" lub "pole,asc|desc"; nieznane pole to blad zamiast sortowania po dowolnej kolumnie
+    static PageRequest pageRequest(int page, int size, String sort, Set<String> sortableFields, Sort defaultSort) {
+        if (page < 0) {
+            throw new IllegalArgumentException("Page must not be negative");
+        }
+        if (size < 1 || size > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("Page size must be between 1 and " + MAX_PAGE_SIZE);
+        }
+        if (sort == null || sort.isBlank()) {
+            return PageRequest.of(page, size, defaultSort);
+        }
+
+        String[] parts = sort.split(",");
+        String field = parts[0].trim();
+        if (parts.length > 2 || !sortableFields.contains(field)) {
+            throw new IllegalArgumentException("Unsupported sort: " + sort);
+        }
+        Sort.Direction direction = parts.length == 2
+                ? Sort.Direction.fromOptionalString(parts[1].trim())
+                        .orElseThrow(() -> new IllegalArgumentException("Unsupported sort: " + sort))
+                : Sort.Direction.ASC;
+        Sort order = Sort.by(direction, field);
+        // id jako drugi klucz, zeby kolejnosc miedzy stronami byla stabilna przy rownych wartosciach
+        return PageRequest.of(page, size, "id".equals(field) ? order : order.and(Sort.by(direction, "id")));
+    }
+
+    // wzorzec LIKE "zaczyna sie od" z zacytowanymi znakami specjalnymi; null dla pustego filtra
+    static String likePrefix(String search) {
+        if (search == null || search.isBlank()) {
+            return null;
+        }
+        return search.trim()
+                .replace("\\", "\\\\")
+                .replace("%", "\\%")
+                .replace("_", "\\_") + "%";
+    }
+}
@@ -1,27 +1,49 @@
 package org.example.service;
 
+import io.micrometer.observation.annotation.Observed;
+import org.example.availability.BookAvailabilityEvent;
 import org.example.model.AbstractBook;
 import org.example.model.BookType;
 import org.example.factory.BookFactory;
+import org.example.monitoring.ServiceMetrics;
+import org.example.repository.ArchivedBorrowingRepository;
 import org.example.repository.BookRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 // klasa serwisowa dla operacji na tabeli ksiazek
+// domyslnie transakcje tylko do odczytu (FlushMode.MANUAL, encje bez snapshotow do dirty checkingu,
+// polaczenie JDBC readOnly), metody zapisujace nadpisuja to wlasnym @Transactional
 @Service
+@Transactional(readOnly = true)
+@Observed(name = "bookstore.service")
 public class BookService {
 
     private final BookRepository bookRepository;
     private final BookFactory bookFactory;
+    private final ServiceMetrics serviceMetrics;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ArchivedBorrowingRepository archivedBorrowingRepository;
+    private final CatalogEtagCache catalogEtagCache;
 
     @Autowired
-    public BookService(BookRepository bookRepository, BookFactory bookFactory) {
+    public BookService(BookRepository bookRepository, BookFactory bookFactory, ServiceMetrics serviceMetrics,
+                       ApplicationEventPublisher eventPublisher,
+                       ArchivedBorrowingRepository archivedBorrowingRepository,
+                       CatalogEtagCache catalogEtagCache) {
         this.bookRepository = bookRepository;
         this.bookFactory = bookFactory;
+        this.serviceMetrics = serviceMetrics;
+        this.eventPublisher = eventPublisher;
+        this.archivedBorrowingRepository = archivedBorrowingRepository;
+        this.catalogEtagCache = catalogEtagCache;
     }
 
     // zwraca liste wszystkich ksiazek
@@ -61,24 +83,35 @@ public class BookService {
         int borrowedCopies = book.getTotalCopies() - book.getAvailableCopies();
         book.setAvailableCopies(Math.max(0, totalCopies - borrowedCopies));
 
-        return bookRepository.save(book);
+        AbstractBook savedBook = bookRepository.save(book);
+        eventPublisher.publishEvent(BookAvailabilityEvent.of(book));
+        return savedBook;
     }
 
-    // usuwa ksiazke (tylko admin)
+    // usuwa ksiazke (tylko admin) razem z jej wypozyczeniami - biezace usuwa kaskada encji,
+    // archiwalne (bez klucza obcego) usuwamy w tej samej transakcji, zeby historia nie wskazywala na brak ksiazki
     @Transactional
     public void deleteBook(Long id) {
         if (!bookRepository.existsById(id)) {
             throw new IllegalArgumentException("Book not found: " + id);
         }
+        archivedBorrowingRepository.deleteByBookId(id);
         bookRepository.deleteById(id);
     }
 
     // wyszukuje ksiazki wedlug roznych kryteriow
     public List<AbstractBook> searchBooks(String searchTerm) {
-        if (searchTerm == null || searchTerm.trim().isEmpty()) {
-            return getAllBooks();
+        long start = System.nanoTime();
+        String outcome = ServiceMetrics.ERROR;
+        try {
+            List<AbstractBook> books = (searchTerm == null || searchTerm.trim().isEmpty())
+                    ? getAllBooks()
+                    : bookRepository.searchBooks(searchTerm.trim());
+            outcome = ServiceMetrics.SUCCESS;
+            return books;
+        } finally {
+            serviceMetrics.record(ServiceMetrics.SEARCH, outcome, start);
         }
-        return bookRepository.searchBooks(searchTerm.trim());
     }
 
     // zwraca ksiazki po gatunku
@@ -86,11 +119,38 @@ public class BookService {
         return bookRepository.findByGenreIgnoreCase(genre);
     }
 
+    // aktualna dostepnosc wybranych ksiazek - stan poczatkowy dla subskrypcji strumienia zmian
+    public List<BookAvailabilityEvent> getAvailability(Collection<Long> bookIds) {
+        return bookRepository.findAllById(bookIds).stream()
+                .map(BookAvailabilityEvent::of)
+                .toList();
+    }
+
     // zwraca tylko dostepne ksiazki
     public List<AbstractBook> getAvailableBooks() {
         return bookRepository.findByAvailableCopiesGreaterThan(0);
     }
 
+    // ETag calego katalogu (dla list ksiazek) z CatalogEtagCache; po zmianie ksiazki liczony od nowa
+    // jednym zapytaniem agregujacym, bez ladowania listy. SUPPORTS - trafienie w pamieci nie otwiera transakcji
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public String getCatalogEtag() {
+        return catalogEtagCache.get(() -> {
+            BookRepository.CatalogState state = bookRepository.findCatalogState();
+            return "W/\"catalog-" + state.getBookCount() + "-" + state.getVersionSum() + "-" + state.getMaxId() + "\"";
+        });
+    }
+
+    // zwraca liczbe wszystkich ksiazek
+    public long countAllBooks() {
+        return bookRepository.count();
+    }
+
+    // zwraca liczbe ksiazek cyfrowych
+    public long countDigitalBooks() {
+        return bookRepository.countDigitalBooks();
+    }
+
     // sprawdza czy ksiazka jest dostepna do wypozyczenia
     public boolean isBookAvailable(Long bookId) {
         return bookRepository.findById(bookId)
@@ -1,101 +1,236 @@
 package org.example.service;
 
+import io.micrometer.observation.annotation.Observed;
+import org.example.availability.BookAvailabilityEvent;
+import org.example.dataTransfer.AdminBorrowingView;
+import org.example.dataTransfer.BorrowingHistoryPage;
+import org.example.dataTransfer.PageResponse;
 import org.example.model.*;
+import org.example.monitoring.ServiceMetrics;
+import org.example.repository.ArchivedBorrowingRepository;
 import org.example.repository.BookRepository;
+import org.example.repository.BorrowingBatchRepository;
 import org.example.repository.BorrowingRepository;
+import org.example.repository.ConstraintViolations;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
 
 // klasa serwisowa dla operacji na wypozyczeniach
+// domyslnie transakcje tylko do odczytu, metody zapisujace nadpisuja to wlasnym @Transactional
 @Service
+@Transactional(readOnly = true)
+@Observed(name = "bookstore.service")
 public class BorrowingService {
 
+    static final int MAX_HISTORY_PAGE_SIZE = 100;
+    // kursor pierwszej strony - pozniej niz jakiekolwiek wypozyczenie
+    private static final LocalDate HISTORY_START_DATE = LocalDate.of(9999, 12, 31);
+    private static final Comparator<Borrowing> HISTORY_ORDER =
+            Comparator.comparing(Borrowing::getBorrowDate).thenComparing(Borrowing::getId).reversed();
+    static final Set<String> BORROWING_SORT_FIELDS = Set.of("id", "status", "borrowDate", "dueDate", "returnDate");
+
     private final BorrowingRepository borrowingRepository;
+    private final ArchivedBorrowingRepository archivedBorrowingRepository;
+    private final BorrowingBatchRepository borrowingBatchRepository;
     private final BookRepository bookRepository;
     private final UserService userService;
+    private final ReservationService reservationService;
+    private final OutboxService outboxService;
+    private final BorrowingSummaryService borrowingSummaryService;
+    private final ServiceMetrics serviceMetrics;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Autowired
     public BorrowingService(BorrowingRepository borrowingRepository, 
+                           ArchivedBorrowingRepository archivedBorrowingRepository,
+                           BorrowingBatchRepository borrowingBatchRepository,
                            BookRepository bookRepository, 
-                           UserService userService) {
+                           UserService userService,
+                           ReservationService reservationService,
+                           OutboxService outboxService,
+                           BorrowingSummaryService borrowingSummaryService,
+                           ServiceMetrics serviceMetrics,
+                           ApplicationEventPublisher eventPublisher) {
         this.borrowingRepository = borrowingRepository;
+        this.archivedBorrowingRepository = archivedBorrowingRepository;
+        this.borrowingBatchRepository = borrowingBatchRepository;
         this.bookRepository = bookRepository;
         this.userService = userService;
+        this.reservationService = reservationService;
+        this.outboxService = outboxService;
+        this.borrowingSummaryService = borrowingSummaryService;
+        this.serviceMetrics = serviceMetrics;
+        this.eventPublisher = eventPublisher;
     }
 
     // wypozycza ksiazke
     @Transactional
     public Borrowing borrowBook(Long bookId) {
-        User currentUser = userService.getCurrentUser();
-        
-        AbstractBook book = bookRepository.findById(bookId)
-                .orElseThrow(() -> new IllegalArgumentException("Book not found"));
-
-        // sprawdz czy ksiazka jest dostepna
-        if (book.getAvailableCopies() <= 0) {
-            throw new IllegalArgumentException("Book is not available");
-        }
+        long start = System.nanoTime();
+        String outcome = ServiceMetrics.ERROR;
+        try {
+            User currentUser = userService.getCurrentUser();
 
-        // sprawdz czy uzytkownik nie ma juz wypozyczonej tej ksiazki
-        if (borrowingRepository.existsActiveBorrowingByUserAndBook(currentUser.getId(), bookId)) {
-            throw new IllegalArgumentException("You already have this book borrowed or reserved");
-        }
+            // zabierz wolny egzemplarz warunkowym UPDATE - dwa rownolegle wypozyczenia ostatniego egzemplarza
+            // nie przejda obu; ksiazka wraca ze stanem po zmianie
+            AbstractBook book = bookRepository.takeCopy(bookId).orElse(null);
+            if (book == null) {
+                if (!bookRepository.existsById(bookId)) {
+                    outcome = ServiceMetrics.NOT_FOUND;
+                    throw new IllegalArgumentException("Book not found");
+                }
+                outcome = ServiceMetrics.NOT_AVAILABLE;
+                throw new IllegalArgumentException("Book is not available");
+            }
 
-        // zmniejsz dostepne kopie
-        book.setAvailableCopies(book.getAvailableCopies() - 1);
-        bookRepository.save(book);
+            // stworz wypozyczenie - drugie aktywne wypozyczenie tej samej ksiazki odrzuca indeks unikalny
+            // (bez osobnego zapytania i bez wyscigu miedzy sprawdzeniem a zapisem), a wyjatek wycofuje
+            // tez zabrany egzemplarz
+            Borrowing borrowing = new Borrowing(
+                    currentUser,
+                    book,
+                    BorrowingStatus.BORROWED,
+                    LocalDate.now(),
+                    LocalDate.now().plusDays(14) // 2 tygodnie na zwrot
+            );
+            Borrowing savedBorrowing;
+            try {
+                savedBorrowing = borrowingRepository.saveAndFlush(borrowing);
+            } catch (DataIntegrityViolationException e) {
+                if (!ConstraintViolations.isViolationOf(e, ConstraintViolations.ACTIVE_BORROWING_PER_USER_BOOK)) {
+                    throw e;
+                }
+                outcome = ServiceMetrics.ALREADY_BORROWED;
+                throw new IllegalArgumentException("You already have this book borrowed or reserved");
+            }
 
-        // stworz wypozyczenie
-        Borrowing borrowing = new Borrowing(
-                currentUser,
-                book,
-                BorrowingStatus.BORROWED,
-                LocalDate.now(),
-                LocalDate.now().plusDays(14) // 2 tygodnie na zwrot
-        );
+            eventPublisher.publishEvent(BookAvailabilityEvent.of(book));
 
-        return borrowingRepository.save(borrowing);
+            outboxService.recordBorrowingEvent(OutboxService.BORROWING_CREATED, savedBorrowing);
+            borrowingSummaryService.recordTransition(currentUser.getId(), null, BorrowingStatus.BORROWED);
+            outcome = ServiceMetrics.SUCCESS;
+            return savedBorrowing;
+        } finally {
+            serviceMetrics.record(ServiceMetrics.BORROW, outcome, start);
+        }
     }
 
     // zwraca ksiazke
     @Transactional
     public Borrowing returnBook(Long borrowingId) {
-        User currentUser = userService.getCurrentUser();
-        
-        Borrowing borrowing = borrowingRepository.findById(borrowingId)
-                .orElseThrow(() -> new IllegalArgumentException("Borrowing not found"));
+        long start = System.nanoTime();
+        String outcome = ServiceMetrics.ERROR;
+        try {
+            User currentUser = userService.getCurrentUser();
 
-        // sprawdz czy wypozyczenie nalezy do aktualnego uzytkownika
-        if (!borrowing.getUser().getId().equals(currentUser.getId())) {
-            throw new IllegalArgumentException("This borrowing does not belong to you");
-        }
+            Borrowing borrowing = borrowingRepository.findById(borrowingId).orElse(null);
+            if (borrowing == null) {
+                outcome = ServiceMetrics.NOT_FOUND;
+                throw new IllegalArgumentException("Borrowing not found");
+            }
 
-        // sprawdz czy ksiazka nie jest juz zwrocona
-        if (borrowing.getStatus() == BorrowingStatus.RETURNED) {
-            throw new IllegalArgumentException("Book is already returned");
-        }
+            // sprawdz czy wypozyczenie nalezy do aktualnego uzytkownika
+            if (!borrowing.getUser().getId().equals(currentUser.getId())) {
+                outcome = ServiceMetrics.NOT_OWNER;
+                throw new IllegalArgumentException("This borrowing does not belong to you");
+            }
 
-        // ustaw status na zwrocona
-        borrowing.setStatus(BorrowingStatus.RETURNED);
-        borrowing.setReturnDate(LocalDate.now());
+            // sprawdz czy ksiazka nie jest juz zwrocona
+            if (borrowing.getStatus() == BorrowingStatus.RETURNED) {
+                outcome = ServiceMetrics.ALREADY_RETURNED;
+                throw new IllegalArgumentException("Book is already returned");
+            }
 
-        // zwieksz dostepne kopie
-        AbstractBook book = borrowing.getBook();
-        book.setAvailableCopies(book.getAvailableCopies() + 1);
-        bookRepository.save(book);
+            // zwrocic mozna tylko wypozyczony egzemplarz - egzemplarz wygaslej rezerwacji zostal juz przekazany
+            // dalej, a odlozonego (RESERVED) uzytkownik jeszcze nie odebral
+            if (borrowing.getStatus() != BorrowingStatus.BORROWED && borrowing.getStatus() != BorrowingStatus.OVERDUE) {
+                outcome = ServiceMetrics.NOT_RETURNABLE;
+                throw new IllegalArgumentException("Only borrowed books can be returned");
+            }
 
-        return borrowingRepository.save(borrowing);
+            // ustaw status na zwrocona
+            BorrowingStatus previousStatus = borrowing.getStatus();
+            borrowing.setStatus(BorrowingStatus.RETURNED);
+            borrowing.setReturnDate(LocalDate.now());
+
+            // egzemplarz dostaje pierwsza osoba z kolejki, a bez kolejki wraca do dostepnych
+            reservationService.releaseCopy(borrowing.getBook());
+
+            Borrowing savedBorrowing = borrowingRepository.save(borrowing);
+            outboxService.recordBorrowingEvent(OutboxService.BORROWING_RETURNED, savedBorrowing);
+            borrowingSummaryService.recordTransition(currentUser.getId(), previousStatus, BorrowingStatus.RETURNED);
+            outcome = ServiceMetrics.SUCCESS;
+            return savedBorrowing;
+        } finally {
+            serviceMetrics.record(ServiceMetrics.RETURN, outcome, start);
+        }
     }
 
-    // zwraca historie wypozyczen aktualnego uzytkownika
+    // zwraca historie wypozyczen aktualnego uzytkownika - z tabeli biezacej i z archiwum
     public List<Borrowing> getUserBorrowingHistory() {
         User currentUser = userService.getCurrentUser();
-        return borrowingRepository.findByUser(currentUser);
+        List<Borrowing> history = new ArrayList<>(borrowingRepository.findByUser(currentUser));
+        archivedBorrowingRepository.findByUserId(currentUser.getId())
+                .forEach(archived -> history.add(archived.toBorrowing()));
+        return history;
+    }
+
+    // zwraca strone historii aktualnego uzytkownika od najnowszych, opcjonalnie tylko o danym statusie
+    // cursor to "borrowDate:id" ostatniego wiersza poprzedniej strony (null - pierwsza strona)
+    public BorrowingHistoryPage getUserBorrowingHistoryPage(BorrowingStatus status, String cursor, int size) {
+        if (size < 1 || size > MAX_HISTORY_PAGE_SIZE) {
+            throw new IllegalArgumentException("Page size must be between 1 and " + MAX_HISTORY_PAGE_SIZE);
+        }
+        LocalDate beforeDate = HISTORY_START_DATE;
+        long beforeId = Long.MAX_VALUE;
+        if (cursor != null && !cursor.isBlank()) {
+            String[] parts = cursor.split(":");
+            try {
+                if (parts.length != 2) {
+                    throw new IllegalArgumentException("Invalid cursor");
+                }
+                beforeDate = LocalDate.parse(parts[0]);
+                beforeId = Long.parseLong(parts[1]);
+            } catch (DateTimeParseException | NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid cursor");
+            }
+        }
+
+        User currentUser = userService.getCurrentUser();
+        // o jeden wiersz wiecej, zeby wiedziec, czy jest kolejna strona
+        PageRequest limit = PageRequest.of(0, size + 1);
+        List<Borrowing> rows = new ArrayList<>(status == null
+                ? borrowingRepository.findHistoryPage(currentUser.getId(), beforeDate, beforeId, limit)
+                : borrowingRepository.findHistoryPageByStatus(currentUser.getId(), status, beforeDate, beforeId, limit));
+        // zamkniete wypozyczenia po okresie retencji sa w archiwum - strona laczy oba zrodla w tym samym porzadku
+        if (status == null || status == BorrowingStatus.RETURNED || status == BorrowingStatus.EXPIRED) {
+            List<ArchivedBorrowing> archived = status == null
+                    ? archivedBorrowingRepository.findHistoryPage(currentUser.getId(), beforeDate, beforeId, limit)
+                    : archivedBorrowingRepository.findHistoryPageByStatus(currentUser.getId(), status, beforeDate,
+                            beforeId, limit);
+            archived.forEach(row -> rows.add(row.toBorrowing()));
+            rows.sort(HISTORY_ORDER);
+        }
+        if (rows.size() <= size) {
+            return new BorrowingHistoryPage(rows, null);
+        }
+        List<Borrowing> items = rows.subList(0, size);
+        Borrowing last = items.get(size - 1);
+        return new BorrowingHistoryPage(List.copyOf(items), last.getBorrowDate() + ":" + last.getId());
     }
 
     // zwraca aktywne wypozyczenia aktualnego uzytkownika
@@ -104,9 +239,20 @@ public class BorrowingService {
         return borrowingRepository.findByUserAndStatus(currentUser, BorrowingStatus.BORROWED);
     }
 
-    // zwraca wszystkie wypozyczenia (tylko admin)
-    public List<Borrowing> getAllBorrowings() {
-        return borrowingRepository.findAll();
+    // strona wszystkich wypozyczen (tylko admin), domyslnie od najnowszych, opcjonalnie ze statusem i uzytkownikiem
+    // obejmuje tylko tabele biezaca - wypozyczenia z archiwum sa w historii uzytkownika
+    public PageResponse<AdminBorrowingView> getBorrowingsPage(BorrowingStatus status, Long userId, int page, int size,
+                                                              String sort) {
+        PageRequest pageRequest = AdminListing.pageRequest(page, size, sort, BORROWING_SORT_FIELDS,
+                Sort.by(Sort.Direction.DESC, "id"));
+        return PageResponse.of(borrowingRepository.findAdminViews(status, userId, pageRequest));
+    }
+
+    // przekazuje wszystkie wypozyczenia po kolei do consumer (eksport CSV) - jedno zapytanie czytane kursorem
+    // w puli "batch", zeby dlugi odczyt nie zajmowal polaczen interaktywnych ani repliki
+    @Transactional(transactionManager = "batchTransactionManager", readOnly = true)
+    public void exportBorrowings(Consumer<AdminBorrowingView> consumer) {
+        borrowingBatchRepository.exportAdminViews(consumer);
     }
 
     // zwraca wypozyczenie po ID
@@ -115,14 +261,11 @@ public class BorrowingService {
     }
 
     // aktualizuje przeterminowane wypozyczenia
-    @Transactional
+    // jedno zapytanie UPDATE na puli "batch", zamiast ladowania i zapisywania kazdej encji,
+    // w tej samej transakcji zdarzenia BorrowingOverdue trafiaja do outboxa, a liczniki do podsumowan uzytkownikow
+    @Transactional(transactionManager = "batchTransactionManager")
     public void updateOverdueBorrowings() {
-        List<Borrowing> overdueBorrowings = borrowingRepository.findOverdueBorrowings(LocalDate.now());
-        
-        for (Borrowing borrowing : overdueBorrowings) {
-            borrowing.setStatus(BorrowingStatus.OVERDUE);
-            borrowingRepository.save(borrowing);
-        }
+        borrowingBatchRepository.markOverdue(LocalDate.now());
     }
 
     // zwraca przeterminowane wypozyczenia
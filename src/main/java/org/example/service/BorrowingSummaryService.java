@@ -0,0 +1,50 @@
+package org.example.service;
+
+import org.example.model.BorrowingStatus;
+import org.example.model.UserBorrowingSummary;
+import org.example.repository.UserBorrowingSummaryRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+
+// utrzymanie podsumowan wypozyczen uzytkownikow (user_borrowing_summary)
+// serwisy wypozyczen i rezerwacji zglaszaja kazda zmiane statusu w swojej transakcji, a zbiorcze
+// oznaczanie przeterminowanych aktualizuje podsumowania w SQL (BorrowingBatchRepository.markOverdue)
+// wiersz powstaje przy pierwszej zmianie uzytkownika (istniejace wypozyczenia wypelnila migracja V6), wiec liczniki
+// obejmuja tez wypozyczenia przeniesione pozniej do archiwum
+@Service
+@Transactional(readOnly = true)
+public class BorrowingSummaryService {
+
+    private final UserBorrowingSummaryRepository summaryRepository;
+
+    @Autowired
+    public BorrowingSummaryService(UserBorrowingSummaryRepository summaryRepository) {
+        this.summaryRepository = summaryRepository;
+    }
+
+    // podsumowanie uzytkownika jednym odczytem po kluczu; bez wiersza uzytkownik nie mial jeszcze wypozyczen
+    public UserBorrowingSummary getSummary(Long userId) {
+        return summaryRepository.findById(userId).orElseGet(() -> new UserBorrowingSummary(userId));
+    }
+
+    // zmiana statusu wypozyczenia uzytkownika; from == null oznacza nowe wypozyczenie
+    // jedno zapytanie (upsert) niezaleznie od tego, czy uzytkownik ma juz wiersz podsumowania
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordTransition(Long userId, BorrowingStatus from, BorrowingStatus to) {
+        long[] delta = new long[BorrowingStatus.values().length];
+        if (from != null) {
+            delta[from.ordinal()]--;
+        }
+        delta[to.ordinal()]++;
+        summaryRepository.upsertDelta(userId,
+                delta[BorrowingStatus.RESERVED.ordinal()],
+                delta[BorrowingStatus.BORROWED.ordinal()],
+                delta[BorrowingStatus.OVERDUE.ordinal()],
+                delta[BorrowingStatus.RETURNED.ordinal()],
+                LocalDateTime.now());
+    }
+}
@@ -0,0 +1,28 @@
+package org.example.service;
+
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.beans.factory.ObjectProvider;
+
+// listener encji AbstractBook: dodanie, edycja i usuniecie ksiazki uniewazniaja ETag katalogu po zatwierdzeniu transakcji
+// Hibernate tworzy listenery jak JPA (nowa instancja przez SpringBeanContainer), stad wstrzykniety
+// CatalogEtagCache; w testach wycinkow (@DataJpaTest) bez tego beana listener nic nie robi
+public class CatalogChangeListener {
+
+    private final ObjectProvider<CatalogEtagCache> catalogEtagCache;
+
+    public CatalogChangeListener(ObjectProvider<CatalogEtagCache> catalogEtagCache) {
+        this.catalogEtagCache = catalogEtagCache;
+    }
+
+    @PostPersist
+    @PostUpdate
+    @PostRemove
+    void onBookChanged(Object book) {
+        CatalogEtagCache cache = catalogEtagCache.getIfAvailable();
+        if (cache != null) {
+            cache.invalidateAfterCommit();
+        }
+    }
+}
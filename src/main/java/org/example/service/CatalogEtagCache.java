@@ -0,0 +1,70 @@
+package org.example.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.function.Supplier;
+
+// ETag katalogu trzymany w pamieci zamiast agregatu po calej tabeli ksiazek przy kazdym warunkowym GET
+// kazdy zapis ksiazki po zatwierdzeniu transakcji podbija generacje (CatalogChangeListener, a dla zmian
+// liczby egzemplarzy BookCopiesImpl) i nastepny
+// odczyt liczy ETag od nowa; zmiany z innych instancji aplikacji widac najpozniej po max-age
+@Component
+public class CatalogEtagCache {
+
+    private final long maxAgeNanos;
+    private final Object lock = new Object();
+    private long generation;
+    private Cached cached;
+
+    public CatalogEtagCache(@Value("${bookstore.catalog.etag-max-age:5s}") Duration maxAge) {
+        this.maxAgeNanos = maxAge.toNanos();
+    }
+
+    // ETag z pamieci albo policzony przez loader; wynik liczony w trakcie zmiany katalogu nie jest zapamietywany,
+    // bo moze pochodzic sprzed zatwierdzenia tej zmiany
+    public String get(Supplier<String> loader) {
+        long loadGeneration;
+        synchronized (lock) {
+            if (cached != null && cached.generation() == generation
+                    && System.nanoTime() - cached.loadedAtNanos() < maxAgeNanos) {
+                return cached.etag();
+            }
+            loadGeneration = generation;
+        }
+        long loadedAt = System.nanoTime();
+        String etag = loader.get();
+        synchronized (lock) {
+            if (generation == loadGeneration) {
+                cached = new Cached(loadGeneration, etag, loadedAt);
+            }
+        }
+        return etag;
+    }
+
+    public void invalidate() {
+        synchronized (lock) {
+            generation++;
+            cached = null;
+        }
+    }
+
+    // uniewaznia po zatwierdzeniu biezacej transakcji (wycofana zmiana nie uniewaznia), a poza transakcja od razu
+    public void invalidateAfterCommit() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            invalidate();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                invalidate();
+            }
+        });
+    }
+
+    private record Cached(long generation, String etag, long loadedAtNanos) {}
+}
@@ -1,43 +1,88 @@
 package org.example.service;
 
+import io.micrometer.observation.annotation.Observed;
 import org.example.model.User;
+import org.example.monitoring.ServiceMetrics;
 import org.example.repository.UserRepository;
+import org.example.security.BoundedUserCache;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.util.Collections;
 
 // klasa serwisowa dla autoryzacji
+// dane logowania sa zapamietywane w BoundedUserCache (wpisy usuwa UserService po zmianie hasla lub roli),
+// a nieistniejace loginy krotko pamietane jako brakujace; przestarzale hashe hasel sa podmieniane przy logowaniu
 @Service
-public class CustomUserDetailsService implements UserDetailsService {
+@Observed(name = "bookstore.service")
+public class CustomUserDetailsService implements UserDetailsService, UserDetailsPasswordService {
 
     private final UserRepository userRepository;
+    private final BoundedUserCache userCache;
+    private final TransactionTemplate transactionTemplate;
+    private final ServiceMetrics serviceMetrics;
 
     @Autowired
-    public CustomUserDetailsService(UserRepository userRepository) {
+    public CustomUserDetailsService(UserRepository userRepository, BoundedUserCache userCache,
+                                    PlatformTransactionManager transactionManager, ServiceMetrics serviceMetrics) {
         this.userRepository = userRepository;
+        this.userCache = userCache;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.serviceMetrics = serviceMetrics;
     }
 
     // laduje uzytkownika po nazwie do autoryzacji
+    // transakcja tylko przy odczycie z bazy - trafienie w pamieci nie pobiera polaczenia z puli;
+    // celowo nie readOnly - uwierzytelnianie zawsze czyta z bazy glownej, bo replika
+    // moze jeszcze nie miec swiezo zarejestrowanego uzytkownika
     @Override
-    @Transactional(readOnly = true)
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
-        User user = userRepository.findByUsername(username)
-                .orElseThrow(() -> new UsernameNotFoundException("User not found with username: " + username));
+        if (userCache.isKnownMissing(username)) {
+            throw new UsernameNotFoundException("User not found with username: " + username);
+        }
+        UserDetails cached = userCache.getUserFromCache(username);
+        if (cached != null) {
+            return cached;
+        }
+
+        User user = transactionTemplate.execute(status -> userRepository.findByUsername(username).orElse(null));
+        if (user == null) {
+            userCache.putMissing(username);
+            throw new UsernameNotFoundException("User not found with username: " + username);
+        }
 
         // tworzymy prefix ROLE_ dla roli uzytkownika wymagany przez Spring Security
         SimpleGrantedAuthority authority = new SimpleGrantedAuthority("ROLE_" + user.getRole().name());
 
         // zwracamy obiekt UserDetails z danymi uzytkownika
-        return new org.springframework.security.core.userdetails.User(
+        UserDetails userDetails = new org.springframework.security.core.userdetails.User(
                 user.getUsername(),
                 user.getPassword(),
                 Collections.singletonList(authority)
         );
+        userCache.putUserInCache(userDetails);
+        return userDetails;
+    }
+
+    // zapisuje nowy hash po udanym logowaniu, gdy stary nie ma prefiksu {bcrypt} albo ma nizszy koszt niz
+    // obecny (wywoluje DaoAuthenticationProvider) - podmiana tylko jesli w bazie jest nadal sprawdzony hash
+    @Override
+    public UserDetails updatePassword(UserDetails user, String newPassword) {
+        Integer updated = transactionTemplate.execute(status ->
+                userRepository.replacePassword(user.getUsername(), user.getPassword(), newPassword));
+        userCache.removeUserFromCache(user.getUsername());
+        boolean replaced = updated != null && updated > 0;
+        serviceMetrics.increment(ServiceMetrics.PASSWORD_UPGRADE,
+                replaced ? ServiceMetrics.SUCCESS : ServiceMetrics.FAILURE);
+        return replaced ? org.springframework.security.core.userdetails.User.withUserDetails(user)
+                .password(newPassword)
+                .build() : user;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,63 @@
+package org.example.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.example.model.Borrowing;
+import org.example.model.OutboxEvent;
+import org.example.repository.OutboxEventRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// zapis zdarzen domenowych wypozyczen (takze rezerwacji z kolejki) do outboxa; zdarzenie zatwierdza sie razem ze zmiana,
+// a wysylka do odbiorcow odbywa sie pozniej w OutboxRelay
+@Service
+public class OutboxService {
+
+    public static final String BORROWING = "Borrowing";
+    public static final String BORROWING_CREATED = "BorrowingCreated";
+    public static final String BORROWING_RETURNED = "BorrowingReturned";
+    // egzemplarz odlozony dla osoby z kolejki, odebrany i nieodebrany w terminie (ReservationService)
+    public static final String BORROWING_HELD = "BorrowingHeld";
+    public static final String BORROWING_PICKED_UP = "BorrowingPickedUp";
+    public static final String BORROWING_EXPIRED = "BorrowingExpired";
+    // zapisywane w SQL przez BorrowingBatchRepository.markOverdue
+    public static final String BORROWING_OVERDUE = "BorrowingOverdue";
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final ObjectMapper objectMapper;
+
+    @Autowired
+    public OutboxService(OutboxEventRepository outboxEventRepository, ObjectMapper objectMapper) {
+        this.outboxEventRepository = outboxEventRepository;
+        this.objectMapper = objectMapper;
+    }
+
+    // MANDATORY - zdarzenie bez transakcji biznesowej nie ma sensu (rozjechaloby sie ze zmiana)
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordBorrowingEvent(String eventType, Borrowing borrowing) {
+        Map<String, Object> payload = new LinkedHashMap<>();
+        payload.put("borrowingId", borrowing.getId());
+        payload.put("userId", borrowing.getUser().getId());
+        payload.put("bookId", borrowing.getBook().getId());
+        payload.put("status", borrowing.getStatus().name());
+        payload.put("borrowDate", String.valueOf(borrowing.getBorrowDate()));
+        payload.put("dueDate", String.valueOf(borrowing.getDueDate()));
+        if (borrowing.getReturnDate() != null) {
+            payload.put("returnDate", borrowing.getReturnDate().toString());
+        }
+        outboxEventRepository.save(new OutboxEvent(BORROWING, borrowing.getId(), eventType, toJson(payload)));
+    }
+
+    private String toJson(Map<String, Object> payload) {
+        try {
+            return objectMapper.writeValueAsString(payload);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot serialize outbox payload", e);
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package org.example.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+// cykliczne zwalnianie nieodebranych rezerwacji (bookstore.reservations.expiry-interval-ms)
+// dziala tylko przy wlaczonym harmonogramie (SchedulingConfig)
+@Component
+public class ReservationExpiryJob {
+
+    private static final Logger log = LoggerFactory.getLogger(ReservationExpiryJob.class);
+
+    private final ReservationService reservationService;
+
+    @Autowired
+    public ReservationExpiryJob(ReservationService reservationService) {
+        this.reservationService = reservationService;
+    }
+
+    @Scheduled(fixedDelayString = "${bookstore.reservations.expiry-interval-ms:3600000}")
+    public void releaseExpiredHolds() {
+        int released = reservationService.releaseExpiredHolds();
+        if (released > 0) {
+            log.info("Released {} expired reservation holds", released);
+        }
+    }
+}
@@ -0,0 +1,219 @@
+package org.example.service;
+
+import io.micrometer.observation.annotation.Observed;
+import org.example.availability.BookAvailabilityEvent;
+import org.example.model.*;
+import org.example.repository.BookRepository;
+import org.example.repository.BorrowingRepository;
+import org.example.repository.ReservationRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+
+// klasa serwisowa dla kolejki oczekujacych na ksiazki
+// gdy wszystkie egzemplarze sa wypozyczone, uzytkownik dopisuje sie do kolejki; zwrocony egzemplarz
+// trafia od razu do pierwszej osoby w kolejce jako wypozyczenie RESERVED z terminem odbioru
+// domyslnie transakcje tylko do odczytu, metody zapisujace nadpisuja to wlasnym @Transactional
+@Service
+@Transactional(readOnly = true)
+@Observed(name = "bookstore.service")
+public class ReservationService {
+
+    // ile dni odlozony egzemplarz czeka na odbior
+    static final int PICKUP_DAYS = 3;
+
+    private static final PageRequest QUEUE_HEAD = PageRequest.of(0, 1);
+
+    private final ReservationRepository reservationRepository;
+    private final BorrowingRepository borrowingRepository;
+    private final BookRepository bookRepository;
+    private final UserService userService;
+    private final BorrowingSummaryService borrowingSummaryService;
+    private final OutboxService outboxService;
+    private final ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    public ReservationService(ReservationRepository reservationRepository,
+                              BorrowingRepository borrowingRepository,
+                              BookRepository bookRepository,
+                              UserService userService,
+                              BorrowingSummaryService borrowingSummaryService,
+                              OutboxService outboxService,
+                              ApplicationEventPublisher eventPublisher) {
+        this.reservationRepository = reservationRepository;
+        this.borrowingRepository = borrowingRepository;
+        this.bookRepository = bookRepository;
+        this.userService = userService;
+        this.borrowingSummaryService = borrowingSummaryService;
+        this.outboxService = outboxService;
+        this.eventPublisher = eventPublisher;
+    }
+
+    // dopisuje aktualnego uzytkownika na koniec kolejki do ksiazki
+    @Transactional
+    public Reservation reserveBook(Long bookId) {
+        User currentUser = userService.getCurrentUser();
+
+        // blokada wiersza ksiazki: rownolegly zwrot albo oddal juz egzemplarz (i liczba jest aktualna),
+        // albo czeka z oddaniem do zatwierdzenia tego wpisu i po nim widzi go w kolejce (releaseCopy)
+        AbstractBook book = bookRepository.findByIdForUpdate(bookId)
+                .orElseThrow(() -> new IllegalArgumentException("Book not found"));
+
+        // wolny egzemplarz mozna po prostu wypozyczyc
+        if (book.getAvailableCopies() > 0) {
+            throw new IllegalArgumentException("Book is available, borrow it instead");
+        }
+
+        // aktywne wypozyczenie tej ksiazki nie blokuje zapisu - findNextWaiting pomija taka osobe az do zwrotu,
+        // a drugie aktywne wypozyczenie i tak odrzuca indeks unikalny z V8
+        if (reservationRepository.existsByUserIdAndBookIdAndStatus(currentUser.getId(), bookId,
+                ReservationStatus.WAITING)) {
+            throw new IllegalArgumentException("You are already waiting for this book");
+        }
+
+        return reservationRepository.save(new Reservation(currentUser, book));
+    }
+
+    // miejsce w kolejce liczone od 1
+    public long getQueuePosition(Reservation reservation) {
+        return reservationRepository.countByBookIdAndStatusAndIdLessThan(
+                reservation.getBook().getId(), ReservationStatus.WAITING, reservation.getId()) + 1;
+    }
+
+    // zwraca ksiazki, na ktore czeka aktualny uzytkownik
+    public List<Reservation> getUserWaitingReservations() {
+        User currentUser = userService.getCurrentUser();
+        return reservationRepository.findByUserIdAndStatusOrderByIdAsc(currentUser.getId(), ReservationStatus.WAITING);
+    }
+
+    // usuwa aktualnego uzytkownika z kolejki
+    @Transactional
+    public Reservation cancelReservation(Long reservationId) {
+        User currentUser = userService.getCurrentUser();
+
+        Reservation reservation = reservationRepository.findById(reservationId)
+                .orElseThrow(() -> new IllegalArgumentException("Reservation not found"));
+
+        if (!reservation.getUser().getId().equals(currentUser.getId())) {
+            throw new IllegalArgumentException("This reservation does not belong to you");
+        }
+
+        if (reservation.getStatus() != ReservationStatus.WAITING) {
+            throw new IllegalArgumentException("Reservation is no longer waiting");
+        }
+
+        reservation.setStatus(ReservationStatus.CANCELLED);
+        return reservationRepository.save(reservation);
+    }
+
+    // odbior odlozonego egzemplarza - rezerwacja staje sie zwyklym wypozyczeniem
+    @Transactional
+    public Borrowing pickUp(Long borrowingId) {
+        User currentUser = userService.getCurrentUser();
+
+        Borrowing borrowing = borrowingRepository.findById(borrowingId)
+                .orElseThrow(() -> new IllegalArgumentException("Borrowing not found"));
+
+        if (!borrowing.getUser().getId().equals(currentUser.getId())) {
+            throw new IllegalArgumentException("This borrowing does not belong to you");
+        }
+
+        if (borrowing.getStatus() != BorrowingStatus.RESERVED) {
+            throw new IllegalArgumentException("This borrowing is not a reservation");
+        }
+
+        if (borrowing.getDueDate().isBefore(LocalDate.now())) {
+            throw new IllegalArgumentException("Reservation has expired");
+        }
+
+        borrowing.setStatus(BorrowingStatus.BORROWED);
+        borrowing.setBorrowDate(LocalDate.now());
+        borrowing.setDueDate(LocalDate.now().plusDays(14)); // 2 tygodnie na zwrot
+        Borrowing savedBorrowing = borrowingRepository.save(borrowing);
+        borrowingSummaryService.recordTransition(currentUser.getId(), BorrowingStatus.RESERVED, BorrowingStatus.BORROWED);
+        outboxService.recordBorrowingEvent(OutboxService.BORROWING_PICKED_UP, savedBorrowing);
+        return savedBorrowing;
+    }
+
+    // przekazuje zwolniony egzemplarz pierwszej osobie z kolejki, a przy pustej kolejce
+    // zwraca go do puli dostepnych; wywolywane w transakcji zwrotu lub wygasniecia rezerwacji
+    // glowa kolejki jest pobierana z SKIP LOCKED, wiec rownolegle zwroty nie czekaja na siebie
+    // liczba egzemplarzy zmienia sie tylko warunkowym UPDATE, wiec rownolegle zwroty i wygasniecia nie gubia zmian
+    @Transactional
+    public Optional<Borrowing> releaseCopy(AbstractBook book) {
+        Optional<Reservation> next = nextWaiting(book);
+        if (next.isPresent()) {
+            return Optional.of(hold(next.get(), book));
+        }
+        // UPDATE czeka na blokade wiersza trzymana przez rownolegle reserveBook, a kolejne zapytanie o kolejke
+        // widzi juz zatwierdzony wpis - wtedy egzemplarz od razu wraca z puli do tej osoby
+        bookRepository.putBackCopy(book);
+        next = nextWaiting(book);
+        if (next.isPresent() && bookRepository.takeCopy(book.getId()).isPresent()) {
+            return Optional.of(hold(next.get(), book));
+        }
+        eventPublisher.publishEvent(BookAvailabilityEvent.of(book));
+        return Optional.empty();
+    }
+
+    // wygasza nieodebrane rezerwacje i przekazuje ich egzemplarze dalej, zwraca liczbe wygaszonych
+    // rozdziela tez wolne egzemplarze ksiazek, na ktore ktos czeka (wyscig zwrotu z dopisaniem do kolejki)
+    @Transactional
+    public int releaseExpiredHolds() {
+        LocalDate today = LocalDate.now();
+        List<Borrowing> expiredHolds = borrowingRepository.findExpiredHolds(today);
+        for (Borrowing expiredHold : expiredHolds) {
+            expiredHold.setStatus(BorrowingStatus.EXPIRED);
+            expiredHold.setReturnDate(today);
+            borrowingRepository.save(expiredHold);
+            borrowingSummaryService.recordTransition(expiredHold.getUser().getId(),
+                    BorrowingStatus.RESERVED, BorrowingStatus.EXPIRED);
+            outboxService.recordBorrowingEvent(OutboxService.BORROWING_EXPIRED, expiredHold);
+            releaseCopy(expiredHold.getBook());
+        }
+
+        // egzemplarz jest zabierany warunkowym UPDATE, wiec rownolegle wypozyczenie ostatniego egzemplarza
+        // konczy petle zamiast zejsc ponizej zera
+        for (AbstractBook book : reservationRepository.findBooksWithWaitingReservationsAndFreeCopies()) {
+            boolean held = false;
+            Optional<Reservation> next = nextWaiting(book);
+            while (next.isPresent() && bookRepository.takeCopy(book.getId()).isPresent()) {
+                hold(next.get(), book);
+                held = true;
+                next = nextWaiting(book);
+            }
+            if (held) {
+                eventPublisher.publishEvent(BookAvailabilityEvent.of(book));
+            }
+        }
+        return expiredHolds.size();
+    }
+
+    // pierwsza osoba z kolejki bez aktywnego wypozyczenia tej ksiazki - filtr jest w samym zapytaniu,
+    // wiec zwrot kosztuje jedno zapytanie o glowe kolejki niezaleznie od liczby pominietych osob
+    private Optional<Reservation> nextWaiting(AbstractBook book) {
+        return reservationRepository.findNextWaiting(book.getId(), QUEUE_HEAD).stream().findFirst();
+    }
+
+    // odklada egzemplarz dla osoby z kolejki do odbioru w ciagu PICKUP_DAYS dni
+    private Borrowing hold(Reservation reservation, AbstractBook book) {
+        reservation.setStatus(ReservationStatus.FULFILLED);
+        reservationRepository.save(reservation);
+        Borrowing held = borrowingRepository.save(new Borrowing(
+                reservation.getUser(),
+                book,
+                BorrowingStatus.RESERVED,
+                LocalDate.now(),
+                LocalDate.now().plusDays(PICKUP_DAYS)
+        ));
+        borrowingSummaryService.recordTransition(reservation.getUser().getId(), null, BorrowingStatus.RESERVED);
+        outboxService.recordBorrowingEvent(OutboxService.BORROWING_HELD, held);
+        return held;
+    }
+}
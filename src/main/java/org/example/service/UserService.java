@@ -1,46 +1,134 @@
 package org.example.service;
 
+import io.micrometer.observation.annotation.Observed;
+import org.example.config.ReadYourWritesTracker;
+import org.example.dataTransfer.AdminUserView;
+import org.example.dataTransfer.PageResponse;
 import org.example.model.Role;
+import org.example.monitoring.ServiceMetrics;
 import org.example.model.User;
+import org.example.repository.ConstraintViolations;
+import org.example.repository.UserBatchRepository;
 import org.example.repository.UserRepository;
+import org.example.security.PasswordHashingExecutor;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.core.userdetails.UserCache;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
-import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
 
 // klasa serwisowa dla operacji na encji user
+// domyslnie transakcje tylko do odczytu, metody zapisujace nadpisuja to wlasnym @Transactional
 @Service
+@Transactional(readOnly = true)
+@Observed(name = "bookstore.service")
 public class UserService {
 
+    static final Set<String> USER_SORT_FIELDS = Set.of("id", "username", "email", "lastName", "role");
+
     private final UserRepository userRepository;
-    private final PasswordEncoder passwordEncoder;
+    private final UserBatchRepository userBatchRepository;
+    private final ReadYourWritesTracker readYourWritesTracker;
+    private final ServiceMetrics serviceMetrics;
+    private final UserCache userCache;
+    private final PasswordHashingExecutor passwordHashingExecutor;
+    private final TransactionTemplate writeTransaction;
 
     @Autowired
-    public UserService(UserRepository userRepository, PasswordEncoder passwordEncoder) {
+    public UserService(UserRepository userRepository, UserBatchRepository userBatchRepository,
+                       ReadYourWritesTracker readYourWritesTracker, ServiceMetrics serviceMetrics,
+                       UserCache userCache, PasswordHashingExecutor passwordHashingExecutor,
+                       PlatformTransactionManager transactionManager) {
         this.userRepository = userRepository;
-        this.passwordEncoder = passwordEncoder;
+        this.userBatchRepository = userBatchRepository;
+        this.readYourWritesTracker = readYourWritesTracker;
+        this.serviceMetrics = serviceMetrics;
+        this.userCache = userCache;
+        this.passwordHashingExecutor = passwordHashingExecutor;
+        this.writeTransaction = new TransactionTemplate(transactionManager);
     }
 
     // rejestracja nowego uzytkownika zwracajaca uzytkownika
-    @Transactional
+    // SUPPORTS zamiast transakcji wokol calej metody: hash liczony jest w ograniczonej puli zanim pobierzemy
+    // polaczenie, a transakcja obejmuje tylko zapis; zajetosc loginu i emaila sprawdza sam INSERT przez
+    // ograniczenia unikalnosci - jedno zapytanie zamiast trzech i bez wyscigu dwoch rownoleglych rejestracji
+    @Transactional(propagation = Propagation.SUPPORTS)
     public User registerUser(String username, String password, String email, String firstName, String lastName) {
-        if (userRepository.existsByUsername(username)) {
-            throw new IllegalArgumentException("Username already exists");
+        User user = new User(username, passwordHashingExecutor.encode(password), email, Role.USER);
+        user.setFirstName(firstName);
+        user.setLastName(lastName);
+
+        User savedUser;
+        try {
+            savedUser = writeTransaction.execute(status -> userRepository.saveAndFlush(user));
+        } catch (DataIntegrityViolationException e) {
+            if (ConstraintViolations.isViolationOf(e, ConstraintViolations.USER_USERNAME)) {
+                throw new IllegalArgumentException("Username already exists");
+            }
+            if (ConstraintViolations.isViolationOf(e, ConstraintViolations.USER_EMAIL)) {
+                throw new IllegalArgumentException("Email already exists");
+            }
+            throw e;
         }
-        if (userRepository.existsByEmail(email)) {
-            throw new IllegalArgumentException("Email already exists");
+        // rejestracja jest anonimowa, wiec sami oznaczamy zapis - logowanie i profil
+        // zaraz po rejestracji czytaja z bazy glownej, a nie z repliki
+        readYourWritesTracker.recordWrite(savedUser.getUsername());
+        // login mogl byc zapamietany jako nieistniejacy (np. proba logowania przed rejestracja)
+        evictFromUserCache(savedUser.getUsername());
+        return savedUser;
+    }
+
+    // zmienia role uzytkownika (tylko admin) - nowa rola obowiazuje od nastepnego zadania
+    @Transactional
+    public User changeRole(Long userId, Role role) {
+        if (role == null) {
+            throw new IllegalArgumentException("Role is required");
         }
+        User user = userRepository.findById(userId)
+                .orElseThrow(() -> new IllegalArgumentException("User not found"));
+        user.setRole(role);
+        evictFromUserCache(user.getUsername());
+        return user;
+    }
 
-        User user = new User(username, passwordEncoder.encode(password), email, Role.USER);
-        user.setFirstName(firstName);
-        user.setLastName(lastName);
+    // zmienia haslo aktualnego uzytkownika po sprawdzeniu obecnego - stare haslo przestaje dzialac od razu
+    // jak przy rejestracji: sprawdzenie i nowy hash licza sie w puli hashowania bez otwartej transakcji,
+    // a transakcja obejmuje tylko podmiane hasha; podmiana warunkowa po starym hashu, wiec rownolegla zmiana
+    // hasla miedzy sprawdzeniem a zapisem nie zostanie nadpisana
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public void changePassword(String currentPassword, String newPassword) {
+        if (newPassword == null || newPassword.isBlank()) {
+            throw new IllegalArgumentException("New password is required");
+        }
+        User user = getCurrentUser();
+        if (currentPassword == null || !passwordHashingExecutor.matches(currentPassword, user.getPassword())) {
+            throw new IllegalArgumentException("Current password is incorrect");
+        }
+        String newHash = passwordHashingExecutor.encode(newPassword);
 
-        return userRepository.save(user);
+        Boolean replaced = writeTransaction.execute(status -> {
+            if (userRepository.replacePassword(user.getUsername(), user.getPassword(), newHash) == 0) {
+                return false;
+            }
+            evictFromUserCache(user.getUsername());
+            return true;
+        });
+        if (!Boolean.TRUE.equals(replaced)) {
+            throw new IllegalArgumentException("Current password is incorrect");
+        }
     }
 
     // znajduje uzytkownika po nazwie
@@ -48,19 +136,54 @@ public class UserService {
         return userRepository.findByUsername(username);
     }
 
-    // zwraca liste wszystkich userow
-    public List<User> findAllUsers() {
-        return userRepository.findAll();
+    // strona listy uzytkownikow dla administratora, opcjonalnie z rola i poczatkiem loginu lub emaila
+    public PageResponse<AdminUserView> findUsersPage(Role role, String search, int page, int size, String sort) {
+        PageRequest pageRequest = AdminListing.pageRequest(page, size, sort, USER_SORT_FIELDS, Sort.by("id"));
+        return PageResponse.of(userRepository.findAdminViews(role, AdminListing.likePrefix(search), pageRequest));
+    }
+
+    // przekazuje wszystkich uzytkownikow po kolei do consumer (eksport CSV) - jedno zapytanie czytane kursorem,
+    // bez trzymania calej tabeli w pamieci; dlugi odczyt idzie pula "batch", zeby nie zajmowac polaczen
+    // interaktywnych ani repliki
+    @Transactional(transactionManager = "batchTransactionManager", readOnly = true)
+    public void exportUsers(Consumer<AdminUserView> consumer) {
+        userBatchRepository.exportAdminViews(consumer);
     }
 
     // zwraca aktualnego uzytkownika
     public User getCurrentUser() {
-        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        if (authentication == null || !authentication.isAuthenticated()) {
-            throw new IllegalStateException("No authenticated user found");
+        long start = System.nanoTime();
+        String outcome = ServiceMetrics.ERROR;
+        try {
+            Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+            if (authentication == null || !authentication.isAuthenticated()) {
+                outcome = ServiceMetrics.NOT_AUTHENTICATED;
+                throw new IllegalStateException("No authenticated user found");
+            }
+
+            User user = userRepository.findByUsername(authentication.getName()).orElse(null);
+            if (user == null) {
+                outcome = ServiceMetrics.NOT_FOUND;
+                throw new IllegalStateException("Authenticated user not found in database");
+            }
+            outcome = ServiceMetrics.SUCCESS;
+            return user;
+        } finally {
+            serviceMetrics.record(ServiceMetrics.CURRENT_USER, outcome, start);
         }
+    }
 
-        return userRepository.findByUsername(authentication.getName())
-                .orElseThrow(() -> new IllegalStateException("Authenticated user not found in database"));
+    // usuwa dane logowania z pamieci od razu i ponownie po zatwierdzeniu - rownolegle uwierzytelnienie
+    // mogloby przed commitem zapamietac jeszcze stary wiersz
+    private void evictFromUserCache(String username) {
+        userCache.removeUserFromCache(username);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    userCache.removeUserFromCache(username);
+                }
+            });
+        }
     }
 }
@@ -0,0 +1,8 @@
+-- jawne nazwy ograniczen unikalnosci loginu i emaila (domyslne users_username_key / users_email_key)
+-- UserService.registerUser polega na nich zamiast sprawdzac istnienie przed zapisem i rozpoznaje je po nazwie
+ALTER TABLE users RENAME CONSTRAINT users_username_key TO uq_users_username;
+ALTER TABLE users RENAME CONSTRAINT users_email_key TO uq_users_email;
+
+-- ograniczenia maja wlasne indeksy unikalne, te z V1 tylko dublowaly zapis przy kazdej rejestracji
+DROP INDEX idx_users_username;
+DROP INDEX idx_users_email;
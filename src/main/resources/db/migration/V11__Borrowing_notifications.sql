@@ -0,0 +1,9 @@
+-- wyslane powiadomienia o wypozyczeniach: NotificationPipeline wybiera wypozyczenia bez wpisu danego typu,
+-- wiec pominiety dzien albo nieudana partia wracaja w kolejnym przebiegu, a wyslane nie sa powtarzane
+CREATE TABLE borrowing_notifications (
+                                         id BIGSERIAL PRIMARY KEY,
+                                         borrowing_id BIGINT NOT NULL REFERENCES borrowings(id) ON DELETE CASCADE,
+                                         type VARCHAR(20) NOT NULL,
+                                         sent_at TIMESTAMP NOT NULL,
+                                         CONSTRAINT uq_borrowing_notifications_borrowing_type UNIQUE (borrowing_id, type)
+);
@@ -0,0 +1,3 @@
+-- licznik zmian i znacznik czasu ksiazek - zrodlo ETagow dla katalogu
+ALTER TABLE books ADD COLUMN version BIGINT NOT NULL DEFAULT 0;
+ALTER TABLE books ADD COLUMN updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP;
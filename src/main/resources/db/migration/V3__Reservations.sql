@@ -0,0 +1,21 @@
+-- kolejka oczekujacych na ksiazki; kolejnosc w kolejce wyznacza id
+CREATE TABLE reservations (
+                              id BIGSERIAL PRIMARY KEY,
+                              user_id BIGINT NOT NULL,
+                              book_id BIGINT NOT NULL,
+                              status VARCHAR(20) NOT NULL,
+                              created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+                              updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+                              FOREIGN KEY (user_id) REFERENCES users(id),
+                              FOREIGN KEY (book_id) REFERENCES books(id)
+);
+
+-- glowa kolejki (najmniejsze id oczekujacych dla ksiazki) to pierwszy wpis indeksu,
+-- a indeks czesciowy obejmuje tylko oczekujacych, wiec nie rosnie z historia
+CREATE INDEX idx_reservations_waiting ON reservations(book_id, id) WHERE status = 'WAITING';
+-- jeden wpis oczekujacy na uzytkownika i ksiazke
+CREATE UNIQUE INDEX uq_reservations_waiting_user_book ON reservations(user_id, book_id) WHERE status = 'WAITING';
+CREATE INDEX idx_reservations_user_id ON reservations(user_id);
+
+-- wyszukiwanie rezerwacji do wygaszenia (wypozyczenia RESERVED po terminie odbioru)
+CREATE INDEX idx_borrowings_reserved_due ON borrowings(due_date) WHERE status = 'RESERVED';
@@ -0,0 +1,16 @@
+-- zdarzenia domenowe zapisywane w tej samej transakcji co zmiana (transactional outbox)
+CREATE TABLE outbox_events (
+                               id BIGSERIAL PRIMARY KEY,
+                               aggregate_type VARCHAR(50) NOT NULL,
+                               aggregate_id BIGINT NOT NULL,
+                               event_type VARCHAR(50) NOT NULL,
+                               payload TEXT NOT NULL,
+                               created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+                               published_at TIMESTAMP
+);
+
+-- relay czyta niewyslane zdarzenia w kolejnosci id; indeks czesciowy obejmuje tylko zaleglosci,
+-- wiec zostaje maly niezaleznie od historii
+CREATE INDEX idx_outbox_events_unpublished ON outbox_events(id) WHERE published_at IS NULL;
+-- usuwanie wyslanych zdarzen po okresie retencji
+CREATE INDEX idx_outbox_events_published_at ON outbox_events(published_at) WHERE published_at IS NOT NULL;
@@ -0,0 +1,2 @@
+-- strony kandydatow do powiadomien (status + dzien terminu, keyset po id) czytane samym indeksem
+CREATE INDEX idx_borrowings_status_due_date_id ON borrowings(status, due_date, id);
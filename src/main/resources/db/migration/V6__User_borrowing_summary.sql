@@ -0,0 +1,24 @@
+-- podsumowanie wypozyczen uzytkownika utrzymywane przyrostowo przez aplikacje
+CREATE TABLE user_borrowing_summary (
+                                        user_id BIGINT PRIMARY KEY,
+                                        reserved_count BIGINT NOT NULL DEFAULT 0,
+                                        borrowed_count BIGINT NOT NULL DEFAULT 0,
+                                        overdue_count BIGINT NOT NULL DEFAULT 0,
+                                        returned_count BIGINT NOT NULL DEFAULT 0,
+                                        next_due_date DATE,
+                                        last_activity_at TIMESTAMP,
+                                        FOREIGN KEY (user_id) REFERENCES users(id)
+);
+
+-- wypelnienie dla istniejacych wypozyczen
+INSERT INTO user_borrowing_summary (user_id, reserved_count, borrowed_count, overdue_count, returned_count,
+                                    next_due_date, last_activity_at)
+SELECT user_id,
+       COUNT(*) FILTER (WHERE status = 'RESERVED'),
+       COUNT(*) FILTER (WHERE status = 'BORROWED'),
+       COUNT(*) FILTER (WHERE status = 'OVERDUE'),
+       COUNT(*) FILTER (WHERE status = 'RETURNED'),
+       MIN(due_date) FILTER (WHERE status IN ('BORROWED', 'OVERDUE')),
+       MAX(updated_at)
+FROM borrowings
+GROUP BY user_id;
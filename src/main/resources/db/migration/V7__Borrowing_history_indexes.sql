@@ -0,0 +1,7 @@
+-- strony historii uzytkownika od najnowszych (keyset po borrow_date, id) - zakres indeksu bez sortowania
+CREATE INDEX idx_borrowings_user_borrow_date ON borrowings(user_id, borrow_date DESC, id DESC);
+-- historia z filtrem statusu oraz aktywne wypozyczenia (findByUserAndStatus)
+CREATE INDEX idx_borrowings_user_status_borrow_date ON borrowings(user_id, status, borrow_date DESC, id DESC);
+
+-- user_id jest prefiksem obu nowych indeksow
+DROP INDEX idx_borrowings_user_id;
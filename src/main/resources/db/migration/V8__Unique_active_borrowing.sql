@@ -0,0 +1,4 @@
+-- jedno aktywne wypozyczenie (rezerwacja lub wypozyczenie) uzytkownika na ksiazke
+-- BorrowingService.borrowBook polega na tym indeksie zamiast sprawdzac istnienie przed zapisem
+CREATE UNIQUE INDEX uq_borrowings_active_user_book ON borrowings(user_id, book_id)
+    WHERE status IN ('RESERVED', 'BORROWED');
@@ -0,0 +1,33 @@
+-- archiwum zamknietych wypozyczen (RETURNED/EXPIRED) przenoszonych z borrowings przez BorrowingArchiveJob
+-- partycjonowane zakresami borrow_date (rok na partycje); stare lata mozna odlaczyc lub usunac
+-- bez DELETE na duzej tabeli. Partycje kolejnych lat zaklada zadanie archiwizacji przed przeniesieniem wierszy
+CREATE TABLE borrowings_archive (
+                                    id BIGINT NOT NULL,
+                                    user_id BIGINT NOT NULL,
+                                    book_id BIGINT NOT NULL,
+                                    status VARCHAR(20) NOT NULL,
+                                    borrow_date DATE NOT NULL,
+                                    due_date DATE NOT NULL,
+                                    return_date DATE,
+                                    created_at TIMESTAMP,
+                                    updated_at TIMESTAMP,
+                                    archived_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+                                    PRIMARY KEY (id, borrow_date)
+) PARTITION BY RANGE (borrow_date);
+
+-- zabezpieczenie na wiersze spoza zalozonych partycji (zadanie zaklada partycje przed przeniesieniem,
+-- wiec w praktyce pozostaje pusta)
+CREATE TABLE borrowings_archive_default PARTITION OF borrowings_archive DEFAULT;
+
+-- historia uzytkownika od najnowszych (jak idx_borrowings_user_borrow_date w tabeli biezacej)
+CREATE INDEX idx_borrowings_archive_user_borrow_date ON borrowings_archive(user_id, borrow_date DESC, id DESC);
+
+-- tabela biezaca: indeks po samym statusie jest malo selektywny (wiekszosc wierszy to RETURNED),
+-- zastepuja go indeksy czesciowe obejmujace tylko wiersze danego statusu
+DROP INDEX idx_borrowings_status;
+-- findOverdueBorrowings i zbiorcze oznaczanie przeterminowanych (status BORROWED, due_date < dzis)
+CREATE INDEX idx_borrowings_borrowed_due ON borrowings(due_date) WHERE status = 'BORROWED';
+-- findByStatus(OVERDUE) i raport przeterminowanych
+CREATE INDEX idx_borrowings_overdue ON borrowings(id) WHERE status = 'OVERDUE';
+-- kandydaci do archiwizacji
+CREATE INDEX idx_borrowings_closed_return_date ON borrowings(return_date) WHERE status IN ('RETURNED', 'EXPIRED');
@@ -0,0 +1,233 @@
+package org.example;
+
+import org.example.model.AbstractBook;
+import org.example.model.Borrowing;
+import org.example.model.BorrowingStatus;
+import org.example.model.PhysicalBook;
+import org.example.model.Role;
+import org.example.model.User;
+import org.example.repository.BookRepository;
+import org.example.repository.BorrowingRepository;
+import org.example.repository.UserRepository;
+import org.example.service.BorrowingService;
+import org.example.service.ReservationService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// rownolegle wypozyczenia, zwroty i zapisy do kolejki na prawdziwej puli polaczen (bez transakcji testu,
+// kazda operacja zatwierdza sie osobno) - liczba wolnych egzemplarzy nie gubi zmian i nie schodzi ponizej zera
+@SpringBootTest
+@ActiveProfiles("test")
+class BookCopiesConcurrencyTest {
+
+    private static final int THREADS = 8;
+
+    @Autowired
+    private BorrowingService borrowingService;
+
+    @Autowired
+    private ReservationService reservationService;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private BorrowingRepository borrowingRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final List<Long> bookIds = new ArrayList<>();
+    private final List<Long> userIds = new ArrayList<>();
+    private final ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+        // dane zatwierdzone - kontekst jest wspolny z innymi testami
+        for (Long bookId : bookIds) {
+            jdbcTemplate.update("DELETE FROM reservations WHERE book_id = ?", bookId);
+            jdbcTemplate.update("DELETE FROM outbox_events WHERE aggregate_id IN "
+                    + "(SELECT id FROM borrowings WHERE book_id = ?)", bookId);
+            jdbcTemplate.update("DELETE FROM borrowings WHERE book_id = ?", bookId);
+            jdbcTemplate.update("DELETE FROM books WHERE id = ?", bookId);
+        }
+        for (Long userId : userIds) {
+            jdbcTemplate.update("DELETE FROM user_borrowing_summary WHERE user_id = ?", userId);
+            jdbcTemplate.update("DELETE FROM users WHERE id = ?", userId);
+        }
+    }
+
+    @Test
+    void shouldNotLendMoreCopiesThanAvailable() throws Exception {
+        // given
+        AbstractBook book = book(3);
+        List<String> usernames = users("concurrentborrower", THREADS);
+
+        // when
+        List<Boolean> results = runConcurrently(usernames, username -> {
+            try {
+                borrowingService.borrowBook(book.getId());
+                return true;
+            } catch (IllegalArgumentException e) {
+                return false;
+            }
+        });
+
+        // then
+        assertThat(results).filteredOn(Boolean::booleanValue).hasSize(3);
+        assertThat(availableCopies(book)).isZero();
+    }
+
+    @Test
+    void shouldLendOneCopyWhenSameUserBorrowsConcurrently() throws Exception {
+        // given - ten sam uzytkownik w kazdym watku, egzemplarzy wystarczy dla wszystkich
+        AbstractBook book = book(THREADS);
+        String username = users("doubleborrower", 1).get(0);
+
+        // when - drugie aktywne wypozyczenie odrzuca indeks unikalny, a egzemplarz wraca z wycofaniem
+        List<Boolean> results = runConcurrently(Collections.nCopies(THREADS, username), name -> {
+            try {
+                borrowingService.borrowBook(book.getId());
+                return true;
+            } catch (IllegalArgumentException e) {
+                assertThat(e).hasMessage("You already have this book borrowed or reserved");
+                return false;
+            }
+        });
+
+        // then
+        assertThat(results).filteredOn(Boolean::booleanValue).hasSize(1);
+        assertThat(availableCopies(book)).isEqualTo(THREADS - 1);
+    }
+
+    @Test
+    void shouldNotLoseConcurrentReturns() throws Exception {
+        // given - kazdy uzytkownik ma wypozyczony jeden egzemplarz
+        AbstractBook book = book(THREADS);
+        List<String> usernames = users("concurrentreturner", THREADS);
+        List<Long> borrowingIds = Collections.synchronizedList(new ArrayList<>());
+        for (String username : usernames) {
+            borrowingIds.add(as(username, () -> borrowingService.borrowBook(book.getId()).getId()));
+        }
+        assertThat(availableCopies(book)).isZero();
+
+        // when
+        runConcurrently(usernames, username -> {
+            Long borrowingId = borrowingIds.get(usernames.indexOf(username));
+            return borrowingService.returnBook(borrowingId).getStatus();
+        });
+
+        // then
+        assertThat(availableCopies(book)).isEqualTo(THREADS);
+    }
+
+    @Test
+    void shouldNotLeaveCopyFreeWhileReservationRacesReturn() throws Exception {
+        for (int round = 0; round < 10; round++) {
+            // given - jedyny egzemplarz wypozyczony, drugi uzytkownik dopisuje sie w trakcie zwrotu
+            AbstractBook book = book(1);
+            List<String> usernames = users("race" + round + "user", 2);
+            Long borrowingId = as(usernames.get(0), () -> borrowingService.borrowBook(book.getId()).getId());
+
+            // when
+            runConcurrently(usernames, username -> {
+                if (username.equals(usernames.get(0))) {
+                    return borrowingService.returnBook(borrowingId).getStatus();
+                }
+                try {
+                    return reservationService.reserveBook(book.getId()).getStatus();
+                } catch (IllegalArgumentException e) {
+                    return null; // egzemplarz juz wrocil - mozna go po prostu wypozyczyc
+                }
+            });
+
+            // then - egzemplarz jest albo wolny, albo odlozony dla czekajacego, nigdy wolny przy czekajacym
+            long held = borrowingRepository.findAll().stream()
+                    .filter(borrowing -> borrowing.getBook().getId().equals(book.getId()))
+                    .map(Borrowing::getStatus)
+                    .filter(BorrowingStatus.RESERVED::equals)
+                    .count();
+            Integer waiting = jdbcTemplate.queryForObject(
+                    "SELECT COUNT(*) FROM reservations WHERE book_id = ? AND status = 'WAITING'",
+                    Integer.class, book.getId());
+            assertThat(availableCopies(book) + held).isEqualTo(1);
+            assertThat(availableCopies(book) == 1 && waiting > 0).isFalse();
+        }
+    }
+
+    private AbstractBook book(int copies) {
+        AbstractBook book = bookRepository.save(new PhysicalBook("Concurrent Book", "Test Author", copies, copies));
+        bookIds.add(book.getId());
+        return book;
+    }
+
+    private List<String> users(String prefix, int count) {
+        List<String> usernames = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            User user = userRepository.save(new User(prefix + i, "password", prefix + i + "@test.com", Role.USER));
+            userIds.add(user.getId());
+            usernames.add(user.getUsername());
+        }
+        return usernames;
+    }
+
+    private int availableCopies(AbstractBook book) {
+        return bookRepository.findById(book.getId()).orElseThrow().getAvailableCopies();
+    }
+
+    // kazdy uzytkownik w osobnym watku, wszystkie startuja razem
+    private <T> List<T> runConcurrently(List<String> usernames, UserAction<T> action) throws Exception {
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<T>> futures = new ArrayList<>();
+        for (String username : usernames) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                return as(username, () -> action.run(username));
+            }));
+        }
+        start.countDown();
+        List<T> results = new ArrayList<>();
+        for (Future<T> future : futures) {
+            results.add(future.get(30, TimeUnit.SECONDS));
+        }
+        return results;
+    }
+
+    private <T> T as(String username, Callable<T> action) throws Exception {
+        SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken(
+                username, null, List.of(new SimpleGrantedAuthority("ROLE_USER"))));
+        try {
+            return action.call();
+        } finally {
+            SecurityContextHolder.clearContext();
+        }
+    }
+
+    @FunctionalInterface
+    private interface UserAction<T> {
+        T run(String username) throws Exception;
+    }
+}
@@ -1,19 +1,37 @@
 package org.example;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
 import org.example.dataTransfer.AuthenticationRequest;
 import org.example.dataTransfer.BookRequest;
 import org.example.dataTransfer.RegistrationRequest;
+import org.example.model.AbstractBook;
+import org.example.model.Borrowing;
+import org.example.model.OutboxEvent;
+import org.example.model.BorrowingStatus;
+import org.example.model.PhysicalBook;
+import org.example.model.Role;
+import org.example.model.User;
+import org.example.repository.BookRepository;
+import org.example.repository.BorrowingRepository;
+import org.example.repository.OutboxEventRepository;
+import org.example.repository.UserRepository;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
@@ -32,6 +50,24 @@ class BookstoreIntegrationTest {
     @Autowired
     private ObjectMapper objectMapper;
 
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private BorrowingRepository borrowingRepository;
+
+    @Autowired
+    private OutboxEventRepository outboxEventRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
     @Test
     void shouldPerformCompleteUserFlow() throws Exception {
         // Test 1: Rejestracja nowego uzytkownika
@@ -150,11 +186,11 @@ class BookstoreIntegrationTest {
         // Test dostępu do endpointów administracyjnych
         mockMvc.perform(get("/api/admin/users"))
                 .andExpect(status().isOk())
-                .andExpect(jsonPath("$").isArray());
+                .andExpect(jsonPath("$.items").isArray());
 
         mockMvc.perform(get("/api/borrowings/all"))
                 .andExpect(status().isOk())
-                .andExpect(jsonPath("$").isArray());
+                .andExpect(jsonPath("$.items").isArray());
 
         mockMvc.perform(get("/api/borrowings/overdue"))
                 .andExpect(status().isOk())
@@ -184,4 +220,232 @@ class BookstoreIntegrationTest {
         mockMvc.perform(get("/v3/api-docs"))
                 .andExpect(status().isOk());
     }
+
+    @Test
+    void shouldServeBorrowingHistoryWithinQueryBudget() throws Exception {
+        // given
+        User historyUser = userRepository.save(new User("historyuser", "password", "history@test.com", Role.USER));
+        for (int i = 0; i < 3; i++) {
+            AbstractBook book = bookRepository.save(new PhysicalBook("History Book " + i, "Test Author", 1, 1));
+            borrowingRepository.save(new Borrowing(historyUser, book, BorrowingStatus.BORROWED,
+                    LocalDate.now(), LocalDate.now().plusDays(14)));
+        }
+        entityManager.flush();
+        entityManager.clear();
+
+        // when & then
+        // doladowanie ksiazek po jednej (N+1) przekroczyloby limit 3 zapytan i filtr oblalby zadanie
+        mockMvc.perform(get("/api/borrowings/my-history")
+                        .with(user("historyuser").roles("USER")))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(3));
+    }
+
+    @Test
+    void shouldListAndExportAdminDataWithoutSecrets() throws Exception {
+        // given
+        User first = userRepository.save(new User("listed_a", "hash-a", "listed_a@test.com", Role.USER));
+        userRepository.save(new User("listed_b", "hash-b", "listed_b@test.com", Role.USER));
+        userRepository.save(new User("listedxc", "hash-c", "listedxc@test.com", Role.USER));
+        AbstractBook book = bookRepository.save(new PhysicalBook("Admin List Book", "Test Author", 1, 1));
+        Borrowing borrowing = borrowingRepository.save(new Borrowing(first, book, BorrowingStatus.BORROWED,
+                LocalDate.now(), LocalDate.now().plusDays(14)));
+        entityManager.flush();
+        entityManager.clear();
+
+        // when & then - "_" w filtrze jest zwyklym znakiem, a nie wzorcem LIKE
+        mockMvc.perform(get("/api/admin/users")
+                        .param("search", "listed_")
+                        .param("sort", "username,desc")
+                        .param("size", "1")
+                        .with(user("admin").roles("ADMIN")))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items.length()").value(1))
+                .andExpect(jsonPath("$.items[0].username").value("listed_b"))
+                .andExpect(jsonPath("$.items[0].password").doesNotExist())
+                .andExpect(jsonPath("$.totalElements").value(2));
+
+        mockMvc.perform(get("/api/borrowings/all")
+                        .param("userId", first.getId().toString())
+                        .param("status", "BORROWED")
+                        .with(user("admin").roles("ADMIN")))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items.length()").value(1))
+                .andExpect(jsonPath("$.items[0].id").value(borrowing.getId().intValue()))
+                .andExpect(jsonPath("$.items[0].bookTitle").value("Admin List Book"));
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    void shouldExportAdminDataWithoutSecrets() throws Exception {
+        // given - bez transakcji testu, bo eksport czyta pula "batch" i widzi tylko zatwierdzone wiersze
+        User exported = userRepository.save(new User("exported", "hash-e", "exported@test.com", Role.USER));
+        AbstractBook book = bookRepository.save(new PhysicalBook("Export Book", "Test Author", 1, 1));
+        Borrowing borrowing = borrowingRepository.save(new Borrowing(exported, book, BorrowingStatus.RETURNED,
+                LocalDate.of(2024, 3, 1), LocalDate.of(2024, 3, 15)));
+        try {
+            // when & then
+            String users = mockMvc.perform(get("/api/admin/users/export")
+                            .with(user("admin").roles("ADMIN")))
+                    .andExpect(status().isOk())
+                    .andReturn().getResponse().getContentAsString();
+            assertThat(users).contains("exported,exported@test.com").doesNotContain("hash-e");
+
+            String borrowings = mockMvc.perform(get("/api/borrowings/all/export")
+                            .with(user("admin").roles("ADMIN")))
+                    .andExpect(status().isOk())
+                    .andReturn().getResponse().getContentAsString();
+            assertThat(borrowings).contains(borrowing.getId() + "," + exported.getId() + ",exported,"
+                    + book.getId() + ",Export Book,RETURNED,2024-03-01,2024-03-15,");
+        } finally {
+            jdbcTemplate.update("DELETE FROM borrowings WHERE id = ?", borrowing.getId());
+            jdbcTemplate.update("DELETE FROM user_borrowing_summary WHERE user_id = ?", exported.getId());
+            bookRepository.deleteById(book.getId());
+            userRepository.deleteById(exported.getId());
+        }
+    }
+
+    @Test
+    void shouldHandReturnedCopyToHeadOfWaitlist() throws Exception {
+        // given
+        User reader = userRepository.save(new User("reader", "password", "reader@test.com", Role.USER));
+        userRepository.save(new User("waiter", "password", "waiter@test.com", Role.USER));
+        AbstractBook book = bookRepository.save(new PhysicalBook("Hot Book", "Test Author", 0, 1));
+        Borrowing borrowing = borrowingRepository.save(new Borrowing(reader, book, BorrowingStatus.BORROWED,
+                LocalDate.now(), LocalDate.now().plusDays(14)));
+        entityManager.flush();
+        entityManager.clear();
+
+        mockMvc.perform(post("/api/reservations/" + book.getId())
+                        .with(user("waiter").roles("USER")))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.position").value(1));
+
+        // when
+        mockMvc.perform(post("/api/borrowings/return/" + borrowing.getId())
+                        .with(user("reader").roles("USER")))
+                .andExpect(status().isOk());
+        entityManager.flush();
+        entityManager.clear();
+
+        // then
+        // egzemplarz nie wraca do dostepnych, tylko czeka na odbior przez pierwsza osobe z kolejki
+        mockMvc.perform(get("/api/borrowings/my-history")
+                        .with(user("waiter").roles("USER")))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].status").value("RESERVED"));
+        assertThat(bookRepository.findById(book.getId()).orElseThrow().getAvailableCopies()).isZero();
+    }
+
+    @Test
+    void shouldRecordOutboxEventsWithBorrowAndReturn() throws Exception {
+        // given
+        userRepository.save(new User("outboxreader", "password", "outbox@test.com", Role.USER));
+        AbstractBook book = bookRepository.save(new PhysicalBook("Outbox Book", "Test Author", 1, 1));
+
+        // when
+        String response = mockMvc.perform(post("/api/borrowings/borrow/" + book.getId())
+                        .with(user("outboxreader").roles("USER")))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        Long borrowingId = objectMapper.readTree(response).get("id").asLong();
+        mockMvc.perform(post("/api/borrowings/return/" + borrowingId)
+                        .with(user("outboxreader").roles("USER")))
+                .andExpect(status().isOk());
+        entityManager.flush();
+
+        // then
+        // zdarzenia zapisane w transakcjach wypozyczenia i zwrotu, czekaja na wysylke przez OutboxRelay
+        List<OutboxEvent> events = outboxEventRepository.findByAggregateTypeAndAggregateIdOrderByIdAsc(
+                "Borrowing", borrowingId);
+        assertThat(events).extracting(OutboxEvent::getEventType)
+                .containsExactly("BorrowingCreated", "BorrowingReturned");
+        assertThat(events).allSatisfy(event -> assertThat(event.getPublishedAt()).isNull());
+        assertThat(objectMapper.readTree(events.get(0).getPayload()).get("bookId").asLong()).isEqualTo(book.getId());
+    }
+
+    @Test
+    void shouldRecordOutboxEventsForQueueHoldAndPickUp() throws Exception {
+        // given - jedyny egzemplarz wypozyczony, druga osoba czeka w kolejce
+        User holder = userRepository.save(new User("queueholder", "password", "queueholder@test.com", Role.USER));
+        User waiter = userRepository.save(new User("queuewaiter", "password", "queuewaiter@test.com", Role.USER));
+        AbstractBook book = bookRepository.save(new PhysicalBook("Queue Book", "Test Author", 1, 1));
+        String response = mockMvc.perform(post("/api/borrowings/borrow/" + book.getId())
+                        .with(user(holder.getUsername()).roles("USER")))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        Long borrowingId = objectMapper.readTree(response).get("id").asLong();
+        mockMvc.perform(post("/api/reservations/" + book.getId())
+                        .with(user(waiter.getUsername()).roles("USER")))
+                .andExpect(status().isOk());
+
+        // when - zwrot odklada egzemplarz dla czekajacego, ktory go odbiera
+        mockMvc.perform(post("/api/borrowings/return/" + borrowingId)
+                        .with(user(holder.getUsername()).roles("USER")))
+                .andExpect(status().isOk());
+        Borrowing held = borrowingRepository.findByUserAndStatus(waiter, BorrowingStatus.RESERVED).get(0);
+        mockMvc.perform(post("/api/reservations/pickup/" + held.getId())
+                        .with(user(waiter.getUsername()).roles("USER")))
+                .andExpect(status().isOk());
+        entityManager.flush();
+
+        // then
+        assertThat(outboxEventRepository.findByAggregateTypeAndAggregateIdOrderByIdAsc("Borrowing", held.getId()))
+                .extracting(OutboxEvent::getEventType)
+                .containsExactly("BorrowingHeld", "BorrowingPickedUp");
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    void shouldChangeCatalogEtagAfterCommittedBookWrite() throws Exception {
+        // given - bez transakcji testu, zeby zapis ksiazki zostal zatwierdzony
+        String before = mockMvc.perform(get("/api/books").with(user("etagreader").roles("USER")))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader("ETag");
+        AbstractBook book = bookRepository.save(new PhysicalBook("Etag Book", "Test Author", 1, 1));
+        try {
+            // when & then - stary ETag juz nie pasuje, nowy pasuje (z pamieci)
+            String after = mockMvc.perform(get("/api/books").with(user("etagreader").roles("USER"))
+                            .header("If-None-Match", before))
+                    .andExpect(status().isOk())
+                    .andReturn().getResponse().getHeader("ETag");
+            assertThat(after).isNotEqualTo(before);
+            mockMvc.perform(get("/api/books").with(user("etagreader").roles("USER"))
+                            .header("If-None-Match", after))
+                    .andExpect(status().isNotModified());
+        } finally {
+            bookRepository.deleteById(book.getId());
+        }
+    }
+
+    @Test
+    void shouldMaintainBorrowingSummaryAcrossBorrowAndReturn() throws Exception {
+        // given
+        userRepository.save(new User("summaryreader", "password", "summary@test.com", Role.USER));
+        AbstractBook first = bookRepository.save(new PhysicalBook("First Book", "Test Author", 1, 1));
+        AbstractBook second = bookRepository.save(new PhysicalBook("Second Book", "Test Author", 1, 1));
+
+        // when
+        String response = mockMvc.perform(post("/api/borrowings/borrow/" + first.getId())
+                        .with(user("summaryreader").roles("USER")))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        mockMvc.perform(post("/api/borrowings/borrow/" + second.getId())
+                        .with(user("summaryreader").roles("USER")))
+                .andExpect(status().isOk());
+        mockMvc.perform(post("/api/borrowings/return/" + objectMapper.readTree(response).get("id").asLong())
+                        .with(user("summaryreader").roles("USER")))
+                .andExpect(status().isOk());
+        entityManager.flush();
+        entityManager.clear();
+
+        // then
+        // pierwszy zapis buduje wiersz podsumowania, kolejne zmieniaja liczniki przyrostowo
+        mockMvc.perform(get("/api/user/profile")
+                        .with(user("summaryreader").roles("USER")))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.borrowingSummary.borrowedCount").value(1))
+                .andExpect(jsonPath("$.borrowingSummary.returnedCount").value(1))
+                .andExpect(jsonPath("$.borrowingSummary.nextDueDate").value(LocalDate.now().plusDays(14).toString()));
+    }
 }
@@ -0,0 +1,92 @@
+package org.example.archive;
+
+import org.example.repository.BorrowingArchiveBatchRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionStatus;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+// testy archiwizacji zamknietych wypozyczen partiami
+@ExtendWith(MockitoExtension.class)
+class BorrowingArchiveJobTest {
+
+    private static final LocalDate TODAY = LocalDate.of(2025, 3, 1);
+    private static final int RETENTION_DAYS = 366;
+    private static final LocalDate RETURNED_BEFORE = TODAY.minusDays(RETENTION_DAYS);
+
+    @Mock
+    private BorrowingArchiveBatchRepository archiveBatchRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private TransactionStatus transactionStatus;
+
+    private ArchiveProperties properties;
+    private BorrowingArchiveJob job;
+
+    @BeforeEach
+    void setUp() {
+        properties = new ArchiveProperties();
+        properties.setRetentionDays(RETENTION_DAYS);
+        properties.setBatchSize(2);
+        properties.setMaxBatchesPerRun(3);
+        job = new BorrowingArchiveJob(archiveBatchRepository, transactionManager, properties);
+    }
+
+    @Test
+    void shouldEnsurePartitionsAndMoveBatchesUntilShortBatch() {
+        // given
+        when(transactionManager.getTransaction(any())).thenReturn(transactionStatus);
+        when(archiveBatchRepository.findArchivableYears(RETURNED_BEFORE)).thenReturn(List.of(2022, 2023));
+        when(archiveBatchRepository.moveBatch(RETURNED_BEFORE, 2)).thenReturn(2, 1);
+
+        // when
+        int archived = job.archive(TODAY);
+
+        // then
+        assertThat(archived).isEqualTo(3);
+        verify(archiveBatchRepository).ensureYearPartition(2022);
+        verify(archiveBatchRepository).ensureYearPartition(2023);
+        verify(archiveBatchRepository, times(2)).moveBatch(RETURNED_BEFORE, 2);
+        verify(transactionManager, times(2)).commit(transactionStatus);
+    }
+
+    @Test
+    void shouldStopAfterMaxBatchesPerRun() {
+        // given
+        when(transactionManager.getTransaction(any())).thenReturn(transactionStatus);
+        when(archiveBatchRepository.findArchivableYears(RETURNED_BEFORE)).thenReturn(List.of(2023));
+        when(archiveBatchRepository.moveBatch(RETURNED_BEFORE, 2)).thenReturn(2);
+
+        // when
+        int archived = job.archive(TODAY);
+
+        // then - reszta zaleglosci zostaje na kolejne uruchomienie
+        assertThat(archived).isEqualTo(6);
+        verify(archiveBatchRepository, times(3)).moveBatch(RETURNED_BEFORE, 2);
+    }
+
+    @Test
+    void shouldSkipScheduledRunWhenDisabled() {
+        // given
+        properties.setEnabled(false);
+
+        // when
+        job.runScheduled();
+
+        // then
+        verifyNoInteractions(archiveBatchRepository, transactionManager);
+    }
+}
@@ -0,0 +1,156 @@
+package org.example.availability;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.awaitility.Awaitility.await;
+
+// testy rozsylania zmian dostepnosci: subskrypcje, zlewanie zmian i limit bufora
+class AvailabilityStreamTest {
+
+    private AvailabilityStreamProperties properties;
+    private RecordingAvailabilityStream stream;
+
+    @BeforeEach
+    void setUp() {
+        properties = new AvailabilityStreamProperties();
+        properties.setCoalesceMs(100);
+        properties.setMaxBufferedEvents(2);
+        properties.setMaxSubscribers(2);
+        properties.setMaxBooksPerSubscription(3);
+        stream = new RecordingAvailabilityStream(properties);
+    }
+
+    @AfterEach
+    void tearDown() {
+        stream.shutdown();
+    }
+
+    @Test
+    void shouldSendInitialStateAndLatestOfRapidChanges() {
+        // given
+        stream.subscribe(Set.of(1L), () -> List.of(new BookAvailabilityEvent(1L, 1, 3)));
+
+        // when
+        stream.onAvailabilityChanged(new BookAvailabilityEvent(1L, 0, 3));
+        stream.onAvailabilityChanged(new BookAvailabilityEvent(1L, 1, 3));
+        stream.onAvailabilityChanged(new BookAvailabilityEvent(1L, 2, 3));
+
+        // then
+        await().atMost(2, TimeUnit.SECONDS).until(() -> !stream.sent.isEmpty());
+        assertThat(stream.sent).containsExactly(new BookAvailabilityEvent(1L, 2, 3));
+    }
+
+    @Test
+    void shouldOnlyDeliverSubscribedBooks() {
+        // given
+        stream.subscribe(Set.of(1L), Collections::emptyList);
+
+        // when
+        stream.onAvailabilityChanged(new BookAvailabilityEvent(2L, 0, 1));
+        stream.onAvailabilityChanged(new BookAvailabilityEvent(1L, 0, 1));
+
+        // then
+        await().atMost(2, TimeUnit.SECONDS).until(() -> !stream.sent.isEmpty());
+        assertThat(stream.sent).containsExactly(new BookAvailabilityEvent(1L, 0, 1));
+    }
+
+    @Test
+    void shouldDisconnectSubscriberWhenBufferOverflows() {
+        // given
+        properties.setCoalesceMs(60000);
+        stream.subscribe(Collections.emptySet(), Collections::emptyList);
+
+        // when
+        stream.onAvailabilityChanged(new BookAvailabilityEvent(1L, 0, 1));
+        stream.onAvailabilityChanged(new BookAvailabilityEvent(2L, 0, 1));
+        stream.onAvailabilityChanged(new BookAvailabilityEvent(3L, 0, 1));
+
+        // then
+        assertThat(stream.getSubscriberCount()).isZero();
+    }
+
+    @Test
+    void shouldDisconnectBlockedSubscriberWithoutStallingOthers() {
+        // given - jeden nadawca, pierwszy klient blokuje zapis
+        properties.setSenderThreads(1);
+        properties.setSendTimeoutMs(200);
+        stream.shutdown();
+        stream = new RecordingAvailabilityStream(properties);
+        stream.blockingEmitters = 1;
+        stream.subscribe(Set.of(1L), Collections::emptyList);
+        stream.subscribe(Set.of(1L), Collections::emptyList);
+
+        // when
+        stream.onAvailabilityChanged(new BookAvailabilityEvent(1L, 0, 1));
+
+        // then
+        await().atMost(2, TimeUnit.SECONDS)
+                .until(() -> !stream.sent.isEmpty() && stream.getSubscriberCount() == 1);
+        assertThat(stream.sent).containsExactly(new BookAvailabilityEvent(1L, 0, 1));
+    }
+
+    @Test
+    void shouldLimitSubscriptions() {
+        // given
+        stream.subscribe(Set.of(1L), Collections::emptyList);
+        stream.subscribe(Set.of(2L), Collections::emptyList);
+
+        // when & then
+        assertThatThrownBy(() -> stream.subscribe(Set.of(3L), Collections::emptyList))
+                .isInstanceOf(IllegalStateException.class);
+        assertThatThrownBy(() -> stream.subscribe(Set.of(1L, 2L, 3L, 4L), Collections::emptyList))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThat(stream.getSubscriberCount()).isEqualTo(2);
+    }
+
+    // zapisuje wyslane zdarzenia zamiast pisac do odpowiedzi HTTP
+    // pierwsze blockingEmitters emiterow wisi na zapisie jak klient, ktory przestal czytac
+    private static class RecordingAvailabilityStream extends AvailabilityStream {
+
+        private final List<BookAvailabilityEvent> sent = new CopyOnWriteArrayList<>();
+        private int blockingEmitters;
+
+        RecordingAvailabilityStream(AvailabilityStreamProperties properties) {
+            super(properties);
+        }
+
+        @Override
+        protected SseEmitter createEmitter(long timeoutMs) {
+            if (blockingEmitters > 0) {
+                blockingEmitters--;
+                return new SseEmitter(timeoutMs) {
+                    @Override
+                    public void send(SseEventBuilder builder) throws IOException {
+                        try {
+                            Thread.sleep(Long.MAX_VALUE);
+                        } catch (InterruptedException e) {
+                            throw new IOException("Write interrupted", e);
+                        }
+                    }
+                };
+            }
+            return new SseEmitter(timeoutMs) {
+                @Override
+                public void send(SseEventBuilder builder) {
+                    builder.build().stream()
+                            .map(DataWithMediaType::getData)
+                            .filter(BookAvailabilityEvent.class::isInstance)
+                            .map(BookAvailabilityEvent.class::cast)
+                            .forEach(sent::add);
+                }
+            };
+        }
+    }
+}
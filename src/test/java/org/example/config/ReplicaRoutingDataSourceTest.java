@@ -0,0 +1,86 @@
+package org.example.config;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.Connection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// testy routingu primary/replica na dwoch instancjach H2
+class ReplicaRoutingDataSourceTest {
+
+    private ReadYourWritesTracker tracker;
+    private ReplicaRoutingDataSource routingDataSource;
+
+    @BeforeEach
+    void setUp() {
+        tracker = new ReadYourWritesTracker(60_000);
+        routingDataSource = new ReplicaRoutingDataSource(tracker);
+
+        Map<Object, Object> targets = new HashMap<>();
+        targets.put(ReplicaRoutingDataSource.PRIMARY, new DriverManagerDataSource("jdbc:h2:mem:routing_primary"));
+        targets.put(ReplicaRoutingDataSource.REPLICA, new DriverManagerDataSource("jdbc:h2:mem:routing_replica"));
+        routingDataSource.setTargetDataSources(targets);
+        routingDataSource.afterPropertiesSet();
+    }
+
+    @AfterEach
+    void tearDown() {
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(false);
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void shouldRouteWritesToPrimary() throws Exception {
+        // when & then
+        assertThat(connectedUrl()).contains("routing_primary");
+    }
+
+    @Test
+    void shouldRouteReadOnlyTransactionsToReplica() throws Exception {
+        // given
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+
+        // when & then
+        assertThat(connectedUrl()).contains("routing_replica");
+    }
+
+    @Test
+    void shouldRouteReadsToPrimaryRightAfterUserWrite() throws Exception {
+        // given
+        SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken(
+                "testuser", "password", Collections.singletonList(new SimpleGrantedAuthority("ROLE_USER"))));
+        tracker.recordWrite("testuser");
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+
+        // when & then
+        assertThat(connectedUrl()).contains("routing_primary");
+    }
+
+    @Test
+    void shouldForgetWritesAfterWindow() {
+        // given
+        ReadYourWritesTracker shortTracker = new ReadYourWritesTracker(-1);
+        shortTracker.recordWrite("testuser");
+
+        // when & then
+        assertThat(shortTracker.wroteRecently("testuser")).isFalse();
+        assertThat(tracker.wroteRecently("testuser")).isFalse();
+    }
+
+    private String connectedUrl() throws Exception {
+        try (Connection connection = routingDataSource.getConnection()) {
+            return connection.getMetaData().getURL();
+        }
+    }
+}
@@ -5,6 +5,7 @@ import org.example.dataTransfer.AuthenticationRequest;
 import org.example.dataTransfer.RegistrationRequest;
 import org.example.model.Role;
 import org.example.model.User;
+import org.example.security.PasswordHashingBusyException;
 import org.example.service.UserService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -21,6 +22,7 @@ import org.springframework.test.web.servlet.MockMvc;
 
 import java.util.Optional;
 
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.*;
@@ -102,6 +104,36 @@ class AuthenticationControllerTest {
                 .andExpect(jsonPath("$.error").value("Username already exists"));
     }
 
+    @Test
+    void shouldReturnServiceUnavailableWhenHashingIsBusy() throws Exception {
+        // given
+        when(userService.registerUser(anyString(), anyString(), anyString(), anyString(), anyString()))
+                .thenThrow(new PasswordHashingBusyException("Too many registrations in progress, retry later"));
+
+        // when & then
+        mockMvc.perform(post("/api/auth/register")
+                        .with(csrf())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(registrationRequest)))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(header().string("Retry-After", "1"))
+                .andExpect(jsonPath("$.error").value("Too many registrations in progress, retry later"));
+    }
+
+    @Test
+    void shouldNotTurnOtherIllegalStateIntoServiceUnavailable() {
+        // given - blad niezwiazany z przeciazeniem puli hashowania
+        when(userService.registerUser(anyString(), anyString(), anyString(), anyString(), anyString()))
+                .thenThrow(new IllegalStateException("Password hashing failed"));
+
+        // when & then - wyjatek nie jest tlumaczony na 503
+        assertThatThrownBy(() -> mockMvc.perform(post("/api/auth/register")
+                        .with(csrf())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(registrationRequest))))
+                .hasCauseInstanceOf(IllegalStateException.class);
+    }
+
     @Test
     void shouldLoginUser() throws Exception {
         // given
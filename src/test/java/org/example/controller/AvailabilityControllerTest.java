@@ -0,0 +1,78 @@
+package org.example.controller;
+
+import org.example.availability.AvailabilityStream;
+import org.example.service.BookService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.Set;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+// testy integracyjne dla AvailabilityController
+@WebMvcTest(AvailabilityController.class)
+@Import(org.example.config.SecurityConfig.class)
+@ActiveProfiles("test")
+class AvailabilityControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private AvailabilityStream availabilityStream;
+
+    @MockBean
+    private BookService bookService;
+
+    @Test
+    @WithMockUser
+    void shouldOpenStreamForSelectedBooks() throws Exception {
+        // given
+        when(availabilityStream.subscribe(eq(Set.of(1L, 2L)), any())).thenReturn(new SseEmitter());
+
+        // when & then
+        mockMvc.perform(get("/api/books/availability/stream").param("bookIds", "1", "2"))
+                .andExpect(request().asyncStarted());
+    }
+
+    @Test
+    @WithMockUser
+    void shouldRejectTooLargeSubscription() throws Exception {
+        // given
+        when(availabilityStream.subscribe(any(), any())).thenThrow(new IllegalArgumentException("Too many books"));
+
+        // when & then
+        mockMvc.perform(get("/api/books/availability/stream").param("bookIds", "1", "2"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @WithMockUser
+    void shouldReturnServiceUnavailableWhenTooManyStreams() throws Exception {
+        // given
+        when(availabilityStream.subscribe(any(), any())).thenThrow(new IllegalStateException("Too many subscribers"));
+
+        // when & then
+        mockMvc.perform(get("/api/books/availability/stream"))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(header().string("Retry-After", "5"));
+    }
+
+    @Test
+    void shouldRequireAuthentication() throws Exception {
+        // when & then
+        mockMvc.perform(get("/api/books/availability/stream"))
+                .andExpect(status().isUnauthorized());
+    }
+}
@@ -1,6 +1,10 @@
 package org.example.controller;
 
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import org.example.config.SecurityConfig;
+import org.example.config.SerializationConfig;
 import org.example.dataTransfer.BookRequest;
 import org.example.model.PhysicalBook;
 import org.example.model.AbstractBook;
@@ -15,11 +19,14 @@ import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 
 import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
 
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.hasItem;
 import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.*;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
@@ -28,7 +35,7 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
 
 // testy integracyjne dla BookController
 @WebMvcTest(BookController.class)
-@Import(org.example.config.SecurityConfig.class)
+@Import({SecurityConfig.class, SerializationConfig.class})
 @ActiveProfiles("test")
 class BookControllerTest {
 
@@ -197,4 +204,63 @@ class BookControllerTest {
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$[0].title").value("Test Book"));
     }
+
+    @Test
+    @WithMockUser
+    void shouldReturnNotModifiedForUnchangedCatalog() throws Exception {
+        // given
+        when(bookService.getCatalogEtag()).thenReturn("W/\"catalog-1-0-1\"");
+
+        // when & then
+        mockMvc.perform(get("/api/books").header("If-None-Match", "W/\"catalog-1-0-1\""))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("ETag", "W/\"catalog-1-0-1\""))
+                .andExpect(header().stringValues("Vary", hasItem("Accept")));
+        verify(bookService, never()).getAllBooks();
+    }
+
+    @Test
+    @WithMockUser
+    void shouldReturnCatalogWhenEtagChanged() throws Exception {
+        // given
+        when(bookService.getCatalogEtag()).thenReturn("W/\"catalog-2-0-2\"");
+        when(bookService.getAllBooks()).thenReturn(Arrays.asList(testBook));
+
+        // when & then
+        mockMvc.perform(get("/api/books").header("If-None-Match", "W/\"catalog-1-0-1\""))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "W/\"catalog-2-0-2\""))
+                .andExpect(header().stringValues("Vary", hasItem("Accept")))
+                .andExpect(jsonPath("$[0].title").value("Test Book"));
+    }
+
+    @Test
+    @WithMockUser
+    void shouldReturnNotModifiedForUnchangedBook() throws Exception {
+        // given
+        testBook.setVersion(0L);
+        when(bookService.getBookById(1L)).thenReturn(Optional.of(testBook));
+
+        // when & then
+        mockMvc.perform(get("/api/books/1").header("If-None-Match", "W/\"book-1-0\""))
+                .andExpect(status().isNotModified());
+    }
+
+    @Test
+    @WithMockUser
+    void shouldServeCborWhenRequested() throws Exception {
+        // given
+        when(bookService.getAllBooks()).thenReturn(Arrays.asList(testBook));
+
+        // when
+        MvcResult result = mockMvc.perform(get("/api/books").accept(MediaType.APPLICATION_CBOR))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_CBOR))
+                .andReturn();
+
+        // then
+        JsonNode books = new CBORMapper().readTree(result.getResponse().getContentAsByteArray());
+        assertThat(books.get(0).get("title").asText()).isEqualTo("Test Book");
+        assertThat(books.get(0).has("version")).isFalse();
+    }
 }
@@ -1,5 +1,12 @@
 package org.example.controller;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
+import org.example.config.SecurityConfig;
+import org.example.config.SerializationConfig;
+import org.example.dataTransfer.AdminBorrowingView;
+import org.example.dataTransfer.BorrowingHistoryPage;
+import org.example.dataTransfer.PageResponse;
 import org.example.model.*;
 import org.example.service.BorrowingService;
 import org.junit.jupiter.api.BeforeEach;
@@ -11,12 +18,15 @@ import org.springframework.context.annotation.Import;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 
 import java.time.LocalDate;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.*;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
@@ -25,7 +35,7 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
 
 // testy integracyjne dla BorrowingController
 @WebMvcTest(BorrowingController.class)
-@Import(org.example.config.SecurityConfig.class)
+@Import({SecurityConfig.class, SerializationConfig.class})
 @ActiveProfiles("test")
 class BorrowingControllerTest {
 
@@ -119,6 +129,37 @@ class BorrowingControllerTest {
                 .andExpect(jsonPath("$[0].id").value(1));
     }
 
+    @Test
+    @WithMockUser
+    void shouldGetUserBorrowingHistoryPage() throws Exception {
+        // given
+        when(borrowingService.getUserBorrowingHistoryPage(BorrowingStatus.RETURNED, "2024-03-01:42", 10))
+                .thenReturn(new BorrowingHistoryPage(List.of(testBorrowing), "2024-02-20:17"));
+
+        // when & then
+        mockMvc.perform(get("/api/borrowings/my-history/page")
+                        .param("status", "RETURNED")
+                        .param("cursor", "2024-03-01:42")
+                        .param("size", "10"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items[0].id").value(1))
+                .andExpect(jsonPath("$.nextCursor").value("2024-02-20:17"));
+    }
+
+    @Test
+    @WithMockUser
+    void shouldRejectInvalidHistoryCursor() throws Exception {
+        // given
+        when(borrowingService.getUserBorrowingHistoryPage(null, "garbage", 20))
+                .thenThrow(new IllegalArgumentException("Invalid cursor"));
+
+        // when & then
+        mockMvc.perform(get("/api/borrowings/my-history/page")
+                        .param("cursor", "garbage"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error").value("Invalid cursor"));
+    }
+
     @Test
     @WithMockUser
     void shouldGetUserActiveBorrowings() throws Exception {
@@ -159,16 +200,79 @@ class BorrowingControllerTest {
 
     @Test
     @WithMockUser(roles = "ADMIN")
-    void shouldGetAllBorrowingsForAdmin() throws Exception {
+    void shouldGetBorrowingsPageForAdmin() throws Exception {
         // given
-        List<Borrowing> allBorrowings = Arrays.asList(testBorrowing);
-        when(borrowingService.getAllBorrowings()).thenReturn(allBorrowings);
+        when(borrowingService.getBorrowingsPage(BorrowingStatus.BORROWED, 1L, 0, 50, null))
+                .thenReturn(new PageResponse<>(List.of(borrowingView()), 0, 50, 1, 1));
 
         // when & then
-        mockMvc.perform(get("/api/borrowings/all"))
+        mockMvc.perform(get("/api/borrowings/all")
+                        .param("status", "BORROWED")
+                        .param("userId", "1"))
                 .andExpect(status().isOk())
-                .andExpect(jsonPath("$").isArray())
-                .andExpect(jsonPath("$[0].id").value(1));
+                .andExpect(jsonPath("$.items[0].id").value(1))
+                .andExpect(jsonPath("$.items[0].username").value("testuser"))
+                .andExpect(jsonPath("$.items[0].bookTitle").value("Test Book"))
+                .andExpect(jsonPath("$.items[0].dueDate").value("2024-03-15"))
+                .andExpect(jsonPath("$.totalElements").value(1));
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    void shouldReturnBadRequestForInvalidBorrowingsPage() throws Exception {
+        // given
+        when(borrowingService.getBorrowingsPage(null, null, 0, 500, null))
+                .thenThrow(new IllegalArgumentException("Page size must be between 1 and 100"));
+
+        // when & then
+        mockMvc.perform(get("/api/borrowings/all").param("size", "500"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error").value("Page size must be between 1 and 100"));
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    void shouldServeSmileWhenRequested() throws Exception {
+        // given
+        when(borrowingService.getBorrowingsPage(null, null, 0, 50, null))
+                .thenReturn(new PageResponse<>(List.of(borrowingView()), 0, 50, 1, 1));
+
+        // when
+        MvcResult result = mockMvc.perform(get("/api/borrowings/all").accept(SerializationConfig.APPLICATION_SMILE_VALUE))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(SerializationConfig.APPLICATION_SMILE_VALUE))
+                .andReturn();
+
+        // then
+        JsonNode page = new SmileMapper().readTree(result.getResponse().getContentAsByteArray());
+        assertThat(page.get("items").get(0).get("id").asLong()).isEqualTo(1L);
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    void shouldExportBorrowingsAsCsv() throws Exception {
+        // given
+        doAnswer(invocation -> {
+            Consumer<AdminBorrowingView> consumer = invocation.getArgument(0);
+            consumer.accept(borrowingView());
+            return null;
+        }).when(borrowingService).exportBorrowings(any());
+
+        // when & then
+        mockMvc.perform(get("/api/borrowings/all/export"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Disposition", "attachment; filename=\"borrowings.csv\""))
+                .andExpect(content().string(
+                        "id,userId,username,bookId,bookTitle,status,borrowDate,dueDate,returnDate\r\n"
+                        + "1,1,testuser,1,Test Book,BORROWED,2024-03-01,2024-03-15,\r\n"));
+    }
+
+    @Test
+    @WithMockUser(roles = "USER")
+    void shouldForbidBorrowingsExportForRegularUser() throws Exception {
+        // when & then
+        mockMvc.perform(get("/api/borrowings/all/export"))
+                .andExpect(status().isForbidden());
     }
 
     @Test
@@ -207,4 +311,9 @@ class BorrowingControllerTest {
 
         verify(borrowingService).updateOverdueBorrowings();
     }
+
+    private AdminBorrowingView borrowingView() {
+        return new AdminBorrowingView(1L, 1L, "testuser", 1L, "Test Book", BorrowingStatus.BORROWED,
+                LocalDate.of(2024, 3, 1), LocalDate.of(2024, 3, 15), null);
+    }
 }
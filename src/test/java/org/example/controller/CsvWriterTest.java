@@ -0,0 +1,45 @@
+package org.example.controller;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.StringWriter;
+import java.time.LocalDate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// testy zapisu eksportu CSV
+class CsvWriterTest {
+
+    @Test
+    void shouldQuoteFieldsWithSeparatorsQuotesAndLineBreaks() {
+        // when & then
+        assertThat(CsvWriter.escape("plain")).isEqualTo("plain");
+        assertThat(CsvWriter.escape("a,b")).isEqualTo("\"a,b\"");
+        assertThat(CsvWriter.escape("say \"hi\"")).isEqualTo("\"say \"\"hi\"\"\"");
+        assertThat(CsvWriter.escape("line\nbreak")).isEqualTo("\"line\nbreak\"");
+        assertThat(CsvWriter.escape(null)).isEmpty();
+    }
+
+    @Test
+    void shouldNeutralizeSpreadsheetFormulas() {
+        // when & then
+        assertThat(CsvWriter.escape("=HYPERLINK(\"x\")")).isEqualTo("\"'=HYPERLINK(\"\"x\"\")\"");
+        assertThat(CsvWriter.escape("@user")).isEqualTo("'@user");
+        assertThat(CsvWriter.escape(42L)).isEqualTo("42");
+    }
+
+    @Test
+    void shouldWriteRowsWithCrLf() throws Exception {
+        // given
+        StringWriter out = new StringWriter();
+        CsvWriter csv = new CsvWriter(out);
+
+        // when
+        csv.row("id", "date");
+        csv.row(1L, LocalDate.of(2024, 3, 1));
+        csv.flush();
+
+        // then
+        assertThat(out.toString()).isEqualTo("id,date\r\n1,2024-03-01\r\n");
+    }
+}
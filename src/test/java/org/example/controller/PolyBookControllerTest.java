@@ -71,8 +71,8 @@ class PolyBookControllerTest {
     @WithMockUser
     void shouldGetBookStats() throws Exception {
         // given
-        List<AbstractBook> books = Arrays.asList(physicalBook, eBook);
-        when(bookService.getAllBooks()).thenReturn(books);
+        when(bookService.countAllBooks()).thenReturn(2L);
+        when(bookService.countDigitalBooks()).thenReturn(1L);
 
         // when & then
         mockMvc.perform(get("/api/poly/books/stats"))
@@ -0,0 +1,124 @@
+package org.example.controller;
+
+import org.example.model.*;
+import org.example.service.ReservationService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+// testy integracyjne dla ReservationController
+@WebMvcTest(ReservationController.class)
+@Import(org.example.config.SecurityConfig.class)
+@ActiveProfiles("test")
+class ReservationControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private ReservationService reservationService;
+
+    private User testUser;
+    private AbstractBook testBook;
+    private Reservation testReservation;
+
+    @BeforeEach
+    void setUp() {
+        testUser = new User("testuser", "password", "test@example.com", Role.USER);
+        testUser.setId(1L);
+
+        testBook = new PhysicalBook("Test Book", "Test Author", 0, 1);
+        testBook.setId(1L);
+
+        testReservation = new Reservation(testUser, testBook);
+        testReservation.setId(1L);
+    }
+
+    @Test
+    @WithMockUser
+    void shouldReserveBookWithQueuePosition() throws Exception {
+        // given
+        when(reservationService.reserveBook(1L)).thenReturn(testReservation);
+        when(reservationService.getQueuePosition(testReservation)).thenReturn(2L);
+
+        // when & then
+        mockMvc.perform(post("/api/reservations/1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.reservation.status").value("WAITING"))
+                .andExpect(jsonPath("$.position").value(2));
+    }
+
+    @Test
+    @WithMockUser
+    void shouldReturnBadRequestWhenBookAvailable() throws Exception {
+        // given
+        when(reservationService.reserveBook(1L))
+                .thenThrow(new IllegalArgumentException("Book is available, borrow it instead"));
+
+        // when & then
+        mockMvc.perform(post("/api/reservations/1"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error").value("Book is available, borrow it instead"));
+    }
+
+    @Test
+    @WithMockUser
+    void shouldGetUserReservations() throws Exception {
+        // given
+        when(reservationService.getUserWaitingReservations()).thenReturn(List.of(testReservation));
+
+        // when & then
+        mockMvc.perform(get("/api/reservations/my"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].book.title").value("Test Book"));
+    }
+
+    @Test
+    @WithMockUser
+    void shouldPickUpReservedBook() throws Exception {
+        // given
+        Borrowing borrowing = new Borrowing(testUser, testBook, BorrowingStatus.BORROWED,
+                LocalDate.now(), LocalDate.now().plusDays(14));
+        borrowing.setId(5L);
+        when(reservationService.pickUp(5L)).thenReturn(borrowing);
+
+        // when & then
+        mockMvc.perform(post("/api/reservations/pickup/5"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.status").value("BORROWED"));
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    void shouldReleaseExpiredHoldsForAdmin() throws Exception {
+        // given
+        when(reservationService.releaseExpiredHolds()).thenReturn(3);
+
+        // when & then
+        mockMvc.perform(post("/api/reservations/release-expired"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.released").value(3));
+    }
+
+    @Test
+    @WithMockUser(roles = "USER")
+    void shouldForbidReleasingExpiredHoldsForRegularUser() throws Exception {
+        // when & then
+        mockMvc.perform(post("/api/reservations/release-expired"))
+                .andExpect(status().isForbidden());
+        verify(reservationService, never()).releaseExpiredHolds();
+    }
+}
@@ -1,7 +1,12 @@
 package org.example.controller;
 
+import org.example.dataTransfer.AdminUserView;
+import org.example.dataTransfer.PageResponse;
 import org.example.model.Role;
 import org.example.model.User;
+import org.example.model.UserBorrowingSummary;
+import org.example.security.PasswordHashingBusyException;
+import org.example.service.BorrowingSummaryService;
 import org.example.service.UserService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -9,15 +14,22 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.web.servlet.MockMvc;
 
-import java.util.Arrays;
+import java.time.LocalDate;
 import java.util.List;
+import java.util.function.Consumer;
 
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
 @WebMvcTest(UserController.class)
@@ -31,8 +43,10 @@ class UserControllerTest {
     @MockBean
     private UserService userService;
 
+    @MockBean
+    private BorrowingSummaryService borrowingSummaryService;
+
     private User testUser;
-    private User adminUser;
 
     @BeforeEach
     void setUp() {
@@ -40,26 +54,70 @@ class UserControllerTest {
         testUser.setId(1L);
         testUser.setFirstName("Test");
         testUser.setLastName("User");
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    void shouldGetUsersPageForAdmin() throws Exception {
+        // given
+        List<AdminUserView> users = List.of(
+                new AdminUserView(1L, "testuser", "test@example.com", "Test", "User", Role.USER),
+                new AdminUserView(2L, "adminuser", "admin@example.com", "Admin", "User", Role.ADMIN));
+        when(userService.findUsersPage(null, "a", 1, 2, "username,asc"))
+                .thenReturn(new PageResponse<>(users, 1, 2, 6, 3));
 
-        adminUser = new User("adminuser", "password", "admin@example.com", Role.ADMIN);
-        adminUser.setId(2L);
-        adminUser.setFirstName("Admin");
-        adminUser.setLastName("User");
+        // when & then
+        mockMvc.perform(get("/api/admin/users")
+                        .param("search", "a")
+                        .param("page", "1")
+                        .param("size", "2")
+                        .param("sort", "username,asc"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items[0].username").value("testuser"))
+                .andExpect(jsonPath("$.items[1].role").value("ADMIN"))
+                .andExpect(jsonPath("$.items[0].password").doesNotExist())
+                .andExpect(jsonPath("$.totalElements").value(6))
+                .andExpect(jsonPath("$.totalPages").value(3));
     }
 
     @Test
     @WithMockUser(roles = "ADMIN")
-    void shouldGetAllUsersForAdmin() throws Exception {
+    void shouldReturnBadRequestForInvalidUsersPage() throws Exception {
         // given
-        List<User> users = Arrays.asList(testUser, adminUser);
-        when(userService.findAllUsers()).thenReturn(users);
+        when(userService.findUsersPage(null, null, 0, 50, "password"))
+                .thenThrow(new IllegalArgumentException("Unsupported sort: password"));
 
         // when & then
-        mockMvc.perform(get("/api/admin/users"))
+        mockMvc.perform(get("/api/admin/users").param("sort", "password"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error").value("Unsupported sort: password"));
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    void shouldExportUsersAsCsv() throws Exception {
+        // given
+        doAnswer(invocation -> {
+            Consumer<AdminUserView> consumer = invocation.getArgument(0);
+            consumer.accept(new AdminUserView(1L, "testuser", "test@example.com", "Test", "User, Jr.", Role.USER));
+            return null;
+        }).when(userService).exportUsers(any());
+
+        // when & then
+        mockMvc.perform(get("/api/admin/users/export"))
                 .andExpect(status().isOk())
-                .andExpect(jsonPath("$").isArray())
-                .andExpect(jsonPath("$[0].username").value("testuser"))
-                .andExpect(jsonPath("$[1].username").value("adminuser"));
+                .andExpect(content().contentType("text/csv;charset=UTF-8"))
+                .andExpect(header().string("Content-Disposition", "attachment; filename=\"users.csv\""))
+                .andExpect(content().string("id,username,email,firstName,lastName,role\r\n"
+                        + "1,testuser,test@example.com,Test,\"User, Jr.\",USER\r\n"));
+    }
+
+    @Test
+    @WithMockUser(roles = "USER")
+    void shouldForbidUsersExportForRegularUser() throws Exception {
+        // when & then
+        mockMvc.perform(get("/api/admin/users/export"))
+                .andExpect(status().isForbidden());
     }
 
     @Test
@@ -72,15 +130,89 @@ class UserControllerTest {
 
     @Test
     @WithMockUser(username = "testuser")
-    void shouldGetCurrentUserProfile() throws Exception {
+    void shouldGetCurrentUserProfileWithBorrowingSummary() throws Exception {
         // given
+        UserBorrowingSummary summary = new UserBorrowingSummary(1L);
+        summary.setBorrowedCount(2);
+        summary.setReturnedCount(5);
+        summary.setNextDueDate(LocalDate.of(2024, 3, 15));
         when(userService.getCurrentUser()).thenReturn(testUser);
+        when(borrowingSummaryService.getSummary(1L)).thenReturn(summary);
 
         // when & then
         mockMvc.perform(get("/api/user/profile"))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.username").value("testuser"))
                 .andExpect(jsonPath("$.email").value("test@example.com"))
-                .andExpect(jsonPath("$.role").value("USER"));
+                .andExpect(jsonPath("$.role").value("USER"))
+                .andExpect(jsonPath("$.password").doesNotExist())
+                .andExpect(jsonPath("$.borrowingSummary.borrowedCount").value(2))
+                .andExpect(jsonPath("$.borrowingSummary.returnedCount").value(5))
+                .andExpect(jsonPath("$.borrowingSummary.overdueCount").value(0))
+                .andExpect(jsonPath("$.borrowingSummary.nextDueDate").value("2024-03-15"));
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    void shouldChangeUserRoleForAdmin() throws Exception {
+        // given
+        testUser.setRole(Role.ADMIN);
+        when(userService.changeRole(1L, Role.ADMIN)).thenReturn(testUser);
+
+        // when & then
+        mockMvc.perform(put("/api/admin/users/1/role").param("role", "ADMIN"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.username").value("testuser"))
+                .andExpect(jsonPath("$.role").value("ADMIN"));
+    }
+
+    @Test
+    @WithMockUser(roles = "USER")
+    void shouldForbidRoleChangeForRegularUser() throws Exception {
+        // when & then
+        mockMvc.perform(put("/api/admin/users/1/role").param("role", "ADMIN"))
+                .andExpect(status().isForbidden());
+    }
+
+    @Test
+    @WithMockUser(username = "testuser")
+    void shouldChangePassword() throws Exception {
+        // when & then
+        mockMvc.perform(put("/api/user/password")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"currentPassword\":\"password\",\"newPassword\":\"n3w-Passw0rd\"}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.message").value("Password changed successfully"));
+        verify(userService).changePassword("password", "n3w-Passw0rd");
+    }
+
+    @Test
+    @WithMockUser(username = "testuser")
+    void shouldReturnBadRequestForWrongCurrentPassword() throws Exception {
+        // given
+        doThrow(new IllegalArgumentException("Current password is incorrect"))
+                .when(userService).changePassword("wrong", "n3w-Passw0rd");
+
+        // when & then
+        mockMvc.perform(put("/api/user/password")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"currentPassword\":\"wrong\",\"newPassword\":\"n3w-Passw0rd\"}"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error").value("Current password is incorrect"));
+    }
+
+    @Test
+    @WithMockUser(username = "testuser")
+    void shouldReturnServiceUnavailableWhenPasswordHashingIsBusy() throws Exception {
+        // given
+        doThrow(new PasswordHashingBusyException("Too many registrations in progress, retry later"))
+                .when(userService).changePassword("password", "n3w-Passw0rd");
+
+        // when & then
+        mockMvc.perform(put("/api/user/password")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"currentPassword\":\"password\",\"newPassword\":\"n3w-Passw0rd\"}"))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(header().string("Retry-After", "1"));
     }
-}
\ No newline at end of file
+}
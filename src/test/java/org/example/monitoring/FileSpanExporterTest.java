@@ -0,0 +1,55 @@
+package org.example.monitoring;
+
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.api.trace.Tracer;
+import io.opentelemetry.context.Scope;
+import io.opentelemetry.sdk.trace.SdkTracerProvider;
+import io.opentelemetry.sdk.trace.export.SimpleSpanProcessor;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// testy eksportu spanow do pliku JSONL
+class FileSpanExporterTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void shouldWriteSpansAsJsonLines() throws Exception {
+        // given
+        Path file = tempDir.resolve("spans.jsonl");
+        SdkTracerProvider tracerProvider = SdkTracerProvider.builder()
+                .addSpanProcessor(SimpleSpanProcessor.create(new FileSpanExporter(file)))
+                .build();
+        Tracer tracer = tracerProvider.get("test");
+
+        // when
+        Span serviceSpan = tracer.spanBuilder("borrowing-service#borrow-book").startSpan();
+        try (Scope scope = serviceSpan.makeCurrent()) {
+            tracer.spanBuilder("SQL executeQuery")
+                    .setAttribute("db.statement", "SELECT 1")
+                    .startSpan()
+                    .end();
+        } finally {
+            serviceSpan.end();
+        }
+        tracerProvider.shutdown();
+
+        // then
+        String traceId = serviceSpan.getSpanContext().getTraceId();
+        List<String> lines = Files.readAllLines(file);
+        assertThat(lines).hasSize(2);
+        assertThat(lines.get(0))
+                .contains("\"name\":\"SQL executeQuery\"")
+                .contains("\"db.statement\":\"SELECT 1\"")
+                .contains("\"traceId\":\"" + traceId + "\"")
+                .contains("\"parentSpanId\":\"" + serviceSpan.getSpanContext().getSpanId() + "\"");
+        assertThat(lines.get(1)).contains("\"name\":\"borrowing-service#borrow-book\"");
+    }
+}
@@ -0,0 +1,101 @@
+package org.example.monitoring;
+
+import io.micrometer.observation.tck.TestObservationRegistry;
+import io.micrometer.observation.tck.TestObservationRegistryAssert;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// testy proxy JDBC mierzacego zapytania
+class MonitoredDataSourceTest {
+
+    private final List<String> executedSql = new ArrayList<>();
+    private final List<Integer> bindCounts = new ArrayList<>();
+
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        StatementListener recordingListener = (sql, bindCount, elapsedNanos) -> {
+            executedSql.add(sql);
+            bindCounts.add(bindCount);
+        };
+        MonitoredDataSource dataSource = new MonitoredDataSource(
+                new DriverManagerDataSource("jdbc:h2:mem:monitored;DB_CLOSE_DELAY=-1"),
+                List.of(recordingListener));
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS monitored_books (id BIGINT, title VARCHAR(100))");
+        executedSql.clear();
+        bindCounts.clear();
+    }
+
+    @Test
+    void shouldReportPreparedStatementWithBindCount() {
+        // when
+        jdbcTemplate.update("INSERT INTO monitored_books (id, title) VALUES (?, ?)", 1L, "Test Book");
+
+        // then
+        assertThat(executedSql).containsExactly("INSERT INTO monitored_books (id, title) VALUES (?, ?)");
+        assertThat(bindCounts).containsExactly(2);
+    }
+
+    @Test
+    void shouldReportPlainStatement() {
+        // when
+        jdbcTemplate.queryForList("SELECT id FROM monitored_books");
+
+        // then
+        assertThat(executedSql).containsExactly("SELECT id FROM monitored_books");
+        assertThat(bindCounts).containsExactly(0);
+    }
+
+    @Test
+    void shouldObserveEachStatement() {
+        // given
+        TestObservationRegistry observationRegistry = TestObservationRegistry.create();
+        JdbcTemplate observedTemplate = new JdbcTemplate(new MonitoredDataSource(
+                new DriverManagerDataSource("jdbc:h2:mem:monitored;DB_CLOSE_DELAY=-1"),
+                List.of(), observationRegistry));
+
+        // when
+        observedTemplate.queryForList("SELECT id\n  FROM monitored_books");
+
+        // then
+        TestObservationRegistryAssert.assertThat(observationRegistry)
+                .hasObservationWithNameEqualTo(MonitoredDataSource.OBSERVATION_NAME)
+                .that()
+                .hasHighCardinalityKeyValue("db.statement", "SELECT id FROM monitored_books")
+                .hasBeenStarted()
+                .hasBeenStopped();
+    }
+
+    @Test
+    void shouldNormalizeEachDistinctSqlOnce() {
+        // given
+        MonitoredDataSource dataSource = new MonitoredDataSource(
+                new DriverManagerDataSource("jdbc:h2:mem:monitored;DB_CLOSE_DELAY=-1"), List.of());
+
+        // when
+        String first = dataSource.normalized("SELECT id\n  FROM monitored_books");
+        String second = dataSource.normalized("SELECT id\n  FROM monitored_books");
+
+        // then - drugie wykonanie dostaje zapamietany wynik
+        assertThat(first).isEqualTo("SELECT id FROM monitored_books");
+        assertThat(second).isSameAs(first);
+    }
+
+    @Test
+    void shouldNormalizeSqlForLog() {
+        // when
+        String normalized = SlowQueryLogger.normalize("SELECT *\n    FROM books\n  WHERE title = \"x\"");
+
+        // then
+        assertThat(normalized).isEqualTo("SELECT * FROM books WHERE title = 'x'");
+    }
+}
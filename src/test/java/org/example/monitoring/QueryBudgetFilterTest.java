@@ -0,0 +1,88 @@
+package org.example.monitoring;
+
+import jakarta.servlet.FilterChain;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatCode;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+// testy limitu zapytan SQL na zadanie
+class QueryBudgetFilterTest {
+
+    private RequestQueryCounter requestQueryCounter;
+    private QueryBudgetProperties properties;
+    private QueryBudgetFilter filter;
+
+    @BeforeEach
+    void setUp() {
+        requestQueryCounter = new RequestQueryCounter();
+        properties = new QueryBudgetProperties();
+        properties.setMode(QueryBudgetProperties.Mode.FAIL);
+        properties.setDefaultBudget(10);
+        properties.getEndpoints().put("/api/borrowings/**", 5);
+        properties.getEndpoints().put("/api/borrowings/my-history", 3);
+        filter = new QueryBudgetFilter(requestQueryCounter, properties);
+    }
+
+    @Test
+    void shouldPickMostSpecificBudget() {
+        // when & then
+        assertThat(filter.budgetFor("/api/borrowings/my-history")).isEqualTo(3);
+        assertThat(filter.budgetFor("/api/borrowings/all")).isEqualTo(5);
+        assertThat(filter.budgetFor("/api/books")).isEqualTo(10);
+    }
+
+    @Test
+    void shouldPassRequestWithinBudget() {
+        // given
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/borrowings/my-history");
+
+        // when & then
+        assertThatCode(() -> filter.doFilter(request, new MockHttpServletResponse(), executing(3)))
+                .doesNotThrowAnyException();
+    }
+
+    @Test
+    void shouldFailRequestOverBudget() {
+        // given
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/borrowings/my-history");
+
+        // when & then
+        assertThatThrownBy(() -> filter.doFilter(request, new MockHttpServletResponse(), executing(4)))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("queries=4 budget=3");
+    }
+
+    @Test
+    void shouldOnlyLogInLogMode() {
+        // given
+        properties.setMode(QueryBudgetProperties.Mode.LOG);
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/borrowings/my-history");
+
+        // when & then
+        assertThatCode(() -> filter.doFilter(request, new MockHttpServletResponse(), executing(20)))
+                .doesNotThrowAnyException();
+    }
+
+    @Test
+    void shouldNotCountQueriesOutsideRequest() {
+        // when
+        requestQueryCounter.afterExecute("SELECT 1", 0, 0);
+
+        // then
+        assertThat(requestQueryCounter.stop()).isZero();
+    }
+
+    // lancuch filtrow symulujacy endpoint wykonujacy podana liczbe zapytan
+    private FilterChain executing(int queries) {
+        return (request, response) -> {
+            for (int i = 0; i < queries; i++) {
+                requestQueryCounter.afterExecute("SELECT 1", 0, 0);
+            }
+        };
+    }
+}
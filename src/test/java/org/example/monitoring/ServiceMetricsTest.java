@@ -0,0 +1,52 @@
+package org.example.monitoring;
+
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// testy metryk serwisow na SimpleMeterRegistry
+class ServiceMetricsTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private ServiceMetrics serviceMetrics;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        serviceMetrics = new ServiceMetrics(meterRegistry);
+    }
+
+    @Test
+    void shouldRecordTimerPerOutcome() {
+        // when
+        serviceMetrics.record(ServiceMetrics.BORROW, ServiceMetrics.SUCCESS, System.nanoTime());
+        serviceMetrics.record(ServiceMetrics.BORROW, ServiceMetrics.SUCCESS, System.nanoTime());
+        serviceMetrics.record(ServiceMetrics.BORROW, ServiceMetrics.NOT_AVAILABLE, System.nanoTime());
+
+        // then
+        Timer success = meterRegistry.get(ServiceMetrics.BORROW).tag("outcome", ServiceMetrics.SUCCESS).timer();
+        Timer notAvailable = meterRegistry.get(ServiceMetrics.BORROW).tag("outcome", ServiceMetrics.NOT_AVAILABLE).timer();
+        assertThat(success.count()).isEqualTo(2);
+        assertThat(notAvailable.count()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldCountAuthenticationOutcomes() {
+        // given
+        AuthenticationMetricsListener listener = new AuthenticationMetricsListener(serviceMetrics);
+
+        // when
+        listener.onSuccess(null);
+        listener.onFailure(null);
+        listener.onFailure(null);
+
+        // then
+        assertThat(meterRegistry.get(ServiceMetrics.AUTHENTICATION).tag("outcome", ServiceMetrics.SUCCESS)
+                .counter().count()).isEqualTo(1.0);
+        assertThat(meterRegistry.get(ServiceMetrics.AUTHENTICATION).tag("outcome", ServiceMetrics.FAILURE)
+                .counter().count()).isEqualTo(2.0);
+    }
+}
@@ -0,0 +1,149 @@
+package org.example.notification;
+
+import org.example.model.BorrowingStatus;
+import org.example.monitoring.ServiceMetrics;
+import org.example.repository.BorrowingBatchRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+// testy potoku przypomnien: stronicowanie keyset, wysylka partiami, zapis wyslanych, liczenie bledow
+@ExtendWith(MockitoExtension.class)
+class NotificationPipelineTest {
+
+    private static final LocalDate TODAY = LocalDate.of(2024, 3, 10);
+
+    @Mock
+    private BorrowingBatchRepository borrowingBatchRepository;
+
+    @Mock
+    private ServiceMetrics serviceMetrics;
+
+    private final List<Notification> sent = Collections.synchronizedList(new ArrayList<>());
+    private NotificationPipeline pipeline;
+
+    @BeforeEach
+    void setUp() {
+        NotificationProperties properties = new NotificationProperties();
+        properties.setPageSize(2);
+        properties.setWorkerThreads(2);
+        properties.setMaxInFlightBatches(2);
+        NotificationSender sender = notifications -> {
+            if (notifications.stream().anyMatch(notification -> notification.borrowingId() == 99L)) {
+                throw new IllegalStateException("Gateway unavailable");
+            }
+            sent.addAll(notifications);
+        };
+        pipeline = new NotificationPipeline(borrowingBatchRepository, new NotificationRenderer(), sender, serviceMetrics,
+                properties);
+    }
+
+    @AfterEach
+    void tearDown() {
+        pipeline.shutdown();
+    }
+
+    @Test
+    void shouldSendDueSoonAndOverdueNotificationsPageByPage() {
+        // given
+        LocalDate dueSoon = TODAY.plusDays(2);
+        LocalDate overdueSince = TODAY.minusDays(5);
+        when(borrowingBatchRepository.findReminderCandidates(eq(BorrowingStatus.BORROWED), eq(TODAY), eq(dueSoon),
+                eq(NotificationType.DUE_SOON), anyLong(), eq(2)))
+                .thenReturn(candidates(dueSoon, 1, 2), candidates(dueSoon, 3));
+        when(borrowingBatchRepository.findOverdueCandidates(eq(NotificationType.OVERDUE), anyLong(), eq(2)))
+                .thenReturn(candidates(overdueSince, 7));
+
+        // when
+        NotificationRunResult result = pipeline.run(TODAY);
+
+        // then
+        assertThat(result.dueSoon()).isEqualTo(3);
+        assertThat(result.overdue()).isEqualTo(1);
+        assertThat(result.failed()).isZero();
+        assertThat(sent).extracting(Notification::borrowingId).containsExactlyInAnyOrder(1L, 2L, 3L, 7L);
+        assertThat(sent).filteredOn(notification -> notification.type() == NotificationType.OVERDUE)
+                .singleElement()
+                .satisfies(notification -> assertThat(notification.recipient()).isEqualTo("user7@test.com"));
+        // kolejna strona zaczyna sie po ostatnim id poprzedniej
+        verify(borrowingBatchRepository).findReminderCandidates(eq(BorrowingStatus.BORROWED), eq(TODAY), eq(dueSoon),
+                eq(NotificationType.DUE_SOON), eq(2L), eq(2));
+        verify(borrowingBatchRepository).recordNotifications(eq(NotificationType.DUE_SOON), eq(List.of(1L, 2L)), any());
+        verify(borrowingBatchRepository).recordNotifications(eq(NotificationType.DUE_SOON), eq(List.of(3L)), any());
+        verify(borrowingBatchRepository).recordNotifications(eq(NotificationType.OVERDUE), eq(List.of(7L)), any());
+        verify(serviceMetrics).record(eq(ServiceMetrics.NOTIFICATIONS_RUN), eq(ServiceMetrics.SUCCESS), anyLong());
+    }
+
+    @Test
+    void shouldCountFailedBatchAndLeaveItUnrecordedForRetry() {
+        // given
+        LocalDate dueSoon = TODAY.plusDays(2);
+        when(borrowingBatchRepository.findReminderCandidates(eq(BorrowingStatus.BORROWED), eq(TODAY), eq(dueSoon),
+                eq(NotificationType.DUE_SOON), anyLong(), eq(2)))
+                .thenReturn(candidates(dueSoon, 1, 2), candidates(dueSoon, 99, 100), candidates(dueSoon, 101));
+        when(borrowingBatchRepository.findOverdueCandidates(eq(NotificationType.OVERDUE), anyLong(), eq(2)))
+                .thenReturn(List.of());
+
+        // when
+        NotificationRunResult result = pipeline.run(TODAY);
+
+        // then
+        assertThat(result.dueSoon()).isEqualTo(3);
+        assertThat(result.failed()).isEqualTo(2);
+        verify(serviceMetrics).increment(ServiceMetrics.NOTIFICATIONS, ServiceMetrics.FAILURE, 2);
+        // nieudana partia nie ma wpisow, wiec kolejny przebieg wybierze ja ponownie
+        verify(borrowingBatchRepository, never()).recordNotifications(any(), eq(List.of(99L, 100L)), any());
+    }
+
+    @Test
+    void shouldCountBatchAsFailedWhenRecordingFails() {
+        // given
+        LocalDate dueSoon = TODAY.plusDays(2);
+        when(borrowingBatchRepository.findReminderCandidates(eq(BorrowingStatus.BORROWED), eq(TODAY), eq(dueSoon),
+                eq(NotificationType.DUE_SOON), anyLong(), eq(2)))
+                .thenReturn(candidates(dueSoon, 1));
+        when(borrowingBatchRepository.findOverdueCandidates(eq(NotificationType.OVERDUE), anyLong(), eq(2)))
+                .thenReturn(List.of());
+        doThrow(new IllegalStateException("Database unavailable")).when(borrowingBatchRepository)
+                .recordNotifications(any(), any(), any());
+
+        // when
+        NotificationRunResult result = pipeline.run(TODAY);
+
+        // then
+        assertThat(result.dueSoon()).isZero();
+        assertThat(result.failed()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldRenderDaysLeftInReminder() {
+        // when
+        Notification notification = new NotificationRenderer().render(NotificationType.DUE_SOON,
+                candidates(TODAY.plusDays(2), 5).get(0), TODAY);
+
+        // then
+        assertThat(notification.subject()).contains("Book 5").contains(TODAY.plusDays(2).toString());
+        assertThat(notification.body()).contains("within 2 day(s)");
+    }
+
+    private List<ReminderCandidate> candidates(LocalDate dueDate, long... ids) {
+        return LongStream.of(ids)
+                .mapToObj(id -> new ReminderCandidate(id, "user" + id, "user" + id + "@test.com", "Book " + id, dueDate))
+                .toList();
+    }
+}
@@ -0,0 +1,28 @@
+package org.example.outbox;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// odbiorca zdarzen w pamieci do testow; failNext symuluje niedostepnego brokera
+class InMemoryOutboxEventSink implements OutboxEventSink {
+
+    private final List<OutboxMessage> received = new ArrayList<>();
+    private boolean failNext;
+
+    @Override
+    public void publish(List<OutboxMessage> messages) {
+        if (failNext) {
+            failNext = false;
+            throw new IllegalStateException("Sink unavailable");
+        }
+        received.addAll(messages);
+    }
+
+    List<OutboxMessage> getReceived() {
+        return received;
+    }
+
+    void failNext() {
+        this.failNext = true;
+    }
+}
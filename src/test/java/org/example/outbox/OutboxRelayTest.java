@@ -0,0 +1,112 @@
+package org.example.outbox;
+
+import org.example.repository.OutboxBatchRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionStatus;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+// testy wysylki zdarzen z outboxa partiami
+@ExtendWith(MockitoExtension.class)
+class OutboxRelayTest {
+
+    @Mock
+    private OutboxBatchRepository outboxBatchRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private TransactionStatus transactionStatus;
+
+    private InMemoryOutboxEventSink sink;
+    private OutboxRelay relay;
+
+    @BeforeEach
+    void setUp() {
+        when(transactionManager.getTransaction(any())).thenReturn(transactionStatus);
+        OutboxProperties properties = new OutboxProperties();
+        properties.getRelay().setBatchSize(2);
+        properties.getRelay().setMaxBatchesPerPoll(3);
+        sink = new InMemoryOutboxEventSink();
+        relay = new OutboxRelay(outboxBatchRepository, sink, transactionManager, properties);
+    }
+
+    @Test
+    void shouldRelayBatchesUntilBacklogDrained() {
+        // given
+        when(outboxBatchRepository.lockUnpublished(2)).thenReturn(messages(1, 2), messages(3));
+
+        // when
+        int relayed = relay.relayPending();
+
+        // then
+        assertThat(relayed).isEqualTo(3);
+        assertThat(sink.getReceived()).extracting(OutboxMessage::id).containsExactly(1L, 2L, 3L);
+        verify(outboxBatchRepository).markPublished(eq(List.of(1L, 2L)), any(LocalDateTime.class));
+        verify(outboxBatchRepository).markPublished(eq(List.of(3L)), any(LocalDateTime.class));
+        verify(transactionManager, times(2)).commit(transactionStatus);
+    }
+
+    @Test
+    void shouldStopAtMaxBatchesPerPoll() {
+        // given
+        when(outboxBatchRepository.lockUnpublished(2)).thenReturn(messages(1, 2), messages(3, 4), messages(5, 6));
+
+        // when
+        int relayed = relay.relayPending();
+
+        // then
+        assertThat(relayed).isEqualTo(6);
+        verify(outboxBatchRepository, times(3)).lockUnpublished(2);
+    }
+
+    @Test
+    void shouldNotMarkBatchPublishedWhenSinkFails() {
+        // given
+        when(outboxBatchRepository.lockUnpublished(2)).thenReturn(messages(1, 2));
+        sink.failNext();
+
+        // when & then
+        // wycofana transakcja zwalnia blokady, wiec partia zostanie wyslana ponownie
+        assertThatThrownBy(() -> relay.relayPending()).isInstanceOf(IllegalStateException.class);
+        verify(outboxBatchRepository, never()).markPublished(anyList(), any());
+        verify(transactionManager).rollback(transactionStatus);
+    }
+
+    @Test
+    void shouldRetryFailedBatchOnNextPoll() {
+        // given
+        when(outboxBatchRepository.lockUnpublished(2)).thenReturn(messages(1), messages(1));
+        sink.failNext();
+
+        // when
+        relay.poll();
+        relay.poll();
+
+        // then
+        assertThat(sink.getReceived()).extracting(OutboxMessage::id).containsExactly(1L);
+        verify(outboxBatchRepository).markPublished(eq(List.of(1L)), any(LocalDateTime.class));
+    }
+
+    private List<OutboxMessage> messages(long... ids) {
+        return LongStream.of(ids)
+                .mapToObj(id -> new OutboxMessage(id, "Borrowing", id, "BorrowingCreated",
+                        "{\"borrowingId\":" + id + "}", LocalDateTime.now()))
+                .toList();
+    }
+}
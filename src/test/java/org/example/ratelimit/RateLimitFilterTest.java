@@ -0,0 +1,177 @@
+package org.example.ratelimit;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.FilterChain;
+import org.example.monitoring.ServiceMetrics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// testy limitow zadan i odrzucania ruchu przy przeciazonej puli
+class RateLimitFilterTest {
+
+    private MeterRegistry meterRegistry;
+    private RateLimitProperties properties;
+    private RateLimitFilter filter;
+    private AtomicInteger passed;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        properties = new RateLimitProperties();
+        properties.setSearch(new RateLimitProperties.Limit(2, 0.001));
+        properties.setBorrow(new RateLimitProperties.Limit(1, 0.001));
+        properties.getShedding().setSampleIntervalMs(0);
+        filter = new RateLimitFilter(properties, new LoadShedder(meterRegistry, properties.getShedding()),
+                new ServiceMetrics(meterRegistry));
+        passed = new AtomicInteger();
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+        filter.destroy();
+    }
+
+    @Test
+    void shouldRejectSearchOverLimitWithRetryAfter() throws Exception {
+        // given
+        authenticate("alice");
+
+        // when
+        perform("GET", "/api/books/search");
+        perform("GET", "/api/books/search");
+        MockHttpServletResponse response = perform("GET", "/api/books/search");
+
+        // then
+        assertThat(passed.get()).isEqualTo(2);
+        assertThat(response.getStatus()).isEqualTo(429);
+        assertThat(Long.parseLong(response.getHeader("Retry-After"))).isPositive();
+        assertThat(response.getContentAsString()).contains("\"error\"");
+        assertThat(meterRegistry.counter(ServiceMetrics.REJECTED, "outcome", ServiceMetrics.RATE_LIMITED).count())
+                .isEqualTo(1);
+    }
+
+    @Test
+    void shouldLimitEachUserSeparately() throws Exception {
+        // given
+        authenticate("alice");
+        perform("POST", "/api/borrowings/borrow/1");
+
+        // when
+        authenticate("bob");
+        MockHttpServletResponse response = perform("POST", "/api/borrowings/borrow/1");
+
+        // then
+        assertThat(response.getStatus()).isEqualTo(200);
+        assertThat(passed.get()).isEqualTo(2);
+    }
+
+    @Test
+    void shouldKeepSeparateBudgetsForSearchAndBorrow() throws Exception {
+        // given
+        authenticate("alice");
+        perform("POST", "/api/borrowings/borrow/1");
+
+        // when
+        MockHttpServletResponse borrow = perform("POST", "/api/borrowings/borrow/2");
+        MockHttpServletResponse search = perform("GET", "/api/books/search");
+
+        // then
+        assertThat(borrow.getStatus()).isEqualTo(429);
+        assertThat(search.getStatus()).isEqualTo(200);
+    }
+
+    @Test
+    void shouldNotLimitOtherEndpointsOrAnonymousRequests() throws Exception {
+        // when
+        for (int i = 0; i < 5; i++) {
+            perform("GET", "/api/books/search");
+        }
+        authenticate("alice");
+        for (int i = 0; i < 5; i++) {
+            perform("GET", "/api/books");
+        }
+
+        // then
+        assertThat(passed.get()).isEqualTo(10);
+    }
+
+    @Test
+    void shouldShedSearchWhenPoolWaitExceedsThreshold() throws Exception {
+        // given
+        authenticate("alice");
+        Timer acquire = meterRegistry.timer(LoadShedder.ACQUIRE_TIMER, "pool", "bookstore-interactive");
+        acquire.record(500, TimeUnit.MILLISECONDS);
+
+        // when
+        MockHttpServletResponse search = perform("GET", "/api/books/search");
+        MockHttpServletResponse borrow = perform("POST", "/api/borrowings/borrow/1");
+
+        // then
+        assertThat(search.getStatus()).isEqualTo(503);
+        assertThat(search.getHeader("Retry-After")).isEqualTo("2");
+        assertThat(borrow.getStatus()).isEqualTo(200);
+    }
+
+    @Test
+    void shouldStopSheddingWhenPoolRecovers() throws Exception {
+        // given
+        authenticate("alice");
+        Timer acquire = meterRegistry.timer(LoadShedder.ACQUIRE_TIMER, "pool", "bookstore-interactive");
+        acquire.record(500, TimeUnit.MILLISECONDS);
+        perform("GET", "/api/books/search");
+
+        // when
+        acquire.record(1, TimeUnit.MILLISECONDS);
+        MockHttpServletResponse response = perform("GET", "/api/books/search");
+
+        // then
+        assertThat(response.getStatus()).isEqualTo(200);
+    }
+
+    @Test
+    void shouldEvictIdleBucketsOnItsOwnThread() throws Exception {
+        // given - kubelek odnawia sie od razu, przeglad co 10 ms, bez harmonogramu Springa
+        filter.destroy();
+        properties.setSearch(new RateLimitProperties.Limit(2, 1000));
+        properties.setEvictionIntervalMs(10);
+        filter = new RateLimitFilter(properties, new LoadShedder(meterRegistry, properties.getShedding()),
+                new ServiceMetrics(meterRegistry));
+        authenticate("alice");
+
+        // when
+        perform("GET", "/api/books/search");
+
+        // then
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (filter.trackedUsers() > 0 && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        assertThat(filter.trackedUsers()).isZero();
+    }
+
+    private void authenticate(String username) {
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(username, null, AuthorityUtils.createAuthorityList("ROLE_USER")));
+    }
+
+    private MockHttpServletResponse perform(String method, String path) throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        FilterChain chain = (request, servletResponse) -> passed.incrementAndGet();
+        filter.doFilter(new MockHttpServletRequest(method, path), response, chain);
+        return response;
+    }
+}
@@ -0,0 +1,43 @@
+package org.example.ratelimit;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// testy usuwania kubelkow nieaktywnych uzytkownikow
+class RateLimiterTest {
+
+    @Test
+    void shouldEvictOnlyBucketsThatRefilled() {
+        // given - oba kubelki czesciowo zuzyte, odnowienie jednego tokenu trwa 1000 s
+        RateLimiter limiter = new RateLimiter(new RateLimitProperties.Limit(2, 0.001));
+        limiter.tryAcquire("active");
+        limiter.tryAcquire("idle");
+        long now = System.nanoTime();
+
+        // when
+        int evictedNow = limiter.evictFull(now);
+        int evictedLater = limiter.evictFull(now + TimeUnit.SECONDS.toNanos(2000));
+
+        // then
+        assertThat(evictedNow).isZero();
+        assertThat(evictedLater).isEqualTo(2);
+        assertThat(limiter.trackedUsers()).isZero();
+    }
+
+    @Test
+    void shouldNotSweepOnRequests() {
+        // given
+        RateLimiter limiter = new RateLimiter(new RateLimitProperties.Limit(5, 1000));
+
+        // when - pelne kubelki wielu uzytkownikow zostaja do przegladu z harmonogramu
+        for (int i = 0; i < 100; i++) {
+            limiter.tryAcquire("user" + i);
+        }
+
+        // then
+        assertThat(limiter.trackedUsers()).isEqualTo(100);
+    }
+}
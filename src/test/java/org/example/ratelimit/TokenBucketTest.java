@@ -0,0 +1,62 @@
+package org.example.ratelimit;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.within;
+
+// testy kubelka tokenow
+class TokenBucketTest {
+
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    @Test
+    void shouldAllowBurstUpToCapacity() {
+        // given
+        TokenBucket bucket = new TokenBucket(3, 1, 0);
+
+        // when & then
+        assertThat(bucket.tryConsume(0)).isZero();
+        assertThat(bucket.tryConsume(0)).isZero();
+        assertThat(bucket.tryConsume(0)).isZero();
+        assertThat(bucket.tryConsume(0)).isCloseTo(SECOND, within(1L));
+    }
+
+    @Test
+    void shouldRefillOverTime() {
+        // given
+        TokenBucket bucket = new TokenBucket(1, 2, 0);
+        bucket.tryConsume(0);
+
+        // when & then
+        assertThat(bucket.tryConsume(SECOND / 4)).isCloseTo(SECOND / 4, within(1L));
+        assertThat(bucket.tryConsume(SECOND)).isZero();
+    }
+
+    @Test
+    void shouldNotExceedCapacityAfterLongIdle() {
+        // given
+        TokenBucket bucket = new TokenBucket(2, 1, 0);
+
+        // when
+        long tenMinutes = TimeUnit.MINUTES.toNanos(10);
+        bucket.tryConsume(tenMinutes);
+        bucket.tryConsume(tenMinutes);
+
+        // then
+        assertThat(bucket.tryConsume(tenMinutes)).isPositive();
+        assertThat(bucket.isFull(tenMinutes + 3 * SECOND)).isTrue();
+    }
+
+    @Test
+    void shouldRejectInvalidConfiguration() {
+        // when & then
+        assertThatThrownBy(() -> new TokenBucket(0, 1, 0))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new TokenBucket(1, 0, 0))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -133,4 +133,67 @@ class BookRepositoryTest {
         // then
         assertThat(books).isEmpty();
     }
-}
\ No newline at end of file
+
+    @Test
+    void shouldIncrementVersionOnUpdate() {
+        // given
+        AbstractBook savedBook = bookRepository.saveAndFlush(physicalBook);
+        assertThat(savedBook.getVersion()).isZero();
+
+        // when
+        savedBook.setAvailableCopies(2);
+        AbstractBook updatedBook = bookRepository.saveAndFlush(savedBook);
+
+        // then
+        assertThat(updatedBook.getVersion()).isEqualTo(1L);
+        assertThat(updatedBook.getUpdatedAt()).isNotNull();
+    }
+
+    @Test
+    void shouldSummarizeCatalogState() {
+        // given
+        bookRepository.saveAndFlush(physicalBook);
+        AbstractBook savedEBook = bookRepository.saveAndFlush(eBook);
+        savedEBook.setAvailableCopies(4);
+        bookRepository.saveAndFlush(savedEBook);
+
+        // when
+        BookRepository.CatalogState state = bookRepository.findCatalogState();
+
+        // then
+        assertThat(state.getBookCount()).isEqualTo(2L);
+        assertThat(state.getVersionSum()).isEqualTo(1L);
+        assertThat(state.getMaxId()).isEqualTo(savedEBook.getId());
+    }
+
+    @Test
+    void shouldTakeCopiesOnlyWhileAvailable() {
+        // given
+        AbstractBook savedBook = bookRepository.saveAndFlush(new PhysicalBook("Last Copy", "Author", 1, 1));
+
+        // when
+        var first = bookRepository.takeCopy(savedBook.getId());
+        var second = bookRepository.takeCopy(savedBook.getId());
+
+        // then - wczytana wczesniej encja jest odswiezona stanem po zmianie
+        assertThat(first).containsSame(savedBook);
+        assertThat(savedBook.getAvailableCopies()).isZero();
+        assertThat(savedBook.getVersion()).isEqualTo(1L);
+        assertThat(second).isEmpty();
+    }
+
+    @Test
+    void shouldNotPutBackMoreCopiesThanTotal() {
+        // given
+        AbstractBook savedBook = bookRepository.saveAndFlush(new PhysicalBook("Returned", "Author", 1, 2));
+
+        // when
+        boolean first = bookRepository.putBackCopy(savedBook);
+        boolean second = bookRepository.putBackCopy(savedBook);
+
+        // then
+        assertThat(first).isTrue();
+        assertThat(second).isFalse();
+        assertThat(savedBook.getAvailableCopies()).isEqualTo(2);
+    }
+}
@@ -0,0 +1,143 @@
+package org.example.repository;
+
+import org.example.dataTransfer.AdminBorrowingView;
+import org.example.model.*;
+import org.example.notification.NotificationType;
+import org.example.notification.ReminderCandidate;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import javax.sql.DataSource;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// testy zapytan BorrowingBatchRepository na schemacie testowym; w tescie "batchJdbcTemplate" korzysta
+// z tej samej bazy co JPA, wiec widzi dane zapisane w transakcji testu po flush
+@DataJpaTest
+@ActiveProfiles("test")
+@Import(BorrowingBatchRepository.class)
+class BorrowingBatchRepositoryTest {
+
+    @TestConfiguration
+    static class BatchJdbcConfig {
+
+        @Bean
+        JdbcTemplate batchJdbcTemplate(DataSource dataSource) {
+            return new JdbcTemplate(dataSource);
+        }
+    }
+
+    @Autowired
+    private BorrowingBatchRepository borrowingBatchRepository;
+
+    @Autowired
+    private BorrowingRepository borrowingRepository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    private User testUser;
+    private AbstractBook testBook;
+    private Borrowing testBorrowing;
+
+    @BeforeEach
+    void setUp() {
+        // przygotowanie danych testowych
+        testUser = entityManager.persistAndFlush(new User("testuser", "password", "test@example.com", Role.USER));
+        testBook = entityManager.persistAndFlush(new PhysicalBook("Test Book", "Test Author", 2, 3));
+        testBorrowing = new Borrowing(
+                testUser,
+                testBook,
+                BorrowingStatus.BORROWED,
+                LocalDate.now(),
+                LocalDate.now().plusDays(14)
+        );
+    }
+
+    @Test
+    void shouldPageReminderCandidatesByKeyset() {
+        // given - trzy wypozyczenia z terminem za 2 dni i jedno z innym terminem (kazde innego egzemplarza,
+        // bo uzytkownik ma najwyzej jedno aktywne wypozyczenie danej ksiazki)
+        LocalDate dueDate = LocalDate.now().plusDays(2);
+        Long[] ids = new Long[3];
+        for (int i = 0; i < 3; i++) {
+            AbstractBook book = entityManager.persist(new PhysicalBook("Test Book", "Test Author", 2, 3));
+            ids[i] = borrowingRepository.save(new Borrowing(testUser, book, BorrowingStatus.BORROWED,
+                    LocalDate.now(), dueDate)).getId();
+        }
+        borrowingRepository.save(testBorrowing);
+        entityManager.flush();
+        entityManager.clear();
+
+        // when
+        List<ReminderCandidate> firstPage = borrowingBatchRepository.findReminderCandidates(
+                BorrowingStatus.BORROWED, dueDate, dueDate, NotificationType.DUE_SOON, 0, 2);
+        List<ReminderCandidate> secondPage = borrowingBatchRepository.findReminderCandidates(
+                BorrowingStatus.BORROWED, dueDate, dueDate, NotificationType.DUE_SOON, firstPage.get(1).borrowingId(),
+                2);
+
+        // then
+        assertThat(firstPage).extracting(ReminderCandidate::borrowingId).containsExactly(ids[0], ids[1]);
+        assertThat(secondPage).extracting(ReminderCandidate::borrowingId).containsExactly(ids[2]);
+        assertThat(secondPage.get(0).email()).isEqualTo("test@example.com");
+        assertThat(secondPage.get(0).bookTitle()).isEqualTo("Test Book");
+    }
+
+    @Test
+    void shouldSkipOverdueBorrowingsAlreadyNotified() {
+        // given - dwa przeterminowane wypozyczenia o roznym terminie, jedno juz powiadomione
+        Borrowing notified = borrowingRepository.save(new Borrowing(testUser, testBook, BorrowingStatus.OVERDUE,
+                LocalDate.now().minusDays(30), LocalDate.now().minusDays(16)));
+        Borrowing pending = borrowingRepository.save(new Borrowing(testUser, testBook, BorrowingStatus.OVERDUE,
+                LocalDate.now().minusDays(20), LocalDate.now().minusDays(6)));
+        entityManager.persist(new BorrowingNotification(notified.getId(), NotificationType.OVERDUE,
+                LocalDateTime.now()));
+        // przypomnienie o terminie nie liczy sie jako powiadomienie o przeterminowaniu
+        entityManager.persist(new BorrowingNotification(pending.getId(), NotificationType.DUE_SOON,
+                LocalDateTime.now()));
+        entityManager.flush();
+        entityManager.clear();
+
+        // when
+        List<ReminderCandidate> candidates = borrowingBatchRepository.findOverdueCandidates(
+                NotificationType.OVERDUE, 0, 10);
+
+        // then
+        assertThat(candidates).extracting(ReminderCandidate::borrowingId).containsExactly(pending.getId());
+    }
+
+    @Test
+    void shouldExportAdminViewsInIdOrder() {
+        // given
+        Borrowing returned = new Borrowing(testUser, testBook, BorrowingStatus.RETURNED,
+                LocalDate.of(2024, 3, 1), LocalDate.of(2024, 3, 15));
+        returned.setReturnDate(LocalDate.of(2024, 3, 10));
+        returned = borrowingRepository.save(returned);
+        Borrowing active = borrowingRepository.save(testBorrowing);
+        entityManager.flush();
+        List<AdminBorrowingView> exported = new ArrayList<>();
+
+        // when
+        borrowingBatchRepository.exportAdminViews(exported::add);
+
+        // then
+        assertThat(exported).containsExactly(
+                new AdminBorrowingView(returned.getId(), testUser.getId(), "testuser", testBook.getId(), "Test Book",
+                        BorrowingStatus.RETURNED, LocalDate.of(2024, 3, 1), LocalDate.of(2024, 3, 15),
+                        LocalDate.of(2024, 3, 10)),
+                new AdminBorrowingView(active.getId(), testUser.getId(), "testuser", testBook.getId(), "Test Book",
+                        BorrowingStatus.BORROWED, active.getBorrowDate(), active.getDueDate(), null));
+    }
+}
@@ -1,11 +1,14 @@
 package org.example.repository;
 
 import org.example.model.*;
+import org.hibernate.Hibernate;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.test.context.ActiveProfiles;
 
 import java.time.LocalDate;
@@ -13,6 +16,7 @@ import java.util.List;
 import java.util.Optional;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowableOfType;
 
 // testy dla BorrowingRepository
 @DataJpaTest
@@ -22,6 +26,9 @@ class BorrowingRepositoryTest {
     @Autowired
     private BorrowingRepository borrowingRepository;
 
+    @Autowired
+    private ArchivedBorrowingRepository archivedBorrowingRepository;
+
     @Autowired
     private TestEntityManager entityManager;
 
@@ -74,6 +81,22 @@ class BorrowingRepositoryTest {
         assertThat(borrowings.get(0).getUser().getId()).isEqualTo(testUser.getId());
     }
 
+    @Test
+    void shouldFetchUserAndBookWithHistory() {
+        // given - pusty kontekst utrwalania, jak w nowym zadaniu bez open-in-view
+        borrowingRepository.save(testBorrowing);
+        entityManager.flush();
+        entityManager.clear();
+
+        // when
+        List<Borrowing> borrowings = borrowingRepository.findByUser(testUser);
+
+        // then - relacje zaladowane w zapytaniu, serializacja nie potrzebuje sesji
+        assertThat(borrowings).hasSize(1);
+        assertThat(Hibernate.isInitialized(borrowings.get(0).getUser())).isTrue();
+        assertThat(Hibernate.isInitialized(borrowings.get(0).getBook())).isTrue();
+    }
+
     @Test
     void shouldFindByUserAndStatus() {
         // given
@@ -151,4 +174,93 @@ class BorrowingRepositoryTest {
         // then
         assertThat(activeBorrowing).isEmpty();
     }
-}
\ No newline at end of file
+
+    @Test
+    void shouldPageHistoryNewestFirstWithStatusFilter() {
+        // given - dwa wypozyczenia tego samego dnia (kolejnosc rozstrzyga id) i jedno starsze
+        Borrowing oldest = borrowingRepository.save(new Borrowing(testUser, testBook, BorrowingStatus.RETURNED,
+                LocalDate.of(2024, 1, 1), LocalDate.of(2024, 1, 15)));
+        Borrowing sameDayFirst = borrowingRepository.save(new Borrowing(testUser, testBook, BorrowingStatus.RETURNED,
+                LocalDate.of(2024, 2, 1), LocalDate.of(2024, 2, 15)));
+        Borrowing sameDaySecond = borrowingRepository.save(new Borrowing(testUser, testBook, BorrowingStatus.BORROWED,
+                LocalDate.of(2024, 2, 1), LocalDate.of(2024, 2, 15)));
+        entityManager.flush();
+        entityManager.clear();
+
+        // when
+        List<Borrowing> firstPage = borrowingRepository.findHistoryPage(testUser.getId(),
+                LocalDate.of(9999, 12, 31), Long.MAX_VALUE, PageRequest.of(0, 2));
+        List<Borrowing> secondPage = borrowingRepository.findHistoryPage(testUser.getId(),
+                LocalDate.of(2024, 2, 1), sameDayFirst.getId(), PageRequest.of(0, 2));
+        List<Borrowing> returned = borrowingRepository.findHistoryPageByStatus(testUser.getId(),
+                BorrowingStatus.RETURNED, LocalDate.of(9999, 12, 31), Long.MAX_VALUE, PageRequest.of(0, 10));
+
+        // then
+        assertThat(firstPage).extracting(Borrowing::getId).containsExactly(sameDaySecond.getId(), sameDayFirst.getId());
+        assertThat(secondPage).extracting(Borrowing::getId).containsExactly(oldest.getId());
+        assertThat(returned).extracting(Borrowing::getId).containsExactly(sameDayFirst.getId(), oldest.getId());
+        assertThat(Hibernate.isInitialized(firstPage.get(0).getBook())).isTrue();
+    }
+
+    @Test
+    void shouldReadArchivedHistoryAsBorrowings() {
+        // given - archiwum zachowuje id z tabeli biezacej
+        Borrowing source = new Borrowing(testUser, testBook, BorrowingStatus.RETURNED,
+                LocalDate.of(2022, 5, 1), LocalDate.of(2022, 5, 15));
+        source.setId(1000L);
+        source.setReturnDate(LocalDate.of(2022, 5, 10));
+        entityManager.persist(new ArchivedBorrowing(source));
+        entityManager.flush();
+        entityManager.clear();
+
+        // when
+        List<ArchivedBorrowing> page = archivedBorrowingRepository.findHistoryPage(testUser.getId(),
+                LocalDate.of(9999, 12, 31), Long.MAX_VALUE, PageRequest.of(0, 10));
+        List<ArchivedBorrowing> expired = archivedBorrowingRepository.findHistoryPageByStatus(testUser.getId(),
+                BorrowingStatus.EXPIRED, LocalDate.of(9999, 12, 31), Long.MAX_VALUE, PageRequest.of(0, 10));
+
+        // then
+        assertThat(page).hasSize(1);
+        Borrowing restored = page.get(0).toBorrowing();
+        assertThat(restored.getId()).isEqualTo(1000L);
+        assertThat(restored.getReturnDate()).isEqualTo(LocalDate.of(2022, 5, 10));
+        assertThat(restored.getBook().getTitle()).isEqualTo("Test Book");
+        assertThat(expired).isEmpty();
+    }
+
+    @Test
+    void shouldDeleteArchivedBorrowingsOfBook() {
+        // given
+        Borrowing source = new Borrowing(testUser, testBook, BorrowingStatus.RETURNED,
+                LocalDate.of(2022, 5, 1), LocalDate.of(2022, 5, 15));
+        source.setId(1001L);
+        entityManager.persist(new ArchivedBorrowing(source));
+        entityManager.flush();
+
+        // when
+        int deleted = archivedBorrowingRepository.deleteByBookId(testBook.getId());
+
+        // then
+        assertThat(deleted).isEqualTo(1);
+        assertThat(archivedBorrowingRepository.findByUserId(testUser.getId())).isEmpty();
+    }
+
+    @Test
+    void shouldAllowOnlyOneActiveBorrowingPerUserAndBook() {
+        // given - zakonczone wypozyczenia tej samej ksiazki nie blokuja nowego
+        borrowingRepository.saveAndFlush(new Borrowing(testUser, testBook, BorrowingStatus.RETURNED,
+                LocalDate.of(2024, 1, 1), LocalDate.of(2024, 1, 15)));
+        borrowingRepository.saveAndFlush(new Borrowing(testUser, testBook, BorrowingStatus.EXPIRED,
+                LocalDate.of(2024, 2, 1), LocalDate.of(2024, 2, 15)));
+        borrowingRepository.saveAndFlush(testBorrowing);
+
+        // when
+        DataIntegrityViolationException violation = catchThrowableOfType(() -> borrowingRepository.saveAndFlush(
+                new Borrowing(testUser, testBook, BorrowingStatus.RESERVED, LocalDate.now(), LocalDate.now())),
+                DataIntegrityViolationException.class);
+
+        // then - drugie aktywne wypozyczenie odrzuca indeks uq_borrowings_active_user_book
+        assertThat(ConstraintViolations.isViolationOf(violation,
+                ConstraintViolations.ACTIVE_BORROWING_PER_USER_BOOK)).isTrue();
+    }
+}
@@ -0,0 +1,71 @@
+package org.example.repository;
+
+import org.example.model.*;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// testy dla ReservationRepository
+@DataJpaTest
+@ActiveProfiles("test")
+class ReservationRepositoryTest {
+
+    @Autowired
+    private ReservationRepository reservationRepository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    private User borrower;
+    private User waiter;
+    private AbstractBook book;
+
+    @BeforeEach
+    void setUp() {
+        borrower = entityManager.persistAndFlush(new User("borrower", "password", "borrower@test.com", Role.USER));
+        waiter = entityManager.persistAndFlush(new User("waiter", "password", "waiter@test.com", Role.USER));
+        book = entityManager.persistAndFlush(new PhysicalBook("Hot Book", "Test Author", 0, 2));
+    }
+
+    @Test
+    void shouldSkipWaitersWhoAlreadyHoldTheBook() {
+        // given - pierwsza osoba w kolejce wypozyczyla w miedzyczasie wolny egzemplarz
+        Reservation first = entityManager.persist(new Reservation(borrower, book));
+        Reservation second = entityManager.persist(new Reservation(waiter, book));
+        entityManager.persist(new Borrowing(borrower, book, BorrowingStatus.BORROWED,
+                LocalDate.now(), LocalDate.now().plusDays(14)));
+        entityManager.flush();
+
+        // when
+        List<Reservation> next = reservationRepository.findNextWaiting(book.getId(), PageRequest.of(0, 1));
+
+        // then
+        assertThat(next).extracting(Reservation::getId).containsExactly(second.getId());
+        assertThat(first.getStatus()).isEqualTo(ReservationStatus.WAITING);
+    }
+
+    @Test
+    void shouldServeWaiterAgainAfterTheirLoanCloses() {
+        // given
+        Reservation first = entityManager.persist(new Reservation(borrower, book));
+        entityManager.persist(new Reservation(waiter, book));
+        entityManager.persist(new Borrowing(borrower, book, BorrowingStatus.RETURNED,
+                LocalDate.now().minusDays(20), LocalDate.now().minusDays(6)));
+        entityManager.flush();
+
+        // when
+        List<Reservation> next = reservationRepository.findNextWaiting(book.getId(), PageRequest.of(0, 1));
+
+        // then
+        assertThat(next).extracting(Reservation::getId).containsExactly(first.getId());
+    }
+}
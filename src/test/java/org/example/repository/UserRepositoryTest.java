@@ -6,11 +6,13 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.test.context.ActiveProfiles;
 
 import java.util.Optional;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowableOfType;
 
 // testy dla UserRepository
 @DataJpaTest
@@ -106,4 +108,20 @@ class UserRepositoryTest {
         // then
         assertThat(foundUser).isEmpty();
     }
-}
\ No newline at end of file
+
+    @Test
+    void shouldRecognizeViolatedConstraintByExactName() {
+        // given
+        userRepository.saveAndFlush(testUser);
+
+        // when
+        DataIntegrityViolationException violation = catchThrowableOfType(() -> userRepository.saveAndFlush(
+                new User("testuser", "password123", "other@example.com", Role.USER)),
+                DataIntegrityViolationException.class);
+
+        // then - H2 podaje nazwe indeksu ze schematem i sufiksem, rozpoznajemy ja po nazwie ograniczenia
+        assertThat(ConstraintViolations.isViolationOf(violation, ConstraintViolations.USER_USERNAME)).isTrue();
+        assertThat(ConstraintViolations.isViolationOf(violation, ConstraintViolations.USER_EMAIL)).isFalse();
+        assertThat(ConstraintViolations.isViolationOf(violation, "uq_users")).isFalse();
+    }
+}
@@ -0,0 +1,49 @@
+package org.example.security;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// testy doboru kosztu BCrypt do czasu docelowego
+class BCryptCalibrationTest {
+
+    private static final long MS = 1_000_000;
+
+    @Test
+    void shouldDoubleStrengthWhileWithinTarget() {
+        // when & then - 60 ms przy koszcie 10: 11 -> 120 ms, 12 -> 240 ms, 13 -> 480 ms
+        assertThat(BCryptCalibration.strengthFor(250 * MS, 60 * MS, 10, 14)).isEqualTo(12);
+        assertThat(BCryptCalibration.strengthFor(240 * MS, 60 * MS, 10, 14)).isEqualTo(12);
+    }
+
+    @Test
+    void shouldStayWithinBounds() {
+        // when & then
+        assertThat(BCryptCalibration.strengthFor(250 * MS, 400 * MS, 10, 14)).isEqualTo(10);
+        assertThat(BCryptCalibration.strengthFor(10_000 * MS, 1 * MS, 10, 14)).isEqualTo(14);
+    }
+
+    @Test
+    void shouldUseConfiguredStrengthWithoutMeasuring() {
+        // given
+        PasswordHashingProperties properties = new PasswordHashingProperties();
+        properties.setBcryptStrength(4);
+
+        // when & then
+        assertThat(BCryptCalibration.strength(properties)).isEqualTo(4);
+    }
+
+    @Test
+    void shouldCalibrateWithinConfiguredBounds() {
+        // given
+        PasswordHashingProperties properties = new PasswordHashingProperties();
+        properties.setMinBcryptStrength(4);
+        properties.setMaxBcryptStrength(6);
+
+        // when
+        int strength = BCryptCalibration.strength(properties);
+
+        // then
+        assertThat(strength).isBetween(4, 6);
+    }
+}
@@ -0,0 +1,151 @@
+package org.example.security;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.example.monitoring.ServiceMetrics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.CredentialsContainer;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// testy pamieci danych logowania na sztucznym zegarze
+class BoundedUserCacheTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private UserCacheProperties properties;
+    private long now;
+    private BoundedUserCache cache;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        properties = new UserCacheProperties();
+        properties.setMaxEntries(2);
+        properties.setTtl(Duration.ofMinutes(5));
+        properties.setMaxMissingEntries(2);
+        properties.setMissingTtl(Duration.ofSeconds(30));
+        now = 0;
+        cache = new BoundedUserCache(properties, new ServiceMetrics(meterRegistry), () -> now);
+    }
+
+    @Test
+    void shouldReturnCopyUntilTtlExpires() {
+        // given
+        cache.putUserInCache(user("reader"));
+
+        // when
+        UserDetails first = cache.getUserFromCache("reader");
+        ((CredentialsContainer) first).eraseCredentials();
+        now += TimeUnit.MINUTES.toNanos(4);
+        UserDetails second = cache.getUserFromCache("reader");
+        now += TimeUnit.MINUTES.toNanos(2);
+        UserDetails expired = cache.getUserFromCache("reader");
+
+        // then - wyczyszczenie hasla w zwroconej kopii nie psuje zapamietanego wpisu
+        assertThat(second.getPassword()).isEqualTo("{bcrypt}hash");
+        assertThat(second.getAuthorities()).extracting("authority").containsExactly("ROLE_USER");
+        assertThat(expired).isNull();
+        assertThat(cache.size()).isZero();
+        assertThat(count(ServiceMetrics.HIT)).isEqualTo(2);
+        assertThat(count(ServiceMetrics.MISS)).isEqualTo(1);
+    }
+
+    @Test
+    void shouldEvictLeastRecentlyUsedOverLimit() {
+        // given
+        cache.putUserInCache(user("first"));
+        cache.putUserInCache(user("second"));
+        cache.getUserFromCache("first");
+
+        // when
+        cache.putUserInCache(user("third"));
+
+        // then
+        assertThat(cache.size()).isEqualTo(2);
+        assertThat(cache.getUserFromCache("first")).isNotNull();
+        assertThat(cache.getUserFromCache("second")).isNull();
+        assertThat(cache.getUserFromCache("third")).isNotNull();
+    }
+
+    @Test
+    void shouldRememberMissingUsernamesBriefly() {
+        // given
+        cache.putMissing("bot-1");
+
+        // when & then
+        assertThat(cache.isKnownMissing("bot-1")).isTrue();
+        assertThat(cache.isKnownMissing("other")).isFalse();
+        now += TimeUnit.SECONDS.toNanos(31);
+        assertThat(cache.isKnownMissing("bot-1")).isFalse();
+        assertThat(cache.missingSize()).isZero();
+        assertThat(count(ServiceMetrics.MISSING_HIT)).isEqualTo(1);
+    }
+
+    @Test
+    void shouldBoundMissingUsernames() {
+        // when
+        cache.putMissing("bot-1");
+        cache.putMissing("bot-2");
+        cache.putMissing("bot-3");
+
+        // then
+        assertThat(cache.missingSize()).isEqualTo(2);
+        assertThat(cache.isKnownMissing("bot-1")).isFalse();
+        assertThat(cache.isKnownMissing("bot-3")).isTrue();
+    }
+
+    @Test
+    void shouldRemoveBothEntriesOnEviction() {
+        // given
+        cache.putUserInCache(user("reader"));
+        cache.putMissing("newcomer");
+
+        // when
+        cache.removeUserFromCache("reader");
+        cache.removeUserFromCache("newcomer");
+
+        // then
+        assertThat(cache.getUserFromCache("reader")).isNull();
+        assertThat(cache.isKnownMissing("newcomer")).isFalse();
+    }
+
+    @Test
+    void shouldClearMissingMarkWhenUserIsCached() {
+        // given
+        cache.putMissing("reader");
+
+        // when
+        cache.putUserInCache(user("reader"));
+
+        // then
+        assertThat(cache.isKnownMissing("reader")).isFalse();
+    }
+
+    @Test
+    void shouldDoNothingWhenDisabled() {
+        // given
+        properties.setEnabled(false);
+
+        // when
+        cache.putUserInCache(user("reader"));
+        cache.putMissing("bot-1");
+
+        // then
+        assertThat(cache.getUserFromCache("reader")).isNull();
+        assertThat(cache.isKnownMissing("bot-1")).isFalse();
+        assertThat(meterRegistry.find(ServiceMetrics.USER_CACHE).counter()).isNull();
+    }
+
+    private UserDetails user(String username) {
+        return User.withUsername(username).password("{bcrypt}hash").roles("USER").build();
+    }
+
+    private double count(String outcome) {
+        return meterRegistry.get(ServiceMetrics.USER_CACHE).tag("outcome", outcome).counter().count();
+    }
+}
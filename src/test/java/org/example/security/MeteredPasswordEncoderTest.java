@@ -0,0 +1,93 @@
+package org.example.security;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.example.monitoring.ServiceMetrics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.DelegatingPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// testy kodera hasel w ukladzie z PasswordHashingConfig: {bcrypt} + hashe bez prefiksu + pomiar czasu
+class MeteredPasswordEncoderTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private PasswordEncoder encoder;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        PasswordEncoder bcrypt = new BCryptPasswordEncoder(5);
+        DelegatingPasswordEncoder delegating = new DelegatingPasswordEncoder("bcrypt", Map.of("bcrypt", bcrypt));
+        delegating.setDefaultPasswordEncoderForMatches(bcrypt);
+        encoder = new MeteredPasswordEncoder(new LegacyBCryptUpgradeEncoder(delegating, 5),
+                new ServiceMetrics(meterRegistry));
+    }
+
+    @Test
+    void shouldEncodeWithPrefixAndConfiguredStrength() {
+        // when
+        String hash = encoder.encode("secret");
+
+        // then
+        assertThat(hash).startsWith("{bcrypt}$2a$05$");
+        assertThat(encoder.matches("secret", hash)).isTrue();
+        assertThat(encoder.upgradeEncoding(hash)).isFalse();
+        assertThat(timerCount(ServiceMetrics.PASSWORD_ENCODE, ServiceMetrics.SUCCESS)).isEqualTo(1);
+        assertThat(timerCount(ServiceMetrics.PASSWORD_MATCH, ServiceMetrics.SUCCESS)).isEqualTo(1);
+    }
+
+    @Test
+    void shouldMatchLegacyHashAndAskForUpgrade() {
+        // given - hash bez prefiksu, jak dane z V1
+        String legacy = new BCryptPasswordEncoder(4).encode("secret");
+
+        // when & then
+        assertThat(encoder.matches("secret", legacy)).isTrue();
+        assertThat(encoder.upgradeEncoding(legacy)).isTrue();
+    }
+
+    @Test
+    void shouldKeepLegacyHashWithCostNotBelowCurrent() {
+        // given - hash bez prefiksu o koszcie wyzszym od biezacego; przepisanie zapisaloby slabszy hash
+        String stronger = new BCryptPasswordEncoder(6).encode("secret");
+        String same = new BCryptPasswordEncoder(5).encode("secret");
+
+        // when & then
+        assertThat(encoder.matches("secret", stronger)).isTrue();
+        assertThat(encoder.upgradeEncoding(stronger)).isFalse();
+        assertThat(encoder.upgradeEncoding(same)).isFalse();
+    }
+
+    @Test
+    void shouldAskForUpgradeOfWeakerHashOnly() {
+        // given
+        String weaker = "{bcrypt}" + new BCryptPasswordEncoder(4).encode("secret");
+        String stronger = "{bcrypt}" + new BCryptPasswordEncoder(6).encode("secret");
+
+        // when & then
+        assertThat(encoder.upgradeEncoding(weaker)).isTrue();
+        assertThat(encoder.upgradeEncoding(stronger)).isFalse();
+    }
+
+    @Test
+    void shouldRecordFailedMatch() {
+        // given
+        String hash = encoder.encode("secret");
+
+        // when
+        boolean matches = encoder.matches("wrong", hash);
+
+        // then
+        assertThat(matches).isFalse();
+        assertThat(timerCount(ServiceMetrics.PASSWORD_MATCH, ServiceMetrics.FAILURE)).isEqualTo(1);
+    }
+
+    private long timerCount(String name, String outcome) {
+        return meterRegistry.get(name).tag("outcome", outcome).timer().count();
+    }
+}
@@ -0,0 +1,139 @@
+package org.example.security;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.example.monitoring.ServiceMetrics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+// testy ograniczonej puli hashowania hasel
+class PasswordHashingExecutorTest {
+
+    private final CountDownLatch started = new CountDownLatch(1);
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    private SimpleMeterRegistry meterRegistry;
+    private PasswordHashingProperties properties;
+    private PasswordHashingExecutor executor;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        properties = new PasswordHashingProperties();
+        properties.setThreads(1);
+        properties.setQueueCapacity(1);
+        properties.setTimeoutMs(5000);
+        executor = new PasswordHashingExecutor(blockingEncoder(), new ServiceMetrics(meterRegistry), properties);
+    }
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        executor.shutdown();
+    }
+
+    @Test
+    void shouldEncodeOnPoolThread() {
+        // given
+        release.countDown();
+
+        // when
+        String hash = executor.encode("secret");
+
+        // then
+        assertThat(hash).startsWith("hashed:secret@password-hashing-");
+    }
+
+    @Test
+    void shouldRejectWhenPoolAndQueueAreFull() throws Exception {
+        // given - jeden hash w toku i jeden w kolejce
+        CompletableFuture<String> running = CompletableFuture.supplyAsync(() -> executor.encode("first"));
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+        CompletableFuture<String> queued = CompletableFuture.supplyAsync(() -> executor.encode("second"));
+        waitUntilQueued();
+
+        // when & then
+        assertThatThrownBy(() -> executor.encode("third"))
+                .isInstanceOf(PasswordHashingBusyException.class)
+                .hasMessage("Too many registrations in progress, retry later");
+        assertThat(rejectedCount()).isEqualTo(1.0);
+
+        release.countDown();
+        assertThat(running.get(5, TimeUnit.SECONDS)).startsWith("hashed:first");
+        assertThat(queued.get(5, TimeUnit.SECONDS)).startsWith("hashed:second");
+    }
+
+    @Test
+    void shouldCheckPasswordsWithinSamePoolLimits() throws Exception {
+        // given - pula i kolejka zajete przez hashowanie
+        CompletableFuture<String> running = CompletableFuture.supplyAsync(() -> executor.encode("first"));
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+        CompletableFuture<String> queued = CompletableFuture.supplyAsync(() -> executor.encode("second"));
+        waitUntilQueued();
+
+        // when & then - sprawdzenie hasla tez czeka na miejsce w puli
+        assertThatThrownBy(() -> executor.matches("first", "hashed:first"))
+                .isInstanceOf(PasswordHashingBusyException.class);
+
+        release.countDown();
+        String hash = running.get(5, TimeUnit.SECONDS);
+        queued.get(5, TimeUnit.SECONDS);
+        assertThat(executor.matches("first", hash)).isTrue();
+        assertThat(executor.matches("other", hash)).isFalse();
+    }
+
+    @Test
+    void shouldGiveUpWhenHashDoesNotFinishInTime() {
+        // given
+        executor.shutdown();
+        properties.setTimeoutMs(50);
+        executor = new PasswordHashingExecutor(blockingEncoder(), new ServiceMetrics(meterRegistry), properties);
+
+        // when & then
+        assertThatThrownBy(() -> executor.encode("slow"))
+                .isInstanceOf(PasswordHashingBusyException.class);
+        assertThat(rejectedCount()).isEqualTo(1.0);
+    }
+
+    // koder czekajacy na release - pozwala trzymac watek puli zajety
+    private PasswordEncoder blockingEncoder() {
+        return new PasswordEncoder() {
+            @Override
+            public String encode(CharSequence rawPassword) {
+                started.countDown();
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return "hashed:" + rawPassword + "@" + Thread.currentThread().getName();
+            }
+
+            @Override
+            public boolean matches(CharSequence rawPassword, String encodedPassword) {
+                return encodedPassword.startsWith("hashed:" + rawPassword);
+            }
+        };
+    }
+
+    // drugie zgloszenie trafia do kolejki asynchronicznie - czekamy az pula je przyjmie
+    private void waitUntilQueued() throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (executor.queuedTasks() == 0 && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        assertThat(executor.queuedTasks()).isEqualTo(1);
+    }
+
+    private double rejectedCount() {
+        return meterRegistry.get(ServiceMetrics.REJECTED).tag("outcome", ServiceMetrics.HASHING_BUSY).counter().count();
+    }
+}
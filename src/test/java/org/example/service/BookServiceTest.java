@@ -3,14 +3,20 @@ package org.example.service;
 import org.example.factory.BookFactory;
 import org.example.model.AbstractBook;
 import org.example.model.PhysicalBook;
+import org.example.monitoring.ServiceMetrics;
+import org.example.repository.ArchivedBorrowingRepository;
 import org.example.repository.BookRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
 
+import java.time.Duration;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
@@ -31,6 +37,18 @@ class BookServiceTest {
     @Mock
     private BookFactory bookFactory;
 
+    @Mock
+    private ServiceMetrics serviceMetrics;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private ArchivedBorrowingRepository archivedBorrowingRepository;
+
+    @Spy
+    private CatalogEtagCache catalogEtagCache = new CatalogEtagCache(Duration.ofMinutes(1));
+
     @InjectMocks
     private BookService bookService;
 
@@ -125,7 +143,9 @@ class BookServiceTest {
         bookService.deleteBook(1L);
 
         // then
-        verify(bookRepository).deleteById(1L);
+        InOrder inOrder = inOrder(archivedBorrowingRepository, bookRepository);
+        inOrder.verify(archivedBorrowingRepository).deleteByBookId(1L);
+        inOrder.verify(bookRepository).deleteById(1L);
     }
 
     @Test
@@ -137,6 +157,7 @@ class BookServiceTest {
         assertThatThrownBy(() -> bookService.deleteBook(999L))
                 .isInstanceOf(IllegalArgumentException.class)
                 .hasMessage("Book not found: 999");
+        verifyNoInteractions(archivedBorrowingRepository);
     }
 
     @Test
@@ -194,6 +215,17 @@ class BookServiceTest {
         assertThat(availableBooks).hasSize(1);
     }
 
+    @Test
+    void shouldCountBooks() {
+        // given
+        when(bookRepository.count()).thenReturn(4L);
+        when(bookRepository.countDigitalBooks()).thenReturn(2L);
+
+        // when & then
+        assertThat(bookService.countAllBooks()).isEqualTo(4L);
+        assertThat(bookService.countDigitalBooks()).isEqualTo(2L);
+    }
+
     @Test
     void shouldCheckIfBookIsAvailable() {
         // given
@@ -205,4 +237,56 @@ class BookServiceTest {
         // then
         assertThat(isAvailable).isTrue();
     }
-}
\ No newline at end of file
+
+    @Test
+    void shouldBuildCatalogEtag() {
+        // given
+        BookRepository.CatalogState state = mock(BookRepository.CatalogState.class);
+        when(state.getBookCount()).thenReturn(3L);
+        when(state.getVersionSum()).thenReturn(5L);
+        when(state.getMaxId()).thenReturn(7L);
+        when(bookRepository.findCatalogState()).thenReturn(state);
+
+        // when
+        String etag = bookService.getCatalogEtag();
+
+        // then
+        assertThat(etag).isEqualTo("W/\"catalog-3-5-7\"");
+    }
+
+    @Test
+    void shouldServeCatalogEtagFromCacheUntilBookChanges() {
+        // given
+        BookRepository.CatalogState state = mock(BookRepository.CatalogState.class);
+        when(state.getBookCount()).thenReturn(3L, 4L);
+        when(state.getMaxId()).thenReturn(7L, 8L);
+        when(bookRepository.findCatalogState()).thenReturn(state);
+        String first = bookService.getCatalogEtag();
+
+        // when - powtorne zapytanie bez zmian, potem zapis ksiazki
+        String cached = bookService.getCatalogEtag();
+        catalogEtagCache.invalidate();
+        String reloaded = bookService.getCatalogEtag();
+
+        // then
+        assertThat(cached).isEqualTo(first).isEqualTo("W/\"catalog-3-0-7\"");
+        assertThat(reloaded).isEqualTo("W/\"catalog-4-0-8\"");
+        verify(bookRepository, times(2)).findCatalogState();
+    }
+
+    @Test
+    void shouldNotCacheEtagComputedDuringCatalogChange() {
+        // given - ksiazka zmienia sie w trakcie liczenia ETagu
+        String etag = catalogEtagCache.get(() -> {
+            catalogEtagCache.invalidate();
+            return "W/\"catalog-old\"";
+        });
+
+        // when
+        String next = catalogEtagCache.get(() -> "W/\"catalog-new\"");
+
+        // then
+        assertThat(etag).isEqualTo("W/\"catalog-old\"");
+        assertThat(next).isEqualTo("W/\"catalog-new\"");
+    }
+}
@@ -1,23 +1,44 @@
 package org.example.service;
 
+import org.example.availability.BookAvailabilityEvent;
+import org.example.dataTransfer.AdminBorrowingView;
+import org.example.dataTransfer.BorrowingHistoryPage;
+import org.example.dataTransfer.PageResponse;
 import org.example.model.*;
+import org.example.monitoring.ServiceMetrics;
+import org.example.repository.ArchivedBorrowingRepository;
 import org.example.repository.BookRepository;
+import org.example.repository.BorrowingBatchRepository;
 import org.example.repository.BorrowingRepository;
+import org.example.repository.ConstraintViolations;
+import org.hibernate.exception.ConstraintViolationException;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
-
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+
+import java.sql.SQLException;
 import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 // testy dla BorrowingService z uzyciem mockow
@@ -27,12 +48,33 @@ class BorrowingServiceTest {
     @Mock
     private BorrowingRepository borrowingRepository;
 
+    @Mock
+    private ArchivedBorrowingRepository archivedBorrowingRepository;
+
+    @Mock
+    private BorrowingBatchRepository borrowingBatchRepository;
+
     @Mock
     private BookRepository bookRepository;
 
     @Mock
     private UserService userService;
 
+    @Mock
+    private ReservationService reservationService;
+
+    @Mock
+    private OutboxService outboxService;
+
+    @Mock
+    private BorrowingSummaryService borrowingSummaryService;
+
+    @Mock
+    private ServiceMetrics serviceMetrics;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
     @InjectMocks
     private BorrowingService borrowingService;
 
@@ -61,10 +103,10 @@ class BorrowingServiceTest {
     @Test
     void shouldBorrowBook() {
         // given
+        testBook.setAvailableCopies(2); // stan po zabraniu egzemplarza
         when(userService.getCurrentUser()).thenReturn(testUser);
-        when(bookRepository.findById(1L)).thenReturn(Optional.of(testBook));
-        when(borrowingRepository.existsActiveBorrowingByUserAndBook(1L, 1L)).thenReturn(false);
-        when(borrowingRepository.save(any(Borrowing.class))).thenReturn(testBorrowing);
+        when(bookRepository.takeCopy(1L)).thenReturn(Optional.of(testBook));
+        when(borrowingRepository.saveAndFlush(any(Borrowing.class))).thenReturn(testBorrowing);
 
         // when
         Borrowing borrowing = borrowingService.borrowBook(1L);
@@ -73,15 +115,21 @@ class BorrowingServiceTest {
         assertThat(borrowing.getUser().getId()).isEqualTo(1L);
         assertThat(borrowing.getBook().getId()).isEqualTo(1L);
         assertThat(borrowing.getStatus()).isEqualTo(BorrowingStatus.BORROWED);
-        verify(bookRepository).save(testBook);
-        verify(borrowingRepository).save(any(Borrowing.class));
+        verify(bookRepository, never()).save(any(AbstractBook.class));
+        verify(borrowingRepository).saveAndFlush(any(Borrowing.class));
+        verify(borrowingRepository, never()).existsActiveBorrowingByUserAndBook(anyLong(), anyLong());
+        verify(eventPublisher).publishEvent(new BookAvailabilityEvent(1L, 2, 3));
+        verify(outboxService).recordBorrowingEvent(OutboxService.BORROWING_CREATED, testBorrowing);
+        verify(borrowingSummaryService).recordTransition(1L, null, BorrowingStatus.BORROWED);
+        verify(serviceMetrics).record(eq(ServiceMetrics.BORROW), eq(ServiceMetrics.SUCCESS), anyLong());
     }
 
     @Test
     void shouldThrowExceptionWhenBookNotFound() {
         // given
         when(userService.getCurrentUser()).thenReturn(testUser);
-        when(bookRepository.findById(999L)).thenReturn(Optional.empty());
+        when(bookRepository.takeCopy(999L)).thenReturn(Optional.empty());
+        when(bookRepository.existsById(999L)).thenReturn(false);
 
         // when & then
         assertThatThrownBy(() -> borrowingService.borrowBook(999L))
@@ -92,27 +140,48 @@ class BorrowingServiceTest {
     @Test
     void shouldThrowExceptionWhenBookNotAvailable() {
         // given
-        testBook.setAvailableCopies(0);
         when(userService.getCurrentUser()).thenReturn(testUser);
-        when(bookRepository.findById(1L)).thenReturn(Optional.of(testBook));
+        when(bookRepository.takeCopy(1L)).thenReturn(Optional.empty());
+        when(bookRepository.existsById(1L)).thenReturn(true);
 
         // when & then
         assertThatThrownBy(() -> borrowingService.borrowBook(1L))
                 .isInstanceOf(IllegalArgumentException.class)
                 .hasMessage("Book is not available");
+        verifyNoInteractions(outboxService);
+        verify(serviceMetrics).record(eq(ServiceMetrics.BORROW), eq(ServiceMetrics.NOT_AVAILABLE), anyLong());
     }
 
     @Test
     void shouldThrowExceptionWhenUserAlreadyBorrowedBook() {
         // given
         when(userService.getCurrentUser()).thenReturn(testUser);
-        when(bookRepository.findById(1L)).thenReturn(Optional.of(testBook));
-        when(borrowingRepository.existsActiveBorrowingByUserAndBook(1L, 1L)).thenReturn(true);
+        when(bookRepository.takeCopy(1L)).thenReturn(Optional.of(testBook));
+        // drugie aktywne wypozyczenie odrzuca indeks unikalny w bazie
+        when(borrowingRepository.saveAndFlush(any(Borrowing.class))).thenThrow(new DataIntegrityViolationException(
+                "duplicate key", new ConstraintViolationException("duplicate key", new SQLException(),
+                        ConstraintViolations.ACTIVE_BORROWING_PER_USER_BOOK)));
 
         // when & then
         assertThatThrownBy(() -> borrowingService.borrowBook(1L))
                 .isInstanceOf(IllegalArgumentException.class)
                 .hasMessage("You already have this book borrowed or reserved");
+        verifyNoInteractions(eventPublisher);
+        verify(serviceMetrics).record(eq(ServiceMetrics.BORROW), eq(ServiceMetrics.ALREADY_BORROWED), anyLong());
+    }
+
+    @Test
+    void shouldRethrowOtherIntegrityViolations() {
+        // given
+        DataIntegrityViolationException violation = new DataIntegrityViolationException(
+                "fk", new ConstraintViolationException("fk", new SQLException(), "fk_borrowings_book"));
+        when(userService.getCurrentUser()).thenReturn(testUser);
+        when(bookRepository.takeCopy(1L)).thenReturn(Optional.of(testBook));
+        when(borrowingRepository.saveAndFlush(any(Borrowing.class))).thenThrow(violation);
+
+        // when & then
+        assertThatThrownBy(() -> borrowingService.borrowBook(1L)).isSameAs(violation);
+        verify(serviceMetrics).record(eq(ServiceMetrics.BORROW), eq(ServiceMetrics.ERROR), anyLong());
     }
 
     @Test
@@ -128,7 +197,38 @@ class BorrowingServiceTest {
         // then
         assertThat(returnedBorrowing.getStatus()).isEqualTo(BorrowingStatus.RETURNED);
         assertThat(returnedBorrowing.getReturnDate()).isEqualTo(LocalDate.now());
-        verify(bookRepository).save(testBook);
+        verify(reservationService).releaseCopy(testBook);
+        verify(outboxService).recordBorrowingEvent(OutboxService.BORROWING_RETURNED, testBorrowing);
+        verify(borrowingSummaryService).recordTransition(1L, BorrowingStatus.BORROWED, BorrowingStatus.RETURNED);
+    }
+
+    @Test
+    void shouldNotReturnExpiredHold() {
+        // given - egzemplarz wygaslej rezerwacji zostal juz przekazany kolejnej osobie
+        testBorrowing.setStatus(BorrowingStatus.EXPIRED);
+        when(userService.getCurrentUser()).thenReturn(testUser);
+        when(borrowingRepository.findById(1L)).thenReturn(Optional.of(testBorrowing));
+
+        // when & then
+        assertThatThrownBy(() -> borrowingService.returnBook(1L))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Only borrowed books can be returned");
+        assertThat(testBorrowing.getStatus()).isEqualTo(BorrowingStatus.EXPIRED);
+        verifyNoInteractions(reservationService, borrowingSummaryService);
+    }
+
+    @Test
+    void shouldNotReturnUncollectedHold() {
+        // given
+        testBorrowing.setStatus(BorrowingStatus.RESERVED);
+        when(userService.getCurrentUser()).thenReturn(testUser);
+        when(borrowingRepository.findById(1L)).thenReturn(Optional.of(testBorrowing));
+
+        // when & then
+        assertThatThrownBy(() -> borrowingService.returnBook(1L))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Only borrowed books can be returned");
+        verifyNoInteractions(reservationService, borrowingSummaryService);
     }
 
     @Test
@@ -174,6 +274,104 @@ class BorrowingServiceTest {
         assertThat(history.get(0).getUser().getId()).isEqualTo(1L);
     }
 
+    @Test
+    void shouldReturnHistoryPageWithNextCursor() {
+        // given
+        Borrowing older = new Borrowing(testUser, testBook, BorrowingStatus.RETURNED,
+                LocalDate.of(2024, 2, 1), LocalDate.of(2024, 2, 15));
+        older.setId(2L);
+        Borrowing oldest = new Borrowing(testUser, testBook, BorrowingStatus.RETURNED,
+                LocalDate.of(2024, 1, 1), LocalDate.of(2024, 1, 15));
+        oldest.setId(3L);
+        when(userService.getCurrentUser()).thenReturn(testUser);
+        when(borrowingRepository.findHistoryPage(eq(1L), any(LocalDate.class), eq(Long.MAX_VALUE), any(Pageable.class)))
+                .thenReturn(List.of(testBorrowing, older, oldest));
+
+        // when
+        BorrowingHistoryPage page = borrowingService.getUserBorrowingHistoryPage(null, null, 2);
+
+        // then
+        assertThat(page.items()).containsExactly(testBorrowing, older);
+        assertThat(page.nextCursor()).isEqualTo("2024-02-01:2");
+        // o jeden wiersz wiecej niz rozmiar strony
+        verify(borrowingRepository).findHistoryPage(eq(1L), any(LocalDate.class), eq(Long.MAX_VALUE),
+                eq(PageRequest.of(0, 3)));
+    }
+
+    @Test
+    void shouldContinueHistoryFromCursorWithStatusFilter() {
+        // given
+        when(userService.getCurrentUser()).thenReturn(testUser);
+        when(borrowingRepository.findHistoryPageByStatus(1L, BorrowingStatus.RETURNED, LocalDate.of(2024, 2, 1), 2L,
+                PageRequest.of(0, 3)))
+                .thenReturn(List.of(testBorrowing));
+
+        // when
+        BorrowingHistoryPage page = borrowingService.getUserBorrowingHistoryPage(
+                BorrowingStatus.RETURNED, "2024-02-01:2", 2);
+
+        // then
+        assertThat(page.items()).containsExactly(testBorrowing);
+        assertThat(page.nextCursor()).isNull();
+    }
+
+    @Test
+    void shouldMergeArchivedBorrowingsIntoHistoryPage() {
+        // given - wypozyczenie z archiwum wypada miedzy dwoma z tabeli biezacej
+        Borrowing oldest = new Borrowing(testUser, testBook, BorrowingStatus.BORROWED,
+                LocalDate.of(2023, 1, 1), LocalDate.of(2023, 1, 15));
+        oldest.setId(3L);
+        Borrowing archivedSource = new Borrowing(testUser, testBook, BorrowingStatus.RETURNED,
+                LocalDate.of(2023, 6, 1), LocalDate.of(2023, 6, 15));
+        archivedSource.setId(2L);
+        archivedSource.setReturnDate(LocalDate.of(2023, 6, 10));
+        when(userService.getCurrentUser()).thenReturn(testUser);
+        when(borrowingRepository.findHistoryPage(eq(1L), any(LocalDate.class), eq(Long.MAX_VALUE), any(Pageable.class)))
+                .thenReturn(List.of(testBorrowing, oldest));
+        when(archivedBorrowingRepository.findHistoryPage(eq(1L), any(LocalDate.class), eq(Long.MAX_VALUE),
+                any(Pageable.class)))
+                .thenReturn(List.of(new ArchivedBorrowing(archivedSource)));
+
+        // when
+        BorrowingHistoryPage page = borrowingService.getUserBorrowingHistoryPage(null, null, 2);
+
+        // then
+        assertThat(page.items()).extracting(Borrowing::getId).containsExactly(1L, 2L);
+        assertThat(page.items().get(1).getReturnDate()).isEqualTo(LocalDate.of(2023, 6, 10));
+        assertThat(page.nextCursor()).isEqualTo("2023-06-01:2");
+    }
+
+    @Test
+    void shouldNotQueryArchiveForActiveStatusFilter() {
+        // given
+        when(userService.getCurrentUser()).thenReturn(testUser);
+        when(borrowingRepository.findHistoryPageByStatus(eq(1L), eq(BorrowingStatus.BORROWED), any(LocalDate.class),
+                anyLong(), any(Pageable.class)))
+                .thenReturn(List.of(testBorrowing));
+
+        // when
+        BorrowingHistoryPage page = borrowingService.getUserBorrowingHistoryPage(BorrowingStatus.BORROWED, null, 20);
+
+        // then
+        assertThat(page.items()).containsExactly(testBorrowing);
+        verifyNoInteractions(archivedBorrowingRepository);
+    }
+
+    @Test
+    void shouldRejectInvalidHistoryCursorAndPageSize() {
+        // when & then
+        assertThatThrownBy(() -> borrowingService.getUserBorrowingHistoryPage(null, "2024-02-01", 20))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Invalid cursor");
+        assertThatThrownBy(() -> borrowingService.getUserBorrowingHistoryPage(null, "yesterday:2", 20))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Invalid cursor");
+        assertThatThrownBy(() -> borrowingService.getUserBorrowingHistoryPage(null, null, 101))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Page size must be between 1 and 100");
+        verifyNoInteractions(borrowingRepository);
+    }
+
     @Test
     void shouldGetUserActiveBorrowings() {
         // given
@@ -191,31 +389,82 @@ class BorrowingServiceTest {
     }
 
     @Test
-    void shouldGetAllBorrowings() {
+    void shouldGetBorrowingsPageNewestFirstByDefault() {
         // given
-        List<Borrowing> borrowings = Arrays.asList(testBorrowing);
-        when(borrowingRepository.findAll()).thenReturn(borrowings);
+        AdminBorrowingView view = new AdminBorrowingView(1L, 1L, "testuser", 1L, "Test Book",
+                BorrowingStatus.BORROWED, LocalDate.of(2024, 3, 1), LocalDate.of(2024, 3, 15), null);
+        PageRequest expected = PageRequest.of(0, 20, Sort.by(Sort.Direction.DESC, "id"));
+        when(borrowingRepository.findAdminViews(BorrowingStatus.BORROWED, 1L, expected))
+                .thenReturn(new PageImpl<>(List.of(view), expected, 1));
 
         // when
-        List<Borrowing> allBorrowings = borrowingService.getAllBorrowings();
+        PageResponse<AdminBorrowingView> page = borrowingService.getBorrowingsPage(BorrowingStatus.BORROWED, 1L, 0, 20,
+                null);
 
         // then
-        assertThat(allBorrowings).hasSize(1);
+        assertThat(page.items()).containsExactly(view);
+        assertThat(page.totalElements()).isEqualTo(1);
+        assertThat(page.totalPages()).isEqualTo(1);
     }
 
     @Test
-    void shouldUpdateOverdueBorrowings() {
+    void shouldSortBorrowingsPageByRequestedFieldThenId() {
         // given
-        testBorrowing.setDueDate(LocalDate.now().minusDays(1));
-        List<Borrowing> overdueBorrowings = Arrays.asList(testBorrowing);
-        when(borrowingRepository.findOverdueBorrowings(any(LocalDate.class)))
-                .thenReturn(overdueBorrowings);
+        PageRequest expected = PageRequest.of(2, 10,
+                Sort.by(Sort.Direction.ASC, "dueDate").and(Sort.by(Sort.Direction.ASC, "id")));
+        when(borrowingRepository.findAdminViews(null, null, expected)).thenReturn(Page.empty(expected));
+
+        // when
+        PageResponse<AdminBorrowingView> page = borrowingService.getBorrowingsPage(null, null, 2, 10, "dueDate,asc");
 
+        // then
+        assertThat(page.items()).isEmpty();
+        assertThat(page.page()).isEqualTo(2);
+    }
+
+    @Test
+    void shouldRejectInvalidBorrowingsPageRequest() {
+        // when & then
+        assertThatThrownBy(() -> borrowingService.getBorrowingsPage(null, null, 0, 101, null))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Page size must be between 1 and 100");
+        assertThatThrownBy(() -> borrowingService.getBorrowingsPage(null, null, -1, 20, null))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Page must not be negative");
+        assertThatThrownBy(() -> borrowingService.getBorrowingsPage(null, null, 0, 20, "user.password"))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Unsupported sort: user.password");
+        assertThatThrownBy(() -> borrowingService.getBorrowingsPage(null, null, 0, 20, "dueDate,sideways"))
+                .isInstanceOf(IllegalArgumentException.class);
+        verifyNoInteractions(borrowingRepository);
+    }
+
+    @Test
+    void shouldExportBorrowingsThroughBatchRepository() {
+        // given
+        AdminBorrowingView view = new AdminBorrowingView(1L, 1L, "testuser", 1L, "Test Book",
+                BorrowingStatus.RETURNED, LocalDate.of(2024, 3, 1), LocalDate.of(2024, 3, 15), LocalDate.of(2024, 3, 10));
+        doAnswer(invocation -> {
+            invocation.<Consumer<AdminBorrowingView>>getArgument(0).accept(view);
+            return null;
+        }).when(borrowingBatchRepository).exportAdminViews(any());
+        List<AdminBorrowingView> exported = new ArrayList<>();
+
+        // when
+        borrowingService.exportBorrowings(exported::add);
+
+        // then
+        assertThat(exported).containsExactly(view);
+        verifyNoInteractions(borrowingRepository);
+    }
+
+    @Test
+    void shouldUpdateOverdueBorrowings() {
         // when
         borrowingService.updateOverdueBorrowings();
 
         // then
-        verify(borrowingRepository).save(testBorrowing);
-        assertThat(testBorrowing.getStatus()).isEqualTo(BorrowingStatus.OVERDUE);
+        verify(borrowingBatchRepository).markOverdue(any(LocalDate.class));
+        verify(borrowingRepository, never()).save(any(Borrowing.class));
     }
 }
\ No newline at end of file
@@ -0,0 +1,77 @@
+package org.example.service;
+
+import org.example.model.BorrowingStatus;
+import org.example.model.UserBorrowingSummary;
+import org.example.repository.UserBorrowingSummaryRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+// testy dla BorrowingSummaryService z uzyciem mockow
+@ExtendWith(MockitoExtension.class)
+class BorrowingSummaryServiceTest {
+
+    @Mock
+    private UserBorrowingSummaryRepository summaryRepository;
+
+    @InjectMocks
+    private BorrowingSummaryService borrowingSummaryService;
+
+    @Test
+    void shouldUpsertDeltaForReturn() {
+        // when
+        borrowingSummaryService.recordTransition(1L, BorrowingStatus.OVERDUE, BorrowingStatus.RETURNED);
+
+        // then
+        verify(summaryRepository).upsertDelta(eq(1L), eq(0L), eq(0L), eq(-1L), eq(1L), any(LocalDateTime.class));
+        verifyNoMoreInteractions(summaryRepository);
+    }
+
+    @Test
+    void shouldUpsertDeltaForNewBorrowing() {
+        // when
+        borrowingSummaryService.recordTransition(1L, null, BorrowingStatus.BORROWED);
+
+        // then - wiersz powstaje w tym samym zapytaniu, bez odczytu i bez osobnego INSERT
+        verify(summaryRepository).upsertDelta(eq(1L), eq(0L), eq(1L), eq(0L), eq(0L), any(LocalDateTime.class));
+        verifyNoMoreInteractions(summaryRepository);
+    }
+
+    @Test
+    void shouldReadSummaryByPrimaryKey() {
+        // given
+        UserBorrowingSummary summary = new UserBorrowingSummary(1L);
+        summary.setOverdueCount(1);
+        when(summaryRepository.findById(1L)).thenReturn(Optional.of(summary));
+
+        // when
+        UserBorrowingSummary result = borrowingSummaryService.getSummary(1L);
+
+        // then
+        assertThat(result.getOverdueCount()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldReturnEmptySummaryForUserWithoutBorrowings() {
+        // given
+        when(summaryRepository.findById(1L)).thenReturn(Optional.empty());
+
+        // when
+        UserBorrowingSummary result = borrowingSummaryService.getSummary(1L);
+
+        // then
+        assertThat(result.getUserId()).isEqualTo(1L);
+        assertThat(result.getBorrowedCount()).isZero();
+        assertThat(result.getNextDueDate()).isNull();
+    }
+}
@@ -0,0 +1,171 @@
+package org.example.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.example.model.Role;
+import org.example.model.User;
+import org.example.monitoring.ServiceMetrics;
+import org.example.repository.UserRepository;
+import org.example.security.BoundedUserCache;
+import org.example.security.LegacyBCryptUpgradeEncoder;
+import org.example.security.UserCacheProperties;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.DelegatingPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionStatus;
+
+import java.util.Map;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+// testy ladowania danych logowania z pamiecia podreczna
+@ExtendWith(MockitoExtension.class)
+class CustomUserDetailsServiceTest {
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private TransactionStatus transactionStatus;
+
+    private SimpleMeterRegistry meterRegistry;
+    private BoundedUserCache userCache;
+    private CustomUserDetailsService userDetailsService;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        ServiceMetrics serviceMetrics = new ServiceMetrics(meterRegistry);
+        userCache = new BoundedUserCache(new UserCacheProperties(), serviceMetrics);
+        userDetailsService = new CustomUserDetailsService(userRepository, userCache, transactionManager, serviceMetrics);
+    }
+
+    @Test
+    void shouldLoadUserOnceAndServeRepeatsFromCache() {
+        // given
+        when(transactionManager.getTransaction(any())).thenReturn(transactionStatus);
+        when(userRepository.findByUsername("reader"))
+                .thenReturn(Optional.of(new User("reader", "{bcrypt}hash", "reader@test.com", Role.ADMIN)));
+
+        // when
+        UserDetails first = userDetailsService.loadUserByUsername("reader");
+        UserDetails second = userDetailsService.loadUserByUsername("reader");
+
+        // then - trafienie w pamieci nie otwiera transakcji ani nie pyta bazy
+        assertThat(first.getAuthorities()).extracting("authority").containsExactly("ROLE_ADMIN");
+        assertThat(second.getPassword()).isEqualTo("{bcrypt}hash");
+        assertThat(second).isNotSameAs(first);
+        verify(userRepository, times(1)).findByUsername("reader");
+        verify(transactionManager, times(1)).getTransaction(any());
+    }
+
+    @Test
+    void shouldRejectRepeatedUnknownUsernameWithoutQuery() {
+        // given
+        when(transactionManager.getTransaction(any())).thenReturn(transactionStatus);
+        when(userRepository.findByUsername("bot")).thenReturn(Optional.empty());
+
+        // when & then
+        assertThatThrownBy(() -> userDetailsService.loadUserByUsername("bot"))
+                .isInstanceOf(UsernameNotFoundException.class);
+        assertThatThrownBy(() -> userDetailsService.loadUserByUsername("bot"))
+                .isInstanceOf(UsernameNotFoundException.class)
+                .hasMessage("User not found with username: bot");
+        verify(userRepository, times(1)).findByUsername("bot");
+    }
+
+    @Test
+    void shouldReloadUserAfterEviction() {
+        // given
+        when(transactionManager.getTransaction(any())).thenReturn(transactionStatus);
+        when(userRepository.findByUsername("reader"))
+                .thenReturn(Optional.of(new User("reader", "{bcrypt}old", "reader@test.com", Role.USER)))
+                .thenReturn(Optional.of(new User("reader", "{bcrypt}new", "reader@test.com", Role.USER)));
+        userDetailsService.loadUserByUsername("reader");
+
+        // when
+        userCache.removeUserFromCache("reader");
+        UserDetails reloaded = userDetailsService.loadUserByUsername("reader");
+
+        // then
+        assertThat(reloaded.getPassword()).isEqualTo("{bcrypt}new");
+        verify(userRepository, times(2)).findByUsername("reader");
+    }
+
+    @Test
+    void shouldReplaceOutdatedHashAndEvictCachedUser() {
+        // given
+        when(transactionManager.getTransaction(any())).thenReturn(transactionStatus);
+        when(userRepository.findByUsername("reader"))
+                .thenReturn(Optional.of(new User("reader", "$2a$10$legacy", "reader@test.com", Role.USER)));
+        when(userRepository.replacePassword("reader", "$2a$10$legacy", "{bcrypt}$2a$12$upgraded")).thenReturn(1);
+        UserDetails loaded = userDetailsService.loadUserByUsername("reader");
+
+        // when
+        UserDetails upgraded = userDetailsService.updatePassword(loaded, "{bcrypt}$2a$12$upgraded");
+
+        // then
+        assertThat(upgraded.getPassword()).isEqualTo("{bcrypt}$2a$12$upgraded");
+        assertThat(upgraded.getAuthorities()).isEqualTo(loaded.getAuthorities());
+        assertThat(userCache.getUserFromCache("reader")).isNull();
+        assertThat(upgradeCount(ServiceMetrics.SUCCESS)).isEqualTo(1.0);
+    }
+
+    @Test
+    void shouldKeepConcurrentlyChangedPassword() {
+        // given
+        when(transactionManager.getTransaction(any())).thenReturn(transactionStatus);
+        when(userRepository.findByUsername("reader"))
+                .thenReturn(Optional.of(new User("reader", "$2a$10$legacy", "reader@test.com", Role.USER)));
+        when(userRepository.replacePassword("reader", "$2a$10$legacy", "{bcrypt}$2a$12$upgraded")).thenReturn(0);
+        UserDetails loaded = userDetailsService.loadUserByUsername("reader");
+
+        // when
+        UserDetails result = userDetailsService.updatePassword(loaded, "{bcrypt}$2a$12$upgraded");
+
+        // then
+        assertThat(result.getPassword()).isEqualTo("$2a$10$legacy");
+        assertThat(upgradeCount(ServiceMetrics.FAILURE)).isEqualTo(1.0);
+    }
+
+    @Test
+    void shouldNotRewriteLegacyHashStrongerThanCurrentCost() {
+        // given - hash bez prefiksu o koszcie 5, biezacy koszt 4
+        when(transactionManager.getTransaction(any())).thenReturn(transactionStatus);
+        String legacy = new BCryptPasswordEncoder(5).encode("secret");
+        when(userRepository.findByUsername("reader"))
+                .thenReturn(Optional.of(new User("reader", legacy, "reader@test.com", Role.USER)));
+        PasswordEncoder bcrypt = new BCryptPasswordEncoder(4);
+        DelegatingPasswordEncoder delegating = new DelegatingPasswordEncoder("bcrypt", Map.of("bcrypt", bcrypt));
+        delegating.setDefaultPasswordEncoderForMatches(bcrypt);
+        DaoAuthenticationProvider provider = new DaoAuthenticationProvider(new LegacyBCryptUpgradeEncoder(delegating, 4));
+        provider.setUserDetailsService(userDetailsService);
+        provider.setUserDetailsPasswordService(userDetailsService);
+
+        // when
+        provider.authenticate(UsernamePasswordAuthenticationToken.unauthenticated("reader", "secret"));
+
+        // then - logowanie udane, hash w bazie bez zmian
+        verify(userRepository, never()).replacePassword(any(), any(), any());
+    }
+
+    private double upgradeCount(String outcome) {
+        return meterRegistry.get(ServiceMetrics.PASSWORD_UPGRADE).tag("outcome", outcome).counter().count();
+    }
+}
@@ -0,0 +1,238 @@
+package org.example.service;
+
+import org.example.availability.BookAvailabilityEvent;
+import org.example.model.*;
+import org.example.repository.BookRepository;
+import org.example.repository.BorrowingRepository;
+import org.example.repository.ReservationRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Pageable;
+
+import java.time.LocalDate;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+// testy dla ReservationService z uzyciem mockow
+@ExtendWith(MockitoExtension.class)
+class ReservationServiceTest {
+
+    @Mock
+    private ReservationRepository reservationRepository;
+
+    @Mock
+    private BorrowingRepository borrowingRepository;
+
+    @Mock
+    private BookRepository bookRepository;
+
+    @Mock
+    private UserService userService;
+
+    @Mock
+    private BorrowingSummaryService borrowingSummaryService;
+
+    @Mock
+    private OutboxService outboxService;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @InjectMocks
+    private ReservationService reservationService;
+
+    private User testUser;
+    private User waitingUser;
+    private AbstractBook testBook;
+
+    @BeforeEach
+    void setUp() {
+        testUser = new User("testuser", "password", "test@example.com", Role.USER);
+        testUser.setId(1L);
+
+        waitingUser = new User("waiting", "password", "waiting@example.com", Role.USER);
+        waitingUser.setId(2L);
+
+        testBook = new PhysicalBook("Test Book", "Test Author", 0, 1);
+        testBook.setId(1L);
+    }
+
+    @Test
+    void shouldReserveUnavailableBook() {
+        // given
+        when(userService.getCurrentUser()).thenReturn(testUser);
+        when(bookRepository.findByIdForUpdate(1L)).thenReturn(Optional.of(testBook));
+        when(reservationRepository.existsByUserIdAndBookIdAndStatus(1L, 1L, ReservationStatus.WAITING)).thenReturn(false);
+        when(reservationRepository.save(any(Reservation.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        // when
+        Reservation reservation = reservationService.reserveBook(1L);
+
+        // then
+        assertThat(reservation.getStatus()).isEqualTo(ReservationStatus.WAITING);
+        assertThat(reservation.getUser()).isEqualTo(testUser);
+        assertThat(reservation.getBook()).isEqualTo(testBook);
+    }
+
+    @Test
+    void shouldNotReserveAvailableBook() {
+        // given
+        testBook.setAvailableCopies(1);
+        when(userService.getCurrentUser()).thenReturn(testUser);
+        when(bookRepository.findByIdForUpdate(1L)).thenReturn(Optional.of(testBook));
+
+        // when & then
+        assertThatThrownBy(() -> reservationService.reserveBook(1L))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Book is available, borrow it instead");
+        verify(reservationRepository, never()).save(any(Reservation.class));
+    }
+
+    @Test
+    void shouldNotReserveTwice() {
+        // given
+        when(userService.getCurrentUser()).thenReturn(testUser);
+        when(bookRepository.findByIdForUpdate(1L)).thenReturn(Optional.of(testBook));
+        when(reservationRepository.existsByUserIdAndBookIdAndStatus(1L, 1L, ReservationStatus.WAITING)).thenReturn(true);
+
+        // when & then
+        assertThatThrownBy(() -> reservationService.reserveBook(1L))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("You are already waiting for this book");
+    }
+
+    @Test
+    void shouldHandReleasedCopyToHeadOfQueue() {
+        // given
+        Reservation head = new Reservation(waitingUser, testBook);
+        when(reservationRepository.findNextWaiting(eq(1L), any(Pageable.class))).thenReturn(List.of(head));
+        when(borrowingRepository.save(any(Borrowing.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        // when
+        Optional<Borrowing> hold = reservationService.releaseCopy(testBook);
+
+        // then
+        assertThat(head.getStatus()).isEqualTo(ReservationStatus.FULFILLED);
+        assertThat(hold).isPresent();
+        assertThat(hold.get().getUser()).isEqualTo(waitingUser);
+        assertThat(hold.get().getStatus()).isEqualTo(BorrowingStatus.RESERVED);
+        assertThat(hold.get().getDueDate()).isEqualTo(LocalDate.now().plusDays(ReservationService.PICKUP_DAYS));
+        assertThat(testBook.getAvailableCopies()).isZero();
+        verify(bookRepository, never()).putBackCopy(any(AbstractBook.class));
+        verify(eventPublisher, never()).publishEvent(any(BookAvailabilityEvent.class));
+        verify(borrowingSummaryService).recordTransition(2L, null, BorrowingStatus.RESERVED);
+        verify(outboxService).recordBorrowingEvent(OutboxService.BORROWING_HELD, hold.get());
+    }
+
+    @Test
+    void shouldReturnCopyToShelfWhenQueueEmpty() {
+        // given
+        when(reservationRepository.findNextWaiting(eq(1L), any(Pageable.class))).thenReturn(List.of());
+        when(bookRepository.putBackCopy(testBook)).thenAnswer(invocation -> {
+            testBook.setAvailableCopies(1); // stan po oddaniu egzemplarza
+            return true;
+        });
+
+        // when
+        Optional<Borrowing> hold = reservationService.releaseCopy(testBook);
+
+        // then
+        assertThat(hold).isEmpty();
+        verify(bookRepository).putBackCopy(testBook);
+        verify(bookRepository, never()).save(any(AbstractBook.class));
+        verify(eventPublisher).publishEvent(new BookAvailabilityEvent(1L, 1, 1));
+    }
+
+    @Test
+    void shouldHandCopyToReservationCommittedDuringRelease() {
+        // given - kolejka pusta przy pierwszym odczycie, a po oddaniu egzemplarza jest w niej rownolegly wpis
+        Reservation late = new Reservation(waitingUser, testBook);
+        when(reservationRepository.findNextWaiting(eq(1L), any(Pageable.class)))
+                .thenReturn(List.of())
+                .thenReturn(List.of(late));
+        when(bookRepository.putBackCopy(testBook)).thenReturn(true);
+        when(bookRepository.takeCopy(1L)).thenReturn(Optional.of(testBook));
+        when(borrowingRepository.save(any(Borrowing.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        // when
+        Optional<Borrowing> hold = reservationService.releaseCopy(testBook);
+
+        // then
+        assertThat(hold).isPresent();
+        assertThat(hold.get().getUser()).isEqualTo(waitingUser);
+        assertThat(late.getStatus()).isEqualTo(ReservationStatus.FULFILLED);
+        verify(eventPublisher, never()).publishEvent(any(BookAvailabilityEvent.class));
+    }
+
+    @Test
+    void shouldPickUpReservedCopy() {
+        // given
+        Borrowing hold = new Borrowing(testUser, testBook, BorrowingStatus.RESERVED,
+                LocalDate.now(), LocalDate.now().plusDays(ReservationService.PICKUP_DAYS));
+        when(userService.getCurrentUser()).thenReturn(testUser);
+        when(borrowingRepository.findById(5L)).thenReturn(Optional.of(hold));
+        when(borrowingRepository.save(hold)).thenReturn(hold);
+
+        // when
+        Borrowing borrowing = reservationService.pickUp(5L);
+
+        // then
+        assertThat(borrowing.getStatus()).isEqualTo(BorrowingStatus.BORROWED);
+        assertThat(borrowing.getDueDate()).isEqualTo(LocalDate.now().plusDays(14));
+        verify(borrowingSummaryService).recordTransition(1L, BorrowingStatus.RESERVED, BorrowingStatus.BORROWED);
+        verify(outboxService).recordBorrowingEvent(OutboxService.BORROWING_PICKED_UP, hold);
+    }
+
+    @Test
+    void shouldNotPickUpExpiredHold() {
+        // given
+        Borrowing hold = new Borrowing(testUser, testBook, BorrowingStatus.RESERVED,
+                LocalDate.now().minusDays(5), LocalDate.now().minusDays(1));
+        when(userService.getCurrentUser()).thenReturn(testUser);
+        when(borrowingRepository.findById(5L)).thenReturn(Optional.of(hold));
+
+        // when & then
+        assertThatThrownBy(() -> reservationService.pickUp(5L))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Reservation has expired");
+    }
+
+    @Test
+    void shouldReleaseExpiredHoldsToNextInQueue() {
+        // given
+        Borrowing expiredHold = new Borrowing(testUser, testBook, BorrowingStatus.RESERVED,
+                LocalDate.now().minusDays(5), LocalDate.now().minusDays(1));
+        Reservation next = new Reservation(waitingUser, testBook);
+        when(borrowingRepository.findExpiredHolds(LocalDate.now())).thenReturn(List.of(expiredHold));
+        when(reservationRepository.findNextWaiting(eq(1L), any(Pageable.class))).thenReturn(List.of(next));
+        when(reservationRepository.findBooksWithWaitingReservationsAndFreeCopies()).thenReturn(Collections.emptyList());
+        when(borrowingRepository.save(any(Borrowing.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        // when
+        int released = reservationService.releaseExpiredHolds();
+
+        // then
+        assertThat(released).isEqualTo(1);
+        assertThat(expiredHold.getStatus()).isEqualTo(BorrowingStatus.EXPIRED);
+        verify(borrowingSummaryService).recordTransition(1L, BorrowingStatus.RESERVED, BorrowingStatus.EXPIRED);
+        verify(outboxService).recordBorrowingEvent(OutboxService.BORROWING_EXPIRED, expiredHold);
+        assertThat(next.getStatus()).isEqualTo(ReservationStatus.FULFILLED);
+        ArgumentCaptor<Borrowing> saved = ArgumentCaptor.forClass(Borrowing.class);
+        verify(borrowingRepository, times(2)).save(saved.capture());
+        assertThat(saved.getAllValues().get(1).getUser()).isEqualTo(waitingUser);
+        verify(outboxService).recordBorrowingEvent(OutboxService.BORROWING_HELD, saved.getAllValues().get(1));
+    }
+}
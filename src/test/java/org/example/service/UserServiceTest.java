@@ -1,27 +1,46 @@
 package org.example.service;
 
+import org.example.config.ReadYourWritesTracker;
+import org.example.dataTransfer.AdminUserView;
+import org.example.dataTransfer.PageResponse;
 import org.example.model.Role;
 import org.example.model.User;
+import org.example.monitoring.ServiceMetrics;
+import org.example.repository.ConstraintViolations;
+import org.example.repository.UserBatchRepository;
 import org.example.repository.UserRepository;
+import org.example.security.PasswordHashingBusyException;
+import org.example.security.PasswordHashingExecutor;
+import org.hibernate.exception.ConstraintViolationException;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContext;
 import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.core.userdetails.UserCache;
+import org.springframework.transaction.PlatformTransactionManager;
 
-import java.util.Arrays;
+import java.sql.SQLException;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.Mockito.*;
 
 // testy dla UserService z uzyciem mockow
@@ -32,7 +51,22 @@ class UserServiceTest {
     private UserRepository userRepository;
 
     @Mock
-    private PasswordEncoder passwordEncoder;
+    private UserBatchRepository userBatchRepository;
+
+    @Mock
+    private ReadYourWritesTracker readYourWritesTracker;
+
+    @Mock
+    private ServiceMetrics serviceMetrics;
+
+    @Mock
+    private UserCache userCache;
+
+    @Mock
+    private PasswordHashingExecutor passwordHashingExecutor;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
 
     @Mock
     private SecurityContext securityContext;
@@ -56,10 +90,8 @@ class UserServiceTest {
     @Test
     void shouldRegisterNewUser() {
         // given
-        when(userRepository.existsByUsername("testuser")).thenReturn(false);
-        when(userRepository.existsByEmail("test@example.com")).thenReturn(false);
-        when(passwordEncoder.encode("password123")).thenReturn("encodedPassword");
-        when(userRepository.save(any(User.class))).thenReturn(testUser);
+        when(passwordHashingExecutor.encode("password123")).thenReturn("encodedPassword");
+        when(userRepository.saveAndFlush(any(User.class))).thenReturn(testUser);
 
         // when
         User registeredUser = userService.registerUser(
@@ -70,26 +102,34 @@ class UserServiceTest {
         assertThat(registeredUser.getUsername()).isEqualTo("testuser");
         assertThat(registeredUser.getEmail()).isEqualTo("test@example.com");
         assertThat(registeredUser.getRole()).isEqualTo(Role.USER);
-        verify(userRepository).save(any(User.class));
+        verify(userRepository).saveAndFlush(argThat(user -> "encodedPassword".equals(user.getPassword())));
+        verify(userRepository, never()).existsByUsername(anyString());
+        verify(userRepository, never()).existsByEmail(anyString());
+        verify(readYourWritesTracker).recordWrite("testuser");
+        verify(userCache).removeUserFromCache("testuser");
     }
 
     @Test
     void shouldThrowExceptionWhenUsernameExists() {
         // given
-        when(userRepository.existsByUsername("testuser")).thenReturn(true);
+        when(passwordHashingExecutor.encode("password123")).thenReturn("encodedPassword");
+        when(userRepository.saveAndFlush(any(User.class)))
+                .thenThrow(uniqueViolation(ConstraintViolations.USER_USERNAME));
 
         // when & then
         assertThatThrownBy(() -> userService.registerUser(
                 "testuser", "password123", "test@example.com", "Test", "User"
         )).isInstanceOf(IllegalArgumentException.class)
           .hasMessage("Username already exists");
+        verify(readYourWritesTracker, never()).recordWrite(anyString());
     }
 
     @Test
     void shouldThrowExceptionWhenEmailExists() {
         // given
-        when(userRepository.existsByUsername("testuser")).thenReturn(false);
-        when(userRepository.existsByEmail("test@example.com")).thenReturn(true);
+        when(passwordHashingExecutor.encode("password123")).thenReturn("encodedPassword");
+        when(userRepository.saveAndFlush(any(User.class)))
+                .thenThrow(uniqueViolation(ConstraintViolations.USER_EMAIL));
 
         // when & then
         assertThatThrownBy(() -> userService.registerUser(
@@ -98,6 +138,32 @@ class UserServiceTest {
           .hasMessage("Email already exists");
     }
 
+    @Test
+    void shouldRethrowUnrelatedIntegrityViolationOnRegistration() {
+        // given
+        DataIntegrityViolationException violation = uniqueViolation("users_role_check");
+        when(passwordHashingExecutor.encode("password123")).thenReturn("encodedPassword");
+        when(userRepository.saveAndFlush(any(User.class))).thenThrow(violation);
+
+        // when & then
+        assertThatThrownBy(() -> userService.registerUser(
+                "testuser", "password123", "test@example.com", "Test", "User"
+        )).isSameAs(violation);
+    }
+
+    @Test
+    void shouldNotTouchDatabaseWhenHashingIsBusy() {
+        // given
+        when(passwordHashingExecutor.encode("password123"))
+                .thenThrow(new PasswordHashingBusyException("Too many registrations in progress, retry later"));
+
+        // when & then
+        assertThatThrownBy(() -> userService.registerUser(
+                "testuser", "password123", "test@example.com", "Test", "User"
+        )).isInstanceOf(PasswordHashingBusyException.class);
+        verifyNoInteractions(userRepository);
+    }
+
     @Test
     void shouldFindUserByUsername() {
         // given
@@ -112,17 +178,61 @@ class UserServiceTest {
     }
 
     @Test
-    void shouldReturnAllUsers() {
+    void shouldFindUsersPageByRoleAndEscapedPrefix() {
         // given
-        List<User> users = Arrays.asList(testUser);
-        when(userRepository.findAll()).thenReturn(users);
+        AdminUserView view = new AdminUserView(1L, "test_user", "test@example.com", "Test", "User", Role.USER);
+        PageRequest expected = PageRequest.of(0, 50,
+                Sort.by(Sort.Direction.DESC, "username").and(Sort.by(Sort.Direction.DESC, "id")));
+        when(userRepository.findAdminViews(Role.USER, "test\\_%", expected))
+                .thenReturn(new PageImpl<>(List.of(view), expected, 1));
 
         // when
-        List<User> allUsers = userService.findAllUsers();
+        PageResponse<AdminUserView> page = userService.findUsersPage(Role.USER, " test_ ", 0, 50, "username,desc");
 
         // then
-        assertThat(allUsers).hasSize(1);
-        assertThat(allUsers.get(0).getUsername()).isEqualTo("testuser");
+        assertThat(page.items()).containsExactly(view);
+        assertThat(page.size()).isEqualTo(50);
+    }
+
+    @Test
+    void shouldFindUsersPageWithoutFiltersSortedById() {
+        // given
+        PageRequest expected = PageRequest.of(1, 20, Sort.by("id"));
+        when(userRepository.findAdminViews(null, null, expected)).thenReturn(Page.empty(expected));
+
+        // when
+        PageResponse<AdminUserView> page = userService.findUsersPage(null, "  ", 1, 20, null);
+
+        // then
+        assertThat(page.items()).isEmpty();
+        assertThat(page.totalElements()).isZero();
+    }
+
+    @Test
+    void shouldRejectSortByUnlistedField() {
+        // when & then
+        assertThatThrownBy(() -> userService.findUsersPage(null, null, 0, 20, "password"))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Unsupported sort: password");
+        verifyNoInteractions(userRepository);
+    }
+
+    @Test
+    void shouldExportUsersThroughBatchRepository() {
+        // given
+        AdminUserView view = new AdminUserView(1L, "testuser", "test@example.com", "Test", "User", Role.USER);
+        doAnswer(invocation -> {
+            invocation.<Consumer<AdminUserView>>getArgument(0).accept(view);
+            return null;
+        }).when(userBatchRepository).exportAdminViews(any());
+        List<AdminUserView> exported = new ArrayList<>();
+
+        // when
+        userService.exportUsers(exported::add);
+
+        // then
+        assertThat(exported).containsExactly(view);
+        verifyNoInteractions(userRepository);
     }
 
     @Test
@@ -152,4 +262,92 @@ class UserServiceTest {
                 .isInstanceOf(IllegalStateException.class)
                 .hasMessage("No authenticated user found");
     }
-}
\ No newline at end of file
+
+    @Test
+    void shouldChangeRoleAndEvictCachedCredentials() {
+        // given
+        when(userRepository.findById(1L)).thenReturn(Optional.of(testUser));
+
+        // when
+        User updated = userService.changeRole(1L, Role.ADMIN);
+
+        // then
+        assertThat(updated.getRole()).isEqualTo(Role.ADMIN);
+        verify(userCache).removeUserFromCache("testuser");
+    }
+
+    @Test
+    void shouldRejectRoleChangeForUnknownUser() {
+        // given
+        when(userRepository.findById(99L)).thenReturn(Optional.empty());
+
+        // when & then
+        assertThatThrownBy(() -> userService.changeRole(99L, Role.ADMIN))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("User not found");
+        verifyNoInteractions(userCache);
+    }
+
+    @Test
+    void shouldChangePasswordAndEvictCachedCredentials() {
+        // given
+        authenticateAs("testuser");
+        when(passwordHashingExecutor.matches("old-password", "encodedPassword")).thenReturn(true);
+        when(passwordHashingExecutor.encode("new-password")).thenReturn("newEncodedPassword");
+        when(userRepository.replacePassword("testuser", "encodedPassword", "newEncodedPassword")).thenReturn(1);
+
+        // when
+        userService.changePassword("old-password", "new-password");
+
+        // then - hashe policzone w puli zanim otworzono transakcje zapisu
+        InOrder order = inOrder(passwordHashingExecutor, transactionManager, userRepository);
+        order.verify(passwordHashingExecutor).matches("old-password", "encodedPassword");
+        order.verify(passwordHashingExecutor).encode("new-password");
+        order.verify(transactionManager).getTransaction(any());
+        order.verify(userRepository).replacePassword("testuser", "encodedPassword", "newEncodedPassword");
+        verify(userCache).removeUserFromCache("testuser");
+    }
+
+    @Test
+    void shouldRejectPasswordChangeWithWrongCurrentPassword() {
+        // given
+        authenticateAs("testuser");
+        when(passwordHashingExecutor.matches("wrong", "encodedPassword")).thenReturn(false);
+
+        // when & then
+        assertThatThrownBy(() -> userService.changePassword("wrong", "new-password"))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Current password is incorrect");
+        verify(passwordHashingExecutor, never()).encode(anyString());
+        verifyNoInteractions(transactionManager, userCache);
+    }
+
+    @Test
+    void shouldRejectPasswordChangeWhenPasswordChangedConcurrently() {
+        // given - miedzy sprawdzeniem a zapisem haslo zmienilo sie w innym zadaniu
+        authenticateAs("testuser");
+        when(passwordHashingExecutor.matches("old-password", "encodedPassword")).thenReturn(true);
+        when(passwordHashingExecutor.encode("new-password")).thenReturn("newEncodedPassword");
+        when(userRepository.replacePassword("testuser", "encodedPassword", "newEncodedPassword")).thenReturn(0);
+
+        // when & then
+        assertThatThrownBy(() -> userService.changePassword("old-password", "new-password"))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Current password is incorrect");
+        verifyNoInteractions(userCache);
+    }
+
+    private void authenticateAs(String username) {
+        SecurityContextHolder.setContext(securityContext);
+        when(securityContext.getAuthentication()).thenReturn(authentication);
+        when(authentication.isAuthenticated()).thenReturn(true);
+        when(authentication.getName()).thenReturn(username);
+        when(userRepository.findByUsername(username)).thenReturn(Optional.of(testUser));
+    }
+
+    // naruszenie ograniczenia tak, jak zglasza je Hibernate przy flush
+    private static DataIntegrityViolationException uniqueViolation(String constraintName) {
+        return new DataIntegrityViolationException("duplicate",
+                new ConstraintViolationException("duplicate", new SQLException("duplicate"), constraintName));
+    }
+}
@@ -0,0 +1,5 @@
+-- odpowiednik indeksu czesciowego uq_borrowings_active_user_book z V8 dla schematu H2 tworzonego przez Hibernate
+-- H2 nie ma indeksow z WHERE: kolumna wyliczana jest TRUE tylko dla aktywnych wypozyczen, a NULL-e w indeksie
+-- unikalnym sie nie powtarzaja, wiec - tak jak w PostgreSQL - ograniczenie dotyczy tylko RESERVED i BORROWED
+ALTER TABLE borrowings ADD COLUMN active_user_book BOOLEAN GENERATED ALWAYS AS (CASE WHEN status IN ('RESERVED', 'BORROWED') THEN TRUE END);
+CREATE UNIQUE INDEX uq_borrowings_active_user_book ON borrowings(user_id, book_id, active_user_book);